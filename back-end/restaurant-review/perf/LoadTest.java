@@ -0,0 +1,95 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Простой генератор нагрузки для сравнения режимов выполнения запросов.
+ * Запуск: java LoadTest.java <baseUrl> <concurrency> <durationSeconds> <path>...
+ * Каждый из concurrency клиентов в цикле выполняет GET-запросы к переданным путям
+ * до истечения времени теста. В конце выводятся пропускная способность и перцентили задержки.
+ */
+public class LoadTest {
+    public static void main(String[] args) throws Exception {
+        if (args.length < 4) {
+            System.err.println("Usage: java LoadTest.java <baseUrl> <concurrency> <durationSeconds> <path>...");
+            System.exit(1);
+        }
+        String baseUrl = args[0];
+        int concurrency = Integer.parseInt(args[1]);
+        Duration duration = Duration.ofSeconds(Long.parseLong(args[2]));
+        List<URI> uris = Arrays.stream(args, 3, args.length).map(path -> URI.create(baseUrl + path)).toList();
+
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        AtomicLong errors = new AtomicLong();
+        List<Latencies> latenciesPerWorker = new ArrayList<>();
+        long deadline = System.nanoTime() + duration.toNanos();
+
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int worker = 0; worker < concurrency; worker++) {
+                Latencies latencies = new Latencies();
+                latenciesPerWorker.add(latencies);
+                int offset = worker;
+                workers.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        URI uri = uris.get((offset + latencies.size) % uris.size());
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(HttpRequest.newBuilder(uri).GET().build(),
+                                    HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() >= 400) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        latencies.add(System.nanoTime() - start);
+                    }
+                    return null;
+                });
+            }
+        }
+
+        long[] all = latenciesPerWorker.stream()
+                .flatMapToLong(latencies -> Arrays.stream(latencies.values, 0, latencies.size))
+                .sorted()
+                .toArray();
+        double seconds = duration.toMillis() / 1000.0;
+        System.out.printf("requests=%d errors=%d throughput=%.1f req/s p50=%.1f ms p95=%.1f ms p99=%.1f ms%n",
+                all.length, errors.get(), all.length / seconds,
+                percentile(all, 0.50), percentile(all, 0.95), percentile(all, 0.99));
+    }
+
+    /**
+     * Задержки запросов одного клиента в наносекундах.
+     */
+    private static final class Latencies {
+        private long[] values = new long[1024];
+        private int size;
+
+        private void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1);
+        return sorted[Math.max(index, 0)] / 1_000_000.0;
+    }
+}
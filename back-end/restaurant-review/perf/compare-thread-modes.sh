@@ -0,0 +1,47 @@
+#!/usr/bin/env bash
+# Сравнение пропускной способности и задержек при обработке запросов
+# на пуле платформенных потоков Tomcat и на виртуальных потоках.
+#
+# Требуется запущенный PostgreSQL из application.properties с данными.
+# Использование: perf/compare-thread-modes.sh [concurrency] [durationSeconds] [tomcatMaxThreads]
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+CONCURRENCY=${1:-400}
+DURATION=${2:-30}
+TOMCAT_MAX_THREADS=${3:-200}
+PORT=${PORT:-8080}
+BASE_URL="http://localhost:${PORT}"
+PATHS=(
+  "/api/restaurants?sortBy=avgRating&sortOrder=desc"
+  "/api/restaurants/popular?limit=3"
+  "/api/restaurants/1"
+  "/api/reviews/restaurant/1?limit=20"
+)
+
+./mvnw -B -q package -DskipTests
+JAR=$(ls target/restaurant-review-*.jar | grep -v plain | head -n 1)
+
+run_mode() {
+  local mode=$1 virtual=$2
+  java -jar "$JAR" --server.port="$PORT" \
+    --spring.threads.virtual.enabled="$virtual" \
+    --server.tomcat.threads.max="$TOMCAT_MAX_THREADS" \
+    --spring.jpa.properties.hibernate.show_sql=false > "target/load-${mode}.log" 2>&1 &
+  local pid=$!
+  trap 'kill $pid 2>/dev/null; wait $pid 2>/dev/null || true' RETURN
+
+  until curl -sf "${BASE_URL}/api/restaurants" > /dev/null; do
+    sleep 0.5
+  done
+
+  # Прогрев JIT перед измерением
+  java perf/LoadTest.java "$BASE_URL" "$CONCURRENCY" 10 "${PATHS[@]}" > /dev/null
+  printf '%-9s ' "$mode"
+  java perf/LoadTest.java "$BASE_URL" "$CONCURRENCY" "$DURATION" "${PATHS[@]}"
+}
+
+echo "concurrency=${CONCURRENCY} duration=${DURATION}s tomcat.threads.max=${TOMCAT_MAX_THREADS}"
+run_mode platform false
+run_mode virtual true
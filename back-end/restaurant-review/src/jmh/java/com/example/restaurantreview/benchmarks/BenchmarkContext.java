@@ -0,0 +1,144 @@
+package com.example.restaurantreview.benchmarks;
+
+import com.example.restaurantreview.RestaurantReviewApplication;
+import com.example.restaurantreview.services.CatalogFacetCounters;
+import com.example.restaurantreview.services.PopularityLeaderboard;
+import com.example.restaurantreview.services.RestaurantGeoIndex;
+import com.example.restaurantreview.services.RestaurantSearchIndex;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Общее состояние бенчмарков: контекст Spring поверх встроенной базы H2,
+ * заполненной ресторанами и отзывами в количестве, заданном параметрами.
+ * Размер данных меняется из командной строки, например {@code -p restaurants=10000}.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkContext {
+    private static final String[] CUISINES = {"China", "France", "Italy", "Japan", "Greece", "Mexico"};
+    private static final int BATCH_SIZE = 1000;
+    /**
+     * Центр города, вокруг которого расположены рестораны.
+     */
+    static final double CITY_LATITUDE = 50.45;
+    static final double CITY_LONGITUDE = 30.52;
+
+    @Param({"100", "1000"})
+    public int restaurants;
+
+    @Param({"10", "100"})
+    public int reviewsPerRestaurant;
+
+    private ConfigurableApplicationContext context;
+
+    /**
+     * Запускает приложение поверх встроенной базы и заполняет ее данными.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(RestaurantReviewApplication.class)
+                .web(WebApplicationType.NONE)
+                // Аргументы командной строки имеют приоритет над application.properties
+                .run("--spring.datasource.url=jdbc:h2:mem:benchmarks;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--upload.directory=${java.io.tmpdir}/restaurant-review-benchmarks");
+        seed(context.getBean(JdbcTemplate.class));
+        context.getBean(PopularityLeaderboard.class).rebuild();
+        context.getBean(RestaurantSearchIndex.class).rebuild();
+        context.getBean(RestaurantGeoIndex.class).rebuild();
+        context.getBean(CatalogFacetCounters.class).rebuild();
+    }
+
+    /**
+     * Останавливает приложение.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * Возвращает бин из контекста приложения.
+     *
+     * @param type тип бина
+     * @param <T>  тип бина
+     * @return бин
+     */
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    /**
+     * Возвращает идентификатор случайного ресторана.
+     *
+     * @param random генератор случайных чисел
+     * @return идентификатор ресторана
+     */
+    public int randomRestaurantId(Random random) {
+        return 1 + random.nextInt(restaurants);
+    }
+
+    /**
+     * Заполняет базу ресторанами и отзывами пакетными вставками.
+     * Агрегаты отзывов ресторанов заполняются в соответствии с вставленными отзывами.
+     */
+    private void seed(JdbcTemplate jdbcTemplate) {
+        Random random = new Random(42);
+        // Отдельный генератор для координат, чтобы не менять остальные данные
+        Random coordinates = new Random(43);
+        List<Object[]> restaurantRows = new ArrayList<>();
+        List<Object[]> reviewRows = new ArrayList<>();
+        LocalDateTime start = LocalDateTime.now().minusYears(1);
+
+        for (int restaurant = 1; restaurant <= restaurants; restaurant++) {
+            long ratingSum = 0;
+            int[] ratingCounts = new int[5];
+            for (int review = 0; review < reviewsPerRestaurant; review++) {
+                int rating = 1 + random.nextInt(5);
+                ratingSum += rating;
+                ratingCounts[rating - 1]++;
+                reviewRows.add(new Object[]{"Review text " + review + " for restaurant " + restaurant, rating,
+                        Timestamp.valueOf(start.plusMinutes(random.nextInt(525_600))), restaurant,
+                        "Author " + review, "author" + review + "@example.com"});
+            }
+            double avgRating = reviewsPerRestaurant == 0 ? 0 : (double) ratingSum / reviewsPerRestaurant;
+            restaurantRows.add(new Object[]{"Restaurant " + restaurant, "Description of restaurant " + restaurant,
+                    avgRating, reviewsPerRestaurant, ratingSum, ratingCounts[0], ratingCounts[1], ratingCounts[2],
+                    ratingCounts[3], ratingCounts[4], "Location " + restaurant,
+                    CITY_LATITUDE + coordinates.nextGaussian() * 0.1,
+                    CITY_LONGITUDE + coordinates.nextGaussian() * 0.15,
+                    CUISINES[restaurant % CUISINES.length], "$$", "photo.jpg"});
+        }
+
+        batchInsert(jdbcTemplate, "INSERT INTO restaurant (name, description, avg_rating, review_count, rating_sum, "
+                + "rating_1_count, rating_2_count, rating_3_count, rating_4_count, rating_5_count, location, latitude, "
+                + "longitude, cuisine, price_range, photo) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                restaurantRows);
+        batchInsert(jdbcTemplate, "INSERT INTO review (id, text, rating, creation_date, restaurant_id, author_name, "
+                + "author_email) VALUES (NEXT VALUE FOR review_id_seq, ?, ?, ?, ?, ?, ?)", reviewRows);
+    }
+
+    private static void batchInsert(JdbcTemplate jdbcTemplate, String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(from + BATCH_SIZE, rows.size())));
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.restaurantreview.benchmarks;
+
+import com.example.restaurantreview.models.Restaurant;
+import com.example.restaurantreview.services.RestaurantService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарки запросов популярных ресторанов.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RestaurantServiceBenchmark {
+
+    /**
+     * Полный список ресторанов в порядке популярности.
+     */
+    @Benchmark
+    public List<Restaurant> findAllByPopularity(BenchmarkContext context) {
+        return context.getBean(RestaurantService.class).findAllByPopularity();
+    }
+
+    /**
+     * Три самых популярных ресторана, как на главной странице.
+     */
+    @Benchmark
+    public List<Restaurant> findTopByPopularity(BenchmarkContext context) {
+        return context.getBean(RestaurantService.class).findTopByPopularity(3);
+    }
+
+    /**
+     * Полнотекстовый поиск по частому (кухня) и редкому (номер адреса) словам.
+     */
+    @Benchmark
+    public List<Restaurant> search(BenchmarkContext context) {
+        return context.getBean(RestaurantService.class).search("italian location 7", 20);
+    }
+
+    /**
+     * Поиск ближайших ресторанов в центре города.
+     */
+    @Benchmark
+    public List<Restaurant> nearby(BenchmarkContext context) {
+        return context.getBean(RestaurantService.class)
+                .findNearby(BenchmarkContext.CITY_LATITUDE, BenchmarkContext.CITY_LONGITUDE, 2, 20);
+    }
+}
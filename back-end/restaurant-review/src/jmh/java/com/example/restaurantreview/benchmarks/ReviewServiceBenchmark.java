@@ -0,0 +1,71 @@
+package com.example.restaurantreview.benchmarks;
+
+import com.example.restaurantreview.models.Restaurant;
+import com.example.restaurantreview.models.Review;
+import com.example.restaurantreview.models.ReviewPage;
+import com.example.restaurantreview.models.ReviewSummary;
+import com.example.restaurantreview.services.RestaurantService;
+import com.example.restaurantreview.services.ReviewService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарки чтения отзывов и создания отзыва с пересчетом среднего рейтинга ресторана.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReviewServiceBenchmark {
+
+    /**
+     * Генератор идентификаторов ресторанов для каждого потока бенчмарка.
+     */
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private final Random random = new Random(7);
+    }
+
+    /**
+     * Все отзывы ресторана одним списком.
+     */
+    @Benchmark
+    public List<ReviewSummary> findAllByRestaurantId(BenchmarkContext context, ThreadState state) {
+        return context.getBean(ReviewService.class).findAllByRestaurantId(context.randomRestaurantId(state.random));
+    }
+
+    /**
+     * Первая страница отзывов ресторана по курсору.
+     */
+    @Benchmark
+    public ReviewPage findPageByRestaurantId(BenchmarkContext context, ThreadState state) {
+        return context.getBean(ReviewService.class)
+                .findPageByRestaurantId(context.randomRestaurantId(state.random), null, 20);
+    }
+
+    /**
+     * Создание отзыва, как в ReviewController.createReview: поиск ресторана,
+     * вставка отзыва и атомарное обновление среднего рейтинга ресторана.
+     */
+    @Benchmark
+    public Review createReview(BenchmarkContext context, ThreadState state) {
+        int restaurantId = context.randomRestaurantId(state.random);
+        Restaurant restaurant = context.getBean(RestaurantService.class).findById(restaurantId).orElseThrow();
+        Review review = new Review("Benchmark review", 1 + state.random.nextInt(5), LocalDateTime.now(), restaurant,
+                "Benchmark", "benchmark@example.com");
+        return context.getBean(ReviewService.class).save(review);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.restaurantreview.benchmarks;
+
+import com.example.restaurantreview.models.ReviewSummary;
+import com.example.restaurantreview.services.ReviewService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк сериализации списка отзывов ресторана (облегченное представление без вложенного ресторана) в JSON
+ * тем же ObjectMapper, который использует Spring MVC.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    /**
+     * Загруженные заранее отзывы одного ресторана.
+     */
+    @State(Scope.Benchmark)
+    public static class ReviewsState {
+        private ObjectMapper objectMapper;
+        private List<ReviewSummary> reviews;
+
+        @Setup(Level.Trial)
+        public void setUp(BenchmarkContext context) {
+            objectMapper = context.getBean(ObjectMapper.class);
+            reviews = context.getBean(ReviewService.class).findAllByRestaurantId(1);
+        }
+    }
+
+    /**
+     * Сериализация списка отзывов в UTF-8 JSON.
+     */
+    @Benchmark
+    public byte[] serializeReviews(ReviewsState state) throws JsonProcessingException {
+        return state.objectMapper.writeValueAsBytes(state.reviews);
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.restaurantreview.benchmarks;
+
+import com.example.restaurantreview.RestaurantReviewApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Бенчмарк времени запуска приложения: от запуска JVM до первого успешного ответа на GET /api/restaurants.
+ * Сравниваются исполняемый jar текущей сборки (jar) и сборка профиля startup (aot-cds): тонкий jar
+ * с библиотеками в lib/, обработанный Spring AOT, и архив Class Data Sharing из тренировочного запуска.
+ * <p>
+ * Перед запуском нужно собрать обе сборки: {@code ./mvnw -Pstartup package}, затем
+ * {@code ./mvnw -Pbenchmarks test-compile exec:exec -Djmh.args=StartupBenchmark}.
+ * Приложение запускается поверх встроенной базы H2 (как в {@link BenchmarkContext}), поэтому драйвер H2
+ * добавляется к classpath обеих сборок: исполняемый jar запускается через PropertiesLauncher с loader.path.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StartupBenchmark {
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+    private static final Path TARGET = Path.of("target");
+    private static final Path STARTUP = TARGET.resolve("startup");
+
+    @Param({"jar", "aot-cds"})
+    public String build;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private List<String> command;
+    private Path log;
+    private Process process;
+
+    /**
+     * Формирует команду запуска выбранной сборки.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        String h2 = h2Jar().toString();
+        command = new ArrayList<>();
+        command.add(java);
+        if (build.equals("jar")) {
+            command.addAll(List.of("-Dloader.path=" + h2, "-cp", findJar(TARGET, ".jar").toString(),
+                    "org.springframework.boot.loader.launch.PropertiesLauncher"));
+        } else {
+            Path archive = STARTUP.resolve("application.jsa");
+            if (!Files.exists(archive)) {
+                throw new IllegalStateException(archive + " not found, build it with ./mvnw -Pstartup package");
+            }
+            command.addAll(List.of("-XX:SharedArchiveFile=" + archive, "-Dspring.aot.enabled=true",
+                    "-cp", findJar(STARTUP, "-startup.jar") + File.pathSeparator + h2,
+                    RestaurantReviewApplication.class.getName()));
+        }
+        command.addAll(List.of("--spring.datasource.url=jdbc:h2:mem:startup;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--upload.directory=" + Path.of(System.getProperty("java.io.tmpdir"), "restaurant-review-startup")));
+        log = Files.createDirectories(TARGET.resolve("startup-benchmark")).resolve(build + ".log");
+    }
+
+    /**
+     * Запускает приложение и ждет первого успешного ответа каталога ресторанов.
+     *
+     * @return HTTP статус первого успешного ответа
+     */
+    @Benchmark
+    public int firstSuccessfulRequest() throws IOException, InterruptedException {
+        int port = freePort();
+        List<String> invocation = new ArrayList<>(command);
+        invocation.add("--server.port=" + port);
+        process = new ProcessBuilder(invocation)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/restaurants"))
+                .build();
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Application exited with code " + process.exitValue()
+                        + ", see " + log);
+            }
+            try {
+                HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() == 200) {
+                    return response.statusCode();
+                }
+            } catch (ConnectException e) {
+                // Сервер еще не слушает порт
+            }
+            Thread.sleep(5);
+        }
+        throw new IllegalStateException("No successful response within " + STARTUP_TIMEOUT + ", see " + log);
+    }
+
+    /**
+     * Останавливает запущенное приложение.
+     */
+    @TearDown(Level.Invocation)
+    public void stop() throws InterruptedException {
+        if (process != null) {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+            process = null;
+        }
+    }
+
+    private static Path findJar(Path directory, String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(suffix))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalStateException("No *" + suffix + " in " + directory
+                            + ", build it with ./mvnw -Pstartup package"));
+        }
+    }
+
+    private static Path h2Jar() {
+        try {
+            return Path.of(org.h2.Driver.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
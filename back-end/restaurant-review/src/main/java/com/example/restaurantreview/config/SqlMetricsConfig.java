@@ -0,0 +1,70 @@
+package com.example.restaurantreview.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Настройка учета SQL-запросов на уровне HTTP запросов и методов репозиториев.
+ * Сами запросы учитывает {@link com.example.restaurantreview.util.SqlStatementListener}, подключенный к Hibernate.
+ */
+@Configuration
+public class SqlMetricsConfig implements WebMvcConfigurer {
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final int maxStatements;
+    private final boolean failOnExceed;
+
+    /**
+     * Создает конфигурацию учета SQL-запросов.
+     *
+     * @param meterRegistry реестр метрик
+     * @param maxStatements бюджет SQL-запросов на один HTTP запрос (0 - без ограничения)
+     * @param failOnExceed  прерывать ли HTTP запрос ошибкой при превышении бюджета
+     */
+    public SqlMetricsConfig(ObjectProvider<MeterRegistry> meterRegistry,
+                            @Value("${sql.query-budget.max-statements:0}") int maxStatements,
+                            @Value("${sql.query-budget.fail-on-exceed:false}") boolean failOnExceed) {
+        this.meterRegistry = meterRegistry;
+        this.maxStatements = maxStatements;
+        this.failOnExceed = failOnExceed;
+    }
+
+    /**
+     * Регистрирует перехватчик, учитывающий SQL-запросы каждого HTTP запроса.
+     *
+     * @param registry реестр перехватчиков
+     */
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new SqlRequestMetricsInterceptor(meterRegistry.getObject(), maxStatements,
+                failOnExceed));
+    }
+
+    /**
+     * Добавляет ко всем репозиториям Spring Data перехватчик, учитывающий SQL-запросы каждого метода.
+     * Метод статический, чтобы постпроцессор создавался до остальных бинов конфигурации.
+     *
+     * @param meterRegistry реестр метрик
+     * @return постпроцессор фабрик репозиториев
+     */
+    @Bean
+    public static BeanPostProcessor sqlRepositoryMetricsPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxyFactory, information) -> proxyFactory.addAdvice(new SqlRepositoryMetricsInterceptor(
+                                    meterRegistry, information.getRepositoryInterface().getSimpleName()))));
+                }
+                return bean;
+            }
+        };
+    }
+}
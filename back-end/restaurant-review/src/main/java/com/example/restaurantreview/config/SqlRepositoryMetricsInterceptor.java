@@ -0,0 +1,57 @@
+package com.example.restaurantreview.config;
+
+import com.example.restaurantreview.util.SqlStatistics;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Перехватчик методов репозитория, учитывающий количество и суммарное время SQL-запросов каждого метода.
+ * Метрики sql.repository.statements и sql.repository.time помечаются именем репозитория и метода.
+ */
+public class SqlRepositoryMetricsInterceptor implements MethodInterceptor {
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final String repository;
+
+    /**
+     * Создает перехватчик.
+     *
+     * @param meterRegistry реестр метрик (получается при первом вызове, чтобы не создавать его при создании репозиториев)
+     * @param repository    имя интерфейса репозитория
+     */
+    public SqlRepositoryMetricsInterceptor(ObjectProvider<MeterRegistry> meterRegistry, String repository) {
+        this.meterRegistry = meterRegistry;
+        this.repository = repository;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        String method = invocation.getMethod().getName();
+        SqlStatistics.Scope scope = SqlStatistics.open(repository + "." + method);
+        try {
+            return invocation.proceed();
+        } finally {
+            scope.close();
+            MeterRegistry registry = meterRegistry.getIfAvailable();
+            if (registry != null) {
+                DistributionSummary.builder("sql.repository.statements")
+                        .description("SQL statements executed per repository method call")
+                        .tag("repository", repository)
+                        .tag("method", method)
+                        .register(registry)
+                        .record(scope.getStatements());
+                Timer.builder("sql.repository.time")
+                        .description("Cumulative JDBC execution time per repository method call")
+                        .tag("repository", repository)
+                        .tag("method", method)
+                        .register(registry)
+                        .record(scope.getNanos(), TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.restaurantreview.config;
+
+import com.example.restaurantreview.util.SqlStatistics;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Перехватчик HTTP запросов, учитывающий количество и суммарное время SQL-запросов каждого обработчика
+ * и проверяющий бюджет SQL-запросов на один HTTP запрос.
+ * Метрики sql.request.statements и sql.request.time помечаются HTTP методом и шаблоном URI.
+ */
+@Slf4j
+public class SqlRequestMetricsInterceptor implements AsyncHandlerInterceptor {
+    private static final String SCOPE_ATTRIBUTE = SqlRequestMetricsInterceptor.class.getName() + ".scope";
+
+    private final MeterRegistry meterRegistry;
+    private final int maxStatements;
+    private final boolean failOnExceed;
+
+    /**
+     * Создает перехватчик.
+     *
+     * @param meterRegistry реестр метрик
+     * @param maxStatements бюджет SQL-запросов на один HTTP запрос (0 - без ограничения)
+     * @param failOnExceed  прерывать ли HTTP запрос ошибкой при превышении бюджета (иначе превышение логируется)
+     */
+    public SqlRequestMetricsInterceptor(MeterRegistry meterRegistry, int maxStatements, boolean failOnExceed) {
+        this.meterRegistry = meterRegistry;
+        this.maxStatements = maxStatements;
+        this.failOnExceed = failOnExceed;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String name = request.getMethod() + " " + request.getRequestURI();
+        request.setAttribute(SCOPE_ATTRIBUTE, SqlStatistics.open(name, maxStatements, failOnExceed));
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        // Поток запроса освобождается до завершения асинхронной обработки, учет продолжится при повторной диспетчеризации
+        SqlStatistics.Scope scope = (SqlStatistics.Scope) request.getAttribute(SCOPE_ATTRIBUTE);
+        if (scope != null) {
+            scope.close();
+            request.removeAttribute(SCOPE_ATTRIBUTE);
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        SqlStatistics.Scope scope = (SqlStatistics.Scope) request.getAttribute(SCOPE_ATTRIBUTE);
+        if (scope == null) {
+            return;
+        }
+        scope.close();
+        request.removeAttribute(SCOPE_ATTRIBUTE);
+
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        DistributionSummary.builder("sql.request.statements")
+                .description("SQL statements executed per HTTP request")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(scope.getStatements());
+        Timer.builder("sql.request.time")
+                .description("Cumulative JDBC execution time per HTTP request")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(scope.getNanos(), TimeUnit.NANOSECONDS);
+
+        if (scope.isOverBudget()) {
+            log.warn("{} {} executed {} SQL statements, budget is {}", request.getMethod(), uri,
+                    scope.getStatements(), maxStatements);
+        }
+    }
+}
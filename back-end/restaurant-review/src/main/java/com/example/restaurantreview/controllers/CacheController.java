@@ -0,0 +1,43 @@
+package com.example.restaurantreview.controllers;
+
+import com.example.restaurantreview.services.ResponseBodyCache;
+import com.example.restaurantreview.services.RestaurantCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Контроллер для получения статистики кэшей приложения.
+ */
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("/api/cache")
+public class CacheController {
+    private final RestaurantCache restaurantCache;
+    private final ResponseBodyCache responseBodyCache;
+
+    /**
+     * Обработчик GET запроса для получения счетчиков кэша ресторанов.
+     *
+     * @return ResponseEntity с HTTP статусом OK и счетчиками попаданий, промахов и вытеснений в теле ответа.
+     */
+    @GetMapping("/restaurants")
+    public ResponseEntity<Map<String, Map<String, Long>>> getRestaurantCacheStats() {
+        return ResponseEntity.ok(restaurantCache.stats());
+    }
+
+    /**
+     * Обработчик GET запроса для получения счетчиков кэша готовых тел ответов.
+     *
+     * @return ResponseEntity с HTTP статусом OK и счетчиками попаданий, промахов, вытеснений
+     * и занятым объемом в байтах в теле ответа.
+     */
+    @GetMapping("/responses")
+    public ResponseEntity<Map<String, Long>> getResponseCacheStats() {
+        return ResponseEntity.ok(responseBodyCache.stats());
+    }
+}
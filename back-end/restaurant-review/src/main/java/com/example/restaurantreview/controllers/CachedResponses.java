@@ -0,0 +1,108 @@
+package com.example.restaurantreview.controllers;
+
+import com.example.restaurantreview.services.ResponseBodyCache;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * Общие правила формирования ответов на GET запросы с ETag: ответы перепроверяются клиентом при каждом
+ * обращении, готовые тела из кэша тел ответов отдаются сжатыми клиентам, принимающим gzip.
+ */
+final class CachedResponses {
+    private CachedResponses() {
+    }
+
+    /**
+     * Возвращает ETag ответа с готовым телом из кэша тел ответов.
+     * Клиенту, принимающему gzip, может быть отдано сжатое тело - другое представление тех же данных,
+     * а сильный ETag у разных представлений должен различаться, поэтому его тег получает суффикс -gzip.
+     *
+     * @param eTag    ETag данных в кавычках.
+     * @param request текущий запрос (для проверки заголовка Accept-Encoding).
+     * @return ETag в кавычках для представления, которое получит клиент.
+     */
+    static String encodedETag(String eTag, WebRequest request) {
+        if (!acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+            return eTag;
+        }
+        return eTag.substring(0, eTag.length() - 1) + "-gzip\"";
+    }
+
+    /**
+     * Формирует ответ, который клиент должен перепроверять по ETag при каждом обращении.
+     * Заголовок ETag уже установлен вызовом {@link WebRequest#checkNotModified(String)}.
+     *
+     * @param body тело ответа.
+     * @param <T>  тип тела ответа.
+     * @return ResponseEntity с HTTP статусом OK.
+     */
+    static <T> ResponseEntity<T> revalidated(T body) {
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(body);
+    }
+
+    /**
+     * Формирует ответ с готовым телом JSON из кэша тел ответов, как {@link #revalidated(Object)}.
+     * Сжатое тело отдается клиентам, принимающим gzip; ETag должен быть получен {@link #encodedETag}.
+     *
+     * @param body    закодированное тело ответа.
+     * @param request текущий запрос (для проверки заголовка Accept-Encoding).
+     * @return ResponseEntity с HTTP статусом OK.
+     */
+    static ResponseEntity<byte[]> encoded(ResponseBodyCache.EncodedBody body, WebRequest request) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (body.gzip() != null && acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(body.gzip());
+        }
+        return response.body(body.json());
+    }
+
+    /**
+     * Проверяет, принимает ли клиент сжатие gzip, по заголовку Accept-Encoding (RFC 9110, раздел 12.5.3).
+     * Кодирования разделяются запятыми, вес задается параметром q; кодирование с весом 0 не принимается.
+     * Явно указанный gzip (или x-gzip) важнее подстановочного знака *.
+     *
+     * @param acceptEncoding значение заголовка Accept-Encoding (null, если заголовок не передан).
+     * @return true, если клиент принимает gzip.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzipQuality = null;
+        Double anyQuality = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim();
+            if (name.equalsIgnoreCase("gzip") || name.equalsIgnoreCase("x-gzip")) {
+                gzipQuality = quality(parts);
+            } else if (name.equals("*")) {
+                anyQuality = quality(parts);
+            }
+        }
+        double quality = gzipQuality != null ? gzipQuality : anyQuality != null ? anyQuality : 0;
+        return quality > 0;
+    }
+
+    /**
+     * Возвращает вес кодирования из его параметров: 1, если вес не указан, и 0, если он указан с ошибкой.
+     */
+    private static double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String[] parameter = parts[i].split("=", 2);
+            if (parameter.length == 2 && parameter[0].trim().equalsIgnoreCase("q")) {
+                try {
+                    return Double.parseDouble(parameter[1].trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.restaurantreview.controllers;
+
+import com.example.restaurantreview.models.HomePage;
+import com.example.restaurantreview.services.ContentVersions;
+import com.example.restaurantreview.services.HomePageService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * Контроллер главной страницы: возвращает все ее данные одним ответом.
+ */
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("/api/home")
+public class HomeController {
+    private final HomePageService homePageService;
+    private final ContentVersions contentVersions;
+
+    /**
+     * Обработчик GET запроса для получения данных главной страницы: лучших и популярных ресторанов
+     * и количества ресторанов по типам кухни.
+     * Если часть данных заменена сохраненным значением, ответ не кэшируется клиентом.
+     *
+     * @param limit   количество ресторанов в каждом списке (от 1 до 20, по умолчанию 3).
+     * @param request текущий запрос (для проверки заголовка If-None-Match).
+     * @return ResponseEntity с HTTP статусом OK и данными главной страницы в теле ответа
+     * или HTTP статусом BAD_REQUEST, если количество вне допустимого диапазона.
+     */
+    @GetMapping
+    public ResponseEntity<HomePage> getHomePage(@RequestParam(defaultValue = "3") int limit, WebRequest request) {
+        if (limit < 1 || limit > HomePageService.MAX_LIMIT) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (request.checkNotModified(contentVersions.globalETag())) {
+            return null;
+        }
+        HomePage homePage = homePageService.getHomePage(limit);
+        CacheControl cacheControl = homePage.getStaleParts().isEmpty()
+                ? CacheControl.noCache()
+                : CacheControl.noStore();
+        return ResponseEntity.ok().cacheControl(cacheControl).body(homePage);
+    }
+}
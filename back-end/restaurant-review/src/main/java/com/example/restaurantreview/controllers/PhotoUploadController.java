@@ -1,6 +1,7 @@
 package com.example.restaurantreview.controllers;
 
-import org.springframework.beans.factory.annotation.Value;
+import com.example.restaurantreview.services.PhotoStorageService;
+import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
@@ -8,46 +9,39 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
 
 /**
  * PhotoUploadController отвечает за обработку загрузки фотографий ресторанов.
- * Предоставляет конечную точку для загрузки фотографий, которые затем сохраняются локально.
+ * Предоставляет конечную точку для загрузки фотографий, которые затем сохраняются локально
+ * под именем, производным от хэша содержимого.
  */
+@RequiredArgsConstructor
 @Controller
 public class PhotoUploadController {
-
-    @Value("${upload.directory}")
-    private String uploadDir;
+    private final PhotoStorageService photoStorageService;
 
     /**
      * Конечная точка для обработки загрузки фотографий.
      * @param file Загружаемый файл фотографии
-     * @return ResponseEntity<String> Ответ, указывающий на успешность или неудачу загрузки
+     * @return ResponseEntity с каноническим именем сохраненного файла (поле photo),
+     * которое следует сохранить в Restaurant.photo, либо с описанием ошибки
      */
     @PostMapping("/resources/restaurant-photos")
-    public ResponseEntity<String> uploadPhoto(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<Map<String, String>> uploadPhoto(@RequestParam("file") MultipartFile file) {
         if (file.isEmpty()) {
-            return ResponseEntity.badRequest().body("No file uploaded");
+            return ResponseEntity.badRequest().body(Map.of("error", "No file uploaded"));
         }
 
-        try {
-            // Создаем папку, если ее нет
-            File directory = new File(uploadDir);
-            if (!directory.exists()) {
-                directory.mkdirs();
-            }
-
-            // Сохраняем файл на сервере
-            String fileName = file.getOriginalFilename();
-            File destFile = new File(uploadDir + "/" + fileName);
-            file.transferTo(destFile);
-
-            return ResponseEntity.ok("File uploaded successfully");
+        try (InputStream content = file.getInputStream()) {
+            String photo = photoStorageService.store(content, file.getOriginalFilename());
+            return ResponseEntity.ok(Map.of("photo", photo));
         } catch (IOException e) {
             e.printStackTrace();
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Failed to upload file");
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to upload file"));
         }
     }
 }
@@ -1,6 +1,11 @@
 package com.example.restaurantreview.controllers;
 
+import com.example.restaurantreview.models.CatalogFacets;
+import com.example.restaurantreview.models.MultiGetResult;
 import com.example.restaurantreview.models.Restaurant;
+import com.example.restaurantreview.models.RestaurantFilter;
+import com.example.restaurantreview.services.ContentVersions;
+import com.example.restaurantreview.services.ResponseBodyCache;
 import com.example.restaurantreview.services.RestaurantService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -8,68 +13,221 @@ import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalInt;
+
+import static com.example.restaurantreview.controllers.CachedResponses.encoded;
+import static com.example.restaurantreview.controllers.CachedResponses.encodedETag;
+import static com.example.restaurantreview.controllers.CachedResponses.revalidated;
 
 /**
  * Контроллер для обработки запросов, связанных с ресторанами.
+ * Ответы на GET запросы содержат ETag, построенный по счетчикам версий данных: если данные не изменились
+ * с версии из заголовка If-None-Match, возвращается HTTP статус NOT_MODIFIED без обращения к базе данных.
  */
 @RequiredArgsConstructor
 @RestController
 @RequestMapping("/api/restaurants")
 public class RestaurantController {
     private final RestaurantService restaurantService;
+    private final ContentVersions contentVersions;
+    private final ResponseBodyCache responseBodyCache;
 
     /**
      * Обработчик GET запроса для получения списка всех ресторанов.
+     * Условия фильтрации объединяются через AND; незаданные условия не ограничивают выборку.
      *
-     * @param sortBy    Параметр для сортировки списка ресторанов (по умолчанию "avgRating").
-     * @param filterBy  Параметр для фильтрации списка ресторанов по типу кухни (по умолчанию "").
-     * @param sortOrder Параметр для указания порядка сортировки (по умолчанию "asc").
-     * @return ResponseEntity с HTTP статусом OK и списком всех ресторанов в теле ответа.
+     * @param sortBy     Параметр для сортировки списка ресторанов (по умолчанию "avgRating"),
+     *                   одно из полей {@link RestaurantService#SORTABLE_FIELDS}.
+     * @param filterBy   Параметр для фильтрации списка ресторанов по типу кухни (по умолчанию ""),
+     *                   используется, если не передан параметр cuisine.
+     * @param cuisine    тип кухни (без учета регистра).
+     * @param priceRange ценовой диапазон.
+     * @param minRating  минимальный средний рейтинг.
+     * @param namePrefix начало названия ресторана (без учета регистра).
+     * @param sortOrder  Параметр для указания порядка сортировки (по умолчанию "asc").
+     * @param limit      максимальное количество ресторанов в ответе (по умолчанию - все рестораны).
+     * @param request    текущий запрос (для проверки заголовка If-None-Match).
+     * @return ResponseEntity с HTTP статусом OK и списком ресторанов в теле ответа,
+     * либо HTTP статусом BAD_REQUEST, если сортировка по указанному полю не поддерживается
+     * или количество ресторанов меньше 1.
      */
     @GetMapping
-    public ResponseEntity<List<Restaurant>> getAllRestaurants(
+    public ResponseEntity<byte[]> getAllRestaurants(
             @RequestParam(defaultValue = "avgRating") String sortBy,
             @RequestParam(defaultValue = "") String filterBy,
-            @RequestParam(defaultValue = "asc") String sortOrder) {
+            @RequestParam(required = false) String cuisine,
+            @RequestParam(required = false) String priceRange,
+            @RequestParam(required = false) Double minRating,
+            @RequestParam(required = false) String namePrefix,
+            @RequestParam(defaultValue = "asc") String sortOrder,
+            @RequestParam(required = false) Integer limit,
+            WebRequest request) {
+        if (!RestaurantService.SORTABLE_FIELDS.contains(sortBy) || (limit != null && limit < 1)) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (request.checkNotModified(encodedETag(contentVersions.globalETag(), request))) {
+            return null;
+        }
         Sort.Direction direction = sortOrder.equals("asc") ? Sort.Direction.ASC : Sort.Direction.DESC;
         Sort sort = Sort.by(direction, sortBy);
-        List<Restaurant> restaurants;
-
-        if (!filterBy.isEmpty()) {
-            restaurants = restaurantService.findAllByCuisine(filterBy, sort);
-        } else {
-            restaurants = restaurantService.findAll(sort);
-        }
+        RestaurantFilter filter = RestaurantFilter.of(cuisine != null ? cuisine : filterBy, priceRange, minRating,
+                namePrefix);
 
-        return ResponseEntity.ok(restaurants);
+        return encoded(responseBodyCache.getCatalog(filter, sort, limit, () -> limit != null
+                ? restaurantService.findTop(filter, sort, limit)
+                : restaurantService.findAll(filter, sort)), request);
     }
 
 
+    /**
+     * Обработчик GET запроса для получения нескольких ресторанов по списку идентификаторов
+     * (например, для списков избранного). Используется, если в запросе передан параметр ids.
+     *
+     * @param ids     идентификаторы ресторанов через запятую (не более {@link MultiGetResult#MAX_IDS}).
+     * @param request текущий запрос (для проверки заголовка If-None-Match).
+     * @return ResponseEntity с HTTP статусом OK и найденными ресторанами в порядке идентификаторов
+     * и идентификаторами ненайденных ресторанов в теле ответа, либо HTTP статусом BAD_REQUEST,
+     * если список идентификаторов пуст или слишком длинный.
+     */
+    @GetMapping(params = "ids")
+    public ResponseEntity<MultiGetResult<Restaurant>> getRestaurantsByIds(@RequestParam List<Integer> ids,
+                                                                          WebRequest request) {
+        if (ids.isEmpty() || ids.size() > MultiGetResult.MAX_IDS) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (request.checkNotModified(contentVersions.globalETag())) {
+            return null;
+        }
+        return revalidated(restaurantService.findAllById(ids));
+    }
+
     /**
      * Обработчик GET запроса для получения списка ресторанов отсортированных по кол-ву оценок.
      *
+     * @param limit   максимальное количество ресторанов в ответе (по умолчанию - все рестораны).
+     * @param request текущий запрос (для проверки заголовка If-None-Match).
      * @return ResponseEntity с HTTP статусом OK и списком популярных ресторанов в теле ответа.
      */
     @GetMapping("/popular")
-    public ResponseEntity<List<Restaurant>> getRestaurantsByPopularity() {
-        return ResponseEntity.ok(restaurantService.findAllByPopularity());
+    public ResponseEntity<byte[]> getRestaurantsByPopularity(@RequestParam(required = false) Integer limit,
+                                                             WebRequest request) {
+        if (request.checkNotModified(encodedETag(contentVersions.globalETag(), request))) {
+            return null;
+        }
+        if (limit == null) {
+            return encoded(responseBodyCache.getPopular(null, restaurantService::findAllByPopularity), request);
+        }
+        int top = Math.max(limit, 0);
+        return encoded(responseBodyCache.getPopular(top, () -> restaurantService.findTopByPopularity(top)), request);
+    }
+
+    /**
+     * Обработчик GET запроса для полнотекстового поиска ресторанов.
+     * Ищет по названию, описанию, адресу, типу кухни и текстам отзывов.
+     *
+     * @param q       текст запроса.
+     * @param limit   максимальное количество ресторанов в ответе (по умолчанию 20).
+     * @param request текущий запрос (для проверки заголовка If-None-Match).
+     * @return ResponseEntity с HTTP статусом OK и списком найденных ресторанов (от наиболее релевантных) в теле ответа.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<Restaurant>> searchRestaurants(@RequestParam String q,
+                                                              @RequestParam(defaultValue = "20") int limit,
+                                                              WebRequest request) {
+        if (request.checkNotModified(contentVersions.globalETag())) {
+            return null;
+        }
+        return revalidated(restaurantService.search(q, limit));
+    }
+
+    /**
+     * Обработчик GET запроса для поиска ближайших ресторанов.
+     * Учитываются только рестораны с заданными координатами.
+     *
+     * @param lat      широта точки поиска в градусах.
+     * @param lon      долгота точки поиска в градусах.
+     * @param radiusKm радиус поиска в километрах (по умолчанию 5).
+     * @param limit    максимальное количество ресторанов в ответе (по умолчанию 20).
+     * @param request  текущий запрос (для проверки заголовка If-None-Match).
+     * @return ResponseEntity с HTTP статусом OK и списком ресторанов (от ближайших) в теле ответа,
+     * либо HTTP статусом BAD_REQUEST, если координаты вне допустимого диапазона.
+     */
+    @GetMapping("/nearby")
+    public ResponseEntity<List<Restaurant>> getNearbyRestaurants(@RequestParam double lat,
+                                                                 @RequestParam double lon,
+                                                                 @RequestParam(defaultValue = "5") double radiusKm,
+                                                                 @RequestParam(defaultValue = "20") int limit,
+                                                                 WebRequest request) {
+        if (Math.abs(lat) > 90 || Math.abs(lon) > 180) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (request.checkNotModified(contentVersions.globalETag())) {
+            return null;
+        }
+        return revalidated(restaurantService.findNearby(lat, lon, radiusKm, limit));
+    }
+
+    /**
+     * Обработчик GET запроса для получения количества ресторанов по типам кухни и ценовым диапазонам.
+     * Ответ формируется из счетчиков в памяти без обращения к базе данных.
+     *
+     * @param cuisine    тип кухни, которым ограничиваются ценовые диапазоны (необязательный).
+     * @param priceRange ценовой диапазон, которым ограничиваются типы кухни (необязательный).
+     * @param request    текущий запрос (для проверки заголовка If-None-Match).
+     * @return ResponseEntity с HTTP статусом OK и количеством ресторанов по фасетам в теле ответа.
+     */
+    @GetMapping("/facets")
+    public ResponseEntity<CatalogFacets> getFacets(@RequestParam(required = false) String cuisine,
+                                                   @RequestParam(required = false) String priceRange,
+                                                   WebRequest request) {
+        if (request.checkNotModified(contentVersions.globalETag())) {
+            return null;
+        }
+        return revalidated(restaurantService.findFacets(cuisine, priceRange));
+    }
+
+    /**
+     * Обработчик GET запроса для получения места ресторана в рейтинге популярности.
+     *
+     * @param id      идентификатор ресторана.
+     * @param request текущий запрос (для проверки заголовка If-None-Match).
+     * @return ResponseEntity с HTTP статусом OK и местом ресторана (начиная с 1) в теле ответа,
+     * либо HTTP статусом NOT_FOUND, если ресторан не найден.
+     */
+    @GetMapping("/{id}/popularity-rank")
+    public ResponseEntity<Integer> getPopularityRank(@PathVariable int id, WebRequest request) {
+        // Место ресторана зависит и от других ресторанов, поэтому используется глобальная версия
+        if (request.checkNotModified(contentVersions.globalETag())) {
+            return null;
+        }
+        OptionalInt rank = restaurantService.findPopularityRank(id);
+        if (rank.isPresent()) {
+            return revalidated(rank.getAsInt());
+        } else {
+            return ResponseEntity.notFound().build();
+        }
     }
 
     /**
      * Обработчик GET запроса для получения ресторана по его идентификатору.
      *
-     * @param id идентификатор ресторана.
+     * @param id      идентификатор ресторана.
+     * @param request текущий запрос (для проверки заголовка If-None-Match).
      * @return ResponseEntity с HTTP статусом OK и рестораном в теле ответа, если ресторан найден,
      * либо HTTP статусом NOT_FOUND, если ресторан не найден.
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Restaurant> getRestaurantById(@PathVariable int id) {
+    public ResponseEntity<Restaurant> getRestaurantById(@PathVariable int id, WebRequest request) {
+        if (request.checkNotModified(contentVersions.restaurantETag(id))) {
+            return null;
+        }
         Optional<Restaurant> restaurant = restaurantService.findById(id);
         if (restaurant.isPresent()) {
-            return ResponseEntity.ok(restaurant.get());
+            return revalidated(restaurant.get());
         } else {
             return ResponseEntity.notFound().build();
         }
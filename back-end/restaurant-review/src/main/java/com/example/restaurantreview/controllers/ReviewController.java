@@ -1,21 +1,45 @@
 package com.example.restaurantreview.controllers;
 
+import com.example.restaurantreview.models.MultiGetResult;
 import com.example.restaurantreview.models.Restaurant;
 import com.example.restaurantreview.models.Review;
+import com.example.restaurantreview.models.ReviewImportResult;
+import com.example.restaurantreview.models.ReviewPage;
+import com.example.restaurantreview.models.ReviewSubmission;
+import com.example.restaurantreview.models.ReviewSummary;
+import com.example.restaurantreview.services.ContentVersions;
+import com.example.restaurantreview.services.ResponseBodyCache;
 import com.example.restaurantreview.services.RestaurantService;
+import com.example.restaurantreview.services.ReviewExportService;
+import com.example.restaurantreview.services.ReviewImportService;
 import com.example.restaurantreview.services.ReviewService;
+import com.example.restaurantreview.services.ReviewWriteBehindService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
+import static com.example.restaurantreview.controllers.CachedResponses.encoded;
+import static com.example.restaurantreview.controllers.CachedResponses.encodedETag;
+import static com.example.restaurantreview.controllers.CachedResponses.revalidated;
+
 /**
  * Контроллер для обработки запросов, связанных с отзывами о ресторанах.
+ * Ответы на GET запросы содержат ETag, построенный по счетчикам версий данных: если данные не изменились
+ * с версии из заголовка If-None-Match, возвращается HTTP статус NOT_MODIFIED без обращения к базе данных.
  */
 @RequiredArgsConstructor
 @RestController
@@ -23,29 +47,100 @@ import java.util.Optional;
 public class ReviewController {
     private final ReviewService reviewService;
     private final RestaurantService restaurantService;
+    private final ReviewImportService reviewImportService;
+    private final ReviewExportService reviewExportService;
+    private final ReviewWriteBehindService reviewWriteBehindService;
+    private final ContentVersions contentVersions;
+    private final ResponseBodyCache responseBodyCache;
 
     /**
      * Обработчик GET запроса для получения списка всех отзывов.
      *
+     * @param request текущий запрос (для проверки заголовка If-None-Match).
      * @return ResponseEntity с HTTP статусом OK и списком всех отзывов в теле ответа.
      */
     @GetMapping
-    public ResponseEntity<List<Review>> getAllReviews() {
-        return ResponseEntity.ok(reviewService.findAll());
+    public ResponseEntity<List<ReviewSummary>> getAllReviews(WebRequest request) {
+        if (request.checkNotModified(contentVersions.globalETag())) {
+            return null;
+        }
+        return revalidated(reviewService.findAll());
+    }
+
+    /**
+     * Обработчик GET запроса для постраничного получения всех отзывов (от новых к старым).
+     * Используется, если в запросе передан параметр limit.
+     *
+     * @param limit   размер страницы.
+     * @param cursor  курсор следующей страницы из предыдущего ответа (не передается для первой страницы).
+     * @param request текущий запрос (для проверки заголовка If-None-Match).
+     * @return ResponseEntity с HTTP статусом OK и страницей отзывов в теле ответа.
+     */
+    @GetMapping(params = "limit")
+    public ResponseEntity<ReviewPage> getReviewsPage(@RequestParam int limit,
+                                                     @RequestParam(required = false) String cursor,
+                                                     WebRequest request) {
+        if (request.checkNotModified(contentVersions.globalETag())) {
+            return null;
+        }
+        return revalidated(reviewService.findPage(cursor, limit));
+    }
+
+    /**
+     * Обработчик GET запроса для получения нескольких отзывов по списку идентификаторов.
+     * Используется, если в запросе передан параметр ids.
+     *
+     * @param ids     идентификаторы отзывов через запятую (не более {@link MultiGetResult#MAX_IDS}).
+     * @param request текущий запрос (для проверки заголовка If-None-Match).
+     * @return ResponseEntity с HTTP статусом OK и найденными отзывами в порядке идентификаторов
+     * и идентификаторами ненайденных отзывов в теле ответа, либо HTTP статусом BAD_REQUEST,
+     * если список идентификаторов пуст или слишком длинный.
+     */
+    @GetMapping(params = "ids")
+    public ResponseEntity<MultiGetResult<Review>> getReviewsByIds(@RequestParam List<Integer> ids,
+                                                                  WebRequest request) {
+        if (ids.isEmpty() || ids.size() > MultiGetResult.MAX_IDS) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (request.checkNotModified(contentVersions.globalETag())) {
+            return null;
+        }
+        return revalidated(reviewService.findAllById(ids));
+    }
+
+    /**
+     * Обработчик GET запроса для потоковой выгрузки отзывов в формате NDJSON (от старых к новым).
+     * Ответ формируется по мере чтения отзывов из базы данных и не накапливается в памяти.
+     *
+     * @param since нижняя граница даты создания для инкрементальной выгрузки (не передается для полной выгрузки).
+     * @return ResponseEntity с HTTP статусом OK и потоком отзывов в теле ответа.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportReviews(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since) {
+        StreamingResponseBody body = output -> reviewExportService.export(since, output);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
     }
 
     /**
      * Обработчик GET запроса для получения отзыва по его идентификатору.
      *
-     * @param id идентификатор отзыва.
+     * @param id      идентификатор отзыва.
+     * @param request текущий запрос (для проверки заголовка If-None-Match).
      * @return ResponseEntity с HTTP статусом OK и отзывом в теле ответа, если отзыв найден,
      * либо HTTP статусом NOT_FOUND, если отзыв не найден.
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Review> getReviewById(@PathVariable int id) {
+    public ResponseEntity<Review> getReviewById(@PathVariable int id, WebRequest request) {
+        // Ресторан отзыва неизвестен без обращения к базе данных, поэтому используется глобальная версия
+        if (request.checkNotModified(contentVersions.globalETag())) {
+            return null;
+        }
         Optional<Review> review = reviewService.findById(id);
         if (review.isPresent()) {
-            return ResponseEntity.ok(review.get());
+            return revalidated(review.get());
         } else {
             return ResponseEntity.notFound().build();
         }
@@ -54,16 +149,41 @@ public class ReviewController {
     /**
      * Обработчик GET запроса для получения всех отзывов по идентификатору ресторана.
      *
-     * @param id Идентификатор ресторана, для которого нужно получить отзывы.
+     * @param id      Идентификатор ресторана, для которого нужно получить отзывы.
+     * @param request текущий запрос (для проверки заголовка If-None-Match).
      * @return ResponseEntity с HTTP статусом OK и списком всех отзывов для указанного ресторана в теле ответа.
      */
     @GetMapping("/restaurant/{id}")
-    public ResponseEntity<List<Review>> getAllReviewsByRestaurantId(@PathVariable int id) {
-        return ResponseEntity.ok(reviewService.findAllByRestaurantId(id));
+    public ResponseEntity<byte[]> getAllReviewsByRestaurantId(@PathVariable int id, WebRequest request) {
+        if (request.checkNotModified(encodedETag(contentVersions.restaurantETag(id), request))) {
+            return null;
+        }
+        return encoded(responseBodyCache.getReviews(id, () -> reviewService.findAllByRestaurantId(id)), request);
+    }
+
+    /**
+     * Обработчик GET запроса для постраничного получения отзывов ресторана (от новых к старым).
+     * Используется, если в запросе передан параметр limit.
+     *
+     * @param id      идентификатор ресторана, для которого нужно получить отзывы.
+     * @param limit   размер страницы.
+     * @param cursor  курсор следующей страницы из предыдущего ответа (не передается для первой страницы).
+     * @param request текущий запрос (для проверки заголовка If-None-Match).
+     * @return ResponseEntity с HTTP статусом OK и страницей отзывов ресторана в теле ответа.
+     */
+    @GetMapping(value = "/restaurant/{id}", params = "limit")
+    public ResponseEntity<ReviewPage> getReviewsPageByRestaurantId(@PathVariable int id, @RequestParam int limit,
+                                                                   @RequestParam(required = false) String cursor,
+                                                                   WebRequest request) {
+        if (request.checkNotModified(contentVersions.restaurantETag(id))) {
+            return null;
+        }
+        return revalidated(reviewService.findPageByRestaurantId(id, cursor, limit));
     }
 
     /**
      * Обработчик POST запроса для создания нового отзыва.
+     * Средний рейтинг ресторана пересчитывается по сохраненным агрегатам без загрузки остальных отзывов.
      *
      * @param restaurantId идентификатор ресторана, для которого создается отзыв (передается как параметр запроса).
      * @param review новый отзыв, переданный в теле запроса.
@@ -76,18 +196,7 @@ public class ReviewController {
         if (restaurantOptional.isEmpty()) {
             return ResponseEntity.notFound().build();
         } else {
-            Restaurant restaurant = restaurantOptional.get();
-
-            if (restaurant.getAvgRating() == 0) {
-                restaurant.setAvgRating(review.getRating());
-            } else {
-                double avgRating = restaurant.getAvgRating();
-                int numberOfReviews = reviewService.findAllByRestaurantId(restaurant.getId()).size();
-                double newAvgRating = ((avgRating * numberOfReviews) + review.getRating()) / (numberOfReviews + 1);
-
-                restaurant.setAvgRating(newAvgRating);
-            }
-
+            // Агрегаты рейтинга ресторана обновляются атомарно внутри ReviewService.save
             review.setRestaurant(restaurantOptional.get());
             review.setCreationDate(LocalDateTime.now());
             return ResponseEntity.status(HttpStatus.CREATED)
@@ -95,6 +204,82 @@ public class ReviewController {
         }
     }
 
+    /**
+     * Обработчик POST запроса для асинхронного создания нового отзыва.
+     * Используется, если среди предпочтений заголовка Prefer клиент передал respond-async
+     * (например, Prefer: respond-async, wait=5), иначе отзыв создается синхронно. Отзыв проверяется
+     * и помещается в очередь на пакетное сохранение, а клиент сразу получает идентификатор для отслеживания
+     * состояния.
+     *
+     * @param restaurantId идентификатор ресторана, для которого создается отзыв (передается как параметр запроса).
+     * @param review новый отзыв, переданный в теле запроса.
+     * @param preferences значения заголовков Prefer.
+     * @return ResponseEntity с HTTP статусом ACCEPTED и состоянием отзыва в теле ответа,
+     * HTTP статусом NOT_FOUND, если ресторан не найден, либо HTTP статусом SERVICE_UNAVAILABLE,
+     * если очередь отзывов заполнена.
+     */
+    @PostMapping(headers = "Prefer")
+    public ResponseEntity<?> submitReview(@RequestParam int restaurantId, @Valid @RequestBody Review review,
+                                          @RequestHeader("Prefer") List<String> preferences) {
+        if (!prefersAsync(preferences)) {
+            return createReview(restaurantId, review);
+        }
+        if (restaurantService.findById(restaurantId).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        review.setCreationDate(LocalDateTime.now());
+        Optional<ReviewSubmission> submission = reviewWriteBehindService.submit(restaurantId, review);
+        if (submission.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .build();
+        }
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/reviews/submissions/" + submission.get().getTrackingId()))
+                .header("Preference-Applied", "respond-async")
+                .body(submission.get());
+    }
+
+    /**
+     * Обработчик GET запроса для получения состояния отзыва, принятого на асинхронное сохранение.
+     *
+     * @param trackingId идентификатор для отслеживания, полученный при создании отзыва.
+     * @return ResponseEntity с HTTP статусом OK и состоянием отзыва в теле ответа,
+     * либо HTTP статусом NOT_FOUND, если состояние не найдено.
+     */
+    @GetMapping("/submissions/{trackingId}")
+    public ResponseEntity<ReviewSubmission> getSubmission(@PathVariable String trackingId) {
+        return reviewWriteBehindService.findSubmission(trackingId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Обработчик POST запроса для массовой загрузки отзывов в формате NDJSON (один JSON-объект на строку).
+     * Тело запроса читается потоково, отзывы сохраняются пакетами.
+     *
+     * @param content тело запроса.
+     * @return ResponseEntity с HTTP статусом OK и количеством загруженных и отклоненных отзывов в теле ответа.
+     * @throws IOException если тело запроса не удалось прочитать.
+     */
+    @PostMapping(value = "/bulk", consumes = "application/x-ndjson")
+    public ResponseEntity<ReviewImportResult> importReviewsNdjson(InputStream content) throws IOException {
+        return ResponseEntity.ok(reviewImportService.importNdjson(content));
+    }
+
+    /**
+     * Обработчик POST запроса для массовой загрузки отзывов в формате CSV с заголовком.
+     * Тело запроса читается потоково, отзывы сохраняются пакетами.
+     *
+     * @param content тело запроса.
+     * @return ResponseEntity с HTTP статусом OK и количеством загруженных и отклоненных отзывов в теле ответа.
+     * @throws IOException если тело запроса не удалось прочитать.
+     */
+    @PostMapping(value = "/bulk", consumes = "text/csv")
+    public ResponseEntity<ReviewImportResult> importReviewsCsv(InputStream content) throws IOException {
+        return ResponseEntity.ok(reviewImportService.importCsv(content));
+    }
+
     /**
      * Обработчик PUT запроса для обновления существующего отзыва.
      *
@@ -124,4 +309,23 @@ public class ReviewController {
         reviewService.deleteById(id);
         return ResponseEntity.noContent().build();
     }
+
+    /**
+     * Проверяет, есть ли среди предпочтений заголовков Prefer (RFC 7240) предпочтение respond-async.
+     * Предпочтения разделяются запятыми, параметры предпочтения отделяются точкой с запятой.
+     *
+     * @param preferences значения заголовков Prefer
+     * @return true, если клиент предпочитает асинхронную обработку
+     */
+    private static boolean prefersAsync(List<String> preferences) {
+        for (String header : preferences) {
+            for (String preference : header.split(",")) {
+                String token = preference.split(";", 2)[0].split("=", 2)[0].trim();
+                if (token.equalsIgnoreCase("respond-async")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
 }
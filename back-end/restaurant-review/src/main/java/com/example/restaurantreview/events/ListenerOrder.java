@@ -0,0 +1,31 @@
+package com.example.restaurantreview.events;
+
+import org.springframework.core.Ordered;
+
+/**
+ * Порядок обработчиков событий изменения ресторанов и отзывов (значения для аннотации {@code @Order}).
+ * <p>
+ * Сначала обновляются кэши и индексы в памяти, из которых читают запросы, и только последними - версии
+ * данных для ETag. Иначе запрос, пришедший между изменением версии и удалением записи кэша, получил бы
+ * новый ETag вместе со старыми данными, и клиент получал бы NOT_MODIFIED для них до следующего изменения.
+ * <p>
+ * Кэш тел ответов загружает тела через кэши и индексы, поэтому очищается после них: тело, загруженное
+ * при промахе между двумя удалениями, иначе собиралось бы из старых данных и хранилось бы до истечения срока.
+ */
+public final class ListenerOrder {
+    /**
+     * Кэши и индексы, которые читают данные напрямую из базы данных.
+     */
+    public static final int INDEXES = 0;
+    /**
+     * Кэш тел ответов, которые загружаются через кэши и индексы: очищается после них.
+     */
+    public static final int RESPONSE_BODIES = 100;
+    /**
+     * Версии данных для ETag: изменяются после всех кэшей и индексов.
+     */
+    public static final int VERSIONS = Ordered.LOWEST_PRECEDENCE;
+
+    private ListenerOrder() {
+    }
+}
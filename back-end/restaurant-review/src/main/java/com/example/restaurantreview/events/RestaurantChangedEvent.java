@@ -0,0 +1,33 @@
+package com.example.restaurantreview.events;
+
+import lombok.Data;
+
+/**
+ * Событие создания, изменения или удаления ресторана.
+ */
+@Data
+public class RestaurantChangedEvent {
+    /**
+     * Тип изменения ресторана.
+     */
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    /**
+     * Идентификатор ресторана.
+     */
+    private final int restaurantId;
+    /**
+     * Тип изменения.
+     */
+    private final Type type;
+    /**
+     * Тип кухни ресторана после изменения (null для удаленного ресторана).
+     */
+    private final String cuisine;
+    /**
+     * Ценовой диапазон ресторана после изменения (null для удаленного ресторана).
+     */
+    private final String priceRange;
+}
@@ -0,0 +1,24 @@
+package com.example.restaurantreview.events;
+
+import lombok.Data;
+
+/**
+ * Событие изменения отзывов ресторана.
+ * Публикуется сервисом отзывов после любого изменения отзывов ресторана вместе с изменением
+ * агрегатов рейтинга ресторана (которое может быть нулевым, например, при правке текста отзыва).
+ */
+@Data
+public class ReviewChangedEvent {
+    /**
+     * Идентификатор ресторана, к которому относится отзыв.
+     */
+    private final int restaurantId;
+    /**
+     * Изменение количества отзывов ресторана (+1, -1 или 0).
+     */
+    private final int countDelta;
+    /**
+     * Изменение суммы оценок ресторана.
+     */
+    private final int ratingDelta;
+}
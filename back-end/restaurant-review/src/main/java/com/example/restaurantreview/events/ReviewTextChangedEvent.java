@@ -0,0 +1,23 @@
+package com.example.restaurantreview.events;
+
+import lombok.Data;
+
+/**
+ * Событие изменения текста отзывов ресторана.
+ * Публикуется при создании, изменении и удалении отзыва для инкрементального обновления поискового индекса.
+ */
+@Data
+public class ReviewTextChangedEvent {
+    /**
+     * Идентификатор ресторана, к которому относится отзыв.
+     */
+    private final int restaurantId;
+    /**
+     * Текст, который больше не относится к ресторану (null, если отзыв создан).
+     */
+    private final String removedText;
+    /**
+     * Текст, который добавился к ресторану (null, если отзыв удален).
+     */
+    private final String addedText;
+}
@@ -0,0 +1,26 @@
+package com.example.restaurantreview.models;
+
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * Количество ресторанов каталога по значениям фасетов (тип кухни, ценовой диапазон).
+ * Каждый фасет подсчитывается с учетом фильтра по другому фасету, но без фильтра по самому себе,
+ * чтобы клиент видел, сколько ресторанов останется при выборе другого значения.
+ */
+@Data
+public class CatalogFacets {
+    /**
+     * Количество ресторанов, удовлетворяющих всем условиям фильтра.
+     */
+    private final long total;
+    /**
+     * Тип кухни -> количество ресторанов (с учетом фильтра по ценовому диапазону).
+     */
+    private final Map<String, Long> cuisines;
+    /**
+     * Ценовой диапазон -> количество ресторанов (с учетом фильтра по типу кухни).
+     */
+    private final Map<String, Long> priceRanges;
+}
@@ -0,0 +1,30 @@
+package com.example.restaurantreview.models;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Данные главной страницы, собранные в один ответ.
+ */
+@Data
+public class HomePage {
+    /**
+     * Рестораны с наибольшим средним рейтингом.
+     */
+    private final List<Restaurant> bestRestaurants;
+    /**
+     * Рестораны с наибольшим количеством отзывов.
+     */
+    private final List<Restaurant> popularRestaurants;
+    /**
+     * Тип кухни -> количество ресторанов.
+     */
+    private final Map<String, Long> cuisines;
+    /**
+     * Части страницы, которые не были получены вовремя и заменены последним полученным значением
+     * (или пустым, если его еще нет).
+     */
+    private final List<String> staleParts;
+}
@@ -0,0 +1,53 @@
+package com.example.restaurantreview.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Результат получения нескольких объектов по списку идентификаторов.
+ *
+ * @param <T> тип объектов
+ */
+@Data
+@AllArgsConstructor
+public class MultiGetResult<T> {
+    /**
+     * Максимальное количество идентификаторов в одном запросе.
+     */
+    public static final int MAX_IDS = 100;
+
+    /**
+     * Найденные объекты в порядке идентификаторов запроса.
+     */
+    private List<T> items;
+    /**
+     * Идентификаторы запроса, для которых объекты не найдены.
+     */
+    private List<Integer> missing;
+
+    /**
+     * Раскладывает идентификаторы запроса на найденные объекты и отсутствующие идентификаторы.
+     *
+     * @param ids   идентификаторы запроса без повторов
+     * @param found найденные объекты по идентификатору
+     * @return результат в порядке идентификаторов запроса
+     */
+    public static <T> MultiGetResult<T> of(Collection<Integer> ids, Map<Integer, T> found) {
+        List<T> items = new ArrayList<>(found.size());
+        List<Integer> missing = new ArrayList<>();
+        for (Integer id : ids) {
+            T item = found.get(id);
+            if (item != null) {
+                items.add(item);
+            } else {
+                missing.add(id);
+            }
+        }
+        return new MultiGetResult<>(items, missing);
+    }
+}
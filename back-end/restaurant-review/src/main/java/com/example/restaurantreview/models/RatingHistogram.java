@@ -0,0 +1,91 @@
+package com.example.restaurantreview.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Распределение оценок отзывов ресторана: количество отзывов с каждой оценкой от 1 до 5.
+ * Хранится в строке ресторана и изменяется вместе с количеством отзывов и суммой оценок,
+ * поэтому для его получения не нужно загружать отзывы.
+ * <p>
+ * Тот же класс используется для изменения распределения: счетчики изменения могут быть отрицательными.
+ * Столбцы изменяются только запросом {@code RestaurantRepository.applyRatingDelta}, а не при сохранении ресторана.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Embeddable
+public class RatingHistogram {
+    @Column(name = "rating_1_count", nullable = false, updatable = false)
+    private int oneStar;
+    @Column(name = "rating_2_count", nullable = false, updatable = false)
+    private int twoStars;
+    @Column(name = "rating_3_count", nullable = false, updatable = false)
+    private int threeStars;
+    @Column(name = "rating_4_count", nullable = false, updatable = false)
+    private int fourStars;
+    @Column(name = "rating_5_count", nullable = false, updatable = false)
+    private int fiveStars;
+
+    /**
+     * Создает распределение из одного отзыва с указанной оценкой.
+     *
+     * @param rating оценка отзыва от 1 до 5
+     * @return распределение
+     */
+    public static RatingHistogram of(int rating) {
+        return new RatingHistogram().add(rating, 1);
+    }
+
+    /**
+     * Изменяет количество отзывов с указанной оценкой.
+     *
+     * @param rating оценка от 1 до 5
+     * @param delta  изменение количества отзывов
+     * @return это распределение
+     * @throws IllegalArgumentException если оценка вне диапазона от 1 до 5
+     */
+    public RatingHistogram add(int rating, int delta) {
+        switch (rating) {
+            case 1 -> oneStar += delta;
+            case 2 -> twoStars += delta;
+            case 3 -> threeStars += delta;
+            case 4 -> fourStars += delta;
+            case 5 -> fiveStars += delta;
+            default -> throw new IllegalArgumentException("Rating must be between 1 and 5: " + rating);
+        }
+        return this;
+    }
+
+    /**
+     * Возвращает количество отзывов во всех оценках.
+     *
+     * @return количество отзывов
+     */
+    public int count() {
+        return oneStar + twoStars + threeStars + fourStars + fiveStars;
+    }
+
+    /**
+     * Возвращает сумму оценок всех отзывов.
+     *
+     * @return сумма оценок
+     */
+    public int sum() {
+        return oneStar + 2 * twoStars + 3 * threeStars + 4 * fourStars + 5 * fiveStars;
+    }
+
+    /**
+     * Проверяет, что все счетчики равны нулю.
+     *
+     * @return true, если распределение пустое
+     */
+    @JsonIgnore
+    public boolean isEmpty() {
+        return oneStar == 0 && twoStars == 0 && threeStars == 0 && fourStars == 0 && fiveStars == 0;
+    }
+}
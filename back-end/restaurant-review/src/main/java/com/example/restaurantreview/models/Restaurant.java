@@ -1,11 +1,16 @@
 package com.example.restaurantreview.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
-import jakarta.validation.constraints.NotNull;
-import jakarta.validation.constraints.PositiveOrZero;
 import jakarta.validation.constraints.Size;
 import lombok.Data;
+import org.hibernate.annotations.SQLRestriction;
+
+import java.time.LocalDateTime;
 
 /**
  * Модель представляющая ресторан.
@@ -13,6 +18,7 @@ import lombok.Data;
 @Data
 @Entity
 @Table(name = "restaurant")
+@SQLRestriction("deleted_at IS NULL")
 public class Restaurant {
     @Id
     @Column(name = "id")
@@ -23,13 +29,35 @@ public class Restaurant {
     private String name;
     @Column(name = "description")
     private String description;
-    @PositiveOrZero(message = "Rating must be positive or zero")
-    @NotNull(message = "Average rating is required")
-    @Column(name = "avg_rating")
+    /**
+     * Средний рейтинг вычисляется базой данных из агрегатов отзывов, поэтому клиенты его не передают.
+     * Агрегаты отзывов изменяются только запросом {@code RestaurantRepository.applyRatingDelta}
+     * и не входят в UPDATE при сохранении ресторана: иначе изменение ресторана записало бы обратно значения,
+     * прочитанные до одновременно созданных отзывов.
+     */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name = "avg_rating", updatable = false)
     private double avgRating;
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name = "review_count", nullable = false, updatable = false)
+    private int reviewCount;
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name = "rating_sum", nullable = false, updatable = false)
+    private long ratingSum;
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Embedded
+    private RatingHistogram ratingHistogram = new RatingHistogram();
     @NotBlank(message = "Location is required")
     @Column(name = "location")
     private String location;
+    @DecimalMin(value = "-90.0", message = "Latitude must be between -90 and 90")
+    @DecimalMax(value = "90.0", message = "Latitude must be between -90 and 90")
+    @Column(name = "latitude")
+    private Double latitude;
+    @DecimalMin(value = "-180.0", message = "Longitude must be between -180 and 180")
+    @DecimalMax(value = "180.0", message = "Longitude must be between -180 and 180")
+    @Column(name = "longitude")
+    private Double longitude;
     @Column(name = "cuisine")
     private String cuisine;
     @NotBlank(message = "Price range is required")
@@ -38,6 +66,13 @@ public class Restaurant {
     private String priceRange;
     @Column(name = "photo")
     private String photo;
+    /**
+     * Момент мягкого удаления ресторана (null - ресторан не удален).
+     * Помеченные рестораны не возвращаются запросами и удаляются фоновой задачей.
+     */
+    @JsonIgnore
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
 
     /**
      * Конструктор по умолчанию.
@@ -0,0 +1,69 @@
+package com.example.restaurantreview.models;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Locale;
+
+/**
+ * Условия фильтрации каталога ресторанов. Незаданные условия (null) не ограничивают выборку.
+ * Строковые условия приводятся к нижнему регистру, поэтому фильтры, отличающиеся только регистром, равны
+ * и могут использоваться как ключ кэша.
+ */
+@Data
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class RestaurantFilter {
+    /**
+     * Фильтр без условий.
+     */
+    public static final RestaurantFilter NONE = new RestaurantFilter(null, null, null, null);
+
+    /**
+     * Тип кухни (в нижнем регистре, сравнивается без учета регистра).
+     */
+    private final String cuisine;
+    /**
+     * Ценовой диапазон (сравнивается точно).
+     */
+    private final String priceRange;
+    /**
+     * Минимальный средний рейтинг (включительно).
+     */
+    private final Double minRating;
+    /**
+     * Начало названия ресторана (в нижнем регистре, сравнивается без учета регистра).
+     */
+    private final String namePrefix;
+
+    /**
+     * Создает фильтр. Пустые строки считаются незаданными условиями.
+     *
+     * @param cuisine    тип кухни
+     * @param priceRange ценовой диапазон
+     * @param minRating  минимальный средний рейтинг
+     * @param namePrefix начало названия ресторана
+     * @return фильтр
+     */
+    public static RestaurantFilter of(String cuisine, String priceRange, Double minRating, String namePrefix) {
+        return new RestaurantFilter(lowerCase(cuisine), blankToNull(priceRange), minRating, lowerCase(namePrefix));
+    }
+
+    /**
+     * Проверяет, задано ли хотя бы одно условие.
+     *
+     * @return true, если фильтр не ограничивает выборку
+     */
+    public boolean isEmpty() {
+        return cuisine == null && priceRange == null && minRating == null && namePrefix == null;
+    }
+
+    private static String lowerCase(String value) {
+        String trimmed = blankToNull(value);
+        return trimmed == null ? null : trimmed.toLowerCase(Locale.ROOT);
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+}
@@ -1,21 +1,32 @@
 package com.example.restaurantreview.models;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 import java.time.LocalDateTime;
 
 /**
  * Модель представляющая отзыв о ресторане.
+ * Отзывы ресторанов, помеченных удаленными, не возвращаются запросами списков отзывов
+ * до их удаления фоновой задачей (см. {@link com.example.restaurantreview.repositories.ReviewRepository#VISIBLE}).
  */
 @Data
 @Entity
 @Table(name = "review")
 public class Review {
+    /**
+     * Идентификатор берется из последовательности с оптимизатором pooled: Hibernate резервирует
+     * блок из allocationSize значений за одно обращение к базе, что позволяет пакетную вставку отзывов
+     * (с GenerationType.IDENTITY пакетная вставка отключается).
+     */
     @Id
     @Column(name = "id")
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "review_id_seq")
+    @SequenceGenerator(name = "review_id_seq", sequenceName = "review_id_seq", allocationSize = 50)
     private int id;
 
     @Column(name = "text")
@@ -30,8 +41,16 @@ public class Review {
     @Column(name = "creation_date")
     private LocalDateTime creationDate;
 
-    @ManyToOne
+    /**
+     * Ресторан загружается лениво: спискам отзывов достаточно внешнего ключа.
+     * В JSON ресторан только принимается (при обновлении отзыва), а отдается его идентификатор.
+     * Ресторан не участвует в equals, hashCode и toString, чтобы они не загружали его из базы данных.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "restaurant_id")
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Restaurant restaurant;
 
     @NotBlank(message = "Author name is required")
@@ -67,4 +86,14 @@ public class Review {
         this.authorName = authorName;
         this.authorEmail = authorEmail;
     }
+
+    /**
+     * Возвращает идентификатор ресторана, не загружая ленивый ресторан из базы данных.
+     *
+     * @return идентификатор ресторана или null, если ресторан не задан.
+     */
+    @JsonProperty(value = "restaurantId", access = JsonProperty.Access.READ_ONLY)
+    public Integer getRestaurantId() {
+        return restaurant == null ? null : restaurant.getId();
+    }
 }
@@ -0,0 +1,30 @@
+package com.example.restaurantreview.models;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Результат массовой загрузки отзывов.
+ */
+@Data
+public class ReviewImportResult {
+    /**
+     * Количество сохраненных отзывов.
+     */
+    private int imported;
+    /**
+     * Количество отклоненных строк.
+     */
+    private int rejected;
+    /**
+     * Описания ошибок отклоненных строк (не более ограниченного количества).
+     */
+    private List<String> errors = new ArrayList<>();
+    /**
+     * Номер строки, с которой загрузка прервана ошибкой базы данных (null, если поток обработан до конца).
+     * Строки до нее обработаны и зафиксированы, загрузку можно продолжить с этой строки.
+     */
+    private Integer stoppedAtRow;
+}
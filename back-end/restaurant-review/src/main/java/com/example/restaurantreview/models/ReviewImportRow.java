@@ -0,0 +1,21 @@
+package com.example.restaurantreview.models;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Строка массовой загрузки отзывов (NDJSON или CSV).
+ */
+@Data
+public class ReviewImportRow {
+    private Integer restaurantId;
+    private String text;
+    private Integer rating;
+    private String authorName;
+    private String authorEmail;
+    /**
+     * Дата создания отзыва на исходной платформе (если не указана, используется текущее время).
+     */
+    private LocalDateTime creationDate;
+}
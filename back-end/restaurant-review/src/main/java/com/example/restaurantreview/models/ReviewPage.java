@@ -0,0 +1,22 @@
+package com.example.restaurantreview.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Страница отзывов при постраничном выводе по курсору.
+ */
+@Data
+@AllArgsConstructor
+public class ReviewPage {
+    /**
+     * Отзывы текущей страницы.
+     */
+    private List<ReviewSummary> items;
+    /**
+     * Курсор следующей страницы или null, если страница последняя.
+     */
+    private String next;
+}
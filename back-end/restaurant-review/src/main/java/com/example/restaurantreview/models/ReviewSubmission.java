@@ -0,0 +1,48 @@
+package com.example.restaurantreview.models;
+
+import lombok.Data;
+
+/**
+ * Состояние отзыва, принятого на асинхронное сохранение.
+ */
+@Data
+public class ReviewSubmission {
+    /**
+     * Состояние обработки отзыва.
+     */
+    public enum Status {
+        /**
+         * Отзыв ожидает сохранения в очереди.
+         */
+        QUEUED,
+        /**
+         * Отзыв сохранен.
+         */
+        SAVED,
+        /**
+         * Отзыв отклонен (например, ресторан был удален до сохранения).
+         */
+        REJECTED,
+        /**
+         * Отзыв не удалось сохранить из-за ошибки базы данных.
+         */
+        FAILED
+    }
+
+    /**
+     * Идентификатор для отслеживания состояния отзыва.
+     */
+    private final String trackingId;
+    /**
+     * Состояние обработки отзыва.
+     */
+    private final Status status;
+    /**
+     * Идентификатор сохраненного отзыва (только в состоянии SAVED).
+     */
+    private final Integer reviewId;
+    /**
+     * Описание ошибки (только в состояниях REJECTED и FAILED).
+     */
+    private final String error;
+}
@@ -0,0 +1,22 @@
+package com.example.restaurantreview.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Облегченное представление отзыва для списков: только колонки отзыва и идентификатор ресторана
+ * вместо вложенного ресторана целиком.
+ */
+@Data
+@AllArgsConstructor
+public class ReviewSummary {
+    private int id;
+    private String text;
+    private int rating;
+    private LocalDateTime creationDate;
+    private int restaurantId;
+    private String authorName;
+    private String authorEmail;
+}
@@ -1,23 +1,177 @@
 package com.example.restaurantreview.repositories;
 
+import com.example.restaurantreview.models.RatingHistogram;
 import com.example.restaurantreview.models.Restaurant;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 /**
  * Репозиторий для работы с ресторанами.
+ * Выборки каталога с фильтрами строятся условиями из {@link RestaurantSpecifications}.
  */
 @Repository
-public interface RestaurantRepository extends JpaRepository<Restaurant, Integer> {
+public interface RestaurantRepository extends JpaRepository<Restaurant, Integer>,
+        JpaSpecificationExecutor<Restaurant> {
     /**
-     * Находит список ресторанов по указанной кухне с игнорированием регистра.
+     * Возвращает идентификаторы существующих ресторанов из переданного набора.
      *
-     * @param cuisine тип кухни для поиска
-     * @param sort объект Sort для сортировки результатов
-     * @return список ресторанов с указанной кухней, отсортированный согласно переданному объекту Sort
+     * @param ids идентификаторы ресторанов
+     * @return идентификаторы ресторанов, которые существуют в базе данных
      */
-    List<Restaurant> findByCuisineIgnoreCase(String cuisine, Sort sort);
+    @Query("SELECT r.id FROM Restaurant r WHERE r.id IN :ids")
+    List<Integer> findExistingIds(@Param("ids") Collection<Integer> ids);
+
+    /**
+     * Возвращает первые рестораны выборки каталога: сортировка и ограничение количества
+     * выполняются в базе данных (ORDER BY ... LIMIT), а не над всей выборкой в памяти.
+     *
+     * @param spec  условие выборки
+     * @param sort  сортировка
+     * @param limit количество ресторанов
+     * @return не более limit первых ресторанов выборки
+     */
+    default List<Restaurant> findTop(Specification<Restaurant> spec, Sort sort, int limit) {
+        return findBy(spec, query -> query.sortBy(sort).limit(limit).all());
+    }
+
+    /**
+     * Возвращает сохраненное количество отзывов каждого ресторана.
+     *
+     * @return список массивов объектов, содержащих идентификатор ресторана и количество отзывов для него
+     */
+    @Query("SELECT r.id, r.reviewCount FROM Restaurant r")
+    List<Object[]> findReviewCounts();
+
+    /**
+     * Возвращает текстовые поля всех ресторанов для построения поискового индекса.
+     *
+     * @return список массивов объектов: идентификатор, название, описание, адрес и тип кухни ресторана
+     */
+    @Query("SELECT r.id, r.name, r.description, r.location, r.cuisine FROM Restaurant r")
+    List<Object[]> findSearchableFields();
+
+    /**
+     * Возвращает текстовые поля указанных ресторанов для переиндексации.
+     *
+     * @param ids идентификаторы ресторанов
+     * @return список массивов объектов: идентификатор, название, описание, адрес и тип кухни ресторана
+     */
+    @Query("SELECT r.id, r.name, r.description, r.location, r.cuisine FROM Restaurant r WHERE r.id IN :ids")
+    List<Object[]> findSearchableFieldsByIds(@Param("ids") Collection<Integer> ids);
+
+    /**
+     * Возвращает значения фасетов каталога всех ресторанов для построения счетчиков фасетов.
+     *
+     * @return список массивов объектов: идентификатор, тип кухни и ценовой диапазон ресторана
+     */
+    @Query("SELECT r.id, r.cuisine, r.priceRange FROM Restaurant r")
+    List<Object[]> findFacetFields();
+
+    /**
+     * Возвращает координаты ресторанов, для которых они заданы, для построения пространственного индекса.
+     *
+     * @return список массивов объектов: идентификатор, широта и долгота ресторана
+     */
+    @Query("SELECT r.id, r.latitude, r.longitude FROM Restaurant r " +
+            "WHERE r.latitude IS NOT NULL AND r.longitude IS NOT NULL")
+    List<Object[]> findCoordinates();
+
+    /**
+     * Атомарно применяет изменение распределения оценок к агрегатам отзывов ресторана.
+     * Количество отзывов и сумма оценок изменяются на количество и сумму оценок изменения.
+     *
+     * @param id    идентификатор ресторана
+     * @param delta изменение количества отзывов с каждой оценкой
+     * @return количество обновленных строк
+     */
+    default int applyRatingDelta(int id, RatingHistogram delta) {
+        return applyRatingDelta(id, delta.count(), delta.sum(), delta.getOneStar(), delta.getTwoStars(),
+                delta.getThreeStars(), delta.getFourStars(), delta.getFiveStars());
+    }
+
+    /**
+     * Атомарно применяет изменение к агрегатам отзывов ресторана одним UPDATE-запросом.
+     * Все выражения в SET вычисляются по значениям строки до обновления, поэтому
+     * параллельные вызовы не теряют вклад друг друга.
+     *
+     * @param id          идентификатор ресторана
+     * @param countDelta  изменение количества отзывов
+     * @param ratingDelta изменение суммы оценок
+     * @param oneStar     изменение количества отзывов с оценкой 1
+     * @param twoStars    изменение количества отзывов с оценкой 2
+     * @param threeStars  изменение количества отзывов с оценкой 3
+     * @param fourStars   изменение количества отзывов с оценкой 4
+     * @param fiveStars   изменение количества отзывов с оценкой 5
+     * @return количество обновленных строк
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Restaurant r SET " +
+            "r.reviewCount = r.reviewCount + :countDelta, " +
+            "r.ratingSum = r.ratingSum + :ratingDelta, " +
+            "r.avgRating = CASE WHEN r.reviewCount + :countDelta > 0 " +
+            "THEN (r.ratingSum + :ratingDelta) * 1.0 / (r.reviewCount + :countDelta) ELSE 0 END, " +
+            "r.ratingHistogram.oneStar = r.ratingHistogram.oneStar + :oneStar, " +
+            "r.ratingHistogram.twoStars = r.ratingHistogram.twoStars + :twoStars, " +
+            "r.ratingHistogram.threeStars = r.ratingHistogram.threeStars + :threeStars, " +
+            "r.ratingHistogram.fourStars = r.ratingHistogram.fourStars + :fourStars, " +
+            "r.ratingHistogram.fiveStars = r.ratingHistogram.fiveStars + :fiveStars " +
+            "WHERE r.id = :id")
+    int applyRatingDelta(@Param("id") int id, @Param("countDelta") int countDelta,
+                         @Param("ratingDelta") long ratingDelta, @Param("oneStar") int oneStar,
+                         @Param("twoStars") int twoStars, @Param("threeStars") int threeStars,
+                         @Param("fourStars") int fourStars, @Param("fiveStars") int fiveStars);
+
+    /**
+     * Помечает ресторан удаленным. Помеченный ресторан и его отзывы перестают возвращаться запросами,
+     * а строки удаляются позже фоновой задачей.
+     *
+     * @param id        идентификатор ресторана
+     * @param deletedAt момент удаления
+     * @return количество помеченных строк
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Restaurant r SET r.deletedAt = :deletedAt WHERE r.id = :id AND r.deletedAt IS NULL")
+    int markDeleted(@Param("id") int id, @Param("deletedAt") LocalDateTime deletedAt);
+
+    /**
+     * Удаляет ресторан одним запросом DELETE без предварительной загрузки.
+     * Отзывы ресторана должны быть удалены до этого.
+     *
+     * @param id идентификатор ресторана
+     * @return количество удаленных строк
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Restaurant r WHERE r.id = :id")
+    int deleteByIdInBatch(@Param("id") int id);
+
+    /**
+     * Возвращает идентификаторы ресторанов, помеченных удаленными, начиная с давно помеченных.
+     * Запрос выполняется напрямую по таблице, так как помеченные рестораны скрыты от запросов к сущности.
+     *
+     * @param limit максимальное количество ресторанов
+     * @return идентификаторы помеченных ресторанов
+     */
+    @Query(value = "SELECT id FROM restaurant WHERE deleted_at IS NOT NULL ORDER BY deleted_at LIMIT :limit",
+            nativeQuery = true)
+    List<Integer> findSoftDeletedIds(@Param("limit") int limit);
+
+    /**
+     * Удаляет ресторан, помеченный удаленным. Отзывы ресторана должны быть удалены до этого.
+     *
+     * @param id идентификатор ресторана
+     * @return количество удаленных строк
+     */
+    @Modifying
+    @Query(value = "DELETE FROM restaurant WHERE id = :id AND deleted_at IS NOT NULL", nativeQuery = true)
+    int deleteSoftDeleted(@Param("id") int id);
 }
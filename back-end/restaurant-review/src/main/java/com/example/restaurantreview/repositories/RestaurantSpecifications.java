@@ -0,0 +1,66 @@
+package com.example.restaurantreview.repositories;
+
+import com.example.restaurantreview.models.Restaurant;
+import com.example.restaurantreview.models.RestaurantFilter;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Условия выборки ресторанов для {@link RestaurantRepository}.
+ * Каждое условие формулируется так, чтобы его обслуживал индекс из db/005-restaurant-filter-indexes.sql:
+ * кухня сравнивается через lower(cuisine), начало названия - через lower(name) LIKE 'prefix%'.
+ * В выборку попадают только заданные условия, поэтому план запроса не содержит конструкций
+ * вида (:param IS NULL OR ...), которые мешают использованию индексов.
+ */
+public final class RestaurantSpecifications {
+    private static final char LIKE_ESCAPE = '\\';
+
+    private RestaurantSpecifications() {
+    }
+
+    /**
+     * Возвращает условие, которому удовлетворяют рестораны, подходящие под фильтр.
+     *
+     * @param filter фильтр каталога
+     * @return условие выборки
+     */
+    public static Specification<Restaurant> matching(RestaurantFilter filter) {
+        return (root, query, builder) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (filter.getCuisine() != null) {
+                predicates.add(builder.equal(builder.lower(root.get("cuisine")), filter.getCuisine()));
+            }
+            if (filter.getPriceRange() != null) {
+                predicates.add(builder.equal(root.get("priceRange"), filter.getPriceRange()));
+            }
+            if (filter.getMinRating() != null) {
+                predicates.add(builder.greaterThanOrEqualTo(root.get("avgRating"), filter.getMinRating()));
+            }
+            if (filter.getNamePrefix() != null) {
+                predicates.add(builder.like(builder.lower(root.get("name")),
+                        escapeLike(filter.getNamePrefix()) + "%", LIKE_ESCAPE));
+            }
+            return builder.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    /**
+     * Экранирует специальные символы шаблона LIKE, чтобы начало названия сравнивалось буквально.
+     *
+     * @param value исходная строка
+     * @return экранированная строка
+     */
+    static String escapeLike(String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (char c : value.toCharArray()) {
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+                escaped.append(LIKE_ESCAPE);
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+}
@@ -1,24 +1,82 @@
 package com.example.restaurantreview.repositories;
 
 import com.example.restaurantreview.models.Review;
+import com.example.restaurantreview.models.ReviewSummary;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Репозиторий для работы с отзывами.
  */
 @Repository
 public interface ReviewRepository extends JpaRepository<Review, Integer> {
+    /**
+     * Выражение выборки облегченного представления отзыва. r.restaurant.id читается из внешнего ключа
+     * review.restaurant_id, поэтому соединение с таблицей ресторанов не выполняется.
+     */
+    String SUMMARY = "SELECT new com.example.restaurantreview.models.ReviewSummary(" +
+            "r.id, r.text, r.rating, r.creationDate, r.restaurant.id, r.authorName, r.authorEmail) FROM Review r ";
+
+    /**
+     * Условие, исключающее из списков отзывы ресторанов, помеченных удаленными, до их удаления фоновой задачей.
+     * Подзапрос к сущности Restaurant учитывает ее ограничение deleted_at IS NULL. Условие есть только
+     * в запросах findVisible*, которые сервисы выбирают при мягком удалении ресторанов
+     * (restaurant.delete.soft=true): при немедленном удалении скрывать нечего, и запросы списков
+     * и выгрузки не выполняют лишний подзапрос.
+     */
+    String VISIBLE = "EXISTS (SELECT 1 FROM Restaurant d WHERE d.id = r.restaurant.id) ";
+
+    /**
+     * Количество строк, которое JDBC-драйвер получает от базы данных за одно обращение при потоковой выгрузке.
+     * PostgreSQL учитывает его только внутри транзакции, иначе драйвер читает весь результат в память.
+     */
+    String EXPORT_FETCH_SIZE = "500";
+
+    /**
+     * Находит все отзывы в облегченном представлении.
+     *
+     * @return список всех отзывов
+     */
+    @Query(SUMMARY)
+    List<ReviewSummary> findAllSummaries();
+
+    /**
+     * То же, что {@link #findAllSummaries()}, но без отзывов ресторанов, помеченных удаленными.
+     *
+     * @return список всех отзывов
+     */
+    @Query(SUMMARY + "WHERE " + VISIBLE)
+    List<ReviewSummary> findAllVisibleSummaries();
+
     /**
      * Находит все отзывы для указанного ресторана, сортируя их по дате создания в порядке убывания.
      *
      * @param restaurantId идентификатор ресторана
      * @return список отзывов для указанного ресторана, отсортированный по дате создания в порядке убывания
      */
-    List<Review> findAllByRestaurantIdOrderByCreationDateDesc(int restaurantId);
+    @Query(SUMMARY + "WHERE r.restaurant.id = :restaurantId ORDER BY r.creationDate DESC")
+    List<ReviewSummary> findAllByRestaurantIdOrderByCreationDateDesc(@Param("restaurantId") int restaurantId);
+
+    /**
+     * То же, что {@link #findAllByRestaurantIdOrderByCreationDateDesc(int)},
+     * но без отзывов ресторанов, помеченных удаленными.
+     *
+     * @param restaurantId идентификатор ресторана
+     * @return список отзывов для указанного ресторана, отсортированный по дате создания в порядке убывания
+     */
+    @Query(SUMMARY + "WHERE r.restaurant.id = :restaurantId AND " + VISIBLE + "ORDER BY r.creationDate DESC")
+    List<ReviewSummary> findVisibleByRestaurantIdOrderByCreationDateDesc(@Param("restaurantId") int restaurantId);
 
     /**
      * Выполняет запрос для подсчета количества отзывов для каждого ресторана.
@@ -27,4 +85,244 @@ public interface ReviewRepository extends JpaRepository<Review, Integer> {
      */
     @Query("SELECT r.restaurant.id, COUNT(r) FROM Review r GROUP BY r.restaurant.id")
     List<Object[]> findReviewsCountByRestaurantId();
+
+    /**
+     * Потоково читает все отзывы в порядке (creation_date, id) по возрастанию.
+     * Поток должен быть закрыт и прочитан внутри транзакции.
+     *
+     * @return поток отзывов
+     */
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.fetchSize", value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query(SUMMARY + "ORDER BY r.creationDate, r.id")
+    Stream<ReviewSummary> streamAll();
+
+    /**
+     * То же, что {@link #streamAll()}, но без отзывов ресторанов, помеченных удаленными.
+     *
+     * @return поток отзывов
+     */
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.fetchSize", value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query(SUMMARY + "WHERE " + VISIBLE + "ORDER BY r.creationDate, r.id")
+    Stream<ReviewSummary> streamAllVisible();
+
+    /**
+     * Потоково читает отзывы, созданные начиная с указанного момента, в порядке (creation_date, id) по возрастанию.
+     * Поток должен быть закрыт и прочитан внутри транзакции.
+     *
+     * @param since нижняя граница даты создания (включительно)
+     * @return поток отзывов
+     */
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.fetchSize", value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query(SUMMARY + "WHERE r.creationDate >= :since ORDER BY r.creationDate, r.id")
+    Stream<ReviewSummary> streamSince(@Param("since") LocalDateTime since);
+
+    /**
+     * То же, что {@link #streamSince(LocalDateTime)}, но без отзывов ресторанов, помеченных удаленными.
+     *
+     * @param since нижняя граница даты создания (включительно)
+     * @return поток отзывов
+     */
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.fetchSize", value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query(SUMMARY + "WHERE r.creationDate >= :since AND " + VISIBLE + "ORDER BY r.creationDate, r.id")
+    Stream<ReviewSummary> streamVisibleSince(@Param("since") LocalDateTime since);
+
+    /**
+     * Возвращает тексты отзывов указанных ресторанов для построения поискового индекса.
+     *
+     * @param restaurantIds идентификаторы ресторанов
+     * @return список массивов объектов, содержащих идентификатор ресторана и текст отзыва
+     */
+    @Query("SELECT r.restaurant.id, r.text FROM Review r " +
+            "WHERE r.restaurant.id IN :restaurantIds AND r.text IS NOT NULL")
+    List<Object[]> findTextsByRestaurantIds(@Param("restaurantIds") Collection<Integer> restaurantIds);
+
+    /**
+     * Возвращает первую страницу отзывов в порядке (creation_date, id) по убыванию.
+     * Отзывы без даты создания идут первыми, как в индексе (creation_date DESC, id DESC) PostgreSQL.
+     *
+     * @param limit максимальное количество отзывов на странице
+     * @return первая страница отзывов
+     */
+    @Query(SUMMARY + "ORDER BY r.creationDate DESC NULLS FIRST, r.id DESC")
+    List<ReviewSummary> findFirstPage(Limit limit);
+
+    /**
+     * То же, что {@link #findFirstPage(Limit)}, но без отзывов ресторанов, помеченных удаленными.
+     *
+     * @param limit максимальное количество отзывов на странице
+     * @return первая страница отзывов
+     */
+    @Query(SUMMARY + "WHERE " + VISIBLE + "ORDER BY r.creationDate DESC NULLS FIRST, r.id DESC")
+    List<ReviewSummary> findVisibleFirstPage(Limit limit);
+
+    /**
+     * Возвращает страницу отзывов, следующую за отзывом с указанным ключом (creation_date, id).
+     * Условие по ключу позволяет базе данных начать чтение индекса сразу с нужной позиции,
+     * поэтому стоимость глубоких страниц не отличается от первой (в отличие от OFFSET).
+     *
+     * @param creationDate дата создания последнего отзыва предыдущей страницы
+     * @param id           идентификатор последнего отзыва предыдущей страницы
+     * @param limit        максимальное количество отзывов на странице
+     * @return следующая страница отзывов
+     */
+    @Query(SUMMARY + "WHERE (r.creationDate, r.id) < (:creationDate, :id) " +
+            "ORDER BY r.creationDate DESC NULLS FIRST, r.id DESC")
+    List<ReviewSummary> findPageAfter(@Param("creationDate") LocalDateTime creationDate, @Param("id") int id,
+                                      Limit limit);
+
+    /**
+     * То же, что {@link #findPageAfter(LocalDateTime, int, Limit)}, но без отзывов ресторанов, помеченных удаленными.
+     *
+     * @param creationDate дата создания последнего отзыва предыдущей страницы
+     * @param id           идентификатор последнего отзыва предыдущей страницы
+     * @param limit        максимальное количество отзывов на странице
+     * @return следующая страница отзывов
+     */
+    @Query(SUMMARY + "WHERE (r.creationDate, r.id) < (:creationDate, :id) AND " + VISIBLE +
+            "ORDER BY r.creationDate DESC NULLS FIRST, r.id DESC")
+    List<ReviewSummary> findVisiblePageAfter(@Param("creationDate") LocalDateTime creationDate, @Param("id") int id,
+                                             Limit limit);
+
+    /**
+     * Возвращает страницу отзывов, следующую за отзывом без даты создания с указанным идентификатором:
+     * оставшиеся отзывы без даты создания, затем все отзывы с датой.
+     *
+     * @param id    идентификатор последнего отзыва предыдущей страницы
+     * @param limit максимальное количество отзывов на странице
+     * @return следующая страница отзывов
+     */
+    @Query(SUMMARY + "WHERE ((r.creationDate IS NULL AND r.id < :id) OR r.creationDate IS NOT NULL) " +
+            "ORDER BY r.creationDate DESC NULLS FIRST, r.id DESC")
+    List<ReviewSummary> findPageAfterUndated(@Param("id") int id, Limit limit);
+
+    /**
+     * То же, что {@link #findPageAfterUndated(int, Limit)}, но без отзывов ресторанов, помеченных удаленными.
+     *
+     * @param id    идентификатор последнего отзыва предыдущей страницы
+     * @param limit максимальное количество отзывов на странице
+     * @return следующая страница отзывов
+     */
+    @Query(SUMMARY + "WHERE ((r.creationDate IS NULL AND r.id < :id) OR r.creationDate IS NOT NULL) " +
+            "AND " + VISIBLE + "ORDER BY r.creationDate DESC NULLS FIRST, r.id DESC")
+    List<ReviewSummary> findVisiblePageAfterUndated(@Param("id") int id, Limit limit);
+
+    /**
+     * Возвращает первую страницу отзывов указанного ресторана в порядке (creation_date, id) по убыванию.
+     *
+     * @param restaurantId идентификатор ресторана
+     * @param limit        максимальное количество отзывов на странице
+     * @return первая страница отзывов ресторана
+     */
+    @Query(SUMMARY + "WHERE r.restaurant.id = :restaurantId " +
+            "ORDER BY r.creationDate DESC NULLS FIRST, r.id DESC")
+    List<ReviewSummary> findFirstPageByRestaurantId(@Param("restaurantId") int restaurantId, Limit limit);
+
+    /**
+     * То же, что {@link #findFirstPageByRestaurantId(int, Limit)}, но без отзывов ресторанов, помеченных удаленными.
+     *
+     * @param restaurantId идентификатор ресторана
+     * @param limit        максимальное количество отзывов на странице
+     * @return первая страница отзывов ресторана
+     */
+    @Query(SUMMARY + "WHERE r.restaurant.id = :restaurantId AND " + VISIBLE +
+            "ORDER BY r.creationDate DESC NULLS FIRST, r.id DESC")
+    List<ReviewSummary> findVisibleFirstPageByRestaurantId(@Param("restaurantId") int restaurantId, Limit limit);
+
+    /**
+     * Возвращает страницу отзывов указанного ресторана, следующую за отзывом с ключом (creation_date, id).
+     *
+     * @param restaurantId идентификатор ресторана
+     * @param creationDate дата создания последнего отзыва предыдущей страницы
+     * @param id           идентификатор последнего отзыва предыдущей страницы
+     * @param limit        максимальное количество отзывов на странице
+     * @return следующая страница отзывов ресторана
+     */
+    @Query(SUMMARY + "WHERE r.restaurant.id = :restaurantId " +
+            "AND (r.creationDate, r.id) < (:creationDate, :id) " +
+            "ORDER BY r.creationDate DESC NULLS FIRST, r.id DESC")
+    List<ReviewSummary> findPageAfterByRestaurantId(@Param("restaurantId") int restaurantId,
+                                                    @Param("creationDate") LocalDateTime creationDate,
+                                                    @Param("id") int id, Limit limit);
+
+    /**
+     * То же, что {@link #findPageAfterByRestaurantId(int, LocalDateTime, int, Limit)},
+     * но без отзывов ресторанов, помеченных удаленными.
+     *
+     * @param restaurantId идентификатор ресторана
+     * @param creationDate дата создания последнего отзыва предыдущей страницы
+     * @param id           идентификатор последнего отзыва предыдущей страницы
+     * @param limit        максимальное количество отзывов на странице
+     * @return следующая страница отзывов ресторана
+     */
+    @Query(SUMMARY + "WHERE r.restaurant.id = :restaurantId " +
+            "AND (r.creationDate, r.id) < (:creationDate, :id) AND " + VISIBLE +
+            "ORDER BY r.creationDate DESC NULLS FIRST, r.id DESC")
+    List<ReviewSummary> findVisiblePageAfterByRestaurantId(@Param("restaurantId") int restaurantId,
+                                                           @Param("creationDate") LocalDateTime creationDate,
+                                                           @Param("id") int id, Limit limit);
+
+    /**
+     * Возвращает страницу отзывов указанного ресторана, следующую за отзывом без даты создания
+     * с указанным идентификатором.
+     *
+     * @param restaurantId идентификатор ресторана
+     * @param id           идентификатор последнего отзыва предыдущей страницы
+     * @param limit        максимальное количество отзывов на странице
+     * @return следующая страница отзывов ресторана
+     */
+    @Query(SUMMARY + "WHERE r.restaurant.id = :restaurantId " +
+            "AND ((r.creationDate IS NULL AND r.id < :id) OR r.creationDate IS NOT NULL) " +
+            "ORDER BY r.creationDate DESC NULLS FIRST, r.id DESC")
+    List<ReviewSummary> findPageAfterUndatedByRestaurantId(@Param("restaurantId") int restaurantId,
+                                                           @Param("id") int id, Limit limit);
+
+    /**
+     * То же, что {@link #findPageAfterUndatedByRestaurantId(int, int, Limit)},
+     * но без отзывов ресторанов, помеченных удаленными.
+     *
+     * @param restaurantId идентификатор ресторана
+     * @param id           идентификатор последнего отзыва предыдущей страницы
+     * @param limit        максимальное количество отзывов на странице
+     * @return следующая страница отзывов ресторана
+     */
+    @Query(SUMMARY + "WHERE r.restaurant.id = :restaurantId " +
+            "AND ((r.creationDate IS NULL AND r.id < :id) OR r.creationDate IS NOT NULL) AND " + VISIBLE +
+            "ORDER BY r.creationDate DESC NULLS FIRST, r.id DESC")
+    List<ReviewSummary> findVisiblePageAfterUndatedByRestaurantId(@Param("restaurantId") int restaurantId,
+                                                                  @Param("id") int id, Limit limit);
+
+    /**
+     * Удаляет все отзывы ресторана одним запросом DELETE без загрузки отзывов.
+     *
+     * @param restaurantId идентификатор ресторана
+     * @return количество удаленных отзывов
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Review r WHERE r.restaurant.id = :restaurantId")
+    int deleteAllByRestaurantIdInBatch(@Param("restaurantId") int restaurantId);
+
+    /**
+     * Удаляет часть отзывов ресторана ограниченного размера.
+     * Запрос выполняется напрямую по таблице, чтобы ограничить размер части подзапросом с LIMIT.
+     *
+     * @param restaurantId идентификатор ресторана
+     * @param limit        максимальное количество удаляемых отзывов
+     * @return количество удаленных отзывов
+     */
+    @Modifying
+    @Query(value = "DELETE FROM review WHERE id IN " +
+            "(SELECT id FROM review WHERE restaurant_id = :restaurantId LIMIT :limit)", nativeQuery = true)
+    int deleteChunkByRestaurantId(@Param("restaurantId") int restaurantId, @Param("limit") int limit);
 }
@@ -0,0 +1,147 @@
+package com.example.restaurantreview.services;
+
+import com.example.restaurantreview.events.ListenerOrder;
+import com.example.restaurantreview.events.RestaurantChangedEvent;
+import com.example.restaurantreview.models.CatalogFacets;
+import com.example.restaurantreview.repositories.RestaurantRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Счетчики ресторанов по фасетам каталога (тип кухни, ценовой диапазон), поддерживаемые в памяти.
+ * Счетчик хранится для каждой пары (кухня, ценовой диапазон); фасеты и их пересечения вычисляются
+ * суммированием этих счетчиков, количество которых не зависит от количества ресторанов.
+ * <p>
+ * Заполняется при старте приложения и обновляется при создании, изменении и удалении ресторанов
+ * без блокировок: для каждого ресторана запоминается его текущая пара, а при изменении
+ * счетчик старой пары атомарно уменьшается, а новой - увеличивается.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class CatalogFacetCounters {
+    private final RestaurantRepository restaurantRepository;
+
+    private volatile State state = new State();
+    private volatile boolean seeded;
+
+    /**
+     * Заполняет счетчики при старте приложения.
+     * Если база данных недоступна, заполнение повторяется при первом обращении к счетчикам.
+     */
+    @PostConstruct
+    public void seed() {
+        try {
+            rebuild();
+        } catch (DataAccessException | TransactionException e) {
+            log.warn("Catalog facet counters are not seeded yet: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Возвращает количество ресторанов по фасетам с учетом фильтра.
+     * Тип кухни сравнивается без учета регистра, ценовой диапазон - точно.
+     *
+     * @param cuisine    тип кухни (null - без фильтра)
+     * @param priceRange ценовой диапазон (null - без фильтра)
+     * @return количество ресторанов по фасетам
+     */
+    public CatalogFacets facets(String cuisine, String priceRange) {
+        if (!seeded) {
+            rebuild();
+        }
+        long total = 0;
+        // Типы кухни, отличающиеся только регистром, считаются одним значением, как и в фильтре каталога
+        Map<String, Long> cuisines = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        Map<String, Long> priceRanges = new TreeMap<>();
+        for (Map.Entry<Key, AtomicLong> cell : state.counts.entrySet()) {
+            long count = cell.getValue().get();
+            if (count <= 0) {
+                continue;
+            }
+            Key key = cell.getKey();
+            boolean cuisineMatches = cuisine == null || cuisine.equalsIgnoreCase(key.cuisine());
+            boolean priceRangeMatches = priceRange == null || priceRange.equals(key.priceRange());
+            if (cuisineMatches && priceRangeMatches) {
+                total += count;
+            }
+            if (priceRangeMatches && key.cuisine() != null) {
+                cuisines.merge(key.cuisine(), count, Long::sum);
+            }
+            if (cuisineMatches && key.priceRange() != null) {
+                priceRanges.merge(key.priceRange(), count, Long::sum);
+            }
+        }
+        return new CatalogFacets(total, cuisines, priceRanges);
+    }
+
+    /**
+     * Переносит ресторан между счетчиками после его создания, изменения или удаления.
+     *
+     * @param event событие изменения ресторана
+     */
+    @Order(ListenerOrder.INDEXES)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRestaurantChanged(RestaurantChangedEvent event) {
+        State current = state;
+        Key oldKey;
+        if (event.getType() == RestaurantChangedEvent.Type.DELETED) {
+            oldKey = current.restaurants.remove(event.getRestaurantId());
+        } else {
+            Key newKey = new Key(event.getCuisine(), event.getPriceRange());
+            oldKey = current.restaurants.put(event.getRestaurantId(), newKey);
+            if (newKey.equals(oldKey)) {
+                return;
+            }
+            current.counter(newKey).incrementAndGet();
+        }
+        if (oldKey != null) {
+            current.counter(oldKey).decrementAndGet();
+        }
+    }
+
+    /**
+     * Перестраивает счетчики по данным из базы данных.
+     * Новые счетчики собираются в стороне и заменяют текущие одной записью ссылки.
+     */
+    public void rebuild() {
+        State newState = new State();
+        for (Object[] row : restaurantRepository.findFacetFields()) {
+            Key key = new Key((String) row[1], (String) row[2]);
+            newState.restaurants.put(((Number) row[0]).intValue(), key);
+            newState.counter(key).incrementAndGet();
+        }
+        state = newState;
+        seeded = true;
+        log.info("Catalog facet counters built: {} restaurants", newState.restaurants.size());
+    }
+
+    /**
+     * Счетчики и текущие пары фасетов ресторанов.
+     */
+    private static final class State {
+        private final Map<Key, AtomicLong> counts = new ConcurrentHashMap<>();
+        private final Map<Integer, Key> restaurants = new ConcurrentHashMap<>();
+
+        private AtomicLong counter(Key key) {
+            return counts.computeIfAbsent(key, k -> new AtomicLong());
+        }
+    }
+
+    /**
+     * Пара значений фасетов ресторана.
+     */
+    private record Key(String cuisine, String priceRange) {
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.restaurantreview.services;
+
+import com.example.restaurantreview.events.ListenerOrder;
+import com.example.restaurantreview.events.RestaurantChangedEvent;
+import com.example.restaurantreview.events.ReviewChangedEvent;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Счетчики версий данных для формирования ETag ответов на GET запросы.
+ * Глобальная версия увеличивается при любом изменении ресторанов и отзывов, версия ресторана - при изменении
+ * самого ресторана или его отзывов. Поэтому ETag вычисляется без обращения к базе данных и без сериализации ответа.
+ * <p>
+ * Счетчики хранятся в памяти процесса и начинаются заново после перезапуска, поэтому ETag содержит
+ * метку запуска приложения: теги, выданные до перезапуска, перестают совпадать.
+ * <p>
+ * Версии изменяются последними из обработчиков событий (см. {@link ListenerOrder}): к моменту, когда запрос
+ * получает новый тег, кэши и индексы, из которых он читает, уже обновлены.
+ */
+@Component
+public class ContentVersions {
+    private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+    private final AtomicLong globalVersion = new AtomicLong();
+    private final Map<Integer, AtomicLong> restaurantVersions = new ConcurrentHashMap<>();
+
+    /**
+     * Возвращает ETag данных, зависящих от всех ресторанов и отзывов (списки, рейтинги, поиск).
+     * Версию нужно получать до чтения данных: тогда при параллельном изменении ответ получит
+     * устаревший тег и будет перезапрошен, а не наоборот.
+     *
+     * @return значение ETag в кавычках
+     */
+    public String globalETag() {
+        return "\"" + epoch + "-" + globalVersion.get() + "\"";
+    }
+
+    /**
+     * Возвращает ETag данных одного ресторана: самого ресторана и списка его отзывов.
+     *
+     * @param restaurantId идентификатор ресторана
+     * @return значение ETag в кавычках
+     */
+    public String restaurantETag(int restaurantId) {
+        AtomicLong version = restaurantVersions.get(restaurantId);
+        return "\"" + epoch + "-r" + (version == null ? 0 : version.get()) + "\"";
+    }
+
+    /**
+     * Увеличивает версии после изменения ресторана.
+     *
+     * @param event событие изменения ресторана
+     */
+    @Order(ListenerOrder.VERSIONS)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRestaurantChanged(RestaurantChangedEvent event) {
+        bump(event.getRestaurantId());
+    }
+
+    /**
+     * Увеличивает версии после изменения отзывов ресторана.
+     *
+     * @param event событие изменения отзывов
+     */
+    @Order(ListenerOrder.VERSIONS)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReviewChanged(ReviewChangedEvent event) {
+        bump(event.getRestaurantId());
+    }
+
+    /**
+     * Увеличивает версию ресторана и глобальную версию.
+     * Версии удаленных ресторанов не удаляются, чтобы выданные ранее теги не совпали снова.
+     *
+     * @param restaurantId идентификатор ресторана
+     */
+    private void bump(int restaurantId) {
+        restaurantVersions.computeIfAbsent(restaurantId, id -> new AtomicLong()).incrementAndGet();
+        globalVersion.incrementAndGet();
+    }
+}
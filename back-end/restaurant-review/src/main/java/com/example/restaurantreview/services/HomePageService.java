@@ -0,0 +1,181 @@
+package com.example.restaurantreview.services;
+
+import com.example.restaurantreview.models.HomePage;
+import com.example.restaurantreview.models.Restaurant;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Сервис главной страницы: собирает лучшие и популярные рестораны и количество ресторанов по кухням
+ * в один ответ.
+ * <p>
+ * Части загружаются параллельно в отдельном пуле потоков. Если часть не получена за отведенное время
+ * или завершилась ошибкой, вместо нее возвращается последнее полученное значение, поэтому медленная часть
+ * не задерживает всю страницу. Загрузка такой части продолжается в фоне и обновляет сохраненное значение.
+ * <p>
+ * Для каждой части выполняется не больше одной загрузки: запросы, пришедшие во время загрузки, ждут ее же,
+ * поэтому медленная часть не накапливает загрузки в пуле. Очередь пула ограничена: если она заполнена,
+ * часть сразу заменяется последним полученным значением.
+ */
+@Slf4j
+@Service
+public class HomePageService {
+    /**
+     * Максимальное количество ресторанов в каждом списке главной страницы.
+     */
+    public static final int MAX_LIMIT = 20;
+
+    static final String BEST = "bestRestaurants";
+    static final String POPULAR = "popularRestaurants";
+    static final String CUISINES = "cuisines";
+
+    private final RestaurantService restaurantService;
+    private final ExecutorService executor;
+    private final Duration partTimeout;
+    /**
+     * Последние полученные значения частей по ключу "часть:количество".
+     * Количество ограничено {@link #MAX_LIMIT}, поэтому размер ограничен.
+     */
+    private final Map<String, Object> lastValues = new ConcurrentHashMap<>();
+    /**
+     * Выполняющиеся загрузки частей по тому же ключу, что и последние значения.
+     */
+    private final Map<String, CompletableFuture<Object>> loads = new ConcurrentHashMap<>();
+
+    /**
+     * Создает сервис главной страницы.
+     *
+     * @param restaurantService сервис ресторанов
+     * @param threads           количество потоков, загружающих части страницы
+     * @param queueCapacity     максимальное количество загрузок, ожидающих свободного потока
+     * @param partTimeout       время ожидания каждой части
+     */
+    public HomePageService(RestaurantService restaurantService,
+                           @Value("${home.executor.threads:4}") int threads,
+                           @Value("${home.executor.queue-capacity:50}") int queueCapacity,
+                           @Value("${home.part-timeout:PT0.5S}") Duration partTimeout) {
+        this.restaurantService = restaurantService;
+        this.partTimeout = partTimeout;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(Math.max(1, threads), Math.max(1, threads), 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), runnable -> {
+                    Thread thread = new Thread(runnable, "home-page-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Собирает данные главной страницы.
+     *
+     * @param limit количество ресторанов в каждом списке (от 1 до {@link #MAX_LIMIT})
+     * @return данные главной страницы
+     */
+    public HomePage getHomePage(int limit) {
+        List<String> staleParts = new ArrayList<>();
+        CompletableFuture<Part<List<Restaurant>>> best =
+                load(BEST + ":" + limit, () -> restaurantService.findTopRated(limit), List.of());
+        CompletableFuture<Part<List<Restaurant>>> popular =
+                load(POPULAR + ":" + limit, () -> restaurantService.findTopByPopularity(limit), List.of());
+        CompletableFuture<Part<Map<String, Long>>> cuisines =
+                load(CUISINES, () -> restaurantService.findFacets(null, null).getCuisines(), Map.of());
+
+        List<Restaurant> bestRestaurants = value(BEST, best, staleParts);
+        List<Restaurant> popularRestaurants = value(POPULAR, popular, staleParts);
+        Map<String, Long> cuisineCounts = value(CUISINES, cuisines, staleParts);
+        return new HomePage(bestRestaurants, popularRestaurants, cuisineCounts, staleParts);
+    }
+
+    /**
+     * Останавливает пул потоков при остановке приложения.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Запускает загрузку части страницы или присоединяется к уже выполняющейся загрузке этой части.
+     * Результат, не полученный за отведенное время, завершившийся ошибкой или не принятый заполненным пулом,
+     * заменяется последним полученным значением части или значением по умолчанию.
+     *
+     * @param key          ключ сохраненного значения части
+     * @param loader       загрузка части
+     * @param defaultValue значение, если часть еще ни разу не была получена
+     * @return часть страницы
+     */
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<Part<T>> load(String key, Supplier<T> loader, T defaultValue) {
+        CompletableFuture<Object> created = new CompletableFuture<>();
+        CompletableFuture<Object> running = loads.putIfAbsent(key, created);
+        if (running == null) {
+            running = created;
+            start(key, created, loader);
+        }
+        CompletableFuture<T> loading = (CompletableFuture<T>) running;
+        Part<T> fallback = new Part<>((T) lastValues.getOrDefault(key, defaultValue), false);
+        return loading.thenApply(value -> new Part<>(value, true))
+                .completeOnTimeout(fallback, partTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .exceptionally(e -> {
+                    log.warn("Home page part {} failed: {}", key, e.getMessage());
+                    return fallback;
+                });
+    }
+
+    /**
+     * Передает загрузку части в пул. Завершенная загрузка удаляется из выполняющихся и сохраняет результат,
+     * в том числе полученный после истечения времени ожидания.
+     */
+    private void start(String key, CompletableFuture<Object> loading, Supplier<?> loader) {
+        loading.whenComplete((value, e) -> {
+            loads.remove(key, loading);
+            if (e == null) {
+                lastValues.put(key, value);
+            }
+        });
+        try {
+            executor.execute(() -> {
+                try {
+                    loading.complete(loader.get());
+                } catch (Throwable e) {
+                    loading.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            loading.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Дожидается части страницы и отмечает ее как устаревшую, если она заменена сохраненным значением.
+     */
+    private static <T> T value(String name, CompletableFuture<Part<T>> part, List<String> staleParts) {
+        Part<T> result = part.join();
+        if (!result.fresh()) {
+            staleParts.add(name);
+        }
+        return result.value();
+    }
+
+    /**
+     * Значение части страницы и признак того, что оно получено в текущем запросе.
+     */
+    private record Part<T>(T value, boolean fresh) {
+    }
+}
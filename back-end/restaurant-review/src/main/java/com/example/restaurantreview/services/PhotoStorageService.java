@@ -0,0 +1,127 @@
+package com.example.restaurantreview.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Сервис для хранения фотографий ресторанов по хэшу их содержимого.
+ * Файл копируется потоково через FileChannel с одновременным вычислением SHA-256,
+ * поэтому загрузка не буферизуется целиком в памяти, одинаковые фотографии хранятся один раз,
+ * а параллельные загрузки файлов с одинаковым именем не перезаписывают друг друга.
+ */
+@Service
+public class PhotoStorageService {
+    private static final String HASH_ALGORITHM = "SHA-256";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final Pattern EXTENSION_PATTERN = Pattern.compile("[a-z0-9]{1,5}");
+
+    private final Path uploadDir;
+
+    /**
+     * Создает сервис хранения фотографий.
+     *
+     * @param uploadDir каталог для хранения загруженных фотографий
+     */
+    public PhotoStorageService(@Value("${upload.directory}") String uploadDir) {
+        this.uploadDir = Paths.get(uploadDir);
+    }
+
+    /**
+     * Сохраняет фотографию под именем, производным от хэша ее содержимого.
+     * Если такая фотография уже сохранена, повторная копия удаляется.
+     *
+     * @param content          содержимое фотографии
+     * @param originalFilename имя файла, переданное клиентом (используется только для расширения)
+     * @return каноническое имя сохраненного файла для поля Restaurant.photo
+     * @throws IOException если не удалось сохранить файл
+     */
+    public String store(InputStream content, String originalFilename) throws IOException {
+        Files.createDirectories(uploadDir);
+        Path tempFile = Files.createTempFile(uploadDir, "upload-", ".tmp");
+        try {
+            MessageDigest digest = newDigest();
+            try (ReadableByteChannel source = Channels.newChannel(new DigestInputStream(content, digest));
+                 FileChannel target = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+                while (source.read(buffer) >= 0) {
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        target.write(buffer);
+                    }
+                    buffer.clear();
+                }
+            }
+
+            String fileName = HexFormat.of().formatHex(digest.digest()) + extensionOf(originalFilename);
+            Path storedFile = uploadDir.resolve(fileName);
+            if (!Files.exists(storedFile)) {
+                moveIntoPlace(tempFile, storedFile);
+            }
+            return fileName;
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Перемещает временный файл на место постоянного хранения.
+     * Параллельная загрузка того же содержимого могла успеть сохранить файл раньше - это не ошибка.
+     */
+    private void moveIntoPlace(Path tempFile, Path storedFile) throws IOException {
+        try {
+            Files.move(tempFile, storedFile, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // Файл с тем же содержимым уже сохранен
+        } catch (AtomicMoveNotSupportedException e) {
+            try {
+                Files.move(tempFile, storedFile);
+            } catch (FileAlreadyExistsException ignored) {
+                // Файл с тем же содержимым уже сохранен
+            }
+        }
+    }
+
+    /**
+     * Возвращает расширение файла в нижнем регистре (с точкой) или пустую строку,
+     * если имя файла не содержит допустимого расширения.
+     */
+    private static String extensionOf(String originalFilename) {
+        if (originalFilename == null) {
+            return "";
+        }
+        int dotIndex = originalFilename.lastIndexOf('.');
+        if (dotIndex < 0) {
+            return "";
+        }
+        String extension = originalFilename.substring(dotIndex + 1).toLowerCase(Locale.ROOT);
+        return EXTENSION_PATTERN.matcher(extension).matches() ? "." + extension : "";
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(HASH_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(HASH_ALGORITHM + " is not available", e);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.restaurantreview.services;
+
+import com.example.restaurantreview.events.ListenerOrder;
+import com.example.restaurantreview.events.RestaurantChangedEvent;
+import com.example.restaurantreview.events.ReviewChangedEvent;
+import com.example.restaurantreview.repositories.RestaurantRepository;
+import com.example.restaurantreview.util.OrderStatisticTree;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Рейтинг популярности ресторанов по количеству отзывов, поддерживаемый в памяти.
+ * Заполняется при старте приложения из сохраненных агрегатов ресторанов и обновляется
+ * при создании и удалении отзывов, поэтому запросы популярных ресторанов не обращаются к таблице отзывов.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class PopularityLeaderboard {
+    /**
+     * Порядок рейтинга: по убыванию количества отзывов, при равенстве - по возрастанию идентификатора.
+     */
+    private static final Comparator<Entry> ORDER = Comparator.comparingInt(Entry::reviewCount).reversed()
+            .thenComparingInt(Entry::restaurantId);
+
+    private final RestaurantRepository restaurantRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final OrderStatisticTree<Entry> ranking = new OrderStatisticTree<>(ORDER);
+    private final Map<Integer, Integer> reviewCounts = new HashMap<>();
+    private volatile boolean seeded;
+
+    /**
+     * Заполняет рейтинг количеством отзывов всех ресторанов при старте приложения.
+     * Если база данных недоступна, заполнение повторяется при первом обращении к рейтингу.
+     */
+    @PostConstruct
+    public void seed() {
+        try {
+            rebuild();
+        } catch (DataAccessException | TransactionException e) {
+            log.warn("Popularity leaderboard is not seeded yet: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Возвращает идентификаторы самых популярных ресторанов.
+     *
+     * @param limit максимальное количество ресторанов
+     * @return идентификаторы ресторанов по убыванию количества отзывов
+     */
+    public List<Integer> top(int limit) {
+        ensureSeeded();
+        lock.readLock().lock();
+        try {
+            return ranking.first(limit).stream().map(Entry::restaurantId).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Возвращает место ресторана в рейтинге популярности.
+     *
+     * @param restaurantId идентификатор ресторана
+     * @return место ресторана, начиная с 1, или пустое значение, если ресторан не найден
+     */
+    public OptionalInt rank(int restaurantId) {
+        ensureSeeded();
+        lock.readLock().lock();
+        try {
+            Integer reviewCount = reviewCounts.get(restaurantId);
+            if (reviewCount == null) {
+                return OptionalInt.empty();
+            }
+            return OptionalInt.of(ranking.rank(new Entry(restaurantId, reviewCount)) + 1);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Обновляет количество отзывов ресторана после фиксации транзакции.
+     *
+     * @param event событие изменения отзывов
+     */
+    @Order(ListenerOrder.INDEXES)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReviewChanged(ReviewChangedEvent event) {
+        if (event.getCountDelta() != 0) {
+            adjust(event.getRestaurantId(), event.getCountDelta());
+        }
+    }
+
+    /**
+     * Добавляет новые рестораны в рейтинг и удаляет из него удаленные.
+     *
+     * @param event событие изменения ресторана
+     */
+    @Order(ListenerOrder.INDEXES)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRestaurantChanged(RestaurantChangedEvent event) {
+        switch (event.getType()) {
+            case CREATED -> adjust(event.getRestaurantId(), 0);
+            case DELETED -> remove(event.getRestaurantId());
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Изменяет количество отзывов ресторана и его позицию в рейтинге.
+     *
+     * @param restaurantId идентификатор ресторана
+     * @param delta        изменение количества отзывов
+     */
+    void adjust(int restaurantId, int delta) {
+        lock.writeLock().lock();
+        try {
+            Integer oldCount = reviewCounts.get(restaurantId);
+            if (oldCount != null) {
+                ranking.remove(new Entry(restaurantId, oldCount));
+            }
+            int newCount = Math.max(0, (oldCount == null ? 0 : oldCount) + delta);
+            reviewCounts.put(restaurantId, newCount);
+            ranking.add(new Entry(restaurantId, newCount));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Удаляет ресторан из рейтинга.
+     *
+     * @param restaurantId идентификатор ресторана
+     */
+    void remove(int restaurantId) {
+        lock.writeLock().lock();
+        try {
+            Integer oldCount = reviewCounts.remove(restaurantId);
+            if (oldCount != null) {
+                ranking.remove(new Entry(restaurantId, oldCount));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Перестраивает рейтинг по сохраненному количеству отзывов ресторанов.
+     * Используется при старте приложения и после массовой загрузки данных в обход сервисов.
+     */
+    public void rebuild() {
+        List<Object[]> counts = restaurantRepository.findReviewCounts();
+        lock.writeLock().lock();
+        try {
+            ranking.clear();
+            reviewCounts.clear();
+            for (Object[] row : counts) {
+                int restaurantId = ((Number) row[0]).intValue();
+                int reviewCount = ((Number) row[1]).intValue();
+                reviewCounts.put(restaurantId, reviewCount);
+                ranking.add(new Entry(restaurantId, reviewCount));
+            }
+            seeded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Заполняет рейтинг, если при старте приложения это не удалось.
+     */
+    private void ensureSeeded() {
+        if (!seeded) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Элемент рейтинга: ресторан и количество его отзывов.
+     */
+    private record Entry(int restaurantId, int reviewCount) {
+    }
+}
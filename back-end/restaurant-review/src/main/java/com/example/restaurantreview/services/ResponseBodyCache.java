@@ -0,0 +1,257 @@
+package com.example.restaurantreview.services;
+
+import com.example.restaurantreview.events.ListenerOrder;
+import com.example.restaurantreview.events.RestaurantChangedEvent;
+import com.example.restaurantreview.events.ReviewChangedEvent;
+import com.example.restaurantreview.models.Restaurant;
+import com.example.restaurantreview.models.RestaurantFilter;
+import com.example.restaurantreview.models.ReviewSummary;
+import com.example.restaurantreview.util.StripedGenerations;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Кэш готовых тел ответов самых частых GET запросов: каталога ресторанов, популярных ресторанов
+ * и отзывов ресторана. Тело хранится уже закодированным в JSON (UTF-8) и, для больших ответов, сжатым gzip,
+ * поэтому при попадании ответ отдается без загрузки сущностей и без сериализации Jackson.
+ * <p>
+ * Размер кэша ограничен суммарным объемом тел в байтах: половина объема отводится спискам ресторанов,
+ * половина - отзывам ресторанов. Списки хранятся в {@link RestaurantListStore} и удаляются по тем же правилам,
+ * что и списки {@link RestaurantCache}. Отзывы ресторана удаляются по идентификатору ресторана,
+ * загрузки отзывов проверяются по поколениям полос идентификаторов.
+ * <p>
+ * Тела загружаются через {@link RestaurantCache} и {@link PopularityLeaderboard}, поэтому удаляются после
+ * их записей (см. {@link ListenerOrder}).
+ */
+@Component
+public class ResponseBodyCache implements MeterBinder {
+    /**
+     * Минимальный размер тела, которое имеет смысл сжимать: меньшие тела почти не уменьшаются.
+     */
+    static final int GZIP_MIN_BYTES = 1024;
+
+    /**
+     * Примерный объем служебных данных одной записи кэша в байтах.
+     */
+    private static final int ENTRY_OVERHEAD_BYTES = 128;
+    /**
+     * Количество полос поколений отзывов ресторанов.
+     */
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final ObjectMapper objectMapper;
+    private final boolean gzip;
+    private final RestaurantListStore<EncodedBody> lists;
+    private final Cache<Integer, EncodedBody> reviews;
+    private final StripedGenerations reviewGenerations = new StripedGenerations(GENERATION_STRIPES);
+
+    /**
+     * Создает кэш тел ответов.
+     *
+     * @param objectMapper ObjectMapper приложения, чтобы тела совпадали с обычными ответами API
+     * @param maxBytes     максимальный суммарный объем тел в кэше в байтах
+     * @param ttl          время жизни записи кэша
+     * @param gzip         хранить ли для больших тел сжатый gzip вариант
+     */
+    public ResponseBodyCache(ObjectMapper objectMapper,
+                             @Value("${response.cache.max-bytes:33554432}") long maxBytes,
+                             @Value("${response.cache.ttl:PT10M}") Duration ttl,
+                             @Value("${response.cache.gzip:true}") boolean gzip) {
+        this.objectMapper = objectMapper;
+        this.gzip = gzip;
+        this.lists = new RestaurantListStore<>(maxBytes / 2, ttl, ResponseBodyCache::weight);
+        this.reviews = Caffeine.newBuilder()
+                .maximumWeight(maxBytes - maxBytes / 2)
+                .<Integer, EncodedBody>weigher((restaurantId, body) -> weight(body))
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Возвращает тело ответа со списком ресторанов каталога.
+     *
+     * @param filter фильтр каталога
+     * @param sort   сортировка каталога
+     * @param limit  количество первых ресторанов (null - весь список)
+     * @param loader функция загрузки ресторанов при промахе
+     * @return закодированное тело ответа
+     */
+    public EncodedBody getCatalog(RestaurantFilter filter, Sort sort, Integer limit,
+                                  Supplier<List<Restaurant>> loader) {
+        return lists.get(new RestaurantListStore.Key(filter, sort, limit == null ? 0 : limit), loader, this::encode);
+    }
+
+    /**
+     * Возвращает тело ответа со списком популярных ресторанов.
+     *
+     * @param limit  количество первых ресторанов (null - весь список)
+     * @param loader функция загрузки ресторанов при промахе
+     * @return закодированное тело ответа
+     */
+    public EncodedBody getPopular(Integer limit, Supplier<List<Restaurant>> loader) {
+        return lists.get(RestaurantListStore.Key.popular(limit == null ? 0 : limit), loader, this::encode);
+    }
+
+    /**
+     * Возвращает тело ответа со списком отзывов ресторана.
+     * Тело не помещается в кэш, если за время загрузки изменились отзывы ресторана той же полосы поколений:
+     * отзывы могли быть прочитаны до изменения и устареть.
+     *
+     * @param restaurantId идентификатор ресторана
+     * @param loader       функция загрузки отзывов при промахе
+     * @return закодированное тело ответа
+     */
+    public EncodedBody getReviews(int restaurantId, Supplier<List<ReviewSummary>> loader) {
+        EncodedBody cached = reviews.getIfPresent(restaurantId);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = reviewGenerations.get(restaurantId);
+        EncodedBody body = encode(loader.get());
+        // Поколение проверяется и после помещения, чтобы не пропустить удаление между проверкой и помещением
+        if (reviewGenerations.get(restaurantId) == generation && reviews.asMap().putIfAbsent(restaurantId, body) == null
+                && reviewGenerations.get(restaurantId) != generation) {
+            reviews.asMap().remove(restaurantId, body);
+        }
+        return body;
+    }
+
+    /**
+     * Удаляет тела ответов, на которые влияет созданный, измененный или удаленный ресторан:
+     * списки, в которые ресторан входит или может войти, и отзывы удаленного ресторана.
+     *
+     * @param event событие изменения ресторана
+     */
+    @Order(ListenerOrder.RESPONSE_BODIES)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRestaurantChanged(RestaurantChangedEvent event) {
+        lists.onRestaurantChanged(event.getRestaurantId(), event.getCuisine());
+        if (event.getType() == RestaurantChangedEvent.Type.DELETED) {
+            evictReviews(event.getRestaurantId());
+        }
+    }
+
+    /**
+     * Удаляет тела ответов, на которые влияют отзывы ресторана: список его отзывов всегда,
+     * а при изменении количества отзывов или суммы оценок - еще и списки, в которые ресторан входит,
+     * и списки, которые зависят от рейтинга (первые рестораны, минимальный рейтинг).
+     *
+     * @param event событие изменения отзывов
+     */
+    @Order(ListenerOrder.RESPONSE_BODIES)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReviewChanged(ReviewChangedEvent event) {
+        evictReviews(event.getRestaurantId());
+        if (event.getCountDelta() != 0 || event.getRatingDelta() != 0) {
+            lists.onAggregatesChanged(event.getRestaurantId());
+        }
+    }
+
+    /**
+     * Возвращает счетчики попаданий, промахов и вытеснений и занятый объем кэша.
+     *
+     * @return счетчики кэша; bytes - суммарный объем тел в байтах
+     */
+    public Map<String, Long> stats() {
+        // Выполняем отложенное обслуживание, чтобы размер и вытеснения были актуальными
+        lists.cleanUp();
+        reviews.cleanUp();
+        CacheStats stats = lists.stats().plus(reviews.stats());
+        Map<String, Long> map = new LinkedHashMap<>();
+        map.put("hits", stats.hitCount());
+        map.put("misses", stats.missCount());
+        map.put("evictions", stats.evictionCount());
+        map.put("size", size());
+        map.put("bytes", weightedSize());
+        return map;
+    }
+
+    /**
+     * Регистрирует метрики количества записей и занятого объема кэша.
+     *
+     * @param registry реестр метрик
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("response.cache.size", this, ResponseBodyCache::size)
+                .description("Number of cached response bodies")
+                .register(registry);
+        Gauge.builder("response.cache.bytes", this, ResponseBodyCache::weightedSize)
+                .description("Total size of cached response bodies")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    /**
+     * Удаляет отзывы ресторана. Поколение увеличивается до удаления:
+     * загрузка, поместившая отзывы после удаления, увидит новое поколение и удалит их сама.
+     */
+    private void evictReviews(int restaurantId) {
+        reviewGenerations.increment(restaurantId);
+        reviews.invalidate(restaurantId);
+    }
+
+    private EncodedBody encode(Object value) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(value);
+            return new EncodedBody(json, gzip && json.length >= GZIP_MIN_BYTES ? gzip(json) : null);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to encode response body", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(bytes.length / 4);
+        try (GZIPOutputStream gzipOutput = new GZIPOutputStream(output)) {
+            gzipOutput.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return output.toByteArray();
+    }
+
+    private static int weight(EncodedBody body) {
+        long bytes = (long) body.json().length + (body.gzip() == null ? 0 : body.gzip().length) + ENTRY_OVERHEAD_BYTES;
+        return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+
+    private long size() {
+        return lists.size() + reviews.estimatedSize();
+    }
+
+    private long weightedSize() {
+        return lists.weightedSize()
+                + reviews.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L);
+    }
+
+    /**
+     * Закодированное тело ответа.
+     *
+     * @param json тело в формате JSON (UTF-8)
+     * @param gzip то же тело, сжатое gzip, или null, если тело слишком маленькое для сжатия
+     */
+    public record EncodedBody(byte[] json, byte[] gzip) {
+    }
+}
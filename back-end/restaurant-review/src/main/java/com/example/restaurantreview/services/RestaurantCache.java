@@ -0,0 +1,244 @@
+package com.example.restaurantreview.services;
+
+import com.example.restaurantreview.events.ListenerOrder;
+import com.example.restaurantreview.events.RestaurantChangedEvent;
+import com.example.restaurantreview.events.ReviewChangedEvent;
+import com.example.restaurantreview.models.Restaurant;
+import com.example.restaurantreview.models.RestaurantFilter;
+import com.example.restaurantreview.util.StripedGenerations;
+import com.example.restaurantreview.util.TopK;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Ограниченный кэш ресторанов в памяти процесса со сквозным чтением.
+ * Хранит рестораны по идентификатору и списки ресторанов по комбинации (фильтр, сортировка, количество).
+ * Записи вытесняются по размеру и по времени жизни, а также точечно удаляются
+ * при изменении ресторанов и их отзывов.
+ * <p>
+ * Загрузка из базы данных выполняется вне блокировок кэша: вычисление внутри
+ * {@code Cache.get(key, loader)} держит монитор ConcurrentHashMap и закрепило бы
+ * виртуальный поток за потоком-носителем на время JDBC-запроса.
+ * <p>
+ * Загруженное значение не помещается в кэш, если во время загрузки изменились затронутые им данные:
+ * для ресторанов по идентификатору это проверяется по поколениям полос идентификаторов,
+ * для списков - по изменениям, запомненным в загрузке (см. {@link RestaurantListStore}).
+ * Поэтому запись одного ресторана не мешает кэшировать остальные.
+ */
+@Component
+public class RestaurantCache {
+    /**
+     * Количество полос поколений ресторанов по идентификатору.
+     */
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final Cache<Integer, Restaurant> restaurants;
+    private final StripedGenerations generations = new StripedGenerations(GENERATION_STRIPES);
+    private final RestaurantListStore<List<Restaurant>> lists;
+
+    /**
+     * Создает кэш ресторанов.
+     *
+     * @param maxSize        максимальное количество ресторанов в кэше по идентификатору
+     * @param maxListEntries максимальное суммарное количество ресторанов во всех закэшированных списках
+     * @param ttl            время жизни записи кэша
+     */
+    public RestaurantCache(@Value("${restaurant.cache.max-size:10000}") long maxSize,
+                           @Value("${restaurant.cache.max-list-entries:100000}") long maxListEntries,
+                           @Value("${restaurant.cache.ttl:PT10M}") Duration ttl) {
+        this.restaurants = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.lists = new RestaurantListStore<>(maxListEntries, ttl, list -> list.size() + 1);
+    }
+
+    /**
+     * Возвращает ресторан из кэша или загружает его и помещает в кэш.
+     * Отсутствующие рестораны не кэшируются.
+     *
+     * @param id     идентификатор ресторана
+     * @param loader функция загрузки ресторана из базы данных
+     * @return найденный ресторан (если существует)
+     */
+    public Optional<Restaurant> getById(int id, IntFunction<Optional<Restaurant>> loader) {
+        Restaurant cached = restaurants.getIfPresent(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        long generation = generations.get(id);
+        Optional<Restaurant> loaded = loader.apply(id);
+        loaded.ifPresent(restaurant -> putIfCurrent(id, restaurant, generation));
+        return loaded;
+    }
+
+    /**
+     * Возвращает рестораны по идентификаторам из кэша, а отсутствующие в кэше загружает одним вызовом
+     * функции загрузки и помещает в кэш.
+     *
+     * @param ids    идентификаторы ресторанов
+     * @param loader функция загрузки ресторанов по идентификаторам, отсутствующим в кэше
+     * @return найденные рестораны по идентификатору
+     */
+    public Map<Integer, Restaurant> getAllById(Collection<Integer> ids,
+                                               Function<Collection<Integer>, List<Restaurant>> loader) {
+        Map<Integer, Restaurant> found = new HashMap<>(restaurants.getAllPresent(ids));
+        List<Integer> misses = ids.stream().filter(id -> !found.containsKey(id)).toList();
+        if (misses.isEmpty()) {
+            return found;
+        }
+        Map<Integer, Long> missGenerations = new HashMap<>();
+        for (int id : misses) {
+            missGenerations.put(id, generations.get(id));
+        }
+        for (Restaurant restaurant : loader.apply(misses)) {
+            found.put(restaurant.getId(), restaurant);
+            Long generation = missGenerations.get(restaurant.getId());
+            if (generation != null) {
+                putIfCurrent(restaurant.getId(), restaurant, generation);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Возвращает список ресторанов из кэша или загружает его и помещает в кэш.
+     *
+     * @param filter фильтр, по которому отобран список
+     * @param sort   сортировка списка
+     * @param loader функция загрузки списка из базы данных
+     * @return неизменяемый список ресторанов
+     */
+    public List<Restaurant> getList(RestaurantFilter filter, Sort sort, Supplier<List<Restaurant>> loader) {
+        return lists.get(new RestaurantListStore.Key(filter, sort, 0), loader, List::copyOf);
+    }
+
+    /**
+     * Возвращает первые limit ресторанов списка из кэша или отбирает и помещает их в кэш.
+     * Если задан компаратор и в кэше есть полный список по тому же фильтру (с любой сортировкой
+     * из {@link RestaurantService#SORTABLE_FIELDS}), первые рестораны отбираются из него кучей ограниченного
+     * размера, иначе загружаются из базы данных.
+     *
+     * @param filter     фильтр, по которому отобран список
+     * @param sort       сортировка списка
+     * @param limit      количество ресторанов
+     * @param comparator порядок ресторанов, соответствующий сортировке (null - отбор только в базе данных)
+     * @param loader     функция загрузки первых ресторанов из базы данных
+     * @return неизменяемый список ресторанов
+     */
+    public List<Restaurant> getTop(RestaurantFilter filter, Sort sort, int limit, Comparator<Restaurant> comparator,
+                                   Supplier<List<Restaurant>> loader) {
+        return lists.get(new RestaurantListStore.Key(filter, sort, limit), () -> {
+            List<Restaurant> catalog = comparator != null ? findCatalog(filter) : null;
+            return catalog != null ? TopK.select(catalog, comparator, limit) : loader.get();
+        }, List::copyOf);
+    }
+
+    /**
+     * Находит в кэше полный список по фильтру, проверяя ключи всех допустимых сортировок.
+     */
+    private List<Restaurant> findCatalog(RestaurantFilter filter) {
+        for (String field : RestaurantService.SORTABLE_FIELDS) {
+            for (Sort.Direction direction : Sort.Direction.values()) {
+                RestaurantListStore.Key key = new RestaurantListStore.Key(filter, Sort.by(direction, field), 0);
+                List<Restaurant> catalog = lists.peek(key);
+                if (catalog != null) {
+                    return catalog;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Возвращает счетчики попаданий, промахов и вытеснений кэша.
+     *
+     * @return счетчики для кэша ресторанов по идентификатору и кэша списков ресторанов
+     */
+    public Map<String, Map<String, Long>> stats() {
+        // Выполняем отложенное обслуживание, чтобы размер и вытеснения были актуальными
+        restaurants.cleanUp();
+        lists.cleanUp();
+        Map<String, Map<String, Long>> stats = new LinkedHashMap<>();
+        stats.put("restaurants", toMap(restaurants.stats(), restaurants.estimatedSize()));
+        stats.put("restaurantLists", toMap(lists.stats(), lists.size()));
+        return stats;
+    }
+
+    /**
+     * Удаляет из кэша ресторан и все списки, в которые он входит или может войти, после его создания,
+     * изменения или удаления.
+     *
+     * @param event событие изменения ресторана
+     */
+    @Order(ListenerOrder.INDEXES)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRestaurantChanged(RestaurantChangedEvent event) {
+        evictRestaurant(event.getRestaurantId());
+        lists.onRestaurantChanged(event.getRestaurantId(), event.getCuisine());
+    }
+
+    /**
+     * Удаляет из кэша ресторан, средний рейтинг которого изменился вместе с отзывами,
+     * и списки, которые от этого изменения зависят.
+     *
+     * @param event событие изменения отзывов
+     */
+    @Order(ListenerOrder.INDEXES)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReviewChanged(ReviewChangedEvent event) {
+        if (event.getCountDelta() != 0 || event.getRatingDelta() != 0) {
+            evictRestaurant(event.getRestaurantId());
+            lists.onAggregatesChanged(event.getRestaurantId());
+        }
+    }
+
+    /**
+     * Удаляет ресторан из кэша по идентификатору. Поколение увеличивается до удаления:
+     * загрузка, поместившая ресторан после удаления, увидит новое поколение и удалит его сама.
+     */
+    private void evictRestaurant(int restaurantId) {
+        generations.increment(restaurantId);
+        restaurants.invalidate(restaurantId);
+    }
+
+    /**
+     * Помещает загруженный ресторан в кэш, если за время загрузки поколение его идентификатора не изменилось,
+     * иначе ресторан мог быть прочитан до изменения и устареть. Поколение проверяется после помещения,
+     * чтобы не пропустить удаление, выполненное между проверкой и помещением.
+     */
+    private void putIfCurrent(int id, Restaurant restaurant, long generation) {
+        if (generations.get(id) == generation && restaurants.asMap().putIfAbsent(id, restaurant) == null
+                && generations.get(id) != generation) {
+            restaurants.asMap().remove(id, restaurant);
+        }
+    }
+
+    private static Map<String, Long> toMap(CacheStats stats, long size) {
+        Map<String, Long> map = new LinkedHashMap<>();
+        map.put("hits", stats.hitCount());
+        map.put("misses", stats.missCount());
+        map.put("evictions", stats.evictionCount());
+        map.put("size", size);
+        return map;
+    }
+}
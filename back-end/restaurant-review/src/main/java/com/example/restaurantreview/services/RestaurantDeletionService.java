@@ -0,0 +1,116 @@
+package com.example.restaurantreview.services;
+
+import com.example.restaurantreview.repositories.RestaurantRepository;
+import com.example.restaurantreview.repositories.ReviewRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Удаление ресторанов вместе с их отзывами.
+ * <p>
+ * При немедленном удалении отзывы и ресторан удаляются двумя запросами DELETE по условию,
+ * без загрузки удаляемых строк. При мягком удалении ресторан только помечается удаленным
+ * и сразу перестает возвращаться вместе со своими отзывами, а сами строки удаляются позже
+ * фоновой задачей частями ограниченного размера, каждая в своей короткой транзакции,
+ * поэтому удаление ресторана с большим количеством отзывов не блокирует таблицу надолго.
+ */
+@Slf4j
+@Service
+public class RestaurantDeletionService {
+    private final RestaurantRepository restaurantRepository;
+    private final ReviewRepository reviewRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean softDelete;
+    private final int purgeChunkSize;
+    private final int purgeMaxChunks;
+
+    /**
+     * Создает сервис удаления ресторанов.
+     *
+     * @param restaurantRepository репозиторий ресторанов
+     * @param reviewRepository     репозиторий отзывов
+     * @param transactionTemplate  шаблон транзакций
+     * @param softDelete           помечать ли рестораны удаленными вместо немедленного удаления
+     * @param purgeChunkSize       количество отзывов, удаляемых фоновой задачей в одной транзакции
+     * @param purgeMaxChunks       максимальное количество частей, удаляемых за один запуск фоновой задачи
+     */
+    public RestaurantDeletionService(RestaurantRepository restaurantRepository, ReviewRepository reviewRepository,
+                                     TransactionTemplate transactionTemplate,
+                                     @Value("${restaurant.delete.soft:false}") boolean softDelete,
+                                     @Value("${restaurant.purge.chunk-size:1000}") int purgeChunkSize,
+                                     @Value("${restaurant.purge.max-chunks:100}") int purgeMaxChunks) {
+        this.restaurantRepository = restaurantRepository;
+        this.reviewRepository = reviewRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.softDelete = softDelete;
+        this.purgeChunkSize = Math.max(1, purgeChunkSize);
+        this.purgeMaxChunks = Math.max(1, purgeMaxChunks);
+    }
+
+    /**
+     * Удаляет ресторан и его отзывы или, в режиме мягкого удаления, помечает ресторан удаленным.
+     *
+     * @param id идентификатор ресторана
+     * @return true, если ресторан существовал и был удален
+     */
+    public boolean delete(int id) {
+        Boolean deleted = transactionTemplate.execute(status -> {
+            if (softDelete) {
+                return restaurantRepository.markDeleted(id, LocalDateTime.now()) > 0;
+            }
+            reviewRepository.deleteAllByRestaurantIdInBatch(id);
+            return restaurantRepository.deleteByIdInBatch(id) > 0;
+        });
+        return Boolean.TRUE.equals(deleted);
+    }
+
+    /**
+     * Запускает удаление помеченных ресторанов по расписанию.
+     * Расписание можно ограничить часами низкой нагрузки.
+     */
+    @Scheduled(cron = "${restaurant.purge.cron:0 * * * * *}")
+    public void purgeScheduled() {
+        try {
+            purge();
+        } catch (DataAccessException | TransactionException e) {
+            log.warn("Soft-deleted restaurants are not purged: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Удаляет отзывы помеченных ресторанов частями, начиная с давно помеченных, а затем сами рестораны.
+     * За один запуск удаляется не более restaurant.purge.max-chunks частей; оставшееся удаляется при следующем.
+     *
+     * @return количество полностью удаленных ресторанов
+     */
+    public int purge() {
+        int chunks = 0;
+        int purged = 0;
+        List<Integer> ids = restaurantRepository.findSoftDeletedIds(purgeMaxChunks);
+        for (int id : ids) {
+            int deleted;
+            do {
+                if (chunks++ >= purgeMaxChunks) {
+                    log.info("Purged {} soft-deleted restaurants, more remain", purged);
+                    return purged;
+                }
+                deleted = transactionTemplate.execute(
+                        status -> reviewRepository.deleteChunkByRestaurantId(id, purgeChunkSize));
+            } while (deleted >= purgeChunkSize);
+            transactionTemplate.executeWithoutResult(status -> restaurantRepository.deleteSoftDeleted(id));
+            purged++;
+        }
+        if (purged > 0) {
+            log.info("Purged {} soft-deleted restaurants", purged);
+        }
+        return purged;
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.restaurantreview.services;
+
+import com.example.restaurantreview.events.ListenerOrder;
+import com.example.restaurantreview.events.RestaurantChangedEvent;
+import com.example.restaurantreview.models.Restaurant;
+import com.example.restaurantreview.repositories.RestaurantRepository;
+import com.example.restaurantreview.util.GeoGrid;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Пространственный индекс ресторанов в памяти процесса для поиска ближайших ресторанов.
+ * В индекс попадают рестораны с заданными координатами. Индекс заполняется при старте приложения
+ * и обновляется при создании, изменении и удалении ресторанов.
+ */
+@Slf4j
+@Component
+public class RestaurantGeoIndex {
+    private final RestaurantRepository restaurantRepository;
+    private final double cellDegrees;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private GeoGrid grid;
+    private volatile boolean seeded;
+
+    /**
+     * Создает пространственный индекс ресторанов.
+     *
+     * @param restaurantRepository репозиторий ресторанов
+     * @param cellDegrees          размер ячейки сетки индекса в градусах
+     */
+    public RestaurantGeoIndex(RestaurantRepository restaurantRepository,
+                              @Value("${nearby.index.cell-degrees:0.05}") double cellDegrees) {
+        this.restaurantRepository = restaurantRepository;
+        this.cellDegrees = cellDegrees;
+        this.grid = new GeoGrid(cellDegrees);
+    }
+
+    /**
+     * Строит индекс при старте приложения.
+     * Если база данных недоступна, построение повторяется при первом поиске.
+     */
+    @PostConstruct
+    public void seed() {
+        try {
+            rebuild();
+        } catch (DataAccessException | TransactionException e) {
+            log.warn("Restaurant geo index is not built yet: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Ищет ближайшие рестораны в пределах радиуса.
+     *
+     * @param latitude  широта в градусах
+     * @param longitude долгота в градусах
+     * @param radiusKm  радиус поиска в километрах
+     * @param limit     максимальное количество ресторанов
+     * @return найденные рестораны по возрастанию расстояния
+     */
+    public List<GeoGrid.Hit> nearest(double latitude, double longitude, double radiusKm, int limit) {
+        if (!seeded) {
+            rebuild();
+        }
+        lock.readLock().lock();
+        try {
+            return grid.nearest(latitude, longitude, radiusKm, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Обновляет координаты созданного или измененного ресторана и удаляет из индекса удаленный.
+     *
+     * @param event событие изменения ресторана
+     */
+    @Order(ListenerOrder.INDEXES)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRestaurantChanged(RestaurantChangedEvent event) {
+        if (event.getType() == RestaurantChangedEvent.Type.DELETED) {
+            remove(event.getRestaurantId());
+        } else {
+            restaurantRepository.findById(event.getRestaurantId()).ifPresent(this::index);
+        }
+    }
+
+    /**
+     * Помещает ресторан в индекс по его координатам; ресторан без координат удаляется из индекса.
+     *
+     * @param restaurant ресторан
+     */
+    void index(Restaurant restaurant) {
+        lock.writeLock().lock();
+        try {
+            if (restaurant.getLatitude() == null || restaurant.getLongitude() == null) {
+                grid.remove(restaurant.getId());
+            } else {
+                grid.put(restaurant.getId(), restaurant.getLatitude(), restaurant.getLongitude());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Удаляет ресторан из индекса.
+     *
+     * @param restaurantId идентификатор ресторана
+     */
+    void remove(int restaurantId) {
+        lock.writeLock().lock();
+        try {
+            grid.remove(restaurantId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Перестраивает индекс по координатам ресторанов из базы данных.
+     * Новый индекс собирается в стороне и заменяет текущий, поэтому поиск во время перестройки
+     * продолжает работать по старому индексу.
+     */
+    public void rebuild() {
+        GeoGrid newGrid = new GeoGrid(cellDegrees);
+        for (Object[] row : restaurantRepository.findCoordinates()) {
+            newGrid.put(((Number) row[0]).intValue(), ((Number) row[1]).doubleValue(),
+                    ((Number) row[2]).doubleValue());
+        }
+        lock.writeLock().lock();
+        try {
+            grid = newGrid;
+            seeded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Restaurant geo index built: {} restaurants", newGrid.size());
+    }
+}
@@ -0,0 +1,309 @@
+package com.example.restaurantreview.services;
+
+import com.example.restaurantreview.models.Restaurant;
+import com.example.restaurantreview.models.RestaurantFilter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.data.domain.Sort;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Ограниченное хранилище значений, построенных по спискам ресторанов (самих списков или готовых тел ответов),
+ * с общими правилами точечного удаления при изменении ресторанов и их отзывов.
+ * <p>
+ * Для каждой записи известны условия выборки и рестораны, вошедшие в список, поэтому затронутые изменением
+ * записи находятся по индексам (по ресторану, по типу кухни, по зависимости от рейтинга) без перебора хранилища.
+ * Изменения, произошедшие во время загрузки списка, запоминаются в самой загрузке и проверяются по загруженному
+ * списку: изменения других ресторанов не мешают поместить загрузку в хранилище даже при постоянном потоке записей.
+ *
+ * @param <V> тип хранимого значения
+ */
+class RestaurantListStore<V> {
+    /**
+     * Ключ индекса по типу кухни для списков без фильтра по кухне: в них может попасть ресторан любой кухни.
+     */
+    private static final String ANY_CUISINE = "";
+
+    private final Cache<Key, Entry<V>> entries;
+    private final Set<Load> loads = ConcurrentHashMap.newKeySet();
+    private final Map<Integer, Map<Key, Entry<V>>> keysByRestaurant = new ConcurrentHashMap<>();
+    private final Map<String, Map<Key, Entry<V>>> keysByCuisine = new ConcurrentHashMap<>();
+    private final Map<Key, Entry<V>> ratingDependentKeys = new ConcurrentHashMap<>();
+
+    /**
+     * Создает хранилище.
+     *
+     * @param maxWeight максимальный суммарный вес записей
+     * @param ttl       время жизни записи
+     * @param weigher   вес значения
+     */
+    RestaurantListStore(long maxWeight, Duration ttl, ToIntFunction<V> weigher) {
+        this.entries = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .<Key, Entry<V>>weigher((key, entry) -> weigher.applyAsInt(entry.value))
+                .expireAfterWrite(ttl)
+                // Индексы очищаются в потоке, удалившем запись, чтобы они не отставали от хранилища
+                .executor(Runnable::run)
+                .removalListener((Key key, Entry<V> entry, RemovalCause cause) -> {
+                    if (key != null && entry != null) {
+                        unindex(key, entry);
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Возвращает значение из хранилища или загружает список ресторанов, строит по нему значение
+     * и помещает его в хранилище. Значение удаляется сразу после помещения, если во время загрузки
+     * произошло изменение, затрагивающее список.
+     *
+     * @param key    ключ списка
+     * @param loader функция загрузки списка из базы данных
+     * @param mapper функция построения значения по списку
+     * @return значение
+     */
+    V get(Key key, Supplier<List<Restaurant>> loader, Function<List<Restaurant>, V> mapper) {
+        Entry<V> cached = entries.getIfPresent(key);
+        if (cached != null) {
+            return cached.value;
+        }
+        Load load = new Load();
+        loads.add(load);
+        Entry<V> entry;
+        boolean stored;
+        try {
+            List<Restaurant> restaurants = loader.get();
+            entry = new Entry<>(mapper.apply(restaurants),
+                    restaurants.stream().mapToInt(Restaurant::getId).sorted().toArray());
+            stored = entries.asMap().putIfAbsent(key, entry) == null;
+            if (stored) {
+                index(key, entry);
+                // Запись могла быть вытеснена до заполнения индексов, тогда они очищены раньше, чем заполнены
+                if (entries.asMap().get(key) != entry) {
+                    unindex(key, entry);
+                }
+            }
+        } finally {
+            loads.remove(load);
+        }
+        if (stored) {
+            for (Change change : load.changes) {
+                if (change.affects(key, entry)) {
+                    entries.asMap().remove(key, entry);
+                    break;
+                }
+            }
+        }
+        return entry.value;
+    }
+
+    /**
+     * Возвращает значение из хранилища без загрузки и без учета в счетчиках попаданий.
+     *
+     * @param key ключ списка
+     * @return значение или null, если его нет в хранилище
+     */
+    V peek(Key key) {
+        Entry<V> entry = entries.asMap().get(key);
+        return entry == null ? null : entry.value;
+    }
+
+    /**
+     * Удаляет значения, на которые влияет созданный, измененный или удаленный ресторан:
+     * списки, в которые ресторан входит, и списки без фильтра по кухне или с его кухней, в которые он может войти.
+     *
+     * @param restaurantId идентификатор ресторана
+     * @param cuisine      текущий тип кухни ресторана (null, если неизвестен или ресторан удален)
+     */
+    void onRestaurantChanged(int restaurantId, String cuisine) {
+        apply(new Change(restaurantId, cuisine == null ? null : cuisine.toLowerCase(Locale.ROOT), true));
+    }
+
+    /**
+     * Удаляет значения, на которые влияет изменение количества отзывов или суммы оценок ресторана:
+     * списки, в которые ресторан входит, и списки, состав которых зависит от рейтинга
+     * (первые рестораны, минимальный рейтинг).
+     *
+     * @param restaurantId идентификатор ресторана
+     */
+    void onAggregatesChanged(int restaurantId) {
+        apply(new Change(restaurantId, null, false));
+    }
+
+    /**
+     * Возвращает счетчики попаданий, промахов и вытеснений хранилища.
+     */
+    CacheStats stats() {
+        return entries.stats();
+    }
+
+    /**
+     * Возвращает примерное количество записей.
+     */
+    long size() {
+        return entries.estimatedSize();
+    }
+
+    /**
+     * Возвращает суммарный вес записей.
+     */
+    long weightedSize() {
+        return entries.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L);
+    }
+
+    /**
+     * Выполняет отложенное обслуживание, чтобы размер и вытеснения были актуальными.
+     */
+    void cleanUp() {
+        entries.cleanUp();
+    }
+
+    /**
+     * Запоминает изменение в текущих загрузках и удаляет затронутые им записи, найденные по индексам.
+     * Изменение запоминается до удаления: запись, помещенная загрузкой после просмотра индексов,
+     * будет проверена этой загрузкой.
+     */
+    private void apply(Change change) {
+        for (Load load : loads) {
+            load.changes.add(change);
+        }
+        removeAll(keysByRestaurant.get(change.restaurantId()));
+        if (change.restaurantChanged()) {
+            removeAll(keysByCuisine.get(ANY_CUISINE));
+            if (change.cuisine() != null) {
+                removeAll(keysByCuisine.get(change.cuisine()));
+            }
+        } else {
+            removeAll(ratingDependentKeys);
+        }
+    }
+
+    private void removeAll(Map<Key, Entry<V>> indexed) {
+        if (indexed != null) {
+            // Удаляется только проиндексированная запись, а не помещенная позже по тому же ключу
+            indexed.forEach((key, entry) -> entries.asMap().remove(key, entry));
+        }
+    }
+
+    private void index(Key key, Entry<V> entry) {
+        for (int restaurantId : entry.restaurantIds) {
+            add(keysByRestaurant, restaurantId, key, entry);
+        }
+        add(keysByCuisine, key.cuisine(), key, entry);
+        if (key.ratingDependent()) {
+            ratingDependentKeys.put(key, entry);
+        }
+    }
+
+    private void unindex(Key key, Entry<V> entry) {
+        for (int restaurantId : entry.restaurantIds) {
+            remove(keysByRestaurant, restaurantId, key, entry);
+        }
+        remove(keysByCuisine, key.cuisine(), key, entry);
+        ratingDependentKeys.remove(key, entry);
+    }
+
+    private static <I, V> void add(Map<I, Map<Key, Entry<V>>> index, I indexKey, Key key, Entry<V> entry) {
+        index.compute(indexKey, (k, keys) -> {
+            Map<Key, Entry<V>> result = keys == null ? new ConcurrentHashMap<>() : keys;
+            result.put(key, entry);
+            return result;
+        });
+    }
+
+    private static <I, V> void remove(Map<I, Map<Key, Entry<V>>> index, I indexKey, Key key, Entry<V> entry) {
+        index.computeIfPresent(indexKey, (k, keys) -> {
+            keys.remove(key, entry);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    /**
+     * Ключ списка ресторанов.
+     *
+     * @param filter фильтр списка
+     * @param sort   сортировка списка (null - порядок популярности)
+     * @param limit  количество первых ресторанов списка (0 - весь список)
+     */
+    record Key(RestaurantFilter filter, Sort sort, int limit) {
+        /**
+         * Возвращает ключ списка ресторанов в порядке популярности.
+         *
+         * @param limit количество первых ресторанов списка (0 - весь список)
+         * @return ключ списка
+         */
+        static Key popular(int limit) {
+            return new Key(RestaurantFilter.NONE, null, limit);
+        }
+
+        /**
+         * Проверяет, может ли состав списка измениться вместе с рейтингом ресторана, не входящего в список.
+         */
+        boolean ratingDependent() {
+            return limit > 0 || filter.getMinRating() != null;
+        }
+
+        String cuisine() {
+            return filter.getCuisine() == null ? ANY_CUISINE : filter.getCuisine();
+        }
+    }
+
+    /**
+     * Запись хранилища: значение и отсортированные идентификаторы ресторанов, вошедших в список.
+     * Записи сравниваются по ссылке, чтобы индексы и удаление различали записи одного ключа.
+     */
+    private static final class Entry<V> {
+        private final V value;
+        private final int[] restaurantIds;
+
+        private Entry(V value, int[] restaurantIds) {
+            this.value = value;
+            this.restaurantIds = restaurantIds;
+        }
+
+        boolean contains(int restaurantId) {
+            return Arrays.binarySearch(restaurantIds, restaurantId) >= 0;
+        }
+    }
+
+    /**
+     * Выполняющаяся загрузка списка и изменения, произошедшие за время загрузки.
+     */
+    private static final class Load {
+        private final Queue<Change> changes = new ConcurrentLinkedQueue<>();
+    }
+
+    /**
+     * Изменение ресторана или его агрегатов рейтинга.
+     *
+     * @param restaurantId      идентификатор ресторана
+     * @param cuisine           тип кухни ресторана в нижнем регистре (null, если неизвестен)
+     * @param restaurantChanged true - изменен сам ресторан, false - только агрегаты его отзывов
+     */
+    private record Change(int restaurantId, String cuisine, boolean restaurantChanged) {
+        boolean affects(Key key, Entry<?> entry) {
+            if (entry.contains(restaurantId)) {
+                return true;
+            }
+            if (restaurantChanged) {
+                return key.filter().getCuisine() == null || key.filter().getCuisine().equals(cuisine);
+            }
+            return key.ratingDependent();
+        }
+    }
+}
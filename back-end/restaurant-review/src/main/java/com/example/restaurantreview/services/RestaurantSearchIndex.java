@@ -0,0 +1,395 @@
+package com.example.restaurantreview.services;
+
+import com.example.restaurantreview.events.ListenerOrder;
+import com.example.restaurantreview.events.RestaurantChangedEvent;
+import com.example.restaurantreview.events.ReviewTextChangedEvent;
+import com.example.restaurantreview.models.Restaurant;
+import com.example.restaurantreview.repositories.RestaurantRepository;
+import com.example.restaurantreview.repositories.ReviewRepository;
+import com.example.restaurantreview.util.InvertedIndex;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Полнотекстовый индекс ресторанов в памяти процесса.
+ * Документ индекса - ресторан: его название, описание, адрес, тип кухни и тексты всех его отзывов.
+ * Заполняется при старте приложения параллельной загрузкой из базы данных и обновляется
+ * при изменении ресторанов и отзывов, поэтому поиск не выполняет в базе данных запросы LIKE '%...%'.
+ */
+@Slf4j
+@Component
+public class RestaurantSearchIndex {
+    /**
+     * Количество ресторанов в одной части при параллельной перестройке индекса.
+     */
+    private static final int REBUILD_CHUNK_SIZE = 500;
+
+    private final RestaurantRepository restaurantRepository;
+    private final ReviewRepository reviewRepository;
+    private final int rebuildParallelism;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    /**
+     * Блокировка перестройки индекса. Перестройка читает базу данных, поэтому используется ReentrantLock,
+     * а не монитор: ожидание и JDBC-запросы под монитором закрепили бы виртуальный поток за потоком-носителем.
+     */
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private InvertedIndex index = new InvertedIndex();
+    /**
+     * Слова полей ресторана, добавленные в индекс, чтобы вычесть их при изменении ресторана.
+     */
+    private Map<Integer, List<String>> restaurantTokens = new HashMap<>();
+    /**
+     * Рестораны, изменения которых пришли во время перестройки индекса (null, если перестройка не идет).
+     * Изменение могло не попасть в загружаемые данные, поэтому после замены индекса эти рестораны
+     * переиндексируются заново.
+     */
+    private Set<Integer> changedDuringRebuild;
+    private volatile boolean seeded;
+
+    /**
+     * Создает поисковый индекс ресторанов.
+     *
+     * @param restaurantRepository репозиторий ресторанов
+     * @param reviewRepository     репозиторий отзывов
+     * @param rebuildParallelism   количество потоков, загружающих и разбирающих данные при перестройке индекса
+     */
+    public RestaurantSearchIndex(RestaurantRepository restaurantRepository, ReviewRepository reviewRepository,
+                                 @Value("${search.index.rebuild-parallelism:4}") int rebuildParallelism) {
+        this.restaurantRepository = restaurantRepository;
+        this.reviewRepository = reviewRepository;
+        this.rebuildParallelism = Math.max(1, rebuildParallelism);
+    }
+
+    /**
+     * Строит индекс при старте приложения.
+     * Если база данных недоступна, построение повторяется при первом поиске.
+     */
+    @PostConstruct
+    public void seed() {
+        try {
+            rebuild();
+        } catch (DataAccessException | TransactionException e) {
+            log.warn("Restaurant search index is not built yet: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Ищет рестораны по словам запроса.
+     *
+     * @param query текст запроса
+     * @param limit максимальное количество ресторанов
+     * @return идентификаторы ресторанов по убыванию релевантности
+     */
+    public List<Integer> search(String query, int limit) {
+        List<String> tokens = InvertedIndex.tokenize(query);
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+        ensureSeeded();
+        lock.readLock().lock();
+        try {
+            return index.search(tokens, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Переиндексирует созданный или измененный ресторан и удаляет из индекса удаленный.
+     *
+     * @param event событие изменения ресторана
+     */
+    @Order(ListenerOrder.INDEXES)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRestaurantChanged(RestaurantChangedEvent event) {
+        if (event.getType() == RestaurantChangedEvent.Type.DELETED) {
+            remove(event.getRestaurantId());
+        } else {
+            restaurantRepository.findById(event.getRestaurantId()).ifPresent(this::index);
+        }
+    }
+
+    /**
+     * Заменяет в индексе текст измененного отзыва.
+     *
+     * @param event событие изменения текста отзыва
+     */
+    @Order(ListenerOrder.INDEXES)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReviewTextChanged(ReviewTextChangedEvent event) {
+        List<String> removed = InvertedIndex.tokenize(event.getRemovedText());
+        List<String> added = InvertedIndex.tokenize(event.getAddedText());
+        lock.writeLock().lock();
+        try {
+            index.remove(event.getRestaurantId(), removed);
+            index.add(event.getRestaurantId(), added);
+            markChanged(event.getRestaurantId());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Индексирует поля ресторана, заменяя ранее проиндексированные. Слова отзывов ресторана сохраняются.
+     *
+     * @param restaurant ресторан
+     */
+    void index(Restaurant restaurant) {
+        List<String> tokens = tokenize(restaurant.getName(), restaurant.getDescription(),
+                restaurant.getLocation(), restaurant.getCuisine());
+        lock.writeLock().lock();
+        try {
+            List<String> oldTokens = restaurantTokens.put(restaurant.getId(), tokens);
+            if (oldTokens != null) {
+                index.remove(restaurant.getId(), oldTokens);
+            }
+            index.add(restaurant.getId(), tokens);
+            markChanged(restaurant.getId());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Удаляет ресторан из индекса.
+     *
+     * @param restaurantId идентификатор ресторана
+     */
+    void remove(int restaurantId) {
+        lock.writeLock().lock();
+        try {
+            restaurantTokens.remove(restaurantId);
+            index.removeDocument(restaurantId);
+            markChanged(restaurantId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Перестраивает индекс по данным из базы данных.
+     * Рестораны делятся на части, каждая часть загружает тексты своих отзывов и разбирает их на слова
+     * в отдельном потоке. Новый индекс собирается в стороне и заменяет текущий, поэтому поиск
+     * во время перестройки продолжает работать по старому индексу. Рестораны, изменившиеся во время
+     * перестройки, после замены индекса загружаются и индексируются заново.
+     */
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            lock.writeLock().lock();
+            try {
+                changedDuringRebuild = new HashSet<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            try {
+                InvertedIndex newIndex = build();
+                Set<Integer> changed = takeChanged();
+                while (!changed.isEmpty()) {
+                    reindex(changed);
+                    changed = takeChanged();
+                }
+                log.info("Restaurant search index built: {} restaurants", newIndex.size());
+            } finally {
+                lock.writeLock().lock();
+                try {
+                    changedDuringRebuild = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * Строит новый индекс по всем ресторанам и заменяет им текущий.
+     *
+     * @return новый индекс
+     */
+    private InvertedIndex build() {
+        List<Object[]> restaurants = restaurantRepository.findSearchableFields();
+        List<Chunk> chunks = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(rebuildParallelism)) {
+            List<Future<Chunk>> futures = new ArrayList<>();
+            for (int from = 0; from < restaurants.size(); from += REBUILD_CHUNK_SIZE) {
+                List<Object[]> part = restaurants.subList(from, Math.min(from + REBUILD_CHUNK_SIZE, restaurants.size()));
+                futures.add(executor.submit(() -> loadChunk(part)));
+            }
+            for (Future<Chunk> future : futures) {
+                chunks.add(future.get());
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Failed to rebuild restaurant search index", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while rebuilding restaurant search index", e);
+        }
+
+        InvertedIndex newIndex = new InvertedIndex();
+        Map<Integer, List<String>> newRestaurantTokens = new HashMap<>();
+        for (Chunk chunk : chunks) {
+            chunk.termCounts().forEach(newIndex::add);
+            newRestaurantTokens.putAll(chunk.restaurantTokens());
+        }
+
+        lock.writeLock().lock();
+        try {
+            index = newIndex;
+            restaurantTokens = newRestaurantTokens;
+            seeded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return newIndex;
+    }
+
+    /**
+     * Заменяет в индексе документы ресторанов данными из базы данных. Рестораны, которых больше нет,
+     * удаляются из индекса.
+     *
+     * @param restaurantIds идентификаторы ресторанов
+     */
+    private void reindex(Set<Integer> restaurantIds) {
+        Chunk chunk = loadChunk(restaurantRepository.findSearchableFieldsByIds(restaurantIds));
+        lock.writeLock().lock();
+        try {
+            for (int restaurantId : restaurantIds) {
+                restaurantTokens.remove(restaurantId);
+                index.removeDocument(restaurantId);
+            }
+            chunk.termCounts().forEach(index::add);
+            restaurantTokens.putAll(chunk.restaurantTokens());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Забирает рестораны, изменившиеся во время перестройки. Если изменений нет, перестает их запоминать.
+     *
+     * @return идентификаторы ресторанов
+     */
+    private Set<Integer> takeChanged() {
+        lock.writeLock().lock();
+        try {
+            Set<Integer> changed = changedDuringRebuild;
+            changedDuringRebuild = changed.isEmpty() ? null : new HashSet<>();
+            return changed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Запоминает изменение ресторана, если идет перестройка индекса. Вызывается под блокировкой записи.
+     *
+     * @param restaurantId идентификатор ресторана
+     */
+    private void markChanged(int restaurantId) {
+        if (changedDuringRebuild != null) {
+            changedDuringRebuild.add(restaurantId);
+        }
+    }
+
+    /**
+     * Загружает тексты отзывов части ресторанов и подсчитывает слова каждого ресторана.
+     *
+     * @param restaurants строки (id, name, description, location, cuisine) ресторанов части
+     * @return слова полей ресторанов и количество вхождений всех слов каждого ресторана
+     */
+    private Chunk loadChunk(List<Object[]> restaurants) {
+        Map<Integer, List<String>> fieldTokens = new HashMap<>();
+        Map<Integer, Map<String, Integer>> termCounts = new HashMap<>();
+        for (Object[] row : restaurants) {
+            int restaurantId = ((Number) row[0]).intValue();
+            List<String> tokens = tokenize((String) row[1], (String) row[2], (String) row[3], (String) row[4]);
+            fieldTokens.put(restaurantId, tokens);
+            count(termCounts.computeIfAbsent(restaurantId, id -> new HashMap<>()), tokens);
+        }
+        if (fieldTokens.isEmpty()) {
+            return new Chunk(fieldTokens, termCounts);
+        }
+        for (Object[] row : reviewRepository.findTextsByRestaurantIds(fieldTokens.keySet())) {
+            int restaurantId = ((Number) row[0]).intValue();
+            count(termCounts.computeIfAbsent(restaurantId, id -> new HashMap<>()),
+                    InvertedIndex.tokenize((String) row[1]));
+        }
+        return new Chunk(fieldTokens, termCounts);
+    }
+
+    /**
+     * Строит индекс, если при старте приложения это не удалось.
+     * Одновременные первые поиски ждут одну перестройку, а не выполняют ее каждый.
+     */
+    private void ensureSeeded() {
+        if (seeded) {
+            return;
+        }
+        rebuildLock.lock();
+        try {
+            if (!seeded) {
+                rebuild();
+            }
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * Разбирает на слова несколько полей.
+     *
+     * @param fields значения полей (могут быть null)
+     * @return слова всех полей
+     */
+    private static List<String> tokenize(String... fields) {
+        List<String> tokens = new ArrayList<>();
+        for (String field : fields) {
+            tokens.addAll(InvertedIndex.tokenize(field));
+        }
+        return tokens;
+    }
+
+    /**
+     * Прибавляет слова к счетчикам вхождений.
+     *
+     * @param counts счетчики вхождений слов
+     * @param tokens слова
+     */
+    private static void count(Map<String, Integer> counts, List<String> tokens) {
+        for (String token : tokens) {
+            counts.merge(token, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Результат загрузки части ресторанов при перестройке индекса.
+     */
+    private record Chunk(Map<Integer, List<String>> restaurantTokens, Map<Integer, Map<String, Integer>> termCounts) {
+    }
+}
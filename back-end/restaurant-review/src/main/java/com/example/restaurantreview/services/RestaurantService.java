@@ -1,17 +1,26 @@
 package com.example.restaurantreview.services;
 
+import com.example.restaurantreview.events.RestaurantChangedEvent;
+import com.example.restaurantreview.models.CatalogFacets;
+import com.example.restaurantreview.models.MultiGetResult;
 import com.example.restaurantreview.models.Restaurant;
+import com.example.restaurantreview.models.RestaurantFilter;
 import com.example.restaurantreview.repositories.RestaurantRepository;
-import com.example.restaurantreview.repositories.ReviewRepository;
+import com.example.restaurantreview.repositories.RestaurantSpecifications;
+import com.example.restaurantreview.util.GeoGrid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
-import java.math.BigInteger;
 import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -20,8 +29,28 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 @Service
 public class RestaurantService {
+    /**
+     * Максимальное количество ресторанов в результатах поиска.
+     */
+    public static final int MAX_SEARCH_RESULTS = 100;
+    /**
+     * Поля, по которым разрешена сортировка каталога. Для каждого поля есть индекс
+     * (db/005-restaurant-filter-indexes.sql), поэтому сортировка не требует полного перебора таблицы.
+     */
+    public static final Set<String> SORTABLE_FIELDS = Set.of("avgRating", "priceRange", "name", "reviewCount");
+    /**
+     * Максимальный радиус поиска ближайших ресторанов в километрах.
+     */
+    public static final double MAX_NEARBY_RADIUS_KM = 100;
+
     private final RestaurantRepository restaurantRepository;
-    private final ReviewRepository reviewRepository;
+    private final PopularityLeaderboard popularityLeaderboard;
+    private final RestaurantSearchIndex restaurantSearchIndex;
+    private final RestaurantGeoIndex restaurantGeoIndex;
+    private final CatalogFacetCounters catalogFacetCounters;
+    private final RestaurantDeletionService restaurantDeletionService;
+    private final RestaurantCache restaurantCache;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Метод для сохранения ресторана.
@@ -30,17 +59,33 @@ public class RestaurantService {
      * @return сохраненный ресторан.
      */
     public Restaurant save(Restaurant restaurant) {
-        return restaurantRepository.save(restaurant);
+        Restaurant savedRestaurant = restaurantRepository.save(restaurant);
+        eventPublisher.publishEvent(new RestaurantChangedEvent(savedRestaurant.getId(),
+                RestaurantChangedEvent.Type.CREATED, savedRestaurant.getCuisine(), savedRestaurant.getPriceRange()));
+        return savedRestaurant;
     }
 
     /**
      * Метод для поиска ресторана по его идентификатору.
+     * Результат читается из кэша ресторанов, база данных запрашивается только при промахе.
      *
      * @param id идентификатор ресторана.
      * @return найденный ресторан (если существует).
      */
     public Optional<Restaurant> findById(int id) {
-        return restaurantRepository.findById(id);
+        return restaurantCache.getById(id, restaurantRepository::findById);
+    }
+
+    /**
+     * Находит рестораны по списку идентификаторов. Рестораны берутся из кэша ресторанов,
+     * отсутствующие в кэше загружаются из базы данных одним запросом.
+     *
+     * @param ids идентификаторы ресторанов (повторы игнорируются)
+     * @return найденные рестораны в порядке идентификаторов и идентификаторы ненайденных ресторанов
+     */
+    public MultiGetResult<Restaurant> findAllById(List<Integer> ids) {
+        Set<Integer> uniqueIds = new LinkedHashSet<>(ids);
+        return MultiGetResult.of(uniqueIds, restaurantCache.getAllById(uniqueIds, restaurantRepository::findAllById));
     }
 
     /**
@@ -50,7 +95,79 @@ public class RestaurantService {
      * @return список всех ресторанов, отсортированный согласно переданному объекту Sort
      */
     public List<Restaurant> findAll(Sort sort) {
-        return restaurantRepository.findAll(sort);
+        return restaurantCache.getList(RestaurantFilter.NONE, sort, () -> restaurantRepository.findAll(sort));
+    }
+
+    /**
+     * Получает список ресторанов, удовлетворяющих всем условиям фильтра, с возможностью сортировки.
+     * Поля сортировки должны входить в {@link #SORTABLE_FIELDS}.
+     *
+     * @param filter фильтр каталога
+     * @param sort   объект Sort для сортировки списка ресторанов
+     * @return список ресторанов, отсортированный согласно переданному объекту Sort
+     */
+    public List<Restaurant> findAll(RestaurantFilter filter, Sort sort) {
+        if (filter.isEmpty()) {
+            return findAll(sort);
+        }
+        return restaurantCache.getList(filter, sort,
+                () -> restaurantRepository.findAll(RestaurantSpecifications.matching(filter), sort));
+    }
+
+    /**
+     * Получает первые рестораны списка каталога без загрузки и сортировки всего списка.
+     * При сортировке по числовым полям, если полный список по тому же фильтру уже есть в кэше, первые рестораны
+     * отбираются из него кучей ограниченного размера, иначе загружаются из базы данных запросом с LIMIT.
+     * Рестораны с одинаковым значением поля сортировки упорядочиваются по идентификатору.
+     *
+     * @param filter фильтр каталога
+     * @param sort   сортировка по полям из {@link #SORTABLE_FIELDS}
+     * @param limit  количество ресторанов
+     * @return не более limit первых ресторанов списка
+     */
+    public List<Restaurant> findTop(RestaurantFilter filter, Sort sort, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        Sort topSort = sort.and(Sort.by("id"));
+        return restaurantCache.getTop(filter, sort, limit, comparator(topSort),
+                () -> restaurantRepository.findTop(RestaurantSpecifications.matching(filter), topSort, limit));
+    }
+
+    /**
+     * Находит рестораны с наибольшим средним рейтингом.
+     *
+     * @param limit максимальное количество ресторанов
+     * @return список ресторанов, отсортированных по убыванию среднего рейтинга
+     */
+    public List<Restaurant> findTopRated(int limit) {
+        return findTop(RestaurantFilter.NONE, Sort.by(Sort.Direction.DESC, "avgRating"), limit);
+    }
+
+    /**
+     * Строит компаратор ресторанов, соответствующий сортировке в базе данных.
+     * Строки база данных сравнивает по правилам сортировки (collation), которые в памяти не воспроизводятся,
+     * поэтому для сортировки по строковым полям компаратор не строится.
+     *
+     * @param sort сортировка по полям из {@link #SORTABLE_FIELDS} и идентификатору
+     * @return компаратор ресторанов или null, если сортировка содержит строковые поля
+     */
+    static Comparator<Restaurant> comparator(Sort sort) {
+        Comparator<Restaurant> result = (a, b) -> 0;
+        for (Sort.Order order : sort) {
+            Comparator<Restaurant> field = switch (order.getProperty()) {
+                case "avgRating" -> Comparator.comparingDouble(Restaurant::getAvgRating);
+                case "reviewCount" -> Comparator.comparingInt(Restaurant::getReviewCount);
+                case "id" -> Comparator.comparingInt(Restaurant::getId);
+                case "name", "priceRange" -> null;
+                default -> throw new IllegalArgumentException("Unsupported sort property: " + order.getProperty());
+            };
+            if (field == null) {
+                return null;
+            }
+            result = result.thenComparing(order.isDescending() ? field.reversed() : field);
+        }
+        return result;
     }
 
     /**
@@ -59,65 +176,128 @@ public class RestaurantService {
      * @return список ресторанов, отсортированных по убыванию количества отзывов
      */
     public List<Restaurant> findAllByPopularity() {
-        // Получаем список всех ресторанов и их количество отзывов
-        List<Object[]> restaurantReviewsCount = reviewRepository.findReviewsCountByRestaurantId();
+        return findTopByPopularity(Integer.MAX_VALUE);
+    }
 
-        // Преобразуем результат запроса в Map для быстрого доступа по идентификатору ресторана
-        Map<Integer, Integer> reviewsCountMap = restaurantReviewsCount.stream()
-                .collect(Collectors.toMap(
-                        obj -> ((Number) obj[0]).intValue(), // Идентификатор ресторана
-                        obj -> ((Number) obj[1]).intValue()  // Количество отзывов
-                ));
+    /**
+     * Находит самые популярные рестораны по количеству отзывов.
+     * Порядок берется из рейтинга в памяти, из базы данных загружаются только запрошенные рестораны.
+     *
+     * @param limit максимальное количество ресторанов
+     * @return список ресторанов, отсортированных по убыванию количества отзывов
+     */
+    public List<Restaurant> findTopByPopularity(int limit) {
+        return findAllByIdInOrder(popularityLeaderboard.top(limit));
+    }
 
+    /**
+     * Определяет место ресторана в рейтинге популярности.
+     *
+     * @param id идентификатор ресторана
+     * @return место ресторана, начиная с 1 (если ресторан существует)
+     */
+    public OptionalInt findPopularityRank(int id) {
+        return popularityLeaderboard.rank(id);
+    }
 
-        // Сортируем рестораны по количеству отзывов (по убыванию)
-        List<Restaurant> restaurants = restaurantRepository.findAll();
-        restaurants.sort(Comparator.comparingInt(restaurant -> -reviewsCountMap.getOrDefault(restaurant.getId(), 0)));
+    /**
+     * Возвращает количество ресторанов по типам кухни и ценовым диапазонам из счетчиков в памяти.
+     *
+     * @param cuisine    тип кухни, которым ограничивается фасет ценовых диапазонов (null - без фильтра)
+     * @param priceRange ценовой диапазон, которым ограничивается фасет типов кухни (null - без фильтра)
+     * @return количество ресторанов по фасетам
+     */
+    public CatalogFacets findFacets(String cuisine, String priceRange) {
+        return catalogFacetCounters.facets(cuisine, priceRange);
+    }
 
-        return restaurants;
+    /**
+     * Ищет рестораны по словам в названии, описании, адресе, типе кухни и текстах отзывов.
+     * Порядок определяется поисковым индексом в памяти, из базы данных загружаются только найденные рестораны.
+     *
+     * @param query текст запроса
+     * @param limit максимальное количество ресторанов (ограничивается значением {@link #MAX_SEARCH_RESULTS})
+     * @return список ресторанов по убыванию релевантности
+     */
+    public List<Restaurant> search(String query, int limit) {
+        int resultSize = Math.max(1, Math.min(limit, MAX_SEARCH_RESULTS));
+        return findAllByIdInOrder(restaurantSearchIndex.search(query, resultSize));
     }
 
     /**
-     * Получает список ресторанов по указанному типу кухни с возможностью сортировки.
+     * Ищет ближайшие рестораны с заданными координатами в пределах радиуса.
      *
-     * @param cuisine тип кухни для поиска
-     * @param sort объект Sort для сортировки списка ресторанов
-     * @return список ресторанов с указанным типом кухни, отсортированный согласно переданному объекту Sort
+     * @param latitude  широта в градусах
+     * @param longitude долгота в градусах
+     * @param radiusKm  радиус поиска в километрах (ограничивается значением {@link #MAX_NEARBY_RADIUS_KM})
+     * @param limit     максимальное количество ресторанов (ограничивается значением {@link #MAX_SEARCH_RESULTS})
+     * @return рестораны по возрастанию расстояния
      */
-    public List<Restaurant> findAllByCuisine(String cuisine, Sort sort) {
-        return restaurantRepository.findByCuisineIgnoreCase(cuisine, sort);
+    public List<Restaurant> findNearby(double latitude, double longitude, double radiusKm, int limit) {
+        int resultSize = Math.max(1, Math.min(limit, MAX_SEARCH_RESULTS));
+        double radius = Math.max(0, Math.min(radiusKm, MAX_NEARBY_RADIUS_KM));
+        List<Integer> ids = restaurantGeoIndex.nearest(latitude, longitude, radius, resultSize).stream()
+                .map(GeoGrid.Hit::id)
+                .toList();
+        return findAllByIdInOrder(ids);
     }
 
     /**
      * Метод для обновления информации о ресторане.
+     * Агрегаты отзывов (средний рейтинг, количество отзывов, распределение оценок) не переносятся из запроса:
+     * их изменяют только отзывы.
      *
      * @param id         идентификатор ресторана, который нужно обновить.
      * @param restaurant новая информация о ресторане.
      * @return обновленный ресторан (если существует).
      */
     public Optional<Restaurant> update(int id, Restaurant restaurant) {
-        Optional<Restaurant> restaurantToUpdate = findById(id);
+        // Изменяемый ресторан читается из базы данных, а не из кэша, чтобы не менять общий экземпляр
+        Optional<Restaurant> restaurantToUpdate = restaurantRepository.findById(id);
         if (restaurantToUpdate.isPresent()) {
             Restaurant newRestaurant = restaurantToUpdate.get();
             newRestaurant.setId(restaurant.getId());
             newRestaurant.setName(restaurant.getName());
             newRestaurant.setLocation(restaurant.getLocation());
+            newRestaurant.setLatitude(restaurant.getLatitude());
+            newRestaurant.setLongitude(restaurant.getLongitude());
             newRestaurant.setDescription(restaurant.getDescription());
-            newRestaurant.setAvgRating(restaurant.getAvgRating());
             newRestaurant.setCuisine(restaurant.getCuisine());
             newRestaurant.setPriceRange(restaurant.getPriceRange());
             newRestaurant.setPhoto(restaurant.getPhoto());
-            return Optional.of(restaurantRepository.save(newRestaurant));
+            Restaurant savedRestaurant = restaurantRepository.save(newRestaurant);
+            eventPublisher.publishEvent(new RestaurantChangedEvent(id, RestaurantChangedEvent.Type.UPDATED,
+                    savedRestaurant.getCuisine(), savedRestaurant.getPriceRange()));
+            return Optional.of(savedRestaurant);
         }
         return Optional.empty();
     }
 
     /**
-     * Метод для удаления ресторана по его идентификатору.
+     * Метод для удаления ресторана вместе с его отзывами по идентификатору ресторана.
+     * В режиме мягкого удаления ресторан помечается удаленным и сразу скрывается, а строки удаляются позже.
      *
      * @param id идентификатор ресторана, который нужно удалить.
      */
     public void deleteById(int id) {
-        restaurantRepository.deleteById(id);
+        if (restaurantDeletionService.delete(id)) {
+            eventPublisher.publishEvent(
+                    new RestaurantChangedEvent(id, RestaurantChangedEvent.Type.DELETED, null, null));
+        }
+    }
+
+    /**
+     * Получает рестораны по списку идентификаторов, сохраняя порядок списка.
+     * Отсутствующие в кэше рестораны загружаются одним запросом.
+     *
+     * @param ids идентификаторы ресторанов
+     * @return найденные рестораны в порядке переданных идентификаторов
+     */
+    private List<Restaurant> findAllByIdInOrder(List<Integer> ids) {
+        Map<Integer, Restaurant> restaurantsById = restaurantCache.getAllById(ids, restaurantRepository::findAllById);
+        return ids.stream()
+                .map(restaurantsById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
     }
 }
@@ -0,0 +1,93 @@
+package com.example.restaurantreview.services;
+
+import com.example.restaurantreview.models.ReviewSummary;
+import com.example.restaurantreview.repositories.ReviewRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Сервис потоковой выгрузки отзывов в формате NDJSON (один JSON-объект на строку).
+ * Отзывы читаются из базы данных порциями через курсор и сразу записываются в выходной поток,
+ * поэтому потребление памяти не зависит от количества отзывов.
+ */
+@Service
+public class ReviewExportService {
+    /**
+     * Количество строк, после записи которых выходной поток сбрасывается клиенту.
+     */
+    private static final int FLUSH_INTERVAL = 1000;
+
+    private final ReviewRepository reviewRepository;
+    private final ObjectWriter writer;
+    private final boolean softDelete;
+
+    /**
+     * Создает сервис выгрузки отзывов.
+     *
+     * @param reviewRepository репозиторий отзывов
+     * @param objectMapper     ObjectMapper приложения, чтобы формат выгрузки совпадал с ответами API
+     * @param softDelete       помечаются ли рестораны удаленными вместо немедленного удаления
+     *                         (тогда отзывы таких ресторанов не выгружаются)
+     */
+    public ReviewExportService(ReviewRepository reviewRepository, ObjectMapper objectMapper,
+                               @Value("${restaurant.delete.soft:false}") boolean softDelete) {
+        this.reviewRepository = reviewRepository;
+        this.softDelete = softDelete;
+        // Поток сбрасывается раз в FLUSH_INTERVAL строк, а не после каждого отзыва
+        this.writer = objectMapper.writerFor(ReviewSummary.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * Записывает отзывы в выходной поток в формате NDJSON в порядке даты создания.
+     * Отзывы читаются как проекции, которые не попадают в контекст персистентности,
+     * поэтому он не растет по мере чтения.
+     *
+     * @param since  нижняя граница даты создания для инкрементальной выгрузки (null - все отзывы)
+     * @param output выходной поток (не закрывается)
+     * @return количество выгруженных отзывов
+     * @throws IOException если не удалось записать в выходной поток
+     */
+    @Transactional(readOnly = true)
+    public long export(LocalDateTime since, OutputStream output) throws IOException {
+        try (Stream<ReviewSummary> reviews = stream(since);
+             JsonGenerator generator = writer.createGenerator(output)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            long count = 0;
+            Iterator<ReviewSummary> iterator = reviews.iterator();
+            while (iterator.hasNext()) {
+                writer.writeValue(generator, iterator.next());
+                generator.writeRaw('\n');
+                if (++count % FLUSH_INTERVAL == 0) {
+                    generator.flush();
+                }
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Открывает поток отзывов для выгрузки в порядке даты создания.
+     *
+     * @param since нижняя граница даты создания (null - все отзывы)
+     * @return поток отзывов (должен быть закрыт)
+     */
+    private Stream<ReviewSummary> stream(LocalDateTime since) {
+        if (since == null) {
+            return softDelete ? reviewRepository.streamAllVisible() : reviewRepository.streamAll();
+        }
+        return softDelete ? reviewRepository.streamVisibleSince(since) : reviewRepository.streamSince(since);
+    }
+}
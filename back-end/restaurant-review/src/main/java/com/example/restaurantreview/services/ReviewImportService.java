@@ -0,0 +1,276 @@
+package com.example.restaurantreview.services;
+
+import com.example.restaurantreview.events.ReviewChangedEvent;
+import com.example.restaurantreview.events.ReviewTextChangedEvent;
+import com.example.restaurantreview.models.RatingHistogram;
+import com.example.restaurantreview.models.Review;
+import com.example.restaurantreview.models.ReviewImportResult;
+import com.example.restaurantreview.models.ReviewImportRow;
+import com.example.restaurantreview.repositories.RestaurantRepository;
+import com.example.restaurantreview.repositories.ReviewRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Сервис массовой загрузки отзывов из потока NDJSON или CSV.
+ * Строки читаются потоково и обрабатываются пакетами: для каждого пакета одним запросом проверяется
+ * существование ресторанов, отзывы проверяются ограничениями модели Review и вставляются пакетными
+ * JDBC-вставками, а агрегаты рейтинга каждого затронутого ресторана обновляются один раз на пакет.
+ */
+@Slf4j
+@Service
+public class ReviewImportService {
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private final ReviewRepository reviewRepository;
+    private final RestaurantRepository restaurantRepository;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final CsvMapper csvMapper;
+    private final ObjectReader ndjsonReader;
+    private final ObjectReader csvReader;
+    private final int batchSize;
+
+    /**
+     * Создает сервис массовой загрузки отзывов.
+     *
+     * @param batchSize размер пакета строк, сохраняемых в одной транзакции
+     */
+    public ReviewImportService(ReviewRepository reviewRepository, RestaurantRepository restaurantRepository,
+                               Validator validator, TransactionTemplate transactionTemplate,
+                               ApplicationEventPublisher eventPublisher, ObjectMapper objectMapper,
+                               @Value("${review.import.batch-size:1000}") int batchSize) {
+        this.reviewRepository = reviewRepository;
+        this.restaurantRepository = restaurantRepository;
+        this.validator = validator;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.ndjsonReader = objectMapper.readerFor(JsonNode.class);
+        this.csvMapper = new CsvMapper();
+        csvMapper.registerModule(new JavaTimeModule());
+        this.csvReader = csvMapper.readerFor(JsonNode.class).with(CsvSchema.emptySchema().withHeader());
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Загружает отзывы из потока NDJSON (один JSON-объект на строку).
+     *
+     * @param content поток NDJSON
+     * @return результат загрузки
+     * @throws IOException если поток не удалось прочитать
+     */
+    public ReviewImportResult importNdjson(InputStream content) throws IOException {
+        try (MappingIterator<JsonNode> rows = ndjsonReader.readValues(content)) {
+            return importRows(rows, objectMapper);
+        }
+    }
+
+    /**
+     * Загружает отзывы из потока CSV с заголовком
+     * (restaurantId, text, rating, authorName, authorEmail, creationDate).
+     *
+     * @param content поток CSV
+     * @return результат загрузки
+     * @throws IOException если поток не удалось прочитать
+     */
+    public ReviewImportResult importCsv(InputStream content) throws IOException {
+        try (MappingIterator<JsonNode> rows = csvReader.readValues(content)) {
+            return importRows(rows, csvMapper);
+        }
+    }
+
+    /**
+     * Читает строки пакетами и сохраняет каждый пакет. Строка, значения которой не приводятся к полям
+     * ReviewImportRow, отклоняется отдельно, поврежденный поток завершает загрузку.
+     */
+    private ReviewImportResult importRows(MappingIterator<JsonNode> rows, ObjectMapper mapper) throws IOException {
+        ReviewImportResult result = new ReviewImportResult();
+        List<ParsedRow> batch = new ArrayList<>(batchSize);
+        int rowNumber = 0;
+        int batchStart = 1;
+        try {
+            while (rows.hasNextValue()) {
+                batch.add(parse(rows.nextValue(), mapper));
+                rowNumber++;
+                if (batch.size() == batchSize) {
+                    if (!importBatch(batch, batchStart, result)) {
+                        return result;
+                    }
+                    batch.clear();
+                    batchStart = rowNumber + 1;
+                }
+            }
+        } catch (JsonProcessingException e) {
+            // Поврежденный поток нельзя читать дальше: сохраняем уже прочитанные строки и завершаем загрузку
+            batch.add(new ParsedRow(null, "Malformed input: " + e.getOriginalMessage()));
+        }
+        if (!batch.isEmpty()) {
+            importBatch(batch, batchStart, result);
+        }
+        return result;
+    }
+
+    /**
+     * Приводит прочитанную строку к ReviewImportRow.
+     *
+     * @return строка или описание ошибки, если значения не приводятся к типам полей
+     */
+    private static ParsedRow parse(JsonNode node, ObjectMapper mapper) {
+        try {
+            return new ParsedRow(mapper.treeToValue(node, ReviewImportRow.class), null);
+        } catch (JsonMappingException e) {
+            String field = e.getPath().stream()
+                    .map(JsonMappingException.Reference::getFieldName)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.joining("."));
+            return new ParsedRow(null, field.isEmpty() ? "Invalid row" : field + ": Invalid value");
+        } catch (JsonProcessingException e) {
+            return new ParsedRow(null, "Invalid row");
+        }
+    }
+
+    /**
+     * Сохраняет пакет строк в одной транзакции и дополняет результат только после ее фиксации.
+     * Если пакет не удалось сохранить, результат отмечает строку, с которой загрузка прервана:
+     * предыдущие пакеты уже зафиксированы, и загрузку можно продолжить с этой строки.
+     *
+     * @param batch    строки пакета
+     * @param firstRow номер первой строки пакета (для сообщений об ошибках)
+     * @param result   результат загрузки, который дополняется по итогам пакета
+     * @return true, если пакет сохранен
+     */
+    private boolean importBatch(List<ParsedRow> batch, int firstRow, ReviewImportResult result) {
+        List<String> rejections = new ArrayList<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Set<Integer> restaurantIds = batch.stream()
+                        .map(ParsedRow::row)
+                        .filter(Objects::nonNull)
+                        .map(ReviewImportRow::getRestaurantId)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toSet());
+                Set<Integer> existingIds = restaurantIds.isEmpty()
+                        ? Set.of() : new HashSet<>(restaurantRepository.findExistingIds(restaurantIds));
+
+                List<Review> reviews = new ArrayList<>(batch.size());
+                for (int i = 0; i < batch.size(); i++) {
+                    ReviewImportRow row = batch.get(i).row();
+                    String error = batch.get(i).error();
+                    if (error == null && (row.getRestaurantId() == null
+                            || !existingIds.contains(row.getRestaurantId()))) {
+                        error = "restaurantId: Restaurant not found";
+                    }
+                    Review review = null;
+                    if (error == null) {
+                        review = toReview(row);
+                        error = validate(review);
+                    }
+                    if (error != null) {
+                        rejections.add("row " + (firstRow + i) + ": " + error);
+                    } else {
+                        reviews.add(review);
+                    }
+                }
+                if (reviews.isEmpty()) {
+                    return;
+                }
+
+                reviewRepository.saveAll(reviews);
+                applyRatingDeltas(reviews);
+                for (Review review : reviews) {
+                    eventPublisher.publishEvent(
+                            new ReviewTextChangedEvent(review.getRestaurant().getId(), null, review.getText()));
+                }
+            });
+        } catch (DataAccessException | TransactionException e) {
+            log.warn("Review import stopped at row {}: {}", firstRow, e.getMessage());
+            result.setStoppedAtRow(firstRow);
+            return false;
+        }
+        result.setImported(result.getImported() + batch.size() - rejections.size());
+        result.setRejected(result.getRejected() + rejections.size());
+        for (String rejection : rejections) {
+            if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+                result.getErrors().add(rejection);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Обновляет агрегаты рейтинга один раз для каждого ресторана пакета.
+     */
+    private void applyRatingDeltas(List<Review> reviews) {
+        Map<Integer, RatingHistogram> deltas = new HashMap<>();
+        for (Review review : reviews) {
+            deltas.computeIfAbsent(review.getRestaurant().getId(), id -> new RatingHistogram())
+                    .add(review.getRating(), 1);
+        }
+        deltas.forEach((restaurantId, delta) -> {
+            restaurantRepository.applyRatingDelta(restaurantId, delta);
+            eventPublisher.publishEvent(new ReviewChangedEvent(restaurantId, delta.count(), delta.sum()));
+        });
+    }
+
+    /**
+     * Проверяет отзыв ограничениями модели Review.
+     *
+     * @return описание ошибки или null, если отзыв корректен
+     */
+    private String validate(Review review) {
+        Set<ConstraintViolation<Review>> violations = validator.validate(review);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private Review toReview(ReviewImportRow row) {
+        return new Review(row.getText(),
+                row.getRating() == null ? 0 : row.getRating(),
+                row.getCreationDate() == null ? LocalDateTime.now() : row.getCreationDate(),
+                restaurantRepository.getReferenceById(row.getRestaurantId()),
+                row.getAuthorName(),
+                row.getAuthorEmail());
+    }
+
+    /**
+     * Прочитанная строка: значения строки или описание ошибки их приведения к типам полей.
+     */
+    private record ParsedRow(ReviewImportRow row, String error) {
+    }
+}
@@ -1,29 +1,80 @@
 package com.example.restaurantreview.services;
 
+import com.example.restaurantreview.events.ReviewChangedEvent;
+import com.example.restaurantreview.events.ReviewTextChangedEvent;
+import com.example.restaurantreview.models.MultiGetResult;
+import com.example.restaurantreview.models.RatingHistogram;
+import com.example.restaurantreview.models.Restaurant;
 import com.example.restaurantreview.models.Review;
+import com.example.restaurantreview.models.ReviewPage;
+import com.example.restaurantreview.models.ReviewSummary;
+import com.example.restaurantreview.repositories.RestaurantRepository;
 import com.example.restaurantreview.repositories.ReviewRepository;
-import lombok.RequiredArgsConstructor;
+import com.example.restaurantreview.util.ReviewCursor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Сервис для работы с отзывами.
+ * <p>
+ * При мягком удалении ресторанов списки отзывов читаются запросами findVisible*, которые скрывают отзывы
+ * ресторанов, помеченных удаленными. При немедленном удалении таких отзывов нет, и используются запросы
+ * без этого условия.
  */
-@RequiredArgsConstructor
 @Service
 public class ReviewService {
+    /**
+     * Максимальный размер страницы при постраничном выводе отзывов.
+     */
+    public static final int MAX_PAGE_SIZE = 100;
+
     private final ReviewRepository reviewRepository;
+    private final RestaurantRepository restaurantRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean softDelete;
+
+    /**
+     * Создает сервис для работы с отзывами.
+     *
+     * @param reviewRepository     репозиторий отзывов
+     * @param restaurantRepository репозиторий ресторанов
+     * @param eventPublisher       публикатор событий изменения отзывов
+     * @param softDelete           помечаются ли рестораны удаленными вместо немедленного удаления
+     */
+    public ReviewService(ReviewRepository reviewRepository, RestaurantRepository restaurantRepository,
+                         ApplicationEventPublisher eventPublisher,
+                         @Value("${restaurant.delete.soft:false}") boolean softDelete) {
+        this.reviewRepository = reviewRepository;
+        this.restaurantRepository = restaurantRepository;
+        this.eventPublisher = eventPublisher;
+        this.softDelete = softDelete;
+    }
 
     /**
-     * Метод для сохранения отзыва.
+     * Метод для сохранения нового отзыва.
+     * В той же транзакции атомарно увеличивает количество отзывов и сумму оценок ресторана.
      *
      * @param review отзыв для сохранения.
      * @return сохраненный отзыв.
      */
+    @Transactional
     public Review save(Review review) {
-        return reviewRepository.save(review);
+        Review savedReview = reviewRepository.save(review);
+        applyRatingDelta(review.getRestaurant(), RatingHistogram.of(review.getRating()));
+        publishTextChange(review.getRestaurant(), null, review.getText());
+        return savedReview;
     }
 
     /**
@@ -36,13 +87,26 @@ public class ReviewService {
         return reviewRepository.findById(id);
     }
 
+    /**
+     * Находит отзывы по списку идентификаторов одним запросом.
+     *
+     * @param ids идентификаторы отзывов (повторы игнорируются)
+     * @return найденные отзывы в порядке идентификаторов и идентификаторы ненайденных отзывов
+     */
+    public MultiGetResult<Review> findAllById(List<Integer> ids) {
+        Set<Integer> uniqueIds = new LinkedHashSet<>(ids);
+        Map<Integer, Review> reviewsById = reviewRepository.findAllById(uniqueIds).stream()
+                .collect(Collectors.toMap(Review::getId, Function.identity()));
+        return MultiGetResult.of(uniqueIds, reviewsById);
+    }
+
     /**
      * Метод для получения списка всех отзывов.
      *
      * @return список всех отзывов.
      */
-    public List<Review> findAll() {
-        return reviewRepository.findAll();
+    public List<ReviewSummary> findAll() {
+        return softDelete ? reviewRepository.findAllVisibleSummaries() : reviewRepository.findAllSummaries();
     }
 
     /**
@@ -51,39 +115,195 @@ public class ReviewService {
      * @param id идентификатор ресторана
      * @return список отзывов для указанного ресторана, отсортированный по дате создания в порядке убывания
      */
-    public List<Review> findAllByRestaurantId(int id) {
-        return reviewRepository.findAllByRestaurantIdOrderByCreationDateDesc(id);
+    public List<ReviewSummary> findAllByRestaurantId(int id) {
+        return softDelete
+                ? reviewRepository.findVisibleByRestaurantIdOrderByCreationDateDesc(id)
+                : reviewRepository.findAllByRestaurantIdOrderByCreationDateDesc(id);
+    }
+
+    /**
+     * Получает страницу всех отзывов, упорядоченных по дате создания в порядке убывания.
+     *
+     * @param cursor курсор, полученный с предыдущей страницей (null для первой страницы)
+     * @param limit  размер страницы (ограничивается значением {@link #MAX_PAGE_SIZE})
+     * @return страница отзывов с курсором следующей страницы
+     */
+    public ReviewPage findPage(String cursor, int limit) {
+        int pageSize = clampPageSize(limit);
+        // Запрашиваем на один отзыв больше, чтобы узнать, есть ли следующая страница
+        Limit queryLimit = Limit.of(pageSize + 1);
+        List<ReviewSummary> reviews;
+        if (cursor == null) {
+            reviews = softDelete
+                    ? reviewRepository.findVisibleFirstPage(queryLimit)
+                    : reviewRepository.findFirstPage(queryLimit);
+        } else {
+            ReviewCursor position = ReviewCursor.decode(cursor);
+            if (position.getCreationDate() == null) {
+                // Отзывы без даты создания идут первыми: продолжаем с них, затем переходим к отзывам с датой
+                reviews = softDelete
+                        ? reviewRepository.findVisiblePageAfterUndated(position.getId(), queryLimit)
+                        : reviewRepository.findPageAfterUndated(position.getId(), queryLimit);
+            } else {
+                reviews = softDelete
+                        ? reviewRepository.findVisiblePageAfter(position.getCreationDate(), position.getId(),
+                                queryLimit)
+                        : reviewRepository.findPageAfter(position.getCreationDate(), position.getId(), queryLimit);
+            }
+        }
+        return toPage(reviews, pageSize);
+    }
+
+    /**
+     * Получает страницу отзывов указанного ресторана, упорядоченных по дате создания в порядке убывания.
+     *
+     * @param id     идентификатор ресторана
+     * @param cursor курсор, полученный с предыдущей страницей (null для первой страницы)
+     * @param limit  размер страницы (ограничивается значением {@link #MAX_PAGE_SIZE})
+     * @return страница отзывов ресторана с курсором следующей страницы
+     */
+    public ReviewPage findPageByRestaurantId(int id, String cursor, int limit) {
+        int pageSize = clampPageSize(limit);
+        Limit queryLimit = Limit.of(pageSize + 1);
+        List<ReviewSummary> reviews;
+        if (cursor == null) {
+            reviews = softDelete
+                    ? reviewRepository.findVisibleFirstPageByRestaurantId(id, queryLimit)
+                    : reviewRepository.findFirstPageByRestaurantId(id, queryLimit);
+        } else {
+            ReviewCursor position = ReviewCursor.decode(cursor);
+            if (position.getCreationDate() == null) {
+                reviews = softDelete
+                        ? reviewRepository.findVisiblePageAfterUndatedByRestaurantId(id, position.getId(), queryLimit)
+                        : reviewRepository.findPageAfterUndatedByRestaurantId(id, position.getId(), queryLimit);
+            } else {
+                reviews = softDelete
+                        ? reviewRepository.findVisiblePageAfterByRestaurantId(id, position.getCreationDate(),
+                                position.getId(), queryLimit)
+                        : reviewRepository.findPageAfterByRestaurantId(id, position.getCreationDate(),
+                                position.getId(), queryLimit);
+            }
+        }
+        return toPage(reviews, pageSize);
     }
 
     /**
      * Метод для обновления информации об отзыве.
+     * Агрегаты ресторана корректируются на разницу между старой и новой оценкой,
+     * а при переносе отзыва в другой ресторан - у обоих ресторанов.
      *
      * @param id идентификатор отзыва, который нужно обновить.
      * @param review новая информация об отзыве.
      * @return обновленный отзыв (если существует).
      */
+    @Transactional
     public Optional<Review> update(int id, Review review) {
         Optional<Review> reviewToUpdate = findById(id);
         if (reviewToUpdate.isPresent()) {
             Review newReview = reviewToUpdate.get();
+            Restaurant oldRestaurant = newReview.getRestaurant();
+            int oldRating = newReview.getRating();
+            String oldText = newReview.getText();
+
+            // Ресторан в ответах не сериализуется, поэтому если клиент его не передал, отзыв остается в прежнем
+            Restaurant newRestaurant = review.getRestaurant() != null ? review.getRestaurant() : oldRestaurant;
+
             newReview.setId(review.getId());
             newReview.setText(review.getText());
             newReview.setRating(review.getRating());
-            newReview.setRestaurant(review.getRestaurant());
+            newReview.setRestaurant(newRestaurant);
             newReview.setCreationDate(review.getCreationDate());
             newReview.setAuthorName(review.getAuthorName());
             newReview.setAuthorEmail(review.getAuthorEmail());
-            return Optional.of(reviewRepository.save(newReview));
+            Review savedReview = reviewRepository.save(newReview);
+
+            if (oldRestaurant != null && newRestaurant != null && oldRestaurant.getId() == newRestaurant.getId()) {
+                applyRatingDelta(newRestaurant, RatingHistogram.of(review.getRating()).add(oldRating, -1));
+                publishTextChange(newRestaurant, oldText, review.getText());
+            } else {
+                applyRatingDelta(oldRestaurant, new RatingHistogram().add(oldRating, -1));
+                applyRatingDelta(newRestaurant, RatingHistogram.of(review.getRating()));
+                publishTextChange(oldRestaurant, oldText, null);
+                publishTextChange(newRestaurant, null, review.getText());
+            }
+            return Optional.of(savedReview);
         }
         return Optional.empty();
     }
 
     /**
      * Метод для удаления отзыва по его идентификатору.
+     * Вклад удаляемого отзыва вычитается из агрегатов ресторана.
      *
      * @param id идентификатор отзыва, который нужно удалить.
      */
+    @Transactional
     public void deleteById(int id) {
-        reviewRepository.deleteById(id);
+        Optional<Review> review = findById(id);
+        if (review.isPresent()) {
+            reviewRepository.delete(review.get());
+            applyRatingDelta(review.get().getRestaurant(),
+                    new RatingHistogram().add(review.get().getRating(), -1));
+            publishTextChange(review.get().getRestaurant(), review.get().getText(), null);
+        }
+    }
+
+    /**
+     * Ограничивает запрошенный размер страницы допустимым диапазоном.
+     *
+     * @param limit запрошенный размер страницы
+     * @return размер страницы от 1 до {@link #MAX_PAGE_SIZE}
+     */
+    private int clampPageSize(int limit) {
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
+
+    /**
+     * Формирует страницу из результата запроса, содержащего до pageSize + 1 отзывов.
+     *
+     * @param reviews  результат запроса
+     * @param pageSize размер страницы
+     * @return страница отзывов с курсором следующей страницы (если она есть)
+     */
+    private ReviewPage toPage(List<ReviewSummary> reviews, int pageSize) {
+        if (reviews.size() <= pageSize) {
+            return new ReviewPage(reviews, null);
+        }
+        List<ReviewSummary> items = reviews.subList(0, pageSize);
+        ReviewSummary last = items.get(pageSize - 1);
+        return new ReviewPage(items, new ReviewCursor(last.getCreationDate(), last.getId()).encode());
+    }
+
+    /**
+     * Применяет изменение к распределению оценок, количеству отзывов и сумме оценок ресторана
+     * и публикует событие об изменении отзывов ресторана.
+     * Изменение оценки переносит один отзыв из счетчика старой оценки в счетчик новой без чтения отзывов.
+     * Событие публикуется и при нулевом изменении агрегатов (например, при правке текста отзыва).
+     *
+     * @param restaurant ресторан, к которому относится отзыв (может быть null)
+     * @param delta      изменение количества отзывов с каждой оценкой
+     */
+    private void applyRatingDelta(Restaurant restaurant, RatingHistogram delta) {
+        if (restaurant == null) {
+            return;
+        }
+        if (!delta.isEmpty()) {
+            restaurantRepository.applyRatingDelta(restaurant.getId(), delta);
+        }
+        eventPublisher.publishEvent(new ReviewChangedEvent(restaurant.getId(), delta.count(), delta.sum()));
+    }
+
+    /**
+     * Публикует событие изменения текста отзывов ресторана для обновления поискового индекса.
+     *
+     * @param restaurant  ресторан, к которому относится отзыв (может быть null)
+     * @param removedText текст, который больше не относится к ресторану
+     * @param addedText   текст, который добавился к ресторану
+     */
+    private void publishTextChange(Restaurant restaurant, String removedText, String addedText) {
+        if (restaurant == null || Objects.equals(removedText, addedText)) {
+            return;
+        }
+        eventPublisher.publishEvent(new ReviewTextChangedEvent(restaurant.getId(), removedText, addedText));
     }
 }
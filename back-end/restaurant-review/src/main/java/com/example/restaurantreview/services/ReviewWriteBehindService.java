@@ -0,0 +1,313 @@
+package com.example.restaurantreview.services;
+
+import com.example.restaurantreview.events.ReviewChangedEvent;
+import com.example.restaurantreview.events.ReviewTextChangedEvent;
+import com.example.restaurantreview.models.RatingHistogram;
+import com.example.restaurantreview.models.Review;
+import com.example.restaurantreview.models.ReviewSubmission;
+import com.example.restaurantreview.repositories.RestaurantRepository;
+import com.example.restaurantreview.repositories.ReviewRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Сервис отложенного (write-behind) сохранения отзывов.
+ * Проверенные отзывы помещаются в ограниченную очередь в памяти, а клиент сразу получает идентификатор
+ * для отслеживания. Единственный поток записи забирает отзывы из очереди пакетами и сохраняет каждый пакет
+ * в одной транзакции: один запрос проверки ресторанов, пакетная вставка отзывов и одно обновление
+ * агрегатов рейтинга на каждый ресторан пакета.
+ * <p>
+ * Если очередь заполнена, новые отзывы не принимаются. При остановке приложения прием прекращается,
+ * а поток записи сохраняет все отзывы, оставшиеся в очереди.
+ */
+@Slf4j
+@Service
+public class ReviewWriteBehindService implements SmartLifecycle {
+    /**
+     * Максимальное количество отслеживаемых состояний отзывов; самые старые состояния забываются.
+     */
+    static final int MAX_TRACKED_SUBMISSIONS = 100_000;
+    private static final long POLL_INTERVAL_MS = 200;
+
+    private final ReviewRepository reviewRepository;
+    private final RestaurantRepository restaurantRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BlockingQueue<PendingReview> queue;
+    private final int batchSize;
+    private final Duration shutdownTimeout;
+
+    private final Map<String, ReviewSubmission> submissions = new ConcurrentHashMap<>();
+    private final Queue<String> submissionOrder = new ConcurrentLinkedQueue<>();
+    /**
+     * Прием отзывов выполняется под блокировкой чтения, остановка приема - под блокировкой записи,
+     * поэтому после остановки приема в очередь гарантированно ничего не добавится.
+     */
+    private final ReadWriteLock acceptLock = new ReentrantReadWriteLock();
+    private volatile boolean accepting;
+    private Thread writer;
+
+    /**
+     * Создает сервис отложенного сохранения отзывов.
+     *
+     * @param queueCapacity   максимальное количество отзывов, ожидающих сохранения
+     * @param batchSize       максимальное количество отзывов, сохраняемых в одной транзакции
+     * @param shutdownTimeout максимальное время ожидания сохранения очереди при остановке
+     *                        (тайм-аут фазы остановки приложения)
+     */
+    public ReviewWriteBehindService(ReviewRepository reviewRepository, RestaurantRepository restaurantRepository,
+                                    TransactionTemplate transactionTemplate,
+                                    ApplicationEventPublisher eventPublisher,
+                                    @Value("${review.write-behind.queue-capacity:10000}") int queueCapacity,
+                                    @Value("${review.write-behind.batch-size:500}") int batchSize,
+                                    @Value("${spring.lifecycle.timeout-per-shutdown-phase:30s}")
+                                    Duration shutdownTimeout) {
+        this.reviewRepository = reviewRepository;
+        this.restaurantRepository = restaurantRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = Math.max(1, batchSize);
+        this.shutdownTimeout = shutdownTimeout;
+    }
+
+    /**
+     * Помещает отзыв в очередь на сохранение.
+     *
+     * @param restaurantId идентификатор ресторана
+     * @param review       проверенный отзыв
+     * @return состояние принятого отзыва или пустой Optional, если очередь заполнена или прием остановлен
+     */
+    public Optional<ReviewSubmission> submit(int restaurantId, Review review) {
+        String trackingId = UUID.randomUUID().toString();
+        acceptLock.readLock().lock();
+        try {
+            if (!accepting || !queue.offer(new PendingReview(trackingId, restaurantId, review))) {
+                return Optional.empty();
+            }
+        } finally {
+            acceptLock.readLock().unlock();
+        }
+        ReviewSubmission submission = new ReviewSubmission(trackingId, ReviewSubmission.Status.QUEUED, null, null);
+        // Поток записи мог уже сохранить отзыв: его результат не перезаписывается
+        track(submission, false);
+        return Optional.of(submission);
+    }
+
+    /**
+     * Возвращает состояние отзыва, принятого на сохранение.
+     *
+     * @param trackingId идентификатор для отслеживания
+     * @return состояние отзыва (если оно еще отслеживается)
+     */
+    public Optional<ReviewSubmission> findSubmission(String trackingId) {
+        return Optional.ofNullable(submissions.get(trackingId));
+    }
+
+    /**
+     * Возвращает количество отзывов, ожидающих сохранения.
+     *
+     * @return размер очереди
+     */
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    /**
+     * Запускает прием отзывов и поток записи.
+     */
+    @Override
+    public void start() {
+        accepting = true;
+        writer = Thread.ofPlatform().name("review-write-behind").start(this::drainLoop);
+    }
+
+    /**
+     * Прекращает прием отзывов и ожидает сохранения всех отзывов, оставшихся в очереди, не дольше
+     * тайм-аута фазы остановки. Если очередь не сохранена за это время, остановка приложения продолжается,
+     * а поток записи сохраняет очередь, пока процесс не завершится.
+     */
+    @Override
+    public void stop() {
+        acceptLock.writeLock().lock();
+        try {
+            accepting = false;
+        } finally {
+            acceptLock.writeLock().unlock();
+        }
+        if (writer == null) {
+            return;
+        }
+        try {
+            if (!writer.join(shutdownTimeout)) {
+                log.warn("Review write-behind queue is not drained in {}, {} reviews not saved yet",
+                        shutdownTimeout, queue.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while draining review write-behind queue, {} reviews not saved", queue.size());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return writer != null && writer.isAlive();
+    }
+
+    /**
+     * Останавливается после веб-сервера (фазы останавливаются по убыванию), чтобы при корректном завершении
+     * работы сначала завершились принимаемые запросы, а затем была сохранена очередь.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    /**
+     * Цикл потока записи: забирает отзывы пакетами, пока прием открыт или очередь не пуста.
+     */
+    private void drainLoop() {
+        List<PendingReview> batch = new ArrayList<>(batchSize);
+        while (accepting || !queue.isEmpty()) {
+            try {
+                PendingReview first = queue.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Сохраняет пакет отзывов в одной транзакции и обновляет их состояния после ее завершения.
+     * Отзывы ресторанов, удаленных после приема отзыва, отклоняются. Если пакет не удалось сохранить,
+     * его отзывы сохраняются по одному, чтобы ошибка одного отзыва не отменяла остальные.
+     *
+     * @param batch пакет отзывов
+     */
+    void writeBatch(List<PendingReview> batch) {
+        Set<Integer> restaurantIds = batch.stream().map(PendingReview::restaurantId).collect(Collectors.toSet());
+        List<PendingReview> saved = new ArrayList<>(batch.size());
+        Set<String> savedIds = new HashSet<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Set<Integer> existingIds = new HashSet<>(restaurantRepository.findExistingIds(restaurantIds));
+                for (PendingReview pending : batch) {
+                    if (existingIds.contains(pending.restaurantId())) {
+                        pending.review().setRestaurant(restaurantRepository.getReferenceById(pending.restaurantId()));
+                        saved.add(pending);
+                        savedIds.add(pending.trackingId());
+                    }
+                }
+                if (saved.isEmpty()) {
+                    return;
+                }
+                reviewRepository.saveAll(saved.stream().map(PendingReview::review).toList());
+                applyRatingDeltas(saved);
+                for (PendingReview pending : saved) {
+                    eventPublisher.publishEvent(
+                            new ReviewTextChangedEvent(pending.restaurantId(), null, pending.review().getText()));
+                }
+            });
+        } catch (RuntimeException e) {
+            if (batch.size() > 1) {
+                log.warn("Failed to save {} queued reviews, saving them one by one: {}", batch.size(), e.getMessage());
+                for (PendingReview pending : batch) {
+                    // Идентификатор, выданный в откаченной транзакции, не используется
+                    pending.review().setId(0);
+                    writeBatch(List.of(pending));
+                }
+                return;
+            }
+            log.error("Failed to save queued review {}", batch.get(0).trackingId(), e);
+            track(new ReviewSubmission(batch.get(0).trackingId(), ReviewSubmission.Status.FAILED, null,
+                    "Review could not be saved"), true);
+            return;
+        }
+
+        for (PendingReview pending : batch) {
+            if (savedIds.contains(pending.trackingId())) {
+                track(new ReviewSubmission(pending.trackingId(), ReviewSubmission.Status.SAVED,
+                        pending.review().getId(), null), true);
+            } else {
+                track(new ReviewSubmission(pending.trackingId(), ReviewSubmission.Status.REJECTED, null,
+                        "restaurantId: Restaurant not found"), true);
+            }
+        }
+    }
+
+    /**
+     * Обновляет агрегаты рейтинга один раз для каждого ресторана пакета.
+     */
+    private void applyRatingDeltas(List<PendingReview> reviews) {
+        Map<Integer, RatingHistogram> deltas = new HashMap<>();
+        for (PendingReview pending : reviews) {
+            deltas.computeIfAbsent(pending.restaurantId(), id -> new RatingHistogram())
+                    .add(pending.review().getRating(), 1);
+        }
+        deltas.forEach((restaurantId, delta) -> {
+            restaurantRepository.applyRatingDelta(restaurantId, delta);
+            eventPublisher.publishEvent(new ReviewChangedEvent(restaurantId, delta.count(), delta.sum()));
+        });
+    }
+
+    /**
+     * Сохраняет состояние отзыва, забывая самые старые состояния сверх {@link #MAX_TRACKED_SUBMISSIONS}.
+     *
+     * @param submission состояние отзыва
+     * @param replace    заменять ли уже сохраненное состояние отзыва
+     */
+    private void track(ReviewSubmission submission, boolean replace) {
+        ReviewSubmission previous = replace
+                ? submissions.put(submission.getTrackingId(), submission)
+                : submissions.putIfAbsent(submission.getTrackingId(), submission);
+        if (previous == null) {
+            submissionOrder.add(submission.getTrackingId());
+            String oldest;
+            while (submissions.size() > MAX_TRACKED_SUBMISSIONS && (oldest = submissionOrder.poll()) != null) {
+                submissions.remove(oldest);
+            }
+        }
+    }
+
+    /**
+     * Отзыв, ожидающий сохранения.
+     *
+     * @param trackingId   идентификатор для отслеживания
+     * @param restaurantId идентификатор ресторана
+     * @param review       отзыв
+     */
+    record PendingReview(String trackingId, int restaurantId, Review review) {
+    }
+}
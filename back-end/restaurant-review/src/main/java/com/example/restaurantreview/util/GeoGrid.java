@@ -0,0 +1,217 @@
+package com.example.restaurantreview.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Пространственный индекс точек на равномерной сетке широты и долготы для поиска ближайших точек.
+ * Поиск обходит ячейки кольцами вокруг ячейки запроса и останавливается, как только следующее кольцо
+ * заведомо дальше найденных точек или радиуса поиска, поэтому время поиска зависит от плотности точек
+ * рядом с запросом, а не от общего количества точек.
+ * <p>
+ * Класс не потокобезопасен: синхронизация выполняется вызывающим кодом.
+ */
+public class GeoGrid {
+    /**
+     * Средний радиус Земли в километрах.
+     */
+    public static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180;
+    /**
+     * Нижняя граница ширины ячейки по долготе около полюсов, чтобы количество колец оставалось конечным.
+     */
+    private static final double MIN_COS_LATITUDE = 0.01;
+
+    private static final Comparator<Hit> BY_DISTANCE = Comparator.comparingDouble(Hit::distanceKm)
+            .thenComparingInt(Hit::id);
+
+    private final double cellDegrees;
+    private final int rows;
+    private final int columns;
+    /**
+     * Ключ ячейки -> (идентификатор точки -> точка).
+     */
+    private final Map<Long, Map<Integer, Point>> cells = new HashMap<>();
+    /**
+     * Идентификатор точки -> точка.
+     */
+    private final Map<Integer, Point> points = new HashMap<>();
+
+    /**
+     * Создает пустой индекс.
+     *
+     * @param cellDegrees размер ячейки сетки в градусах
+     */
+    public GeoGrid(double cellDegrees) {
+        if (!(cellDegrees > 0 && cellDegrees <= 90)) {
+            throw new IllegalArgumentException("Cell size must be between 0 and 90 degrees: " + cellDegrees);
+        }
+        this.cellDegrees = cellDegrees;
+        this.rows = (int) Math.ceil(180 / cellDegrees);
+        this.columns = (int) Math.ceil(360 / cellDegrees);
+    }
+
+    /**
+     * Добавляет точку или перемещает ранее добавленную точку с тем же идентификатором.
+     *
+     * @param id        идентификатор точки
+     * @param latitude  широта в градусах
+     * @param longitude долгота в градусах
+     */
+    public void put(int id, double latitude, double longitude) {
+        remove(id);
+        Point point = new Point(id, latitude, longitude, cellKey(row(latitude), column(longitude)));
+        points.put(id, point);
+        cells.computeIfAbsent(point.cell(), key -> new HashMap<>()).put(id, point);
+    }
+
+    /**
+     * Удаляет точку из индекса.
+     *
+     * @param id идентификатор точки
+     */
+    public void remove(int id) {
+        Point point = points.remove(id);
+        if (point == null) {
+            return;
+        }
+        Map<Integer, Point> cell = cells.get(point.cell());
+        cell.remove(id);
+        if (cell.isEmpty()) {
+            cells.remove(point.cell());
+        }
+    }
+
+    /**
+     * Возвращает количество точек в индексе.
+     *
+     * @return количество точек
+     */
+    public int size() {
+        return points.size();
+    }
+
+    /**
+     * Ищет ближайшие точки в пределах радиуса.
+     *
+     * @param latitude  широта точки запроса в градусах
+     * @param longitude долгота точки запроса в градусах
+     * @param radiusKm  радиус поиска в километрах
+     * @param limit     максимальное количество точек в результате
+     * @return найденные точки по возрастанию расстояния
+     */
+    public List<Hit> nearest(double latitude, double longitude, double radiusKm, int limit) {
+        if (limit <= 0 || radiusKm < 0 || points.isEmpty()) {
+            return List.of();
+        }
+        double rowKm = cellDegrees * KM_PER_DEGREE;
+        // Ячейки по долготе уже всего на самой удаленной от экватора широте круга поиска
+        double farthestLatitude = Math.min(90, Math.abs(latitude) + radiusKm / KM_PER_DEGREE);
+        double columnKm = rowKm * Math.max(MIN_COS_LATITUDE, Math.cos(Math.toRadians(farthestLatitude)));
+        double ringKm = Math.min(rowKm, columnKm);
+        int maxRowRing = (int) Math.ceil(radiusKm / rowKm);
+        int maxColumnRing = Math.min((columns - 1) / 2, (int) Math.ceil(radiusKm / columnKm));
+
+        int row = row(latitude);
+        int column = column(longitude);
+        // Куча ограниченного размера: в вершине самая дальняя из отобранных точек
+        PriorityQueue<Hit> top = new PriorityQueue<>(limit + 1, BY_DISTANCE.reversed());
+        for (int ring = 0; ring <= Math.max(maxRowRing, maxColumnRing); ring++) {
+            // Точки кольца ring отделены от ячейки запроса как минимум ring - 1 целыми ячейками
+            double ringDistance = Math.max(0, ring - 1) * ringKm;
+            if (ringDistance > radiusKm || (top.size() == limit && top.peek().distanceKm() <= ringDistance)) {
+                break;
+            }
+            int rowRange = Math.min(ring, maxRowRing);
+            int columnRange = Math.min(ring, maxColumnRing);
+            for (int dy = -rowRange; dy <= rowRange; dy++) {
+                int cellRow = row + dy;
+                if (cellRow < 0 || cellRow >= rows) {
+                    continue;
+                }
+                if (Math.abs(dy) == ring) {
+                    for (int dx = -columnRange; dx <= columnRange; dx++) {
+                        scan(cellRow, column + dx, latitude, longitude, radiusKm, limit, top);
+                    }
+                } else if (ring <= maxColumnRing) {
+                    scan(cellRow, column - ring, latitude, longitude, radiusKm, limit, top);
+                    if (ring > 0) {
+                        scan(cellRow, column + ring, latitude, longitude, radiusKm, limit, top);
+                    }
+                }
+            }
+        }
+        List<Hit> hits = new ArrayList<>(top);
+        hits.sort(BY_DISTANCE);
+        return hits;
+    }
+
+    /**
+     * Вычисляет расстояние между точками по большому кругу (формула гаверсинусов).
+     *
+     * @param latitude1  широта первой точки в градусах
+     * @param longitude1 долгота первой точки в градусах
+     * @param latitude2  широта второй точки в градусах
+     * @param longitude2 долгота второй точки в градусах
+     * @return расстояние в километрах
+     */
+    public static double distanceKm(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double dLatitude = Math.toRadians(latitude2 - latitude1);
+        double dLongitude = Math.toRadians(longitude2 - longitude1);
+        double a = Math.sin(dLatitude / 2) * Math.sin(dLatitude / 2)
+                + Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2))
+                * Math.sin(dLongitude / 2) * Math.sin(dLongitude / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    /**
+     * Добавляет в кучу точки ячейки, попадающие в радиус поиска.
+     */
+    private void scan(int row, int column, double latitude, double longitude, double radiusKm, int limit,
+                      PriorityQueue<Hit> top) {
+        Map<Integer, Point> cell = cells.get(cellKey(row, Math.floorMod(column, columns)));
+        if (cell == null) {
+            return;
+        }
+        for (Point point : cell.values()) {
+            double distance = distanceKm(latitude, longitude, point.latitude(), point.longitude());
+            if (distance <= radiusKm) {
+                top.add(new Hit(point.id(), distance));
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+        }
+    }
+
+    private int row(double latitude) {
+        return Math.max(0, Math.min(rows - 1, (int) Math.floor((latitude + 90) / cellDegrees)));
+    }
+
+    private int column(double longitude) {
+        return Math.floorMod((int) Math.floor((longitude + 180) / cellDegrees), columns);
+    }
+
+    private long cellKey(int row, int column) {
+        return (long) row * columns + column;
+    }
+
+    /**
+     * Найденная точка и ее расстояние до точки запроса.
+     *
+     * @param id         идентификатор точки
+     * @param distanceKm расстояние в километрах
+     */
+    public record Hit(int id, double distanceKm) {
+    }
+
+    /**
+     * Точка индекса и ключ ее ячейки.
+     */
+    private record Point(int id, double latitude, double longitude, long cell) {
+    }
+}
@@ -32,4 +32,17 @@ public class GlobalExceptionHandler {
 
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errors);
     }
+
+    /**
+     * Обработчик исключений InvalidCursorException, который возникает при поврежденном курсоре страницы.
+     *
+     * @param e исключение InvalidCursorException.
+     * @return ResponseEntity с описанием ошибки в теле ответа и статусом BAD_REQUEST.
+     */
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<Object> handleInvalidCursorException(InvalidCursorException e) {
+        Map<String, String> errors = new HashMap<>();
+        errors.put("error", e.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errors);
+    }
 }
\ No newline at end of file
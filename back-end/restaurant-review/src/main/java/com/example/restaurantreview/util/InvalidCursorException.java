@@ -0,0 +1,15 @@
+package com.example.restaurantreview.util;
+
+/**
+ * Исключение, выбрасываемое при разборе поврежденного или чужого курсора страницы.
+ */
+public class InvalidCursorException extends IllegalArgumentException {
+    /**
+     * Создает исключение.
+     *
+     * @param cause причина ошибки разбора (может быть null)
+     */
+    public InvalidCursorException(Throwable cause) {
+        super("Invalid cursor", cause);
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.restaurantreview.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Инвертированный индекс для полнотекстового поиска с ранжированием по формуле BM25.
+ * Документ задается целочисленным идентификатором и набором слов; слова документа можно
+ * добавлять и удалять по частям, поэтому индекс обновляется инкрементально без переиндексации документа.
+ * <p>
+ * Класс не потокобезопасен: синхронизация выполняется вызывающим кодом.
+ */
+public class InvertedIndex {
+    /**
+     * Насыщение частоты слова в документе.
+     */
+    private static final double K1 = 1.2;
+    /**
+     * Степень нормализации по длине документа.
+     */
+    private static final double B = 0.75;
+
+    private static final Comparator<Hit> BY_SCORE = Comparator.comparingDouble(Hit::score)
+            .thenComparing(Comparator.comparingInt(Hit::docId).reversed());
+
+    /**
+     * Слово -> (идентификатор документа -> количество вхождений слова в документ).
+     */
+    private final Map<String, Map<Integer, Integer>> postings = new HashMap<>();
+    /**
+     * Идентификатор документа -> количество слов в документе.
+     */
+    private final Map<Integer, Integer> documentLengths = new HashMap<>();
+    private long totalLength;
+
+    /**
+     * Разбивает текст на слова: последовательности букв и цифр в нижнем регистре.
+     *
+     * @param text исходный текст (может быть null)
+     * @return список слов в порядке следования
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Добавляет слова в документ. Документ создается, если его еще нет.
+     *
+     * @param docId  идентификатор документа
+     * @param tokens добавляемые слова
+     */
+    public void add(int docId, Collection<String> tokens) {
+        documentLengths.putIfAbsent(docId, 0);
+        for (String token : tokens) {
+            adjust(docId, token, 1);
+        }
+    }
+
+    /**
+     * Добавляет в документ слова с заранее подсчитанным количеством вхождений.
+     *
+     * @param docId      идентификатор документа
+     * @param termCounts слово -> количество вхождений
+     */
+    public void add(int docId, Map<String, Integer> termCounts) {
+        documentLengths.putIfAbsent(docId, 0);
+        termCounts.forEach((token, count) -> adjust(docId, token, count));
+    }
+
+    /**
+     * Удаляет из документа слова, ранее добавленные в него. Сам документ остается в индексе.
+     *
+     * @param docId  идентификатор документа
+     * @param tokens удаляемые слова
+     */
+    public void remove(int docId, Collection<String> tokens) {
+        if (!documentLengths.containsKey(docId)) {
+            return;
+        }
+        for (String token : tokens) {
+            adjust(docId, token, -1);
+        }
+    }
+
+    /**
+     * Удаляет документ и все его слова из индекса.
+     *
+     * @param docId идентификатор документа
+     */
+    public void removeDocument(int docId) {
+        Integer length = documentLengths.remove(docId);
+        if (length == null) {
+            return;
+        }
+        totalLength -= length;
+        postings.values().removeIf(documents -> documents.remove(docId) != null && documents.isEmpty());
+    }
+
+    /**
+     * Ищет документы, содержащие хотя бы одно слово запроса, и упорядочивает их по релевантности BM25.
+     * Документы, содержащие больше редких слов запроса, оказываются выше.
+     *
+     * @param queryTokens слова запроса
+     * @param limit       максимальное количество документов в результате
+     * @return идентификаторы документов по убыванию релевантности
+     */
+    public List<Integer> search(Collection<String> queryTokens, int limit) {
+        if (limit <= 0 || documentLengths.isEmpty()) {
+            return List.of();
+        }
+        int documentCount = documentLengths.size();
+        double averageLength = Math.max(1.0, (double) totalLength / documentCount);
+
+        Map<Integer, Double> scores = new HashMap<>();
+        for (String token : new LinkedHashSet<>(queryTokens)) {
+            Map<Integer, Integer> documents = postings.get(token);
+            if (documents == null) {
+                continue;
+            }
+            double idf = Math.log(1 + (documentCount - documents.size() + 0.5) / (documents.size() + 0.5));
+            documents.forEach((docId, frequency) -> {
+                double norm = K1 * (1 - B + B * documentLengths.get(docId) / averageLength);
+                scores.merge(docId, idf * frequency * (K1 + 1) / (frequency + norm), Double::sum);
+            });
+        }
+
+        // Куча ограниченного размера: в вершине худший из отобранных документов
+        PriorityQueue<Hit> top = new PriorityQueue<>(Math.min(limit, scores.size()) + 1, BY_SCORE);
+        scores.forEach((docId, score) -> {
+            top.add(new Hit(docId, score));
+            if (top.size() > limit) {
+                top.poll();
+            }
+        });
+        List<Hit> hits = new ArrayList<>(top);
+        hits.sort(BY_SCORE.reversed());
+        return hits.stream().map(Hit::docId).toList();
+    }
+
+    /**
+     * Возвращает количество документов в индексе.
+     *
+     * @return количество документов
+     */
+    public int size() {
+        return documentLengths.size();
+    }
+
+    /**
+     * Изменяет количество вхождений слова в документ.
+     *
+     * @param docId идентификатор документа
+     * @param token слово
+     * @param delta изменение количества вхождений
+     */
+    private void adjust(int docId, String token, int delta) {
+        Map<Integer, Integer> documents = postings.computeIfAbsent(token, t -> new HashMap<>());
+        int oldCount = documents.getOrDefault(docId, 0);
+        int newCount = Math.max(0, oldCount + delta);
+        if (newCount == 0) {
+            documents.remove(docId);
+            if (documents.isEmpty()) {
+                postings.remove(token);
+            }
+        } else {
+            documents.put(docId, newCount);
+        }
+        documentLengths.merge(docId, newCount - oldCount, Integer::sum);
+        totalLength += newCount - oldCount;
+    }
+
+    /**
+     * Найденный документ и его оценка релевантности.
+     */
+    private record Hit(int docId, double score) {
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.restaurantreview.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Упорядоченное множество (декартово дерево) с размерами поддеревьев.
+ * Вставка, удаление и определение позиции элемента выполняются за O(log n) в среднем,
+ * получение первых k элементов - за O(log n + k).
+ * Класс не потокобезопасен, синхронизация обеспечивается вызывающим кодом.
+ *
+ * @param <T> тип элементов
+ */
+public class OrderStatisticTree<T> {
+    private final Comparator<? super T> comparator;
+    private Node<T> root;
+
+    /**
+     * Создает пустое дерево с указанным порядком элементов.
+     *
+     * @param comparator порядок элементов
+     */
+    public OrderStatisticTree(Comparator<? super T> comparator) {
+        this.comparator = comparator;
+    }
+
+    /**
+     * Добавляет элемент, если его еще нет в дереве.
+     *
+     * @param value элемент
+     * @return true, если элемент был добавлен
+     */
+    public boolean add(T value) {
+        if (rank(value) >= 0) {
+            return false;
+        }
+        Node<T>[] parts = split(root, value);
+        root = merge(merge(parts[0], new Node<>(value)), parts[1]);
+        return true;
+    }
+
+    /**
+     * Удаляет элемент из дерева.
+     *
+     * @param value элемент
+     * @return true, если элемент был удален
+     */
+    public boolean remove(T value) {
+        int sizeBefore = size();
+        root = remove(root, value);
+        return size() < sizeBefore;
+    }
+
+    /**
+     * Определяет позицию элемента в порядке дерева.
+     *
+     * @param value элемент
+     * @return позиция элемента, начиная с 0, или -1, если элемента нет в дереве
+     */
+    public int rank(T value) {
+        int rank = 0;
+        Node<T> node = root;
+        while (node != null) {
+            int cmp = comparator.compare(value, node.value);
+            if (cmp < 0) {
+                node = node.left;
+            } else if (cmp > 0) {
+                rank += size(node.left) + 1;
+                node = node.right;
+            } else {
+                return rank + size(node.left);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Возвращает первые элементы в порядке дерева.
+     *
+     * @param limit максимальное количество элементов
+     * @return список из не более чем limit первых элементов
+     */
+    public List<T> first(int limit) {
+        List<T> result = new ArrayList<>(Math.min(Math.max(limit, 0), size()));
+        Deque<Node<T>> stack = new ArrayDeque<>();
+        Node<T> node = root;
+        while (result.size() < limit && (node != null || !stack.isEmpty())) {
+            while (node != null) {
+                stack.push(node);
+                node = node.left;
+            }
+            node = stack.pop();
+            result.add(node.value);
+            node = node.right;
+        }
+        return result;
+    }
+
+    /**
+     * Возвращает количество элементов в дереве.
+     *
+     * @return количество элементов
+     */
+    public int size() {
+        return size(root);
+    }
+
+    /**
+     * Удаляет все элементы из дерева.
+     */
+    public void clear() {
+        root = null;
+    }
+
+    private Node<T> remove(Node<T> node, T value) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = comparator.compare(value, node.value);
+        if (cmp == 0) {
+            return merge(node.left, node.right);
+        }
+        if (cmp < 0) {
+            node.left = remove(node.left, value);
+        } else {
+            node.right = remove(node.right, value);
+        }
+        node.update();
+        return node;
+    }
+
+    /**
+     * Разделяет дерево на элементы меньше value и элементы больше либо равные value.
+     */
+    @SuppressWarnings("unchecked")
+    private Node<T>[] split(Node<T> node, T value) {
+        if (node == null) {
+            return new Node[]{null, null};
+        }
+        if (comparator.compare(node.value, value) < 0) {
+            Node<T>[] parts = split(node.right, value);
+            node.right = parts[0];
+            node.update();
+            return new Node[]{node, parts[1]};
+        }
+        Node<T>[] parts = split(node.left, value);
+        node.left = parts[1];
+        node.update();
+        return new Node[]{parts[0], node};
+    }
+
+    /**
+     * Объединяет два дерева, все элементы первого из которых меньше элементов второго.
+     */
+    private Node<T> merge(Node<T> left, Node<T> right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.update();
+            return left;
+        }
+        right.left = merge(left, right.left);
+        right.update();
+        return right;
+    }
+
+    private static int size(Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static final class Node<T> {
+        private final T value;
+        private final int priority = ThreadLocalRandom.current().nextInt();
+        private int size = 1;
+        private Node<T> left;
+        private Node<T> right;
+
+        private Node(T value) {
+            this.value = value;
+        }
+
+        private void update() {
+            size = 1 + size(left) + size(right);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.restaurantreview.util;
+
+/**
+ * Исключение, выбрасываемое при превышении бюджета SQL-запросов области учета (например, HTTP запроса).
+ */
+public class QueryBudgetExceededException extends IllegalStateException {
+    /**
+     * Создает исключение.
+     *
+     * @param scope  название области учета
+     * @param budget бюджет запросов области
+     */
+    public QueryBudgetExceededException(String scope, int budget) {
+        super(scope + " exceeded the SQL statement budget of " + budget);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.restaurantreview.util;
+
+import lombok.Data;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Курсор для постраничного вывода отзывов по ключу (creation_date, id).
+ * Клиенту передается в виде непрозрачной Base64 строки.
+ * Отзывы без даты создания идут в начале порядка (creation_date DESC NULLS FIRST), их курсор содержит пустую дату.
+ */
+@Data
+public class ReviewCursor {
+    private static final String SEPARATOR = "|";
+
+    /**
+     * Дата создания последнего отзыва страницы (null, если у отзыва нет даты создания).
+     */
+    private final LocalDateTime creationDate;
+    private final int id;
+
+    /**
+     * Кодирует курсор в непрозрачную строку для передачи клиенту.
+     *
+     * @return строковое представление курсора
+     */
+    public String encode() {
+        String raw = (creationDate == null ? "" : creationDate.toString()) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Восстанавливает курсор из строки, полученной от клиента.
+     *
+     * @param value строковое представление курсора
+     * @return курсор
+     * @throws InvalidCursorException если строка не является корректным курсором
+     */
+    public static ReviewCursor decode(String value) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException(e);
+        }
+        int separatorIndex = raw.lastIndexOf(SEPARATOR);
+        if (separatorIndex < 0) {
+            throw new InvalidCursorException(null);
+        }
+        try {
+            String date = raw.substring(0, separatorIndex);
+            return new ReviewCursor(date.isEmpty() ? null : LocalDateTime.parse(date),
+                    Integer.parseInt(raw.substring(separatorIndex + 1)));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new InvalidCursorException(e);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.restaurantreview.util;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Слушатель событий сессии Hibernate, передающий выполнение JDBC-запросов в {@link SqlStatistics}.
+ * Подключается свойством hibernate.session.events.auto; Hibernate создает отдельный экземпляр для каждой сессии,
+ * а сессия используется одним потоком, поэтому синхронизация не нужна.
+ * Пакет запросов (batch) учитывается как один запрос.
+ */
+public class SqlStatementListener implements SessionEventListener {
+    private long startedAt;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        started();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        finished();
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        started();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        finished();
+    }
+
+    private void started() {
+        startedAt = System.nanoTime();
+        SqlStatistics.statementStarted();
+    }
+
+    private void finished() {
+        SqlStatistics.statementFinished(System.nanoTime() - startedAt);
+    }
+}
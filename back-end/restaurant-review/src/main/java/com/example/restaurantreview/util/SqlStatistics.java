@@ -0,0 +1,121 @@
+package com.example.restaurantreview.util;
+
+/**
+ * Учет SQL-запросов, выполненных текущим потоком.
+ * Области учета (HTTP запрос, вызов метода репозитория) открываются вложенно; каждый выполненный запрос
+ * учитывается во всех открытых областях потока. Если у области задан бюджет с отказом при превышении,
+ * запрос сверх бюджета прерывается исключением {@link QueryBudgetExceededException}.
+ */
+public final class SqlStatistics {
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    private SqlStatistics() {
+    }
+
+    /**
+     * Открывает область учета без бюджета.
+     *
+     * @param name название области (для сообщений об ошибках)
+     * @return открытая область, которую нужно закрыть в том же потоке
+     */
+    public static Scope open(String name) {
+        return open(name, 0, false);
+    }
+
+    /**
+     * Открывает область учета с бюджетом запросов.
+     *
+     * @param name         название области (для сообщений об ошибках)
+     * @param budget       максимальное количество запросов (0 - без ограничения)
+     * @param failOnExceed прерывать ли запрос сверх бюджета исключением
+     * @return открытая область, которую нужно закрыть в том же потоке
+     */
+    public static Scope open(String name, int budget, boolean failOnExceed) {
+        Scope scope = new Scope(name, budget, failOnExceed, CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /**
+     * Учитывает начало выполнения запроса и проверяет бюджеты открытых областей.
+     *
+     * @throws QueryBudgetExceededException если запрос превышает бюджет области с отказом при превышении
+     */
+    public static void statementStarted() {
+        for (Scope scope = CURRENT.get(); scope != null; scope = scope.parent) {
+            scope.statements++;
+            if (scope.failOnExceed && scope.isOverBudget()) {
+                throw new QueryBudgetExceededException(scope.name, scope.budget);
+            }
+        }
+    }
+
+    /**
+     * Учитывает время выполнения запроса во всех открытых областях.
+     *
+     * @param nanos время выполнения в наносекундах
+     */
+    public static void statementFinished(long nanos) {
+        for (Scope scope = CURRENT.get(); scope != null; scope = scope.parent) {
+            scope.nanos += nanos;
+        }
+    }
+
+    /**
+     * Область учета SQL-запросов.
+     */
+    public static final class Scope implements AutoCloseable {
+        private final String name;
+        private final int budget;
+        private final boolean failOnExceed;
+        private final Scope parent;
+        private int statements;
+        private long nanos;
+
+        private Scope(String name, int budget, boolean failOnExceed, Scope parent) {
+            this.name = name;
+            this.budget = budget;
+            this.failOnExceed = failOnExceed;
+            this.parent = parent;
+        }
+
+        /**
+         * Возвращает количество выполненных запросов.
+         *
+         * @return количество запросов
+         */
+        public int getStatements() {
+            return statements;
+        }
+
+        /**
+         * Возвращает суммарное время выполнения запросов.
+         *
+         * @return время в наносекундах
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * Проверяет, превышен ли бюджет запросов.
+         *
+         * @return true, если бюджет задан и превышен
+         */
+        public boolean isOverBudget() {
+            return budget > 0 && statements > budget;
+        }
+
+        /**
+         * Закрывает область, возвращая текущей внешнюю область потока.
+         */
+        @Override
+        public void close() {
+            if (parent == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(parent);
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.restaurantreview.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Счетчики поколений ключей, разбитые на полосы фиксированного количества.
+ * Кэш запоминает поколение ключа перед загрузкой значения и помещает загруженное значение в кэш,
+ * только если поколение не изменилось. Изменение одного ключа мешает сохранить загрузку только ключам
+ * той же полосы, а не всем загрузкам кэша, при этом память не растет с количеством ключей.
+ */
+public class StripedGenerations {
+    private final AtomicLongArray generations;
+    private final int mask;
+
+    /**
+     * Создает счетчики поколений.
+     *
+     * @param stripes количество полос (округляется вверх до степени двойки)
+     */
+    public StripedGenerations(int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.generations = new AtomicLongArray(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Возвращает текущее поколение ключа.
+     *
+     * @param key ключ
+     * @return поколение полосы ключа
+     */
+    public long get(int key) {
+        return generations.get(stripe(key));
+    }
+
+    /**
+     * Увеличивает поколение ключа после его изменения.
+     *
+     * @param key ключ
+     */
+    public void increment(int key) {
+        generations.incrementAndGet(stripe(key));
+    }
+
+    private int stripe(int key) {
+        return key & mask;
+    }
+}
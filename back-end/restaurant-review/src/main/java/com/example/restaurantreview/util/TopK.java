@@ -0,0 +1,45 @@
+package com.example.restaurantreview.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Отбор первых k элементов коллекции в порядке компаратора без сортировки всей коллекции.
+ * Используется куча ограниченного размера: O(n log k) времени и O(k) памяти вместо O(n log n) и O(n).
+ */
+public final class TopK {
+    private TopK() {
+    }
+
+    /**
+     * Возвращает первые k элементов коллекции в порядке компаратора.
+     * Равные элементы возвращаются в произвольном порядке, поэтому для однозначного результата
+     * компаратор должен различать все элементы (например, сравнивать идентификатор последним).
+     *
+     * @param items      элементы
+     * @param comparator порядок элементов
+     * @param k          количество элементов
+     * @return не более k первых элементов, упорядоченных компаратором
+     */
+    public static <T> List<T> select(Collection<? extends T> items, Comparator<? super T> comparator, int k) {
+        if (k <= 0 || items.isEmpty()) {
+            return List.of();
+        }
+        // В вершине кучи - худший из отобранных элементов
+        PriorityQueue<T> top = new PriorityQueue<>(Math.min(k, items.size()) + 1, comparator.reversed());
+        for (T item : items) {
+            if (top.size() < k) {
+                top.add(item);
+            } else if (comparator.compare(item, top.peek()) < 0) {
+                top.poll();
+                top.add(item);
+            }
+        }
+        List<T> result = new ArrayList<>(top);
+        result.sort(comparator);
+        return result;
+    }
+}
@@ -0,0 +1,14 @@
+-- Агрегаты отзывов ресторана: количество отзывов и сумма оценок.
+-- avg_rating пересчитывается из них атомарно при каждом изменении отзывов.
+ALTER TABLE restaurant
+    ADD COLUMN IF NOT EXISTS review_count INTEGER NOT NULL DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS rating_sum BIGINT NOT NULL DEFAULT 0;
+
+UPDATE restaurant r
+SET review_count = a.review_count,
+    rating_sum   = a.rating_sum,
+    avg_rating   = a.rating_sum::double precision / a.review_count
+FROM (SELECT restaurant_id, COUNT(*) AS review_count, SUM(rating) AS rating_sum
+      FROM review
+      GROUP BY restaurant_id) a
+WHERE r.id = a.restaurant_id;
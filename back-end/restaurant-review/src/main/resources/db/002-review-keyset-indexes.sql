@@ -0,0 +1,6 @@
+-- Индексы для постраничного вывода отзывов по ключу (creation_date, id).
+CREATE INDEX IF NOT EXISTS idx_review_creation_date_id
+    ON review (creation_date DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_review_restaurant_creation_date_id
+    ON review (restaurant_id, creation_date DESC, id DESC);
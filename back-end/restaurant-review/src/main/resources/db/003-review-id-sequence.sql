@@ -0,0 +1,7 @@
+-- Идентификаторы отзывов выдаются последовательностью review_id_seq (создана для столбца id
+-- типа serial/identity) с шагом 50, как ожидает оптимизатор pooled Hibernate.
+-- Это позволяет пакетную вставку отзывов.
+-- Оптимизатор pooled считает значение nextval верхней границей блока и выдает идентификаторы
+-- от nextval - 49 до nextval, поэтому первое значение последовательности должно быть MAX(id) + 50.
+ALTER SEQUENCE review_id_seq INCREMENT BY 50;
+SELECT setval('review_id_seq', COALESCE((SELECT MAX(id) FROM review), 0) + 50, false);
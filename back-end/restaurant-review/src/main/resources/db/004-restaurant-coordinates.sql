@@ -0,0 +1,5 @@
+-- Координаты ресторанов для поиска ближайших ресторанов (GET /api/restaurants/nearby).
+-- Поиск выполняется по пространственному индексу в памяти приложения, поэтому индекс в базе данных не нужен.
+ALTER TABLE restaurant
+    ADD COLUMN IF NOT EXISTS latitude DOUBLE PRECISION,
+    ADD COLUMN IF NOT EXISTS longitude DOUBLE PRECISION;
@@ -0,0 +1,25 @@
+-- Индексы для фильтрации и сортировки каталога ресторанов (GET /api/restaurants).
+-- Каждая комбинация фильтров (кухня, ценовой диапазон, минимальный рейтинг, начало названия)
+-- обслуживается индексом: условие равенства в начале ключа, диапазон по рейтингу - в конце.
+CREATE INDEX IF NOT EXISTS idx_restaurant_cuisine_rating
+    ON restaurant (lower(cuisine), avg_rating);
+
+CREATE INDEX IF NOT EXISTS idx_restaurant_price_rating
+    ON restaurant (price_range, avg_rating);
+
+CREATE INDEX IF NOT EXISTS idx_restaurant_cuisine_price_rating
+    ON restaurant (lower(cuisine), price_range, avg_rating);
+
+CREATE INDEX IF NOT EXISTS idx_restaurant_rating
+    ON restaurant (avg_rating);
+
+-- text_pattern_ops позволяет использовать индекс для LIKE 'prefix%' при любой локали базы данных
+CREATE INDEX IF NOT EXISTS idx_restaurant_name_prefix
+    ON restaurant (lower(name) text_pattern_ops);
+
+-- Индексы для сортировки каталога без фильтров по остальным разрешенным полям
+CREATE INDEX IF NOT EXISTS idx_restaurant_name
+    ON restaurant (name);
+
+CREATE INDEX IF NOT EXISTS idx_restaurant_review_count
+    ON restaurant (review_count);
@@ -0,0 +1,24 @@
+-- Распределение оценок отзывов ресторана (количество отзывов с оценкой от 1 до 5).
+-- Обновляется вместе с review_count и rating_sum одним UPDATE при каждом изменении отзывов.
+ALTER TABLE restaurant
+    ADD COLUMN IF NOT EXISTS rating_1_count INTEGER NOT NULL DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS rating_2_count INTEGER NOT NULL DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS rating_3_count INTEGER NOT NULL DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS rating_4_count INTEGER NOT NULL DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS rating_5_count INTEGER NOT NULL DEFAULT 0;
+
+UPDATE restaurant r
+SET rating_1_count = h.rating_1_count,
+    rating_2_count = h.rating_2_count,
+    rating_3_count = h.rating_3_count,
+    rating_4_count = h.rating_4_count,
+    rating_5_count = h.rating_5_count
+FROM (SELECT restaurant_id,
+             COUNT(*) FILTER (WHERE rating = 1) AS rating_1_count,
+             COUNT(*) FILTER (WHERE rating = 2) AS rating_2_count,
+             COUNT(*) FILTER (WHERE rating = 3) AS rating_3_count,
+             COUNT(*) FILTER (WHERE rating = 4) AS rating_4_count,
+             COUNT(*) FILTER (WHERE rating = 5) AS rating_5_count
+      FROM review
+      GROUP BY restaurant_id) h
+WHERE r.id = h.restaurant_id;
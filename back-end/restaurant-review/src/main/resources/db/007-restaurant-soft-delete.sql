@@ -0,0 +1,9 @@
+-- Мягкое удаление ресторанов (restaurant.delete.soft=true): помеченный ресторан и его отзывы скрываются сразу,
+-- а строки удаляются фоновой задачей частями. Частичный индекс содержит только помеченные рестораны,
+-- поэтому проверка отзывов на принадлежность удаленному ресторану и поиск работы для фоновой задачи дешевы.
+ALTER TABLE restaurant
+    ADD COLUMN IF NOT EXISTS deleted_at TIMESTAMP;
+
+CREATE INDEX IF NOT EXISTS idx_restaurant_deleted_at
+    ON restaurant (deleted_at, id)
+    WHERE deleted_at IS NOT NULL;
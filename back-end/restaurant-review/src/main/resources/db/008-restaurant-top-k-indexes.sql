@@ -0,0 +1,11 @@
+-- Индексы для выборки первых ресторанов каталога (GET /api/restaurants?limit=..., GET /api/home).
+-- Запрос сортирует по полю и затем по id (ORDER BY avg_rating DESC, id LIMIT k); порядок ключа индекса
+-- совпадает с порядком сортировки, поэтому база данных читает только k первых записей индекса без сортировки.
+-- Индексы частичные: помеченные удаленными рестораны в каталог не попадают.
+CREATE INDEX IF NOT EXISTS idx_restaurant_top_rated
+    ON restaurant (avg_rating DESC, id)
+    WHERE deleted_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_restaurant_top_reviewed
+    ON restaurant (review_count DESC, id)
+    WHERE deleted_at IS NULL;
@@ -0,0 +1,91 @@
+package com.example.restaurantreview.controllers;
+
+import com.example.restaurantreview.models.HomePage;
+import com.example.restaurantreview.models.Restaurant;
+import com.example.restaurantreview.services.ContentVersions;
+import com.example.restaurantreview.services.HomePageService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Unit-тесты для класса HomeController.
+ */
+@ExtendWith(MockitoExtension.class)
+class HomeControllerTest {
+    @InjectMocks
+    private HomeController homeController;
+    @Mock
+    private HomePageService homePageService;
+    @Spy
+    private ContentVersions contentVersions = new ContentVersions();
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    public void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(homeController).build();
+    }
+
+    /**
+     * Тест получения главной страницы одним запросом.
+     *
+     * @throws Exception если произошла ошибка во время выполнения теста.
+     */
+    @Test
+    void testGetHomePage() throws Exception {
+        Restaurant restaurant = new Restaurant();
+        restaurant.setId(7);
+        when(homePageService.getHomePage(3))
+                .thenReturn(new HomePage(List.of(restaurant), List.of(), Map.of("Greece", 4L), List.of()));
+
+        mockMvc.perform(get("/api/home"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-cache"))
+                .andExpect(jsonPath("$.bestRestaurants[0].id").value(7))
+                .andExpect(jsonPath("$.cuisines.Greece").value(4));
+    }
+
+    /**
+     * Тест страницы с устаревшей частью: ответ не сохраняется клиентом.
+     *
+     * @throws Exception если произошла ошибка во время выполнения теста.
+     */
+    @Test
+    void testGetHomePage_staleParts_notStored() throws Exception {
+        when(homePageService.getHomePage(5)).thenReturn(
+                new HomePage(List.of(), List.of(), Map.of(), List.of("popularRestaurants")));
+
+        mockMvc.perform(get("/api/home").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-store"))
+                .andExpect(jsonPath("$.staleParts[0]").value("popularRestaurants"));
+    }
+
+    /**
+     * Тест недопустимого количества ресторанов.
+     *
+     * @throws Exception если произошла ошибка во время выполнения теста.
+     */
+    @Test
+    void testGetHomePage_invalidLimit_returnsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/home").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/home").param("limit", "21"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(homePageService);
+    }
+}
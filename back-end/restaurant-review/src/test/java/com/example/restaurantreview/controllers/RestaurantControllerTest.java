@@ -1,6 +1,13 @@
 package com.example.restaurantreview.controllers;
 
+import com.example.restaurantreview.events.ReviewChangedEvent;
+import com.example.restaurantreview.models.CatalogFacets;
+import com.example.restaurantreview.models.RatingHistogram;
+import com.example.restaurantreview.models.MultiGetResult;
 import com.example.restaurantreview.models.Restaurant;
+import com.example.restaurantreview.models.RestaurantFilter;
+import com.example.restaurantreview.services.ContentVersions;
+import com.example.restaurantreview.services.ResponseBodyCache;
 import com.example.restaurantreview.services.RestaurantService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -8,18 +15,24 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalInt;
 
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -32,6 +45,11 @@ class RestaurantControllerTest {
     private RestaurantController restaurantController;
     @Mock
     private RestaurantService restaurantService;
+    @Spy
+    private ContentVersions contentVersions = new ContentVersions();
+    @Spy
+    private ResponseBodyCache responseBodyCache = new ResponseBodyCache(new ObjectMapper().findAndRegisterModules(),
+            1 << 20, Duration.ofMinutes(1), true);
 
     private MockMvc mockMvc;
     private ObjectMapper objectMapper;
@@ -51,6 +69,7 @@ class RestaurantControllerTest {
     public void testGetRestaurantById() throws Exception {
         // Создание макетного объекта ресторана
         Restaurant mockRestaurant = createMockRestaurant();
+        mockRestaurant.setRatingHistogram(new RatingHistogram(0, 0, 1, 0, 1));
 
         // Установка поведения макета для сервиса ресторана
         when(restaurantService.findById(1)).thenReturn(Optional.of(mockRestaurant));
@@ -65,12 +84,47 @@ class RestaurantControllerTest {
                 .andExpect(jsonPath("$.avgRating").value(3.5))
                 .andExpect(jsonPath("$.photo").value("Photo URL"))
                 .andExpect(jsonPath("$.cuisine").value("Greece"))
-                .andExpect(jsonPath("$.priceRange").value("$$$$"));
+                .andExpect(jsonPath("$.priceRange").value("$$$$"))
+                .andExpect(jsonPath("$.ratingHistogram.threeStars").value(1))
+                .andExpect(jsonPath("$.ratingHistogram.fiveStars").value(1))
+                .andExpect(jsonPath("$.ratingHistogram.empty").doesNotExist());
 
         // Проверка вызова метода сервиса
         verify(restaurantService, times(1)).findById(1);
     }
 
+    /**
+     * Тест условного GET запроса ресторана: при совпадении ETag возвращается NOT_MODIFIED без обращения к сервису,
+     * а после изменения отзывов ресторана - новые данные.
+     *
+     * @throws Exception если произошла ошибка во время выполнения теста.
+     */
+    @Test
+    void testGetRestaurantById_ifNoneMatch_returnsNotModifiedUntilChanged() throws Exception {
+        when(restaurantService.findById(1)).thenReturn(Optional.of(createMockRestaurant()));
+
+        String eTag = mockMvc.perform(get("/api/restaurants/{id}", 1))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-cache"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/restaurants/{id}", 1).header("If-None-Match", eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", eTag));
+        verify(restaurantService, times(1)).findById(1);
+
+        // Отзыв другого ресторана не меняет ETag ресторана
+        contentVersions.onReviewChanged(new ReviewChangedEvent(2, 1, 5));
+        mockMvc.perform(get("/api/restaurants/{id}", 1).header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+
+        contentVersions.onReviewChanged(new ReviewChangedEvent(1, 1, 5));
+        mockMvc.perform(get("/api/restaurants/{id}", 1).header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(1));
+        verify(restaurantService, times(2)).findById(1);
+    }
+
     /**
      * Тест метода getAllRestaurants.
      *
@@ -85,7 +139,7 @@ class RestaurantControllerTest {
         List<Restaurant> list = Collections.singletonList(mockRestaurant);
 
         // Установка поведения макета для сервиса ресторана
-        when(restaurantService.findAll(any(Sort.class))).thenReturn(list);
+        when(restaurantService.findAll(eq(RestaurantFilter.NONE), any(Sort.class))).thenReturn(list);
 
         // Выполнение HTTP GET запроса и проверка результата
         mockMvc.perform(get("/api/restaurants"))
@@ -100,7 +154,87 @@ class RestaurantControllerTest {
                 .andExpect(jsonPath("$[0].priceRange").value("$$$$"));
 
         // Проверка вызова метода сервиса
-        verify(restaurantService, times(1)).findAll(any(Sort.class));
+        verify(restaurantService, times(1)).findAll(eq(RestaurantFilter.NONE), any(Sort.class));
+    }
+
+    /**
+     * Тест фильтрации каталога по нескольким условиям: условия передаются в сервис одним фильтром.
+     *
+     * @throws Exception если произошла ошибка во время выполнения теста.
+     */
+    @Test
+    void testGetAllRestaurants_combinedFilters() throws Exception {
+        when(restaurantService.findAll(any(RestaurantFilter.class), any(Sort.class)))
+                .thenReturn(List.of(createMockRestaurant()));
+
+        mockMvc.perform(get("/api/restaurants")
+                        .param("cuisine", "Greece")
+                        .param("priceRange", "$$$$")
+                        .param("minRating", "3.5")
+                        .param("namePrefix", "Rest")
+                        .param("sortBy", "name")
+                        .param("sortOrder", "desc"))
+                .andExpect(status().isOk());
+
+        verify(restaurantService).findAll(RestaurantFilter.of("greece", "$$$$", 3.5, "rest"),
+                Sort.by(Sort.Direction.DESC, "name"));
+    }
+
+    /**
+     * Тест сортировки по полю вне списка разрешенных: запрос отклоняется без обращения к сервису.
+     *
+     * @throws Exception если произошла ошибка во время выполнения теста.
+     */
+    @Test
+    void testGetAllRestaurants_unsupportedSort_returnsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/restaurants").param("sortBy", "description"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(restaurantService);
+    }
+
+    /**
+     * Тест параметра limit: первые рестораны запрашиваются у сервиса без загрузки полного списка,
+     * значение меньше 1 отклоняется.
+     *
+     * @throws Exception если произошла ошибка во время выполнения теста.
+     */
+    @Test
+    void testGetAllRestaurants_limit() throws Exception {
+        when(restaurantService.findTop(RestaurantFilter.NONE, Sort.by(Sort.Direction.DESC, "avgRating"), 3))
+                .thenReturn(List.of(createMockRestaurant()));
+
+        mockMvc.perform(get("/api/restaurants").param("sortOrder", "desc").param("limit", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1));
+        mockMvc.perform(get("/api/restaurants").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+
+        verify(restaurantService, never()).findAll(any(RestaurantFilter.class), any(Sort.class));
+    }
+
+    /**
+     * Тест метода getRestaurantsByIds: найденные рестораны и ненайденные идентификаторы возвращаются
+     * одним ответом, пустой или слишком длинный список идентификаторов отклоняется.
+     *
+     * @throws Exception если произошла ошибка во время выполнения теста.
+     */
+    @Test
+    void testGetRestaurantsByIds() throws Exception {
+        when(restaurantService.findAllById(List.of(1, 7)))
+                .thenReturn(new MultiGetResult<>(List.of(createMockRestaurant()), List.of(7)));
+
+        mockMvc.perform(get("/api/restaurants").param("ids", "1,7"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(1))
+                .andExpect(jsonPath("$.missing[0]").value(7));
+        mockMvc.perform(get("/api/restaurants").param("ids", ""))
+                .andExpect(status().isBadRequest());
+        String tooMany = String.join(",", Collections.nCopies(MultiGetResult.MAX_IDS + 1, "1"));
+        mockMvc.perform(get("/api/restaurants").param("ids", tooMany))
+                .andExpect(status().isBadRequest());
+
+        verify(restaurantService, times(1)).findAllById(anyList());
     }
 
     /**
@@ -136,6 +270,159 @@ class RestaurantControllerTest {
     }
 
 
+    /**
+     * Тест метода getRestaurantsByPopularity с ограничением количества ресторанов.
+     *
+     * @throws Exception если произошла ошибка во время выполнения теста.
+     */
+    @Test
+    void testGetRestaurantsByPopularity_withLimit() throws Exception {
+        Restaurant mockRestaurant = createMockRestaurant();
+
+        when(restaurantService.findTopByPopularity(3)).thenReturn(Collections.singletonList(mockRestaurant));
+
+        mockMvc.perform(get("/api/restaurants/popular").param("limit", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1));
+
+        // Полный список популярных ресторанов не запрашивается
+        verify(restaurantService, never()).findAllByPopularity();
+    }
+
+    /**
+     * Тест кэша тел ответов: повторный запрос отдается из кэша без обращения к сервису,
+     * клиенту, принимающему gzip, большое тело отдается сжатым.
+     *
+     * @throws Exception если произошла ошибка во время выполнения теста.
+     */
+    @Test
+    void testGetRestaurantsByPopularity_servesCachedBody() throws Exception {
+        List<Restaurant> list = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            Restaurant restaurant = createMockRestaurant();
+            restaurant.setId(i);
+            list.add(restaurant);
+        }
+        when(restaurantService.findAllByPopularity()).thenReturn(list);
+
+        mockMvc.perform(get("/api/restaurants/popular"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Vary", "Accept-Encoding"))
+                .andExpect(jsonPath("$.length()").value(20));
+        mockMvc.perform(get("/api/restaurants/popular").header("Accept-Encoding", "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"));
+
+        verify(restaurantService, times(1)).findAllByPopularity();
+    }
+
+    /**
+     * Тест сжатого представления: сжатое тело получает свой ETag и перепроверяется по нему,
+     * а клиент, запретивший gzip весом q=0, получает несжатое тело с ETag данных.
+     *
+     * @throws Exception если произошла ошибка во время выполнения теста.
+     */
+    @Test
+    void testGetRestaurantsByPopularity_gzipHasDistinctETag() throws Exception {
+        List<Restaurant> list = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            Restaurant restaurant = createMockRestaurant();
+            restaurant.setId(i);
+            list.add(restaurant);
+        }
+        when(restaurantService.findAllByPopularity()).thenReturn(list);
+        String eTag = contentVersions.globalETag();
+        String gzipETag = eTag.substring(0, eTag.length() - 1) + "-gzip\"";
+
+        mockMvc.perform(get("/api/restaurants/popular").header("Accept-Encoding", "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("ETag", gzipETag));
+        mockMvc.perform(get("/api/restaurants/popular").header("Accept-Encoding", "gzip;q=0, identity"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(header().string("ETag", eTag))
+                .andExpect(jsonPath("$.length()").value(20));
+        mockMvc.perform(get("/api/restaurants/popular")
+                        .header("Accept-Encoding", "gzip")
+                        .header("If-None-Match", gzipETag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/restaurants/popular").header("If-None-Match", gzipETag))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"));
+    }
+
+    /**
+     * Тест метода getPopularityRank.
+     *
+     * @throws Exception если произошла ошибка во время выполнения теста.
+     */
+    @Test
+    void testGetPopularityRank() throws Exception {
+        when(restaurantService.findPopularityRank(1)).thenReturn(OptionalInt.of(4));
+
+        mockMvc.perform(get("/api/restaurants/{id}/popularity-rank", 1))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").value(4));
+    }
+
+    /**
+     * Тест метода searchRestaurants.
+     *
+     * @throws Exception если произошла ошибка во время выполнения теста.
+     */
+    @Test
+    void testSearchRestaurants() throws Exception {
+        Restaurant mockRestaurant = createMockRestaurant();
+
+        when(restaurantService.search("ramen downtown", 20)).thenReturn(List.of(mockRestaurant));
+
+        mockMvc.perform(get("/api/restaurants/search").param("q", "ramen downtown"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(mockRestaurant.getId()));
+    }
+
+    /**
+     * Тест поиска ближайших ресторанов: параметры передаются в сервис, координаты вне диапазона отклоняются.
+     *
+     * @throws Exception если произошла ошибка во время выполнения теста.
+     */
+    @Test
+    void testGetNearbyRestaurants() throws Exception {
+        Restaurant mockRestaurant = createMockRestaurant();
+
+        when(restaurantService.findNearby(50.45, 30.52, 2.5, 20)).thenReturn(List.of(mockRestaurant));
+
+        mockMvc.perform(get("/api/restaurants/nearby")
+                        .param("lat", "50.45")
+                        .param("lon", "30.52")
+                        .param("radiusKm", "2.5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(mockRestaurant.getId()));
+
+        mockMvc.perform(get("/api/restaurants/nearby")
+                        .param("lat", "91")
+                        .param("lon", "30.52"))
+                .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Тест получения фасетов каталога.
+     *
+     * @throws Exception если произошла ошибка во время выполнения теста.
+     */
+    @Test
+    void testGetFacets() throws Exception {
+        when(restaurantService.findFacets("Greece", null))
+                .thenReturn(new CatalogFacets(2, Map.of("Greece", 2L), Map.of("$$", 1L, "$$$$", 1L)));
+
+        mockMvc.perform(get("/api/restaurants/facets").param("cuisine", "Greece"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(2))
+                .andExpect(jsonPath("$.cuisines.Greece").value(2))
+                .andExpect(jsonPath("$.priceRanges['$$$$']").value(1));
+    }
+
     /**
      * Тест метода createRestaurant.
      *
@@ -148,6 +435,8 @@ class RestaurantControllerTest {
 
         // Преобразование макетного объекта ресторана в JSON строку
         String jsonRestaurant = objectMapper.writeValueAsString(mockRestaurant);
+        // Средний рейтинг из тела запроса не принимается
+        mockRestaurant.setAvgRating(0);
 
         // Выполнение HTTP POST запроса и проверка результата
         mockMvc.perform(post("/api/restaurants")
@@ -171,6 +460,8 @@ class RestaurantControllerTest {
 
         // Преобразование макетного объекта ресторана в JSON строку
         String jsonRestaurant = objectMapper.writeValueAsString(mockRestaurant);
+        // Средний рейтинг из тела запроса не принимается
+        mockRestaurant.setAvgRating(0);
 
         // Установка поведения макета для метода update сервиса ресторана
         when(restaurantService.update(1, mockRestaurant)).thenReturn(Optional.of(mockRestaurant));
@@ -0,0 +1,101 @@
+package com.example.restaurantreview.controllers;
+
+import com.example.restaurantreview.models.RatingHistogram;
+import com.example.restaurantreview.models.Restaurant;
+import com.example.restaurantreview.repositories.RestaurantRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Тест параллельного создания отзывов одного ресторана на встроенной базе данных H2.
+ * Агрегаты рейтинга обновляются одним UPDATE-запросом, поэтому ни один отзыв не теряется,
+ * а одновременное изменение ресторана не перезаписывает агрегаты прочитанными ранее значениями.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.url=jdbc:h2:mem:review-concurrency;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureMockMvc
+class ReviewConcurrencyTest {
+    private static final int REVIEWS = 2000;
+    private static final int THREADS = 16;
+    /**
+     * Каждый UPDATE_EVERY-й запрос изменяет сам ресторан.
+     */
+    private static final int UPDATE_EVERY = 10;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private RestaurantRepository restaurantRepository;
+
+    /**
+     * Тест параллельного создания отзывов и изменения ресторана: итоговые количество, сумма, средний рейтинг
+     * и распределение точны.
+     *
+     * @throws Exception если запрос завершился ошибкой.
+     */
+    @Test
+    void testCreateReview_concurrent_keepsExactAggregates() throws Exception {
+        Restaurant restaurant = restaurantRepository.save(
+                new Restaurant("Test", "Description", 0, "Location", "Italian", "$$", null));
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(THREADS)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < REVIEWS; i++) {
+                if (i % UPDATE_EVERY == 0) {
+                    int version = i;
+                    futures.add(executor.submit(() -> {
+                        mockMvc.perform(put("/api/restaurants/{id}", restaurant.getId())
+                                        .contentType(MediaType.APPLICATION_JSON)
+                                        .content("{\"id\":" + restaurant.getId()
+                                                + ",\"name\":\"Test " + version + "\",\"location\":\"Location\","
+                                                + "\"cuisine\":\"Italian\",\"priceRange\":\"$$\"}"))
+                                .andExpect(status().isOk());
+                        return null;
+                    }));
+                }
+                int rating = 1 + i % 5;
+                futures.add(executor.submit(() -> {
+                    mockMvc.perform(post("/api/reviews")
+                                    .param("restaurantId", String.valueOf(restaurant.getId()))
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .content("{\"text\":\"Review\",\"rating\":" + rating
+                                            + ",\"authorName\":\"Author\"}"))
+                            .andExpect(status().isCreated());
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        Restaurant result = restaurantRepository.findById(restaurant.getId()).orElseThrow();
+        int perRating = REVIEWS / 5;
+        assertEquals(REVIEWS, result.getReviewCount());
+        assertEquals(15L * perRating, result.getRatingSum());
+        assertEquals(3.0, result.getAvgRating());
+        assertEquals(new RatingHistogram(perRating, perRating, perRating, perRating, perRating),
+                result.getRatingHistogram());
+    }
+}
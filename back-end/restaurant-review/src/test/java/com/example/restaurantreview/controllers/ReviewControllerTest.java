@@ -1,9 +1,19 @@
 package com.example.restaurantreview.controllers;
 
+import com.example.restaurantreview.models.MultiGetResult;
 import com.example.restaurantreview.models.Restaurant;
 import com.example.restaurantreview.models.Review;
+import com.example.restaurantreview.models.ReviewImportResult;
+import com.example.restaurantreview.models.ReviewPage;
+import com.example.restaurantreview.models.ReviewSubmission;
+import com.example.restaurantreview.models.ReviewSummary;
+import com.example.restaurantreview.services.ContentVersions;
+import com.example.restaurantreview.services.ResponseBodyCache;
 import com.example.restaurantreview.services.RestaurantService;
+import com.example.restaurantreview.services.ReviewExportService;
+import com.example.restaurantreview.services.ReviewImportService;
 import com.example.restaurantreview.services.ReviewService;
+import com.example.restaurantreview.services.ReviewWriteBehindService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.junit.jupiter.api.BeforeEach;
@@ -11,11 +21,16 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
@@ -23,7 +38,10 @@ import java.util.Optional;
 
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /**
@@ -37,6 +55,17 @@ class ReviewControllerTest {
     private ReviewService reviewService;
     @Mock
     private RestaurantService restaurantService;
+    @Mock
+    private ReviewImportService reviewImportService;
+    @Mock
+    private ReviewExportService reviewExportService;
+    @Mock
+    private ReviewWriteBehindService reviewWriteBehindService;
+    @Spy
+    private ContentVersions contentVersions = new ContentVersions();
+    @Spy
+    private ResponseBodyCache responseBodyCache = new ResponseBodyCache(new ObjectMapper().findAndRegisterModules(),
+            1 << 20, Duration.ofMinutes(1), true);
 
     private MockMvc mockMvc;
     private ObjectMapper objectMapper;
@@ -48,6 +77,25 @@ class ReviewControllerTest {
         objectMapper.registerModule(new JavaTimeModule());
     }
 
+    /**
+     * Тест метода getReviewsByIds: найденные отзывы и ненайденные идентификаторы возвращаются одним ответом.
+     *
+     * @throws Exception если произошла ошибка во время выполнения теста.
+     */
+    @Test
+    public void testGetReviewsByIds() throws Exception {
+        when(reviewService.findAllById(List.of(1, 5)))
+                .thenReturn(new MultiGetResult<>(List.of(createMockReview()), List.of(5)));
+
+        mockMvc.perform(get("/api/reviews").param("ids", "1,5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(1))
+                .andExpect(jsonPath("$.items[0].restaurant").doesNotExist())
+                .andExpect(jsonPath("$.missing[0]").value(5));
+        mockMvc.perform(get("/api/reviews").param("ids", ""))
+                .andExpect(status().isBadRequest());
+    }
+
     /**
      * Тест метода getReviewById.
      *
@@ -66,7 +114,8 @@ class ReviewControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.id").value(1))
                 .andExpect(jsonPath("$.text").value("Text"))
-                .andExpect(jsonPath("$.restaurant").value(new Restaurant()))
+                .andExpect(jsonPath("$.restaurant").doesNotExist())
+                .andExpect(jsonPath("$.restaurantId").value(0))
                 .andExpect(jsonPath("$.rating").value(3))
                 .andExpect(jsonPath("$.authorName").value("John Doe"))
                 .andExpect(jsonPath("$.authorEmail").value("john@example.com"));
@@ -83,10 +132,10 @@ class ReviewControllerTest {
     @Test
     void testGetAllReviewsByRestaurantId() throws Exception {
         // Создание макетного объекта отзыва
-        Review mockReview = createMockReview();
+        ReviewSummary mockReview = createMockReviewSummary();
 
         // Создание списка с макетным отзывом
-        List<Review> list = Collections.singletonList(mockReview);
+        List<ReviewSummary> list = Collections.singletonList(mockReview);
 
         // Установка поведения макета для сервиса отзывов
         when(reviewService.findAllByRestaurantId(anyInt())).thenReturn(list);
@@ -103,6 +152,46 @@ class ReviewControllerTest {
         verify(reviewService, times(1)).findAllByRestaurantId(1);
     }
 
+    /**
+     * Тест условного GET запроса отзывов ресторана: при совпадении ETag список не запрашивается.
+     *
+     * @throws Exception если произошла ошибка во время выполнения теста.
+     */
+    @Test
+    void testGetAllReviewsByRestaurantId_ifNoneMatch_returnsNotModified() throws Exception {
+        String eTag = contentVersions.restaurantETag(1);
+
+        mockMvc.perform(get("/api/reviews/restaurant/{id}", 1).header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+
+        verify(reviewService, never()).findAllByRestaurantId(anyInt());
+    }
+
+    /**
+     * Тест метода getReviewsPageByRestaurantId.
+     *
+     * @throws Exception если произошла ошибка во время выполнения теста.
+     */
+    @Test
+    void testGetReviewsPageByRestaurantId() throws Exception {
+        ReviewSummary mockReview = createMockReviewSummary();
+
+        // Установка поведения макета для сервиса отзывов
+        when(reviewService.findPageByRestaurantId(1, "cursor", 10))
+                .thenReturn(new ReviewPage(List.of(mockReview), "next-cursor"));
+
+        // Выполнение HTTP GET запроса и проверка результата
+        mockMvc.perform(get("/api/reviews/restaurant/{id}", 1)
+                        .param("limit", "10")
+                        .param("cursor", "cursor"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(1))
+                .andExpect(jsonPath("$.next").value("next-cursor"));
+
+        // Проверка, что полный список отзывов не запрашивался
+        verify(reviewService, never()).findAllByRestaurantId(anyInt());
+    }
+
     /**
      * Тест метода getAllReviews.
      *
@@ -111,9 +200,9 @@ class ReviewControllerTest {
     @Test
     public void testGetAllReviews() throws Exception {
         // Создание макетного объекта отзыва
-        Review mockReview1 = createMockReview();
+        ReviewSummary mockReview1 = createMockReviewSummary();
 
-        List<Review> list = Collections.singletonList(mockReview1);
+        List<ReviewSummary> list = Collections.singletonList(mockReview1);
 
         // Установка поведения макета для сервиса отзывов
         when(reviewService.findAll()).thenReturn(list);
@@ -123,7 +212,8 @@ class ReviewControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$[0].id").value(1))
                 .andExpect(jsonPath("$[0].text").value("Text"))
-                .andExpect(jsonPath("$[0].restaurant").value(new Restaurant()))
+                .andExpect(jsonPath("$[0].restaurant").doesNotExist())
+                .andExpect(jsonPath("$[0].restaurantId").value(1))
                 .andExpect(jsonPath("$[0].rating").value(3))
                 .andExpect(jsonPath("$[0].authorName").value("John Doe"))
                 .andExpect(jsonPath("$[0].authorEmail").value("john@example.com"));
@@ -168,6 +258,57 @@ class ReviewControllerTest {
 
 
 
+    /**
+     * Тест метода importReviewsNdjson.
+     *
+     * @throws Exception если произошла ошибка во время выполнения теста.
+     */
+    @Test
+    void testImportReviewsNdjson() throws Exception {
+        ReviewImportResult result = new ReviewImportResult();
+        result.setImported(2);
+
+        // Установка поведения макета для сервиса массовой загрузки
+        when(reviewImportService.importNdjson(any())).thenReturn(result);
+
+        // Выполнение HTTP POST запроса и проверка результата
+        mockMvc.perform(post("/api/reviews/bulk")
+                        .contentType("application/x-ndjson")
+                        .content("{\"restaurantId\":1}\n{\"restaurantId\":2}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2))
+                .andExpect(jsonPath("$.rejected").value(0));
+
+        // CSV-загрузка не вызывалась
+        verify(reviewImportService, never()).importCsv(any());
+    }
+
+    /**
+     * Тест метода exportReviews.
+     *
+     * @throws Exception если произошла ошибка во время выполнения теста.
+     */
+    @Test
+    void testExportReviews() throws Exception {
+        LocalDateTime since = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+        // Установка поведения макета для сервиса выгрузки
+        when(reviewExportService.export(eq(since), any())).thenAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(1).write("{\"id\":1}\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        });
+
+        // Ответ формируется асинхронно
+        MvcResult result = mockMvc.perform(get("/api/reviews/export").param("since", "2024-01-01T00:00:00"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string("{\"id\":1}\n"));
+    }
+
     /**
      * Тест метода updateReview.
      *
@@ -179,6 +320,8 @@ class ReviewControllerTest {
         Review mockReview1 = createMockReview();
 
         String jsonReview = objectMapper.writeValueAsString(mockReview1);
+        // Ресторан в JSON не сериализуется, поэтому в запросе его нет
+        mockReview1.setRestaurant(null);
 
         // Установка поведения макета для сервиса отзывов
         when(reviewService.update(1, mockReview1)).thenReturn(Optional.of(mockReview1));
@@ -193,6 +336,86 @@ class ReviewControllerTest {
         verify(reviewService, times(1)).update(1, mockReview1);
     }
 
+    /**
+     * Тест асинхронного создания отзыва: отзыв помещается в очередь, клиент получает HTTP статус ACCEPTED.
+     *
+     * @throws Exception если произошла ошибка во время выполнения теста.
+     */
+    @Test
+    public void testSubmitReview_async_returnsAccepted() throws Exception {
+        when(restaurantService.findById(1)).thenReturn(Optional.of(createMockRestaurant()));
+        when(reviewWriteBehindService.submit(eq(1), any(Review.class))).thenReturn(Optional.of(
+                new ReviewSubmission("abc", ReviewSubmission.Status.QUEUED, null, null)));
+
+        Review review = createMockReview();
+        review.setRestaurant(null);
+        mockMvc.perform(post("/api/reviews")
+                        .param("restaurantId", "1")
+                        .header("Prefer", "respond-async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(review)))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/reviews/submissions/abc"))
+                .andExpect(jsonPath("$.trackingId").value("abc"))
+                .andExpect(jsonPath("$.status").value("QUEUED"));
+
+        verify(reviewService, never()).save(any());
+    }
+
+    /**
+     * Тест выбора обработки по заголовку Prefer: respond-async распознается среди других предпочтений
+     * и с параметрами, а другие предпочтения оставляют синхронное создание отзыва.
+     *
+     * @throws Exception если произошла ошибка во время выполнения теста.
+     */
+    @Test
+    public void testSubmitReview_parsesPreferTokens() throws Exception {
+        when(restaurantService.findById(1)).thenReturn(Optional.of(createMockRestaurant()));
+        when(reviewWriteBehindService.submit(eq(1), any(Review.class))).thenReturn(Optional.of(
+                new ReviewSubmission("abc", ReviewSubmission.Status.QUEUED, null, null)));
+        when(reviewService.save(any(Review.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Review review = createMockReview();
+        review.setRestaurant(null);
+        mockMvc.perform(post("/api/reviews")
+                        .param("restaurantId", "1")
+                        .header("Prefer", "return=minimal, Respond-Async; foo=bar")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(review)))
+                .andExpect(status().isAccepted());
+
+        mockMvc.perform(post("/api/reviews")
+                        .param("restaurantId", "1")
+                        .header("Prefer", "return=minimal", "wait=5")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(review)))
+                .andExpect(status().isCreated());
+
+        verify(reviewWriteBehindService, times(1)).submit(eq(1), any(Review.class));
+        verify(reviewService, times(1)).save(any(Review.class));
+    }
+
+    /**
+     * Тест асинхронного создания отзыва при заполненной очереди: клиент получает HTTP статус SERVICE_UNAVAILABLE.
+     *
+     * @throws Exception если произошла ошибка во время выполнения теста.
+     */
+    @Test
+    public void testSubmitReview_queueFull_returnsServiceUnavailable() throws Exception {
+        when(restaurantService.findById(1)).thenReturn(Optional.of(createMockRestaurant()));
+        when(reviewWriteBehindService.submit(eq(1), any(Review.class))).thenReturn(Optional.empty());
+
+        Review review = createMockReview();
+        review.setRestaurant(null);
+        mockMvc.perform(post("/api/reviews")
+                        .param("restaurantId", "1")
+                        .header("Prefer", "respond-async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(review)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+    }
+
     /**
      * Тест метода deleteReview.
      *
@@ -245,4 +468,13 @@ class ReviewControllerTest {
         mockRestaurant.setPriceRange("$$$$");
         return mockRestaurant;
     }
-}
\ No newline at end of file
+
+    /**
+     * Создает облегченное представление отзыва для тестов списков.
+     *
+     * @return представление отзыва.
+     */
+    private ReviewSummary createMockReviewSummary() {
+        return new ReviewSummary(1, "Text", 3, LocalDateTime.now(), 1, "John Doe", "john@example.com");
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.restaurantreview.controllers;
+
+import com.example.restaurantreview.models.Restaurant;
+import com.example.restaurantreview.models.Review;
+import com.example.restaurantreview.repositories.RestaurantRepository;
+import com.example.restaurantreview.repositories.ReviewRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Тесты количества SQL-запросов HTTP запросов на встроенной базе данных H2.
+ * Бюджет запросов включен с отказом при превышении, поэтому появление N+1 запросов приводит к ошибке.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.url=jdbc:h2:mem:query-budget;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "sql.query-budget.max-statements=5",
+        "sql.query-budget.fail-on-exceed=true"
+})
+@AutoConfigureMockMvc
+class SqlQueryBudgetTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private RestaurantRepository restaurantRepository;
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    /**
+     * Тест списка отзывов ресторана: отзывы загружаются одним запросом независимо от их количества.
+     */
+    @Test
+    void testGetReviewsByRestaurantId_executesSingleStatement() throws Exception {
+        Restaurant restaurant = restaurantRepository.save(
+                new Restaurant("Test", "Description", 0, "Location", "Italian", "$$", null));
+        for (int i = 0; i < 10; i++) {
+            reviewRepository.save(new Review("Review " + i, 4, LocalDateTime.now(), restaurant,
+                    "Author", "author@example.com"));
+        }
+
+        mockMvc.perform(get("/api/reviews/restaurant/{id}", restaurant.getId()))
+                .andExpect(status().isOk());
+
+        DistributionSummary statements = meterRegistry.find("sql.request.statements")
+                .tag("method", "GET")
+                .tag("uri", "/api/reviews/restaurant/{id}")
+                .summary();
+        assertNotNull(statements);
+        assertEquals(1, statements.count());
+        assertEquals(1, statements.max());
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.restaurantreview.repositories;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * База данных PostgreSQL для тестов миграций и планов запросов.
+ * Если заданы переменные окружения TEST_POSTGRES_URL, TEST_POSTGRES_USER и TEST_POSTGRES_PASSWORD,
+ * используется эта база данных, иначе запускается встроенный сервер PostgreSQL, общий для всех тестов.
+ * Тест пропускается, только если встроенный сервер не удалось запустить (например, под пользователем root,
+ * от имени которого PostgreSQL не запускается).
+ */
+final class PostgresTestDatabase {
+    private static final String EXTERNAL_URL = System.getenv("TEST_POSTGRES_URL");
+
+    private static EmbeddedPostgres embedded;
+
+    private PostgresTestDatabase() {
+    }
+
+    /**
+     * Возвращает JDBC URL базы данных, при необходимости запуская встроенный сервер.
+     *
+     * @param schema схема по умолчанию для подключений
+     * @return JDBC URL
+     */
+    static synchronized String url(String schema) {
+        if (EXTERNAL_URL != null) {
+            return EXTERNAL_URL + (EXTERNAL_URL.contains("?") ? "&" : "?") + "currentSchema=" + schema;
+        }
+        if (embedded == null) {
+            try {
+                embedded = EmbeddedPostgres.builder().start();
+            } catch (IOException | RuntimeException e) {
+                assumeTrue(false, "Embedded PostgreSQL could not be started: " + e.getMessage());
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    embedded.close();
+                } catch (IOException e) {
+                    // Сервер останавливается вместе с JVM
+                }
+            }));
+        }
+        return "jdbc:postgresql://localhost:" + embedded.getPort() + "/postgres?currentSchema=" + schema;
+    }
+
+    static String user() {
+        return EXTERNAL_URL != null ? env("TEST_POSTGRES_USER", "postgres") : "postgres";
+    }
+
+    static String password() {
+        return EXTERNAL_URL != null ? env("TEST_POSTGRES_PASSWORD", "") : "";
+    }
+
+    /**
+     * Пересоздает пустую схему и открывает подключение к ней.
+     *
+     * @param schema название схемы
+     * @return подключение со схемой по умолчанию schema
+     * @throws SQLException если произошла ошибка базы данных
+     */
+    static Connection connectToNewSchema(String schema) throws SQLException {
+        Connection connection = DriverManager.getConnection(url(schema), user(), password());
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP SCHEMA IF EXISTS " + schema + " CASCADE");
+            statement.execute("CREATE SCHEMA " + schema);
+        }
+        return connection;
+    }
+
+    /**
+     * Удаляет схему вместе со всеми объектами.
+     *
+     * @param connection подключение к базе данных
+     * @param schema     название схемы
+     * @throws SQLException если произошла ошибка базы данных
+     */
+    static void dropSchema(Connection connection, String schema) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP SCHEMA IF EXISTS " + schema + " CASCADE");
+        }
+    }
+
+    /**
+     * Читает SQL-запросы скрипта миграции, пропуская комментарии.
+     *
+     * @param resource путь к скрипту в ресурсах (например, /db/003-review-id-sequence.sql)
+     * @return запросы скрипта
+     * @throws IOException если скрипт не удалось прочитать
+     */
+    static List<String> readStatements(String resource) throws IOException {
+        try (InputStream input = Objects.requireNonNull(PostgresTestDatabase.class.getResourceAsStream(resource))) {
+            StringBuilder sql = new StringBuilder();
+            for (String line : new String(input.readAllBytes(), StandardCharsets.UTF_8).split("\n")) {
+                if (!line.trim().startsWith("--")) {
+                    sql.append(line).append('\n');
+                }
+            }
+            return Stream.of(sql.toString().split(";")).map(String::trim).filter(s -> !s.isEmpty()).toList();
+        }
+    }
+
+    /**
+     * Выполняет скрипт миграции.
+     *
+     * @param connection подключение к базе данных
+     * @param resource   путь к скрипту в ресурсах
+     * @throws SQLException если произошла ошибка базы данных
+     * @throws IOException  если скрипт не удалось прочитать
+     */
+    static void runScript(Connection connection, String resource) throws SQLException, IOException {
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : readStatements(resource)) {
+                statement.execute(sql);
+            }
+        }
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value != null ? value : defaultValue;
+    }
+}
@@ -0,0 +1,306 @@
+package com.example.restaurantreview.repositories;
+
+import com.example.restaurantreview.models.Restaurant;
+import com.example.restaurantreview.models.RestaurantFilter;
+import com.example.restaurantreview.services.RestaurantService;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты планов запросов каталога ресторанов на PostgreSQL: для каждой комбинации фильтров
+ * {@link RestaurantSpecifications} и каждой разрешенной сортировки проверяется, каким индексом
+ * из db/005-restaurant-filter-indexes.sql и db/008-restaurant-top-k-indexes.sql выполняется запрос.
+ * <p>
+ * Проверяются запросы, которые формирует Hibernate при вызове методов {@link RestaurantRepository}:
+ * текст запроса перехватывается {@link StatementInspector}, значения условий подставляются в запрос
+ * литералами (hibernate.criteria.value_handling_mode=inline), а оставшиеся параметры LIMIT - перед EXPLAIN.
+ * Планировщик выбирает полный перебор для маленьких таблиц, поэтому перед EXPLAIN он запрещается
+ * (enable_seqscan = off). Этого недостаточно, чтобы считать запрос обслуженным индексом: тогда
+ * доступен перебор по первичному ключу, поэтому проверяются названия использованных индексов и условия Index Cond.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.PostgreSQLDialect",
+        "spring.jpa.hibernate.ddl-auto=create",
+        "spring.jpa.properties.hibernate.criteria.value_handling_mode=inline"
+})
+@DirtiesContext
+class RestaurantFilterIndexTest {
+    private static final String SCHEMA = "restaurant_filter_index_test";
+    private static final int LIMIT = 10;
+    private static final Pattern INDEX_NAME = Pattern.compile(
+            "(?:Index(?: Only)? Scan(?: Backward)? using|Bitmap Index Scan on) (\\w+)");
+
+    /**
+     * Фильтры, каждый из которых задает одно условие выборки.
+     */
+    private static final Map<String, RestaurantFilter> FILTERS = Map.of(
+            "cuisine", RestaurantFilter.of("Italy", null, null, null),
+            "priceRange", RestaurantFilter.of(null, "$$", null, null),
+            "minRating", RestaurantFilter.of(null, null, 4.0, null),
+            "namePrefix", RestaurantFilter.of(null, null, null, "Rest"));
+
+    /**
+     * Индексы, которые могут обслуживать условие фильтра, и текст условия в Index Cond плана.
+     */
+    private static final Map<String, Set<String>> FILTER_INDEXES = Map.of(
+            "cuisine", Set.of("idx_restaurant_cuisine_rating", "idx_restaurant_cuisine_price_rating"),
+            "priceRange", Set.of("idx_restaurant_price_rating", "idx_restaurant_cuisine_price_rating"),
+            "minRating", Set.of("idx_restaurant_rating", "idx_restaurant_top_rated"),
+            "namePrefix", Set.of("idx_restaurant_name_prefix"));
+    private static final Map<String, String> FILTER_INDEX_CONDITIONS = Map.of(
+            "cuisine", "lower((cuisine)::text) = 'italy'",
+            "priceRange", "(price_range)::text = '$$'",
+            "minRating", "avg_rating >= '4'",
+            "namePrefix", "lower((name)::text) ~>=~ 'rest'");
+
+    /**
+     * Индексы, которые отдают рестораны в порядке каждого поля, разрешенного для сортировки каталога.
+     */
+    private static final Map<String, Set<String>> SORT_INDEXES = Map.of(
+            "avgRating", Set.of("idx_restaurant_rating", "idx_restaurant_top_rated"),
+            "priceRange", Set.of("idx_restaurant_price_rating"),
+            "name", Set.of("idx_restaurant_name"),
+            "reviewCount", Set.of("idx_restaurant_review_count", "idx_restaurant_top_reviewed"));
+
+    /**
+     * Запросы, выполненные текущим потоком во время {@link #explain}; запросы фоновых задач не учитываются.
+     */
+    private static final ThreadLocal<List<String>> STATEMENTS = new ThreadLocal<>();
+    private static Connection connection;
+    private static boolean seeded;
+
+    @Autowired
+    private RestaurantRepository restaurantRepository;
+
+    @BeforeAll
+    static void setUp() throws SQLException {
+        connection = PostgresTestDatabase.connectToNewSchema(SCHEMA);
+    }
+
+    @AfterAll
+    static void tearDown() throws SQLException {
+        if (connection != null) {
+            PostgresTestDatabase.dropSchema(connection, SCHEMA);
+            connection.close();
+        }
+    }
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> PostgresTestDatabase.url(SCHEMA));
+        registry.add("spring.datasource.username", PostgresTestDatabase::user);
+        registry.add("spring.datasource.password", PostgresTestDatabase::password);
+    }
+
+    /**
+     * Заполняет таблицу, созданную Hibernate, и создает индексы скриптами миграций.
+     *
+     * @throws SQLException если произошла ошибка базы данных
+     * @throws IOException  если скрипт миграции не удалось прочитать
+     */
+    @BeforeEach
+    void seed() throws SQLException, IOException {
+        if (seeded) {
+            return;
+        }
+        // Каждое значение условия выбирает небольшую часть ресторанов, как в настоящем каталоге
+        List<String> cuisines = List.of("Italy", "China", "Japan", "France", "India", "Mexico", "Spain", "Greece",
+                "Thailand", "Korea");
+        List<String> names = List.of("Rest", "Cafe", "Bistro", "Diner", "Grill", "Tavern", "Bar", "Kitchen",
+                "House", "Garden");
+        List<Restaurant> restaurants = new ArrayList<>();
+        for (int i = 1; i <= 2000; i++) {
+            Restaurant restaurant = new Restaurant(names.get(i / 10 % 10) + " " + i, null, (i % 50) / 10.0,
+                    "Location", cuisines.get(i % 10), "$".repeat(1 + i % 4), null);
+            restaurant.setReviewCount(i % 100);
+            restaurants.add(restaurant);
+        }
+        restaurantRepository.saveAll(restaurants);
+        PostgresTestDatabase.runScript(connection, "/db/005-restaurant-filter-indexes.sql");
+        PostgresTestDatabase.runScript(connection, "/db/008-restaurant-top-k-indexes.sql");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE restaurant");
+            statement.execute("SET enable_seqscan = off");
+        }
+        seeded = true;
+    }
+
+    /**
+     * Тест планов запросов: каждая непустая комбинация фильтров выбирается по индексу одного из своих условий.
+     *
+     * @param filters названия фильтров комбинации
+     * @throws SQLException если произошла ошибка базы данных
+     */
+    @ParameterizedTest
+    @MethodSource("filterCombinations")
+    void testFilterCombination_usesIndex(List<String> filters) throws SQLException {
+        RestaurantFilter filter = combine(filters);
+        String plan = explain(() -> restaurantRepository.findAll(RestaurantSpecifications.matching(filter),
+                Sort.by(Sort.Direction.DESC, "avgRating")));
+
+        Set<String> allowed = new HashSet<>();
+        filters.forEach(name -> allowed.addAll(FILTER_INDEXES.get(name)));
+        Set<String> used = indexes(plan);
+        assertFalse(used.isEmpty(), filters + " is not index-backed:\n" + plan);
+        assertTrue(allowed.containsAll(used), filters + " uses unexpected indexes " + used + ":\n" + plan);
+        assertTrue(filters.stream().anyMatch(name -> indexCondition(plan, FILTER_INDEX_CONDITIONS.get(name))),
+                filters + " has no filter condition in Index Cond:\n" + plan);
+    }
+
+    /**
+     * Тест планов запросов: каталог без фильтров отдается в порядке индекса для каждого разрешенного поля
+     * и направления сортировки, без сортировки всей таблицы.
+     *
+     * @throws SQLException если произошла ошибка базы данных
+     */
+    @Test
+    void testSortableFields_useIndex() throws SQLException {
+        assertEquals(RestaurantService.SORTABLE_FIELDS, SORT_INDEXES.keySet());
+        for (String field : SORT_INDEXES.keySet()) {
+            for (Sort.Direction direction : Sort.Direction.values()) {
+                String plan = explain(() -> restaurantRepository.findAll(Sort.by(direction, field)));
+
+                Set<String> used = indexes(plan);
+                assertFalse(used.isEmpty() || hasSort(plan),
+                        field + " " + direction + " is not index-ordered:\n" + plan);
+                assertTrue(SORT_INDEXES.get(field).containsAll(used),
+                        field + " " + direction + " uses unexpected indexes " + used + ":\n" + plan);
+            }
+        }
+    }
+
+    /**
+     * Тест планов запросов: первые рестораны по рейтингу и по количеству отзывов читаются из частичных индексов
+     * db/008 в порядке сортировки (ORDER BY поле DESC, id LIMIT k), без сортировки всей выборки.
+     *
+     * @throws SQLException если произошла ошибка базы данных
+     */
+    @Test
+    void testTopK_readsIndexInOrder() throws SQLException {
+        Map<String, String> topIndexes = Map.of(
+                "avgRating", "idx_restaurant_top_rated",
+                "reviewCount", "idx_restaurant_top_reviewed");
+        for (Map.Entry<String, String> entry : topIndexes.entrySet()) {
+            Sort sort = Sort.by(Sort.Direction.DESC, entry.getKey()).and(Sort.by("id"));
+            String plan = explain(() -> restaurantRepository.findTop(
+                    RestaurantSpecifications.matching(RestaurantFilter.NONE), sort, LIMIT));
+
+            assertEquals(Set.of(entry.getValue()), indexes(plan), entry.getKey() + " top-k:\n" + plan);
+            assertFalse(hasSort(plan), entry.getKey() + " top-k is not index-ordered:\n" + plan);
+        }
+    }
+
+    static Stream<List<String>> filterCombinations() {
+        List<String> names = List.copyOf(FILTERS.keySet());
+        List<List<String>> combinations = new ArrayList<>();
+        for (int mask = 1; mask < 1 << names.size(); mask++) {
+            List<String> combination = new ArrayList<>();
+            for (int i = 0; i < names.size(); i++) {
+                if ((mask & 1 << i) != 0) {
+                    combination.add(names.get(i));
+                }
+            }
+            combinations.add(combination);
+        }
+        return combinations.stream();
+    }
+
+    private static RestaurantFilter combine(List<String> filters) {
+        return RestaurantFilter.of(
+                filters.contains("cuisine") ? FILTERS.get("cuisine").getCuisine() : null,
+                filters.contains("priceRange") ? FILTERS.get("priceRange").getPriceRange() : null,
+                filters.contains("minRating") ? FILTERS.get("minRating").getMinRating() : null,
+                filters.contains("namePrefix") ? FILTERS.get("namePrefix").getNamePrefix() : null);
+    }
+
+    /**
+     * Выполняет запрос репозитория и возвращает план выполнения запроса, сформированного Hibernate.
+     * Параметры, оставшиеся в запросе, - количество строк LIMIT.
+     */
+    private static String explain(Supplier<List<Restaurant>> query) throws SQLException {
+        List<String> statements = new ArrayList<>();
+        STATEMENTS.set(statements);
+        try {
+            query.get();
+        } finally {
+            STATEMENTS.remove();
+        }
+        assertEquals(1, statements.size(), "Expected one statement: " + statements);
+        String sql = statements.get(0).replace("?", String.valueOf(LIMIT));
+
+        StringBuilder plan = new StringBuilder();
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("EXPLAIN " + sql)) {
+            while (rows.next()) {
+                plan.append(rows.getString(1)).append('\n');
+            }
+        }
+        return plan.toString();
+    }
+
+    private static Set<String> indexes(String plan) {
+        Set<String> names = new HashSet<>();
+        Matcher matcher = INDEX_NAME.matcher(plan);
+        while (matcher.find()) {
+            names.add(matcher.group(1));
+        }
+        return names;
+    }
+
+    private static boolean indexCondition(String plan, String condition) {
+        return plan.lines().anyMatch(line -> line.trim().startsWith("Index Cond:") && line.contains(condition));
+    }
+
+    private static boolean hasSort(String plan) {
+        return plan.lines().anyMatch(line -> line.trim().replaceFirst("^->\\s*", "").startsWith("Sort"));
+    }
+
+    /**
+     * Передает Hibernate перехватчик, запоминающий текст выполняемых запросов.
+     */
+    @TestConfiguration
+    static class StatementCaptureConfig {
+        @Bean
+        HibernatePropertiesCustomizer statementCapture() {
+            return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, (StatementInspector) sql -> {
+                List<String> statements = STATEMENTS.get();
+                if (statements != null) {
+                    statements.add(sql);
+                }
+                return sql;
+            });
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.restaurantreview.repositories;
+
+import com.example.restaurantreview.models.Restaurant;
+import com.example.restaurantreview.models.Review;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тест миграции db/003-review-id-sequence.sql на PostgreSQL: после миграции таблицы с уже существующими
+ * отзывами Hibernate вставляет новые отзывы пакетами, не повторяя существующие идентификаторы.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.PostgreSQLDialect",
+        "spring.jpa.hibernate.ddl-auto=create"
+})
+@DirtiesContext
+class ReviewIdSequenceMigrationTest {
+    private static final String SCHEMA = "review_id_sequence_test";
+    private static final int SEEDED_REVIEWS = 120;
+
+    private static Connection connection;
+
+    @Autowired
+    private RestaurantRepository restaurantRepository;
+    @Autowired
+    private ReviewRepository reviewRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void setUp() throws SQLException {
+        connection = PostgresTestDatabase.connectToNewSchema(SCHEMA);
+    }
+
+    @AfterAll
+    static void tearDown() throws SQLException {
+        if (connection != null) {
+            PostgresTestDatabase.dropSchema(connection, SCHEMA);
+            connection.close();
+        }
+    }
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> PostgresTestDatabase.url(SCHEMA));
+        registry.add("spring.datasource.username", PostgresTestDatabase::user);
+        registry.add("spring.datasource.password", PostgresTestDatabase::password);
+    }
+
+    /**
+     * Тест вставки после миграции: отзывы, существовавшие до миграции, вставлены в обход последовательности,
+     * первые вставленные Hibernate отзывы получают идентификаторы больше существующих.
+     *
+     * @throws SQLException если произошла ошибка базы данных
+     * @throws IOException  если скрипт миграции не удалось прочитать
+     */
+    @Test
+    void testInsertAfterMigration_doesNotReuseExistingIds() throws SQLException, IOException {
+        Restaurant restaurant = restaurantRepository.save(
+                new Restaurant("Test", "Description", 0, "Location", "Italian", "$$", null));
+        jdbcTemplate.update("INSERT INTO review (id, text, rating, creation_date, restaurant_id, author_name) "
+                + "SELECT i, 'Seeded', 5, now(), ?, 'Author' FROM generate_series(1, ?) AS i",
+                restaurant.getId(), SEEDED_REVIEWS);
+
+        PostgresTestDatabase.runScript(connection, "/db/003-review-id-sequence.sql");
+
+        List<Review> reviews = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            reviews.add(new Review("Imported", 4, LocalDateTime.now(), restaurant, "Author", null));
+        }
+        reviewRepository.saveAll(reviews);
+
+        assertTrue(reviews.stream().allMatch(review -> review.getId() > SEEDED_REVIEWS),
+                "Reused ids: " + reviews.stream().map(Review::getId).filter(id -> id <= SEEDED_REVIEWS).toList());
+        assertEquals(SEEDED_REVIEWS + 60, reviewRepository.count());
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.restaurantreview.repositories;
+
+import com.example.restaurantreview.models.Restaurant;
+import com.example.restaurantreview.models.Review;
+import com.example.restaurantreview.models.ReviewSummary;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты запросов списков отзывов на встроенной базе данных H2.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.url=jdbc:h2:mem:review-repository;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class ReviewRepositoryTest {
+    @Autowired
+    private RestaurantRepository restaurantRepository;
+    @Autowired
+    private ReviewRepository reviewRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * Тест списков отзывов: отзывы ресторана, помеченного удаленным, не попадают в списки и выгрузку,
+     * но остаются доступны по идентификатору до удаления фоновой задачей.
+     */
+    @Test
+    void testListings_excludeReviewsOfSoftDeletedRestaurants() {
+        Restaurant kept = restaurantRepository.save(
+                new Restaurant("Kept", "Description", 0, "Location", "Italian", "$$", null));
+        Restaurant deleted = restaurantRepository.save(
+                new Restaurant("Deleted", "Description", 0, "Location", "Italian", "$$", null));
+        Review keptReview = reviewRepository.save(new Review("Kept", 4, LocalDateTime.now(), kept, "Author", null));
+        Review deletedReview = reviewRepository.save(
+                new Review("Deleted", 5, LocalDateTime.now(), deleted, "Author", null));
+        transactionTemplate.executeWithoutResult(
+                status -> restaurantRepository.markDeleted(deleted.getId(), LocalDateTime.now()));
+
+        assertEquals(List.of(keptReview.getId()), ids(reviewRepository.findAllVisibleSummaries()));
+        assertEquals(List.of(keptReview.getId()), ids(reviewRepository.findVisibleFirstPage(Limit.of(10))));
+        assertEquals(List.of(),
+                ids(reviewRepository.findVisibleByRestaurantIdOrderByCreationDateDesc(deleted.getId())));
+        assertEquals(List.of(),
+                ids(reviewRepository.findVisibleFirstPageByRestaurantId(deleted.getId(), Limit.of(10))));
+        assertEquals(List.of(keptReview.getId()), transactionTemplate.execute(status -> {
+            try (Stream<ReviewSummary> reviews = reviewRepository.streamAllVisible()) {
+                return reviews.map(ReviewSummary::getId).toList();
+            }
+        }));
+        // Запросы без проверки ресторана используются только при немедленном удалении ресторанов
+        assertEquals(2, reviewRepository.findAllSummaries().size());
+        assertTrue(reviewRepository.findById(deletedReview.getId()).isPresent());
+    }
+
+    private static List<Integer> ids(List<ReviewSummary> reviews) {
+        return reviews.stream().map(ReviewSummary::getId).toList();
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.restaurantreview.services;
+
+import com.example.restaurantreview.events.RestaurantChangedEvent;
+import com.example.restaurantreview.models.CatalogFacets;
+import com.example.restaurantreview.repositories.RestaurantRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit-тесты для класса CatalogFacetCounters.
+ */
+@ExtendWith(MockitoExtension.class)
+class CatalogFacetCountersTest {
+    @Mock
+    private RestaurantRepository restaurantRepository;
+
+    private CatalogFacetCounters counters;
+
+    @BeforeEach
+    public void setUp() {
+        when(restaurantRepository.findFacetFields()).thenReturn(List.of(
+                new Object[]{1, "Italy", "$$"},
+                new Object[]{2, "Italy", "$"},
+                new Object[]{3, "italy", "$$"},
+                new Object[]{4, "China", "$$"}));
+        counters = new CatalogFacetCounters(restaurantRepository);
+        counters.rebuild();
+    }
+
+    /**
+     * Тест фасетов: каждый фасет учитывает фильтр по другому фасету, но не по самому себе.
+     */
+    @Test
+    void testFacets_filteredByOtherFacet() {
+        CatalogFacets all = counters.facets(null, null);
+        assertEquals(4, all.getTotal());
+        assertEquals(Map.of("China", 1L, "Italy", 3L), all.getCuisines());
+        assertEquals(Map.of("$", 1L, "$$", 3L), all.getPriceRanges());
+
+        CatalogFacets italian = counters.facets("ITALY", null);
+        assertEquals(3, italian.getTotal());
+        assertEquals(Map.of("$", 1L, "$$", 2L), italian.getPriceRanges());
+        assertEquals(all.getCuisines(), italian.getCuisines());
+
+        CatalogFacets cheapItalian = counters.facets("italy", "$");
+        assertEquals(1, cheapItalian.getTotal());
+        assertEquals(Map.of("Italy", 1L), cheapItalian.getCuisines());
+    }
+
+    /**
+     * Тест обновления: изменение ресторана переносит его между счетчиками, удаление - вычитает.
+     */
+    @Test
+    void testOnRestaurantChanged_movesBetweenCounters() {
+        counters.onRestaurantChanged(new RestaurantChangedEvent(4, RestaurantChangedEvent.Type.UPDATED, "Italy", "$"));
+        counters.onRestaurantChanged(new RestaurantChangedEvent(5, RestaurantChangedEvent.Type.CREATED, "Japan", "$$$"));
+        counters.onRestaurantChanged(new RestaurantChangedEvent(1, RestaurantChangedEvent.Type.DELETED, null, null));
+        // Повторное событие без изменения фасетов не меняет счетчики
+        counters.onRestaurantChanged(new RestaurantChangedEvent(5, RestaurantChangedEvent.Type.UPDATED, "Japan", "$$$"));
+
+        CatalogFacets facets = counters.facets(null, null);
+        assertEquals(4, facets.getTotal());
+        assertEquals(Map.of("Italy", 3L, "Japan", 1L), facets.getCuisines());
+        assertEquals(Map.of("$", 2L, "$$", 1L, "$$$", 1L), facets.getPriceRanges());
+    }
+
+    /**
+     * Тест параллельных изменений разных ресторанов: итоговые счетчики не теряют обновлений.
+     *
+     * @throws Exception если поток выполнения был прерван.
+     */
+    @Test
+    void testOnRestaurantChanged_concurrentUpdates() throws Exception {
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int id = 100; id < 1100; id++) {
+                int restaurantId = id;
+                executor.submit(() -> {
+                    counters.onRestaurantChanged(new RestaurantChangedEvent(restaurantId,
+                            RestaurantChangedEvent.Type.CREATED, "Greece", "$"));
+                    counters.onRestaurantChanged(new RestaurantChangedEvent(restaurantId,
+                            RestaurantChangedEvent.Type.UPDATED, "Greece", "$$"));
+                });
+            }
+        }
+
+        CatalogFacets greek = counters.facets("Greece", null);
+        assertEquals(1000, greek.getTotal());
+        assertEquals(Map.of("$$", 1000L), greek.getPriceRanges());
+    }
+}
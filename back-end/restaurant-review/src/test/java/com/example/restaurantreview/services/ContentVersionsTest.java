@@ -0,0 +1,46 @@
+package com.example.restaurantreview.services;
+
+import com.example.restaurantreview.events.RestaurantChangedEvent;
+import com.example.restaurantreview.events.ReviewChangedEvent;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit-тесты для класса ContentVersions.
+ */
+class ContentVersionsTest {
+    private final ContentVersions contentVersions = new ContentVersions();
+
+    /**
+     * Тест изменения версий: изменение ресторана меняет его ETag и глобальный ETag, но не ETag других ресторанов.
+     */
+    @Test
+    void testBump_changesRestaurantAndGlobalETags() {
+        String global = contentVersions.globalETag();
+        String first = contentVersions.restaurantETag(1);
+        String second = contentVersions.restaurantETag(2);
+
+        contentVersions.onRestaurantChanged(
+                new RestaurantChangedEvent(1, RestaurantChangedEvent.Type.UPDATED, null, null));
+
+        assertNotEquals(global, contentVersions.globalETag());
+        assertNotEquals(first, contentVersions.restaurantETag(1));
+        assertEquals(second, contentVersions.restaurantETag(2));
+
+        // Правка отзыва без изменения агрегатов тоже меняет версию
+        String changed = contentVersions.restaurantETag(2);
+        contentVersions.onReviewChanged(new ReviewChangedEvent(2, 0, 0));
+        assertNotEquals(changed, contentVersions.restaurantETag(2));
+    }
+
+    /**
+     * Тест формата ETag: строгий тег в кавычках, различающийся между запусками приложения.
+     */
+    @Test
+    void testETag_isQuotedAndContainsEpoch() {
+        String eTag = contentVersions.globalETag();
+        assertTrue(eTag.startsWith("\"") && eTag.endsWith("\""));
+        assertFalse(eTag.startsWith("W/"));
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.restaurantreview.services;
+
+import com.example.restaurantreview.models.CatalogFacets;
+import com.example.restaurantreview.models.HomePage;
+import com.example.restaurantreview.models.Restaurant;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit-тесты для класса HomePageService.
+ */
+@ExtendWith(MockitoExtension.class)
+class HomePageServiceTest {
+    @Mock
+    private RestaurantService restaurantService;
+
+    private HomePageService homePageService;
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    public void setUp() {
+        homePageService = new HomePageService(restaurantService, 4, 10, Duration.ofMillis(200));
+        lenient().when(restaurantService.findFacets(null, null))
+                .thenReturn(new CatalogFacets(1, Map.of("Greece", 1L), Map.of("$$", 1L)));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        release.countDown();
+        homePageService.shutdown();
+    }
+
+    /**
+     * Тест сборки страницы: все части получены вовремя.
+     */
+    @Test
+    void testGetHomePage_allPartsLoaded() {
+        Restaurant best = createRestaurant(1);
+        Restaurant popular = createRestaurant(2);
+        when(restaurantService.findTopRated(3)).thenReturn(List.of(best));
+        when(restaurantService.findTopByPopularity(3)).thenReturn(List.of(popular));
+
+        HomePage homePage = homePageService.getHomePage(3);
+
+        assertEquals(List.of(best), homePage.getBestRestaurants());
+        assertEquals(List.of(popular), homePage.getPopularRestaurants());
+        assertEquals(Map.of("Greece", 1L), homePage.getCuisines());
+        assertTrue(homePage.getStaleParts().isEmpty());
+    }
+
+    /**
+     * Тест медленной части: страница возвращается по истечении времени ожидания с последним значением части.
+     */
+    @Test
+    void testGetHomePage_slowPart_returnsLastValue() {
+        Restaurant popular = createRestaurant(2);
+        when(restaurantService.findTopRated(3)).thenReturn(List.of());
+        when(restaurantService.findTopByPopularity(3)).thenReturn(List.of(popular)).thenAnswer(invocation -> {
+            release.await();
+            return List.of();
+        });
+        homePageService.getHomePage(3);
+
+        long start = System.nanoTime();
+        HomePage homePage = homePageService.getHomePage(3);
+
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 2000);
+        assertEquals(List.of(popular), homePage.getPopularRestaurants());
+        assertEquals(List.of(HomePageService.POPULAR), homePage.getStaleParts());
+    }
+
+    /**
+     * Тест медленной части: пока ее загрузка выполняется, следующие запросы страницы ждут ту же загрузку,
+     * а не запускают новые.
+     */
+    @Test
+    void testGetHomePage_slowPart_loadedOnce() {
+        when(restaurantService.findTopRated(3)).thenReturn(List.of());
+        when(restaurantService.findTopByPopularity(3)).thenAnswer(invocation -> {
+            release.await();
+            return List.of();
+        });
+
+        for (int i = 0; i < 3; i++) {
+            HomePage homePage = homePageService.getHomePage(3);
+            assertEquals(List.of(HomePageService.POPULAR), homePage.getStaleParts());
+        }
+
+        verify(restaurantService, times(1)).findTopByPopularity(3);
+        verify(restaurantService, times(3)).findTopRated(3);
+    }
+
+    /**
+     * Тест заполненного пула: часть, не поместившаяся в очередь, сразу заменяется значением по умолчанию
+     * и не загружается.
+     */
+    @Test
+    void testGetHomePage_queueFull_returnsDefaultValue() {
+        homePageService.shutdown();
+        homePageService = new HomePageService(restaurantService, 1, 1, Duration.ofMillis(200));
+        when(restaurantService.findTopRated(3)).thenAnswer(invocation -> {
+            release.await();
+            return List.of();
+        });
+
+        HomePage homePage = homePageService.getHomePage(3);
+
+        assertEquals(List.of(HomePageService.BEST, HomePageService.POPULAR, HomePageService.CUISINES),
+                homePage.getStaleParts());
+        assertTrue(homePage.getCuisines().isEmpty());
+        verify(restaurantService, never()).findFacets(null, null);
+    }
+
+    /**
+     * Тест части, завершившейся ошибкой до первого успешного получения: возвращается пустое значение.
+     */
+    @Test
+    void testGetHomePage_failedPart_returnsEmptyValue() {
+        when(restaurantService.findTopRated(5)).thenThrow(new IllegalStateException("Database is down"));
+        when(restaurantService.findTopByPopularity(5)).thenReturn(List.of());
+
+        HomePage homePage = homePageService.getHomePage(5);
+
+        assertTrue(homePage.getBestRestaurants().isEmpty());
+        assertEquals(List.of(HomePageService.BEST), homePage.getStaleParts());
+    }
+
+    private static Restaurant createRestaurant(int id) {
+        Restaurant restaurant = new Restaurant();
+        restaurant.setId(id);
+        return restaurant;
+    }
+}
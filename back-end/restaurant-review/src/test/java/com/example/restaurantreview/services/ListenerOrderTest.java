@@ -0,0 +1,115 @@
+package com.example.restaurantreview.services;
+
+import com.example.restaurantreview.events.RestaurantChangedEvent;
+import com.example.restaurantreview.models.Restaurant;
+import com.example.restaurantreview.models.RestaurantFilter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Тесты порядка обработчиков событий изменения ресторанов на встроенной базе данных H2.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.url=jdbc:h2:mem:listener-order;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class ListenerOrderTest {
+    @Autowired
+    private RestaurantService restaurantService;
+    @Autowired
+    private ContentVersions contentVersions;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @SpyBean
+    private RestaurantCache restaurantCache;
+    @SpyBean
+    private ResponseBodyCache responseBodyCache;
+
+    /**
+     * Тест порядка изменения версий: пока удаление записей кэша ресторанов после фиксации транзакции
+     * не выполнено, запрос получает прежние ETag, новые теги появляются только после удаления.
+     */
+    @Test
+    void testContentVersions_changeAfterEvictions() {
+        Restaurant restaurant = restaurantService.save(
+                new Restaurant("Old name", "Description", 0, "Location", "Italian", "$$", null));
+        int id = restaurant.getId();
+        String globalETag = contentVersions.globalETag();
+        String restaurantETag = contentVersions.restaurantETag(id);
+        // ETag, которые получил бы условный GET запрос, пришедший до удаления записей кэша
+        List<String> pendingETags = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            pendingETags.add(contentVersions.globalETag());
+            pendingETags.add(contentVersions.restaurantETag(id));
+            return invocation.callRealMethod();
+        }).when(restaurantCache).onRestaurantChanged(any(RestaurantChangedEvent.class));
+
+        Restaurant changed = new Restaurant("New name", "Description", 0, "Location", "Italian", "$$", null);
+        changed.setId(id);
+        transactionTemplate.executeWithoutResult(status -> restaurantService.update(id, changed));
+
+        assertEquals(List.of(globalETag, restaurantETag), pendingETags);
+        assertNotEquals(globalETag, contentVersions.globalETag());
+        assertNotEquals(restaurantETag, contentVersions.restaurantETag(id));
+    }
+
+    /**
+     * Тест порядка очистки кэша тел ответов: запрос каталога, пришедший сразу после удаления тел,
+     * загружает список через уже очищенный кэш ресторанов и сохраняет тело с новыми данными,
+     * а ETag при этом еще прежний.
+     */
+    @Test
+    void testResponseBodyCache_evictedAfterRestaurantCache() {
+        Sort sort = Sort.by("id");
+        Restaurant restaurant = restaurantService.save(
+                new Restaurant("Old catalog name", "Description", 0, "Location", "Italian", "$$", null));
+        int id = restaurant.getId();
+        assertTrue(catalog(sort).contains("Old catalog name"));
+        String globalETag = contentVersions.globalETag();
+        // Тело, которое загрузил бы запрос каталога, пришедший между удалением тел и остальными обработчиками
+        List<String> pendingBodies = new CopyOnWriteArrayList<>();
+        List<String> pendingETags = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            invocation.callRealMethod();
+            pendingBodies.add(catalog(sort));
+            pendingETags.add(contentVersions.globalETag());
+            return null;
+        }).when(responseBodyCache).onRestaurantChanged(any(RestaurantChangedEvent.class));
+
+        Restaurant changed = new Restaurant("New catalog name", "Description", 0, "Location", "Italian", "$$", null);
+        changed.setId(id);
+        transactionTemplate.executeWithoutResult(status -> restaurantService.update(id, changed));
+
+        assertEquals(1, pendingBodies.size());
+        assertTrue(pendingBodies.get(0).contains("New catalog name"));
+        assertEquals(List.of(globalETag), pendingETags);
+        // Сохраненное при промахе тело не устарело
+        String cached = new String(responseBodyCache.getCatalog(RestaurantFilter.NONE, sort, null,
+                () -> fail("body must be served from cache")).json(), StandardCharsets.UTF_8);
+        assertTrue(cached.contains("New catalog name"));
+    }
+
+    /**
+     * Возвращает тело ответа каталога так же, как контроллер ресторанов.
+     */
+    private String catalog(Sort sort) {
+        return new String(responseBodyCache.getCatalog(RestaurantFilter.NONE, sort, null,
+                () -> restaurantService.findAll(sort)).json(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.restaurantreview.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit-тесты для класса PhotoStorageService.
+ */
+class PhotoStorageServiceTest {
+    @TempDir
+    private Path uploadDir;
+
+    /**
+     * Тест метода store: файл сохраняется под SHA-256 содержимого с расширением исходного файла.
+     *
+     * @throws IOException если произошла ошибка ввода-вывода.
+     */
+    @Test
+    void testStore_namesFileByContentHash() throws IOException {
+        PhotoStorageService photoStorageService = new PhotoStorageService(uploadDir.toString());
+
+        String photo = photoStorageService.store(content("photo"), "Restaurant.JPG");
+
+        assertEquals("55c64d0fcd6f9d5f7c828093857e3fdfda68478bb4e9bd24d481ef391c7804e8.jpg", photo);
+        assertEquals("photo", Files.readString(uploadDir.resolve(photo)));
+    }
+
+    /**
+     * Тест метода store: одинаковое содержимое сохраняется один раз, а разное - не перезаписывается.
+     *
+     * @throws IOException если произошла ошибка ввода-вывода.
+     */
+    @Test
+    void testStore_deduplicatesSameContent() throws IOException {
+        PhotoStorageService photoStorageService = new PhotoStorageService(uploadDir.toString());
+
+        String first = photoStorageService.store(content("photo"), "a.png");
+        String second = photoStorageService.store(content("photo"), "b.png");
+        String other = photoStorageService.store(content("other photo"), "a.png");
+
+        assertEquals(first, second);
+        assertNotEquals(first, other);
+        try (Stream<Path> files = Files.list(uploadDir)) {
+            // Временные файлы не остаются в каталоге
+            assertEquals(2, files.count());
+        }
+    }
+
+    /**
+     * Тест метода store: недопустимое расширение из имени клиента не используется.
+     *
+     * @throws IOException если произошла ошибка ввода-вывода.
+     */
+    @Test
+    void testStore_ignoresUnsafeExtension() throws IOException {
+        PhotoStorageService photoStorageService = new PhotoStorageService(uploadDir.toString());
+
+        String photo = photoStorageService.store(content("photo"), "../../evil.sh/../x");
+
+        assertFalse(photo.contains("."));
+        assertTrue(Files.exists(uploadDir.resolve(photo)));
+    }
+
+    private static ByteArrayInputStream content(String value) {
+        return new ByteArrayInputStream(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.restaurantreview.services;
+
+import com.example.restaurantreview.events.RestaurantChangedEvent;
+import com.example.restaurantreview.events.ReviewChangedEvent;
+import com.example.restaurantreview.repositories.RestaurantRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit-тесты для класса PopularityLeaderboard.
+ */
+@ExtendWith(MockitoExtension.class)
+class PopularityLeaderboardTest {
+    @InjectMocks
+    private PopularityLeaderboard leaderboard;
+    @Mock
+    private RestaurantRepository restaurantRepository;
+
+    @BeforeEach
+    public void setUp() {
+        // Рестораны 1, 2 и 3 с 5, 10 и 5 отзывами соответственно
+        List<Object[]> counts = new ArrayList<>();
+        counts.add(new Object[]{1, 5});
+        counts.add(new Object[]{2, 10});
+        counts.add(new Object[]{3, 5});
+        when(restaurantRepository.findReviewCounts()).thenReturn(counts);
+        leaderboard.seed();
+    }
+
+    /**
+     * Тест начального заполнения рейтинга: при равном количестве отзывов выше ресторан с меньшим id.
+     */
+    @Test
+    void testSeed_ordersByReviewCountThenId() {
+        assertEquals(List.of(2, 1, 3), leaderboard.top(10));
+        assertEquals(List.of(2, 1), leaderboard.top(2));
+        assertEquals(OptionalInt.of(3), leaderboard.rank(3));
+    }
+
+    /**
+     * Тест обновления рейтинга при создании и удалении отзывов.
+     */
+    @Test
+    void testOnReviewChanged_movesRestaurant() {
+        leaderboard.onReviewChanged(new ReviewChangedEvent(3, 1, 4));
+        assertEquals(List.of(2, 3, 1), leaderboard.top(10));
+
+        leaderboard.onReviewChanged(new ReviewChangedEvent(3, -1, -4));
+        leaderboard.onReviewChanged(new ReviewChangedEvent(3, 0, 2));
+        assertEquals(List.of(2, 1, 3), leaderboard.top(10));
+    }
+
+    /**
+     * Тест добавления и удаления ресторанов.
+     */
+    @Test
+    void testOnRestaurantChanged_addsAndRemovesRestaurant() {
+        leaderboard.onRestaurantChanged(
+                new RestaurantChangedEvent(4, RestaurantChangedEvent.Type.CREATED, "Greece", null));
+        assertEquals(OptionalInt.of(4), leaderboard.rank(4));
+
+        leaderboard.onRestaurantChanged(new RestaurantChangedEvent(2, RestaurantChangedEvent.Type.DELETED, null, null));
+        assertEquals(List.of(1, 3, 4), leaderboard.top(10));
+        assertFalse(leaderboard.rank(2).isPresent());
+    }
+
+    /**
+     * Тест параллельного обновления рейтинга: ни одно изменение не теряется.
+     *
+     * @throws InterruptedException если ожидание потоков было прервано.
+     */
+    @Test
+    void testConcurrentUpdates_areNotLost() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 1000; i++) {
+            executor.execute(() -> leaderboard.onReviewChanged(new ReviewChangedEvent(1, 1, 5)));
+            executor.execute(() -> leaderboard.onReviewChanged(new ReviewChangedEvent(3, 1, 5)));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(List.of(1, 3, 2), leaderboard.top(10));
+        assertEquals(OptionalInt.of(3), leaderboard.rank(2));
+        verify(restaurantRepository, times(1)).findReviewCounts();
+    }
+}
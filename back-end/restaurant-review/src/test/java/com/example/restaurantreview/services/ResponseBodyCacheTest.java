@@ -0,0 +1,158 @@
+package com.example.restaurantreview.services;
+
+import com.example.restaurantreview.events.RestaurantChangedEvent;
+import com.example.restaurantreview.events.ReviewChangedEvent;
+import com.example.restaurantreview.models.Restaurant;
+import com.example.restaurantreview.models.RestaurantFilter;
+import com.example.restaurantreview.models.ReviewSummary;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit-тесты для класса ResponseBodyCache.
+ */
+class ResponseBodyCacheTest {
+    private static final Sort SORT = Sort.by(Sort.Direction.ASC, "avgRating");
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final ResponseBodyCache responseBodyCache =
+            new ResponseBodyCache(objectMapper, 1 << 20, Duration.ofMinutes(1), true);
+
+    /**
+     * Тест попадания: повторный запрос возвращает то же закодированное тело без загрузки данных,
+     * большое тело хранится также в сжатом виде с тем же содержимым.
+     */
+    @Test
+    void testGetCatalog_returnsEncodedBodyWithoutReloading() throws IOException {
+        AtomicInteger loads = new AtomicInteger();
+        List<Restaurant> restaurants = new ArrayList<>();
+        for (int i = 1; i <= 50; i++) {
+            restaurants.add(createRestaurant(i, "Greece"));
+        }
+
+        ResponseBodyCache.EncodedBody first = responseBodyCache.getCatalog(RestaurantFilter.NONE, SORT, null,
+                () -> countingLoad(loads, restaurants));
+        ResponseBodyCache.EncodedBody second = responseBodyCache.getCatalog(RestaurantFilter.NONE, SORT, null,
+                () -> countingLoad(loads, restaurants));
+
+        assertEquals(1, loads.get());
+        assertSame(first, second);
+        assertArrayEquals(objectMapper.writeValueAsBytes(restaurants), first.json());
+        assertNotNull(first.gzip());
+        try (InputStream input = new GZIPInputStream(new ByteArrayInputStream(first.gzip()))) {
+            assertArrayEquals(first.json(), input.readAllBytes());
+        }
+    }
+
+    /**
+     * Тест точечного удаления при изменении ресторана: список другой кухни, не содержащий ресторан,
+     * и отзывы других ресторанов сохраняются.
+     */
+    @Test
+    void testOnRestaurantChanged_evictsOnlyAffectedBodies() {
+        AtomicInteger loads = new AtomicInteger();
+        loadAll(loads);
+
+        // Ресторан 1 переезжает из греческой кухни в китайскую
+        responseBodyCache.onRestaurantChanged(
+                new RestaurantChangedEvent(1, RestaurantChangedEvent.Type.UPDATED, "China", null));
+        loads.set(0);
+        loadAll(loads);
+
+        // Перезагружаются каталог без фильтра, греческий и китайский списки и популярные рестораны
+        assertEquals(4, loads.get());
+    }
+
+    /**
+     * Тест точечного удаления при изменении отзывов: удаляются отзывы ресторана, популярные рестораны
+     * и списки, зависящие от рейтинга или содержащие ресторан; список итальянских ресторанов сохраняется.
+     */
+    @Test
+    void testOnReviewChanged_evictsReviewsAndRatingDependentBodies() {
+        AtomicInteger loads = new AtomicInteger();
+        loadAll(loads);
+
+        responseBodyCache.onReviewChanged(new ReviewChangedEvent(1, 1, 5));
+        loads.set(0);
+        loadAll(loads);
+
+        // Перезагружаются каталог без фильтра, греческий список, популярные рестораны и отзывы ресторана 1
+        assertEquals(4, loads.get());
+
+        // Правка текста отзыва не меняет агрегаты: удаляются только отзывы ресторана
+        responseBodyCache.onReviewChanged(new ReviewChangedEvent(1, 0, 0));
+        loads.set(0);
+        loadAll(loads);
+        assertEquals(1, loads.get());
+    }
+
+    /**
+     * Тест ограничения объема: суммарный размер тел не превышает заданный, размер отражается в статистике.
+     */
+    @Test
+    void testStats_boundedByBytes() {
+        ResponseBodyCache smallCache = new ResponseBodyCache(objectMapper, 2048, Duration.ofMinutes(1), false);
+        for (int i = 1; i <= 20; i++) {
+            int restaurantId = i;
+            smallCache.getReviews(restaurantId, () -> List.of(createReview(restaurantId)));
+        }
+
+        assertTrue(smallCache.stats().get("bytes") <= 2048);
+        assertTrue(smallCache.stats().get("bytes") > 0);
+        assertTrue(smallCache.stats().get("evictions") >= 1);
+    }
+
+    /**
+     * Загружает каталог без фильтра, греческий, китайский и итальянский списки, популярные рестораны
+     * и отзывы ресторанов 1 и 3.
+     */
+    private void loadAll(AtomicInteger loads) {
+        responseBodyCache.getCatalog(RestaurantFilter.NONE, SORT, null,
+                () -> countingLoad(loads, List.of(createRestaurant(1, "Greece"), createRestaurant(3, "Italy"))));
+        responseBodyCache.getCatalog(byCuisine("greece"), SORT, null,
+                () -> countingLoad(loads, List.of(createRestaurant(1, "Greece"))));
+        responseBodyCache.getCatalog(byCuisine("china"), SORT, null,
+                () -> countingLoad(loads, List.of(createRestaurant(2, "China"))));
+        responseBodyCache.getCatalog(byCuisine("italy"), SORT, null,
+                () -> countingLoad(loads, List.of(createRestaurant(3, "Italy"))));
+        responseBodyCache.getPopular(null,
+                () -> countingLoad(loads, List.of(createRestaurant(3, "Italy"), createRestaurant(1, "Greece"))));
+        responseBodyCache.getReviews(1, () -> countingLoad(loads, List.of(createReview(1))));
+        responseBodyCache.getReviews(3, () -> countingLoad(loads, List.of(createReview(3))));
+    }
+
+    private static RestaurantFilter byCuisine(String cuisine) {
+        return RestaurantFilter.of(cuisine, null, null, null);
+    }
+
+    private static <T> List<T> countingLoad(AtomicInteger loads, List<T> items) {
+        loads.incrementAndGet();
+        return items;
+    }
+
+    private static Restaurant createRestaurant(int id, String cuisine) {
+        Restaurant restaurant = new Restaurant();
+        restaurant.setId(id);
+        restaurant.setName("Restaurant " + id);
+        restaurant.setCuisine(cuisine);
+        return restaurant;
+    }
+
+    private static ReviewSummary createReview(int restaurantId) {
+        return new ReviewSummary(restaurantId * 10, "Text", 4, LocalDateTime.of(2024, 1, 1, 12, 0),
+                restaurantId, "John Doe", "john@example.com");
+    }
+}
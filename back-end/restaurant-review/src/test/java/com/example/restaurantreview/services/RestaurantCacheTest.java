@@ -0,0 +1,205 @@
+package com.example.restaurantreview.services;
+
+import com.example.restaurantreview.events.RestaurantChangedEvent;
+import com.example.restaurantreview.events.ReviewChangedEvent;
+import com.example.restaurantreview.models.Restaurant;
+import com.example.restaurantreview.models.RestaurantFilter;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit-тесты для класса RestaurantCache.
+ */
+class RestaurantCacheTest {
+    private static final Sort SORT = Sort.by(Sort.Direction.ASC, "avgRating");
+
+    private final RestaurantCache restaurantCache = new RestaurantCache(100, 1000, Duration.ofMinutes(1));
+
+    /**
+     * Тест счетчиков попаданий и промахов.
+     */
+    @Test
+    void testGetById_countsHitsAndMisses() {
+        Restaurant restaurant = createRestaurant(1, "Greece");
+
+        restaurantCache.getById(1, id -> Optional.of(restaurant));
+        restaurantCache.getById(1, id -> Optional.of(restaurant));
+        restaurantCache.getById(2, id -> Optional.empty());
+
+        assertEquals(1L, restaurantCache.stats().get("restaurants").get("hits"));
+        assertEquals(2L, restaurantCache.stats().get("restaurants").get("misses"));
+        assertEquals(1L, restaurantCache.stats().get("restaurants").get("size"));
+    }
+
+    /**
+     * Тест точечного удаления: при изменении ресторана удаляются только списки, которые он затрагивает.
+     */
+    @Test
+    void testOnRestaurantChanged_evictsOnlyAffectedLists() {
+        AtomicInteger loads = new AtomicInteger();
+        restaurantCache.getById(1, id -> Optional.of(createRestaurant(1, "Greece")));
+        restaurantCache.getList(RestaurantFilter.NONE, SORT, () -> countingLoad(loads, createRestaurant(1, "Greece")));
+        restaurantCache.getList(byCuisine("greece"), SORT, () -> countingLoad(loads, createRestaurant(1, "Greece")));
+        restaurantCache.getList(byCuisine("china"), SORT, () -> countingLoad(loads, createRestaurant(2, "China")));
+        restaurantCache.getList(byCuisine("italy"), SORT, () -> countingLoad(loads, createRestaurant(3, "Italy")));
+
+        // Ресторан 1 переезжает из греческой кухни в китайскую
+        restaurantCache.onRestaurantChanged(
+                new RestaurantChangedEvent(1, RestaurantChangedEvent.Type.UPDATED, "China", null));
+
+        assertEquals(1L, restaurantCache.stats().get("restaurantLists").get("size"));
+        assertEquals(0L, restaurantCache.stats().get("restaurants").get("size"));
+
+        // Список итальянских ресторанов по-прежнему берется из кэша
+        restaurantCache.getList(byCuisine("italy"), SORT, () -> countingLoad(loads, createRestaurant(3, "Italy")));
+        assertEquals(4, loads.get());
+    }
+
+    /**
+     * Тест удаления ресторана из кэша при изменении его отзывов.
+     */
+    @Test
+    void testOnReviewChanged_evictsRestaurant() {
+        AtomicInteger loads = new AtomicInteger();
+        restaurantCache.getById(1, id -> {
+            loads.incrementAndGet();
+            return Optional.of(createRestaurant(1, "Greece"));
+        });
+
+        restaurantCache.onReviewChanged(new ReviewChangedEvent(1, 1, 5));
+        restaurantCache.getById(1, id -> {
+            loads.incrementAndGet();
+            return Optional.of(createRestaurant(1, "Greece"));
+        });
+
+        assertEquals(2, loads.get());
+    }
+
+    /**
+     * Тест изменений во время загрузки: изменение ресторана, не входящего в загруженный список, не мешает
+     * поместить список и ресторан с другим идентификатором в кэш, а изменение ресторана из списка - мешает.
+     */
+    @Test
+    void testGet_changeDuringLoad_discardsOnlyAffectedLoads() {
+        AtomicInteger loads = new AtomicInteger();
+        restaurantCache.getList(byCuisine("italy"), SORT, () -> {
+            restaurantCache.onReviewChanged(new ReviewChangedEvent(1, 1, 5));
+            return countingLoad(loads, createRestaurant(3, "Italy"));
+        });
+        restaurantCache.getById(3, id -> {
+            restaurantCache.onReviewChanged(new ReviewChangedEvent(1, 1, 5));
+            return Optional.of(createRestaurant(3, "Italy"));
+        });
+        restaurantCache.getList(byCuisine("greece"), SORT, () -> {
+            restaurantCache.onReviewChanged(new ReviewChangedEvent(1, 1, 5));
+            return countingLoad(loads, createRestaurant(1, "Greece"));
+        });
+
+        restaurantCache.getList(byCuisine("italy"), SORT, () -> countingLoad(loads, createRestaurant(3, "Italy")));
+        restaurantCache.getList(byCuisine("greece"), SORT, () -> countingLoad(loads, createRestaurant(1, "Greece")));
+
+        // Повторно загружается только греческий список, в который входит измененный ресторан
+        assertEquals(3, loads.get());
+        assertEquals(1L, restaurantCache.stats().get("restaurants").get("size"));
+    }
+
+    /**
+     * Тест изменения отзывов: удаляются списки с рестораном и зависящие от рейтинга,
+     * полный список без ресторана сохраняется.
+     */
+    @Test
+    void testOnReviewChanged_evictsListsWithRestaurantAndRatingDependent() {
+        AtomicInteger loads = new AtomicInteger();
+        RestaurantFilter highRated = RestaurantFilter.of(null, null, 4.0, null);
+        restaurantCache.getList(RestaurantFilter.NONE, SORT, () -> countingLoad(loads, createRestaurant(3, "Italy")));
+        restaurantCache.getList(highRated, SORT, () -> countingLoad(loads, createRestaurant(3, "Italy")));
+        restaurantCache.getList(byCuisine("greece"), SORT, () -> countingLoad(loads, createRestaurant(1, "Greece")));
+
+        restaurantCache.onReviewChanged(new ReviewChangedEvent(1, 1, 5));
+
+        assertEquals(1L, restaurantCache.stats().get("restaurantLists").get("size"));
+        restaurantCache.getList(RestaurantFilter.NONE, SORT, () -> countingLoad(loads, createRestaurant(3, "Italy")));
+        assertEquals(3, loads.get());
+    }
+
+    /**
+     * Тест вытеснения по размеру: суммарное количество ресторанов в списках ограничено.
+     */
+    @Test
+    void testGetList_boundedBySize() {
+        RestaurantCache smallCache = new RestaurantCache(1, 3, Duration.ofMinutes(1));
+
+        smallCache.getList(byCuisine("greece"), SORT, () -> List.of(createRestaurant(1, "Greece")));
+        smallCache.getList(byCuisine("china"), SORT, () -> List.of(createRestaurant(2, "China")));
+        smallCache.getList(byCuisine("italy"), SORT, () -> List.of(createRestaurant(3, "Italy")));
+
+        assertTrue(smallCache.stats().get("restaurantLists").get("size") <= 2);
+        assertTrue(smallCache.stats().get("restaurantLists").get("evictions") >= 1);
+    }
+
+    /**
+     * Тест точечного удаления для списков с несколькими условиями: список другой кухни сохраняется,
+     * список с фильтром по рейтингу без кухни удаляется, так как ресторан мог в него попасть.
+     */
+    @Test
+    void testOnRestaurantChanged_evictsCombinedFiltersWithoutOtherCuisine() {
+        AtomicInteger loads = new AtomicInteger();
+        RestaurantFilter italianCheap = RestaurantFilter.of("Italy", "$", 4.0, null);
+        RestaurantFilter highRated = RestaurantFilter.of(null, null, 4.0, null);
+        restaurantCache.getList(italianCheap, SORT, () -> countingLoad(loads, createRestaurant(3, "Italy")));
+        restaurantCache.getList(highRated, SORT, () -> countingLoad(loads, createRestaurant(3, "Italy")));
+
+        restaurantCache.onRestaurantChanged(
+                new RestaurantChangedEvent(1, RestaurantChangedEvent.Type.UPDATED, "China", null));
+
+        restaurantCache.getList(RestaurantFilter.of("italy", "$", 4.0, null), SORT,
+                () -> countingLoad(loads, createRestaurant(3, "Italy")));
+        restaurantCache.getList(highRated, SORT, () -> countingLoad(loads, createRestaurant(3, "Italy")));
+        assertEquals(3, loads.get());
+    }
+
+    /**
+     * Тест первых ресторанов списка: результат кэшируется отдельно от полного списка
+     * и удаляется вместе со списками при изменении ресторана.
+     */
+    @Test
+    void testGetTop_cachedAndEvicted() {
+        AtomicInteger loads = new AtomicInteger();
+        Comparator<Restaurant> byId = Comparator.comparingInt(Restaurant::getId);
+        restaurantCache.getTop(RestaurantFilter.NONE, SORT, 1, byId,
+                () -> countingLoad(loads, createRestaurant(1, "Greece")));
+        restaurantCache.getTop(RestaurantFilter.NONE, SORT, 1, byId,
+                () -> countingLoad(loads, createRestaurant(1, "Greece")));
+        assertEquals(1, loads.get());
+
+        restaurantCache.onRestaurantChanged(
+                new RestaurantChangedEvent(2, RestaurantChangedEvent.Type.CREATED, "China", null));
+        restaurantCache.getTop(RestaurantFilter.NONE, SORT, 1, byId,
+                () -> countingLoad(loads, createRestaurant(2, "China")));
+        assertEquals(2, loads.get());
+    }
+
+    private static RestaurantFilter byCuisine(String cuisine) {
+        return RestaurantFilter.of(cuisine, null, null, null);
+    }
+
+    private static List<Restaurant> countingLoad(AtomicInteger loads, Restaurant restaurant) {
+        loads.incrementAndGet();
+        return List.of(restaurant);
+    }
+
+    private static Restaurant createRestaurant(int id, String cuisine) {
+        Restaurant restaurant = new Restaurant();
+        restaurant.setId(id);
+        restaurant.setCuisine(cuisine);
+        return restaurant;
+    }
+}
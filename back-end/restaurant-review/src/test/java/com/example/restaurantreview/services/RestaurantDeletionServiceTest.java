@@ -0,0 +1,102 @@
+package com.example.restaurantreview.services;
+
+import com.example.restaurantreview.repositories.RestaurantRepository;
+import com.example.restaurantreview.repositories.ReviewRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit-тесты для класса RestaurantDeletionService.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class RestaurantDeletionServiceTest {
+    @Mock
+    private RestaurantRepository restaurantRepository;
+    @Mock
+    private ReviewRepository reviewRepository;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        // Транзакция выполняет переданный код сразу
+        when(transactionTemplate.execute(any())).thenAnswer(
+                invocation -> ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+        doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    /**
+     * Тест немедленного удаления: отзывы и ресторан удаляются запросами по условию, отзывы - первыми.
+     */
+    @Test
+    void testDelete_hard_deletesReviewsThenRestaurant() {
+        when(restaurantRepository.deleteByIdInBatch(1)).thenReturn(1);
+
+        assertTrue(createService(false).delete(1));
+
+        InOrder inOrder = inOrder(reviewRepository, restaurantRepository);
+        inOrder.verify(reviewRepository).deleteAllByRestaurantIdInBatch(1);
+        inOrder.verify(restaurantRepository).deleteByIdInBatch(1);
+        verify(restaurantRepository, never()).findById(anyInt());
+    }
+
+    /**
+     * Тест мягкого удаления: ресторан только помечается, отзывы не удаляются.
+     */
+    @Test
+    void testDelete_soft_marksRestaurant() {
+        when(restaurantRepository.markDeleted(eq(1), any(LocalDateTime.class))).thenReturn(1);
+
+        assertTrue(createService(true).delete(1));
+        assertFalse(createService(true).delete(2));
+
+        verifyNoInteractions(reviewRepository);
+        verify(restaurantRepository, never()).deleteByIdInBatch(anyInt());
+    }
+
+    /**
+     * Тест фоновой задачи: отзывы удаляются частями, ресторан - после своих отзывов,
+     * количество частей за запуск ограничено.
+     */
+    @Test
+    void testPurge_deletesInBoundedChunks() {
+        RestaurantDeletionService service = createService(true);
+        when(restaurantRepository.findSoftDeletedIds(3)).thenReturn(List.of(1, 2));
+        // Ресторан 1: две полные части и неполная, ресторан 2 не успевает начаться
+        when(reviewRepository.deleteChunkByRestaurantId(1, 10)).thenReturn(10, 10, 4);
+
+        assertEquals(1, service.purge());
+
+        verify(reviewRepository, times(3)).deleteChunkByRestaurantId(1, 10);
+        verify(restaurantRepository, times(1)).deleteSoftDeleted(1);
+        verify(reviewRepository, never()).deleteChunkByRestaurantId(eq(2), anyInt());
+        verify(restaurantRepository, never()).deleteSoftDeleted(2);
+    }
+
+    private RestaurantDeletionService createService(boolean softDelete) {
+        return new RestaurantDeletionService(restaurantRepository, reviewRepository, transactionTemplate,
+                softDelete, 10, 3);
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.restaurantreview.services;
+
+import com.example.restaurantreview.events.RestaurantChangedEvent;
+import com.example.restaurantreview.events.ReviewTextChangedEvent;
+import com.example.restaurantreview.models.Restaurant;
+import com.example.restaurantreview.repositories.RestaurantRepository;
+import com.example.restaurantreview.repositories.ReviewRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit-тесты для класса RestaurantSearchIndex.
+ */
+@ExtendWith(MockitoExtension.class)
+class RestaurantSearchIndexTest {
+    @Mock
+    private RestaurantRepository restaurantRepository;
+    @Mock
+    private ReviewRepository reviewRepository;
+
+    private RestaurantSearchIndex searchIndex;
+
+    @BeforeEach
+    public void setUp() {
+        List<Object[]> restaurants = new ArrayList<>();
+        restaurants.add(new Object[]{1, "Ramen House", "Noodle bar", "Downtown", "Japanese"});
+        restaurants.add(new Object[]{2, "Pasta Place", "Fresh pasta", "Uptown", "Italian"});
+        restaurants.add(new Object[]{3, "Sushi Go", null, "Downtown", "Japanese"});
+        when(restaurantRepository.findSearchableFields()).thenReturn(restaurants);
+
+        List<Object[]> reviews = new ArrayList<>();
+        reviews.add(new Object[]{2, "Surprisingly good ramen, the best ramen uptown"});
+        reviews.add(new Object[]{3, "Fresh fish"});
+        when(reviewRepository.findTextsByRestaurantIds(anyCollection())).thenAnswer(invocation -> {
+            Collection<Integer> ids = invocation.getArgument(0);
+            return reviews.stream().filter(row -> ids.contains((Integer) row[0])).toList();
+        });
+
+        searchIndex = new RestaurantSearchIndex(restaurantRepository, reviewRepository, 2);
+        searchIndex.seed();
+    }
+
+    /**
+     * Тест поиска: ресторан, содержащий все слова запроса, выше ресторанов с одним словом,
+     * а тексты отзывов участвуют в поиске (дважды упомянутое в отзыве слово весит больше).
+     */
+    @Test
+    void testSearch_ranksByRelevance() {
+        assertEquals(List.of(1, 2, 3), searchIndex.search("RAMEN downtown", 10));
+        assertEquals(List.of(1), searchIndex.search("ramen downtown", 1));
+        assertEquals(List.of(2), searchIndex.search("uptown", 10));
+        assertEquals(List.of(), searchIndex.search("pizza", 10));
+        assertEquals(List.of(), searchIndex.search("  ,. ", 10));
+    }
+
+    /**
+     * Тест инкрементального обновления индекса при изменении отзывов.
+     */
+    @Test
+    void testOnReviewTextChanged_replacesText() {
+        searchIndex.onReviewTextChanged(new ReviewTextChangedEvent(3, null, "Great pizza"));
+        assertEquals(List.of(3), searchIndex.search("pizza", 10));
+
+        searchIndex.onReviewTextChanged(new ReviewTextChangedEvent(3, "Great pizza", "Great gyoza"));
+        assertEquals(List.of(), searchIndex.search("pizza", 10));
+        assertEquals(List.of(3), searchIndex.search("gyoza", 10));
+
+        searchIndex.onReviewTextChanged(new ReviewTextChangedEvent(2, "Surprisingly good ramen, the best ramen uptown",
+                null));
+        assertEquals(List.of(1), searchIndex.search("ramen", 10));
+    }
+
+    /**
+     * Тест переиндексации измененного ресторана и удаления ресторана из индекса.
+     */
+    @Test
+    void testOnRestaurantChanged_reindexesAndRemoves() {
+        Restaurant restaurant = new Restaurant();
+        restaurant.setId(1);
+        restaurant.setName("Taco Stand");
+        restaurant.setLocation("Harbor");
+        when(restaurantRepository.findById(1)).thenReturn(Optional.of(restaurant));
+
+        searchIndex.onRestaurantChanged(new RestaurantChangedEvent(1, RestaurantChangedEvent.Type.UPDATED, null, null));
+        assertEquals(List.of(1), searchIndex.search("taco", 10));
+        // Старые поля ресторана больше не находятся
+        assertEquals(List.of(3), searchIndex.search("downtown", 10));
+
+        searchIndex.onRestaurantChanged(new RestaurantChangedEvent(3, RestaurantChangedEvent.Type.DELETED, null, null));
+        assertEquals(List.of(), searchIndex.search("sushi", 10));
+        assertEquals(List.of(), searchIndex.search("fish", 10));
+    }
+
+    /**
+     * Тест перестройки индекса: отзыв, сохраненный после загрузки текстов отзывов, но до замены индекса,
+     * не теряется после замены.
+     */
+    @Test
+    void testRebuild_keepsChangesMadeDuringRebuild() {
+        List<Object[]> reviews = new ArrayList<>();
+        reviews.add(new Object[]{3, "Fresh fish"});
+        AtomicBoolean saved = new AtomicBoolean();
+        doAnswer(invocation -> {
+            Collection<Integer> ids = invocation.getArgument(0);
+            List<Object[]> texts = reviews.stream().filter(row -> ids.contains((Integer) row[0])).toList();
+            if (saved.compareAndSet(false, true)) {
+                reviews.add(new Object[]{3, "Great gyoza"});
+                searchIndex.onReviewTextChanged(new ReviewTextChangedEvent(3, null, "Great gyoza"));
+            }
+            return texts;
+        }).when(reviewRepository).findTextsByRestaurantIds(anyCollection());
+        List<Object[]> restaurants = new ArrayList<>();
+        restaurants.add(new Object[]{3, "Sushi Go", null, "Downtown", "Japanese"});
+        when(restaurantRepository.findSearchableFields()).thenReturn(restaurants);
+        when(restaurantRepository.findSearchableFieldsByIds(Set.of(3))).thenReturn(restaurants);
+
+        searchIndex.rebuild();
+
+        assertEquals(List.of(3), searchIndex.search("gyoza", 10));
+        assertEquals(List.of(3), searchIndex.search("fish", 10));
+        assertEquals(List.of(), searchIndex.search("ramen", 10));
+    }
+
+    /**
+     * Тест построения индекса при первом поиске: если при старте индекс не построен, одновременные первые поиски
+     * ждут одну перестройку и получают результаты по построенному индексу.
+     *
+     * @throws Exception если поиск завершился ошибкой
+     */
+    @Test
+    void testSearch_afterFailedSeed_rebuildsOnce() throws Exception {
+        List<Object[]> restaurants = new ArrayList<>();
+        restaurants.add(new Object[]{1, "Ramen House", "Noodle bar", "Downtown", "Japanese"});
+        clearInvocations(restaurantRepository);
+        when(restaurantRepository.findSearchableFields())
+                .thenThrow(new DataAccessResourceFailureException("Database is down"))
+                .thenAnswer(invocation -> {
+                    Thread.sleep(200);
+                    return restaurants;
+                });
+        RestaurantSearchIndex index = new RestaurantSearchIndex(restaurantRepository, reviewRepository, 2);
+        index.seed();
+
+        List<Future<List<Integer>>> searches = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 4; i++) {
+                searches.add(executor.submit(() -> index.search("ramen", 10)));
+            }
+        }
+
+        for (Future<List<Integer>> search : searches) {
+            assertEquals(List.of(1), search.get());
+        }
+        // Первый вызов - неудачное построение при старте, второй - единственная перестройка при поиске
+        verify(restaurantRepository, times(2)).findSearchableFields();
+    }
+}
@@ -1,14 +1,22 @@
 package com.example.restaurantreview.services;
 
+import com.example.restaurantreview.events.RestaurantChangedEvent;
+import com.example.restaurantreview.models.MultiGetResult;
 import com.example.restaurantreview.models.Restaurant;
+import com.example.restaurantreview.models.RestaurantFilter;
 import com.example.restaurantreview.repositories.RestaurantRepository;
+import com.example.restaurantreview.util.GeoGrid;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 
+import java.time.Duration;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -23,6 +31,20 @@ class RestaurantServiceTest {
     private RestaurantService restaurantService;
     @Mock
     private RestaurantRepository restaurantRepository;
+    @Mock
+    private PopularityLeaderboard popularityLeaderboard;
+    @Mock
+    private RestaurantSearchIndex restaurantSearchIndex;
+    @Mock
+    private RestaurantGeoIndex restaurantGeoIndex;
+    @Mock
+    private CatalogFacetCounters catalogFacetCounters;
+    @Mock
+    private RestaurantDeletionService restaurantDeletionService;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Spy
+    private RestaurantCache restaurantCache = new RestaurantCache(100, 1000, Duration.ofMinutes(1));
 
     /**
      * Тест метода save.
@@ -33,6 +55,90 @@ class RestaurantServiceTest {
 
         when(restaurantRepository.save(mockRestaurant)).thenReturn(mockRestaurant);
         assertEquals(mockRestaurant, restaurantService.save(mockRestaurant));
+
+        verify(eventPublisher, times(1))
+                .publishEvent(new RestaurantChangedEvent(1, RestaurantChangedEvent.Type.CREATED, "Greece", "$$$$"));
+    }
+
+    /**
+     * Тест метода deleteById: событие удаления публикуется, только если ресторан был удален.
+     */
+    @Test
+    void testDeleteById_publishesEventOnlyWhenDeleted() {
+        when(restaurantDeletionService.delete(1)).thenReturn(true);
+        when(restaurantDeletionService.delete(2)).thenReturn(false);
+
+        restaurantService.deleteById(1);
+        restaurantService.deleteById(2);
+
+        verify(eventPublisher, times(1))
+                .publishEvent(new RestaurantChangedEvent(1, RestaurantChangedEvent.Type.DELETED, null, null));
+        verifyNoMoreInteractions(eventPublisher);
+    }
+
+    /**
+     * Тест метода findTopRated: без кэшированного каталога первые рестораны загружаются запросом с LIMIT,
+     * повторный запрос берется из кэша.
+     */
+    @Test
+    void testFindTopRated_loadsLimitedQuery() {
+        Restaurant first = createMockRestaurant();
+        Sort topSort = Sort.by(Sort.Direction.DESC, "avgRating").and(Sort.by("id"));
+        when(restaurantRepository.findTop(any(), eq(topSort), eq(1))).thenReturn(List.of(first));
+
+        assertEquals(List.of(first), restaurantService.findTopRated(1));
+        assertEquals(List.of(first), restaurantService.findTopRated(1));
+
+        verify(restaurantRepository, times(1)).findTop(any(), eq(topSort), eq(1));
+        verify(restaurantRepository, never()).findAll(any(Sort.class));
+    }
+
+    /**
+     * Тест метода findTop: если полный каталог уже в кэше, первые рестораны отбираются из него
+     * в порядке сортировки с упорядочиванием по идентификатору при равных значениях.
+     */
+    @Test
+    void testFindTop_selectsFromCachedCatalog() {
+        Restaurant low = createMockRestaurant();
+        low.setId(1);
+        low.setAvgRating(2.0);
+        Restaurant tiedHigh = createMockRestaurant();
+        tiedHigh.setId(3);
+        tiedHigh.setAvgRating(4.5);
+        Restaurant high = createMockRestaurant();
+        high.setId(2);
+        high.setAvgRating(4.5);
+        Sort byName = Sort.by("name");
+        when(restaurantRepository.findAll(byName)).thenReturn(List.of(low, tiedHigh, high));
+        restaurantService.findAll(byName);
+
+        assertEquals(List.of(high, tiedHigh),
+                restaurantService.findTop(RestaurantFilter.NONE, Sort.by(Sort.Direction.DESC, "avgRating"), 2));
+
+        verify(restaurantRepository, never()).findTop(any(), any(), anyInt());
+    }
+
+    /**
+     * Тест метода findTop: при сортировке по строковому полю первые рестораны загружаются из базы данных,
+     * даже если полный каталог уже в кэше, потому что порядок строк определяется правилами сортировки базы данных.
+     */
+    @Test
+    void testFindTop_stringSort_loadsFromDatabase() {
+        Restaurant lower = createMockRestaurant();
+        lower.setId(1);
+        lower.setName("bistro");
+        Restaurant upper = createMockRestaurant();
+        upper.setId(2);
+        upper.setName("Cafe");
+        Sort byName = Sort.by("name");
+        Sort topSort = byName.and(Sort.by("id"));
+        when(restaurantRepository.findAll(byName)).thenReturn(List.of(lower, upper));
+        when(restaurantRepository.findTop(any(), eq(topSort), eq(1))).thenReturn(List.of(lower));
+        restaurantService.findAll(byName);
+
+        assertEquals(List.of(lower), restaurantService.findTop(RestaurantFilter.NONE, byName, 1));
+
+        verify(restaurantRepository, times(1)).findTop(any(), eq(topSort), eq(1));
     }
 
     /**
@@ -59,6 +165,51 @@ class RestaurantServiceTest {
         assertEquals(mockRestaurant, result.get());
     }
 
+    /**
+     * Тест метода findById: повторный запрос ресторана обслуживается из кэша.
+     */
+    @Test
+    void testFindById_secondCall_isServedFromCache() {
+        Restaurant mockRestaurant = createMockRestaurant();
+
+        when(restaurantRepository.findById(1)).thenReturn(Optional.of(mockRestaurant));
+
+        assertEquals(mockRestaurant, restaurantService.findById(1).get());
+        assertEquals(mockRestaurant, restaurantService.findById(1).get());
+
+        verify(restaurantRepository, times(1)).findById(1);
+    }
+
+    /**
+     * Тест метода findAll с фильтром: повторный запрос списка (в том числе в другом регистре) обслуживается из кэша.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFindAllFiltered_secondCall_isServedFromCache() {
+        List<Restaurant> list = Collections.singletonList(createMockRestaurant());
+        Sort sort = Sort.by(Sort.Direction.DESC, "avgRating");
+
+        when(restaurantRepository.findAll(any(Specification.class), eq(sort))).thenReturn(list);
+
+        assertEquals(list, restaurantService.findAll(RestaurantFilter.of("Greece", "$$", 4.0, null), sort));
+        assertEquals(list, restaurantService.findAll(RestaurantFilter.of("greece", "$$", 4.0, null), sort));
+
+        verify(restaurantRepository, times(1)).findAll(any(Specification.class), eq(sort));
+    }
+
+    /**
+     * Тест метода findAll с пустым фильтром: выполняется выборка без условий.
+     */
+    @Test
+    void testFindAllFiltered_emptyFilter_loadsAll() {
+        List<Restaurant> list = Collections.singletonList(createMockRestaurant());
+        Sort sort = Sort.by(Sort.Direction.ASC, "name");
+
+        when(restaurantRepository.findAll(sort)).thenReturn(list);
+
+        assertEquals(list, restaurantService.findAll(RestaurantFilter.of("", null, null, " "), sort));
+    }
+
     /**
      * Тест метода findAll.
      */
@@ -75,6 +226,72 @@ class RestaurantServiceTest {
         assertEquals(list, restaurantService.findAll(sort));
     }
 
+    /**
+     * Тест метода findAllById: рестораны возвращаются в порядке запроса, из базы данных загружаются
+     * только отсутствующие в кэше рестораны, ненайденные идентификаторы перечисляются отдельно.
+     */
+    @Test
+    void testFindAllById_loadsOnlyCacheMisses() {
+        Restaurant cached = createMockRestaurant();
+        Restaurant loaded = createMockRestaurant();
+        loaded.setId(3);
+        when(restaurantRepository.findById(1)).thenReturn(Optional.of(cached));
+        restaurantService.findById(1);
+        when(restaurantRepository.findAllById(List.of(3, 2))).thenReturn(List.of(loaded));
+
+        MultiGetResult<Restaurant> result = restaurantService.findAllById(List.of(3, 1, 2, 1));
+
+        assertEquals(List.of(loaded, cached), result.getItems());
+        assertEquals(List.of(2), result.getMissing());
+        verify(restaurantRepository, times(1)).findAllById(List.of(3, 2));
+    }
+
+    /**
+     * Тест метода findTopByPopularity: рестораны возвращаются в порядке рейтинга популярности.
+     */
+    @Test
+    void testFindTopByPopularity_returnsRestaurantsInLeaderboardOrder() {
+        Restaurant first = createMockRestaurant();
+        first.setId(2);
+        Restaurant second = createMockRestaurant();
+
+        when(popularityLeaderboard.top(2)).thenReturn(List.of(2, 1));
+        when(restaurantRepository.findAllById(List.of(2, 1))).thenReturn(List.of(second, first));
+
+        assertEquals(List.of(first, second), restaurantService.findTopByPopularity(2));
+    }
+
+    /**
+     * Тест метода search: рестораны возвращаются в порядке релевантности, размер результата ограничивается.
+     */
+    @Test
+    void testSearch_returnsRestaurantsInRelevanceOrder() {
+        Restaurant first = createMockRestaurant();
+        first.setId(2);
+        Restaurant second = createMockRestaurant();
+
+        when(restaurantSearchIndex.search("ramen", RestaurantService.MAX_SEARCH_RESULTS)).thenReturn(List.of(2, 1));
+        when(restaurantRepository.findAllById(List.of(2, 1))).thenReturn(List.of(second, first));
+
+        assertEquals(List.of(first, second), restaurantService.search("ramen", 10_000));
+    }
+
+    /**
+     * Тест метода findNearby: рестораны возвращаются по возрастанию расстояния, радиус ограничивается.
+     */
+    @Test
+    void testFindNearby_returnsRestaurantsByDistance() {
+        Restaurant first = createMockRestaurant();
+        first.setId(2);
+        Restaurant second = createMockRestaurant();
+
+        when(restaurantGeoIndex.nearest(50.45, 30.52, RestaurantService.MAX_NEARBY_RADIUS_KM, 5))
+                .thenReturn(List.of(new GeoGrid.Hit(2, 0.3), new GeoGrid.Hit(1, 1.2)));
+        when(restaurantRepository.findAllById(List.of(2, 1))).thenReturn(List.of(second, first));
+
+        assertEquals(List.of(first, second), restaurantService.findNearby(50.45, 30.52, 10_000, 5));
+    }
+
     /**
      * Тест метода testUpdate в случае, когда ресторан не найден.
      */
@@ -108,6 +325,30 @@ class RestaurantServiceTest {
         verify(restaurantRepository, times(1)).save(mockRestaurant);
     }
 
+    /**
+     * Тест метода update: агрегаты отзывов не переносятся из запроса.
+     */
+    @Test
+    void testUpdate_keepsReviewAggregates() {
+        Restaurant existing = createMockRestaurant();
+        existing.setAvgRating(4.5);
+        existing.setReviewCount(2);
+        existing.setRatingSum(9);
+        Restaurant request = createMockRestaurant();
+        request.setAvgRating(1);
+        request.setName("Renamed");
+
+        when(restaurantRepository.findById(1)).thenReturn(Optional.of(existing));
+        when(restaurantRepository.save(existing)).thenReturn(existing);
+
+        Restaurant updated = restaurantService.update(1, request).orElseThrow();
+
+        assertEquals("Renamed", updated.getName());
+        assertEquals(4.5, updated.getAvgRating());
+        assertEquals(2, updated.getReviewCount());
+        assertEquals(9, updated.getRatingSum());
+    }
+
     /**
      * Создание макетного объекта ресторана для использования в тестах.
      *
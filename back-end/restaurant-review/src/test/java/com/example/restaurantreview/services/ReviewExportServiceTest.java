@@ -0,0 +1,99 @@
+package com.example.restaurantreview.services;
+
+import com.example.restaurantreview.models.ReviewSummary;
+import com.example.restaurantreview.repositories.ReviewRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit-тесты для класса ReviewExportService.
+ */
+@ExtendWith(MockitoExtension.class)
+class ReviewExportServiceTest {
+    @Mock
+    private ReviewRepository reviewRepository;
+
+    private ReviewExportService reviewExportService;
+
+    @BeforeEach
+    public void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        reviewExportService = new ReviewExportService(reviewRepository, objectMapper, false);
+    }
+
+    /**
+     * Тест полной выгрузки: по одному отзыву на строку, поток отзывов закрывается.
+     *
+     * @throws IOException если произошла ошибка ввода-вывода.
+     */
+    @Test
+    void testExport_writesOneReviewPerLine() throws IOException {
+        AtomicBoolean closed = new AtomicBoolean();
+        when(reviewRepository.streamAll()).thenReturn(Stream.of(
+                new ReviewSummary(1, "Great", 5, LocalDateTime.of(2024, 1, 1, 12, 0), 7, "Ann", null),
+                new ReviewSummary(2, "Line\nbreak", 3, LocalDateTime.of(2024, 1, 2, 12, 0), 7, "Bob", null)
+        ).onClose(() -> closed.set(true)));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        assertEquals(2, reviewExportService.export(null, output));
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n", -1);
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].startsWith("{\"id\":1,\"text\":\"Great\",\"rating\":5,\"creationDate\":\"2024-01-01T12:00:00\""));
+        // Перевод строки внутри текста экранируется и не разрывает запись
+        assertTrue(lines[1].contains("\"text\":\"Line\\nbreak\""));
+        assertEquals("", lines[2]);
+        assertTrue(closed.get());
+    }
+
+    /**
+     * Тест инкрементальной выгрузки по дате создания.
+     *
+     * @throws IOException если произошла ошибка ввода-вывода.
+     */
+    @Test
+    void testExport_since_usesIncrementalQuery() throws IOException {
+        LocalDateTime since = LocalDateTime.of(2024, 1, 1, 0, 0);
+        when(reviewRepository.streamSince(since)).thenReturn(Stream.empty());
+
+        assertEquals(0, reviewExportService.export(since, new ByteArrayOutputStream()));
+        verify(reviewRepository, never()).streamAll();
+    }
+
+    /**
+     * Тест выгрузки при мягком удалении ресторанов: отзывы читаются запросами,
+     * скрывающими отзывы ресторанов, помеченных удаленными.
+     *
+     * @throws IOException если произошла ошибка ввода-вывода.
+     */
+    @Test
+    void testExport_softDelete_usesVisibleQueries() throws IOException {
+        reviewExportService = new ReviewExportService(reviewRepository, new ObjectMapper(), true);
+        LocalDateTime since = LocalDateTime.of(2024, 1, 1, 0, 0);
+        when(reviewRepository.streamAllVisible()).thenReturn(Stream.empty());
+        when(reviewRepository.streamVisibleSince(since)).thenReturn(Stream.empty());
+
+        assertEquals(0, reviewExportService.export(null, new ByteArrayOutputStream()));
+        assertEquals(0, reviewExportService.export(since, new ByteArrayOutputStream()));
+        verify(reviewRepository, never()).streamAll();
+        verify(reviewRepository, never()).streamSince(any());
+    }
+}
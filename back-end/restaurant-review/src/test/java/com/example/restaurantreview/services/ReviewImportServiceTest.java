@@ -0,0 +1,194 @@
+package com.example.restaurantreview.services;
+
+import com.example.restaurantreview.events.ReviewChangedEvent;
+import com.example.restaurantreview.models.RatingHistogram;
+import com.example.restaurantreview.models.Restaurant;
+import com.example.restaurantreview.models.ReviewImportResult;
+import com.example.restaurantreview.repositories.RestaurantRepository;
+import com.example.restaurantreview.repositories.ReviewRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit-тесты для класса ReviewImportService.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ReviewImportServiceTest {
+    @Mock
+    private ReviewRepository reviewRepository;
+    @Mock
+    private RestaurantRepository restaurantRepository;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private ReviewImportService reviewImportService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        reviewImportService = new ReviewImportService(reviewRepository, restaurantRepository,
+                Validation.buildDefaultValidatorFactory().getValidator(), transactionTemplate, eventPublisher,
+                objectMapper, 2);
+
+        // Транзакция выполняет переданный код сразу
+        doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        when(restaurantRepository.getReferenceById(anyInt())).thenAnswer(invocation -> {
+            Restaurant restaurant = new Restaurant();
+            restaurant.setId(invocation.getArgument(0));
+            return restaurant;
+        });
+        when(restaurantRepository.findExistingIds(anyCollection())).thenReturn(List.of(1, 2));
+    }
+
+    /**
+     * Тест загрузки NDJSON: некорректные строки отклоняются, агрегаты обновляются один раз на ресторан в пакете.
+     *
+     * @throws IOException если произошла ошибка ввода-вывода.
+     */
+    @Test
+    void testImportNdjson_validatesRowsAndAggregatesPerBatch() throws IOException {
+        String ndjson = """
+                {"restaurantId":1,"text":"Great","rating":5,"authorName":"Ann","authorEmail":"ann@example.com"}
+                {"restaurantId":1,"text":"Good","rating":4,"authorName":"Bob"}
+                {"restaurantId":1,"text":"Too much","rating":7,"authorName":"Eve"}
+                {"restaurantId":9,"text":"Unknown","rating":3,"authorName":"Dan"}
+                {"restaurantId":2,"text":"Ok","rating":3,"authorName":"Kim","creationDate":"2023-05-01T12:00:00"}
+                """;
+
+        ReviewImportResult result = reviewImportService.importNdjson(stream(ndjson));
+
+        assertEquals(3, result.getImported());
+        assertEquals(2, result.getRejected());
+        assertEquals(List.of("row 3: rating: Rating must be at most 5", "row 4: restaurantId: Restaurant not found"),
+                result.getErrors());
+
+        // Первый пакет из двух строк ресторана 1 обновляет его агрегаты одним запросом
+        verify(restaurantRepository, times(1)).applyRatingDelta(1, new RatingHistogram(0, 0, 0, 1, 1));
+        verify(restaurantRepository, times(1)).applyRatingDelta(2, RatingHistogram.of(3));
+        verify(eventPublisher, times(1)).publishEvent(new ReviewChangedEvent(1, 2, 9));
+        verify(reviewRepository, times(2)).saveAll(anyList());
+    }
+
+    /**
+     * Тест загрузки CSV с заголовком.
+     *
+     * @throws IOException если произошла ошибка ввода-вывода.
+     */
+    @Test
+    void testImportCsv() throws IOException {
+        String csv = """
+                restaurantId,text,rating,authorName,authorEmail
+                2,"Tasty, cheap",5,Ann,ann@example.com
+                2,Fine,3,Bob,not-an-email
+                """;
+
+        ReviewImportResult result = reviewImportService.importCsv(stream(csv));
+
+        assertEquals(1, result.getImported());
+        assertEquals(List.of("row 2: authorEmail: Invalid email format"), result.getErrors());
+        verify(restaurantRepository, times(1)).applyRatingDelta(2, RatingHistogram.of(5));
+    }
+
+    /**
+     * Тест загрузки поврежденного потока: прочитанные строки сохраняются, загрузка прекращается.
+     *
+     * @throws IOException если произошла ошибка ввода-вывода.
+     */
+    @Test
+    void testImportNdjson_malformedInput_stopsAndKeepsReadRows() throws IOException {
+        String ndjson = """
+                {"restaurantId":1,"text":"Great","rating":5,"authorName":"Ann"}
+                {"restaurantId":1,"text":
+                """;
+
+        ReviewImportResult result = reviewImportService.importNdjson(stream(ndjson));
+
+        assertEquals(1, result.getImported());
+        assertEquals(1, result.getRejected());
+        assertTrue(result.getErrors().get(0).startsWith("row 2: Malformed input"));
+    }
+
+    /**
+     * Тест загрузки строки со значением неверного типа: отклоняется только эта строка.
+     *
+     * @throws IOException если произошла ошибка ввода-вывода.
+     */
+    @Test
+    void testImportNdjson_wrongValueType_rejectsOnlyThatRow() throws IOException {
+        String ndjson = """
+                {"restaurantId":1,"text":"Great","rating":"x","authorName":"Ann"}
+                {"restaurantId":1,"text":"Good","rating":4,"authorName":"Bob"}
+                {"restaurantId":2,"text":"Ok","rating":3,"authorName":"Kim"}
+                """;
+
+        ReviewImportResult result = reviewImportService.importNdjson(stream(ndjson));
+
+        assertEquals(2, result.getImported());
+        assertEquals(List.of("row 1: rating: Invalid value"), result.getErrors());
+        assertNull(result.getStoppedAtRow());
+    }
+
+    /**
+     * Тест ошибки базы данных в одном из пакетов: результат содержит только зафиксированные пакеты
+     * и строку, с которой загрузка прервана.
+     *
+     * @throws IOException если произошла ошибка ввода-вывода.
+     */
+    @Test
+    void testImportNdjson_databaseError_returnsCommittedProgress() throws IOException {
+        String ndjson = """
+                {"restaurantId":1,"text":"Great","rating":5,"authorName":"Ann"}
+                {"restaurantId":1,"text":"Too much","rating":7,"authorName":"Eve"}
+                {"restaurantId":2,"text":"Ok","rating":3,"authorName":"Kim"}
+                {"restaurantId":1,"text":"Unknown","rating":9,"authorName":"Dan"}
+                {"restaurantId":2,"text":"Fine","rating":4,"authorName":"Bob"}
+                """;
+        when(reviewRepository.saveAll(anyList()))
+                .thenAnswer(invocation -> invocation.getArgument(0))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+        ReviewImportResult result = reviewImportService.importNdjson(stream(ndjson));
+
+        // Отклонение строки 4 не учитывается: транзакция ее пакета откачена
+        assertEquals(1, result.getImported());
+        assertEquals(1, result.getRejected());
+        assertEquals(List.of("row 2: rating: Rating must be at most 5"), result.getErrors());
+        assertEquals(3, result.getStoppedAtRow());
+        verify(reviewRepository, times(2)).saveAll(anyList());
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,19 +1,31 @@
 package com.example.restaurantreview.services;
 
+import com.example.restaurantreview.events.ReviewChangedEvent;
+import com.example.restaurantreview.events.ReviewTextChangedEvent;
+import com.example.restaurantreview.models.MultiGetResult;
+import com.example.restaurantreview.models.RatingHistogram;
 import com.example.restaurantreview.models.Restaurant;
 import com.example.restaurantreview.models.Review;
+import com.example.restaurantreview.models.ReviewPage;
+import com.example.restaurantreview.models.ReviewSummary;
+import com.example.restaurantreview.repositories.RestaurantRepository;
 import com.example.restaurantreview.repositories.ReviewRepository;
+import com.example.restaurantreview.util.InvalidCursorException;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 
 import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -23,10 +35,19 @@ import static org.mockito.Mockito.*;
  */
 @ExtendWith(MockitoExtension.class)
 class ReviewServiceTest {
-    @InjectMocks
-    private ReviewService reviewService;
     @Mock
     private ReviewRepository reviewRepository;
+    @Mock
+    private RestaurantRepository restaurantRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private ReviewService reviewService;
+
+    @BeforeEach
+    public void setUp() {
+        reviewService = new ReviewService(reviewRepository, restaurantRepository, eventPublisher, false);
+    }
 
     /**
      * Тест метода save.
@@ -37,6 +58,11 @@ class ReviewServiceTest {
 
         when(reviewRepository.save(mockReview)).thenReturn(mockReview);
         assertEquals(mockReview, reviewService.save(mockReview));
+
+        // Агрегаты ресторана увеличиваются одним атомарным запросом
+        verify(restaurantRepository, times(1)).applyRatingDelta(0, RatingHistogram.of(3));
+        verify(eventPublisher, times(1)).publishEvent(new ReviewChangedEvent(0, 1, 3));
+        verify(eventPublisher, times(1)).publishEvent(new ReviewTextChangedEvent(0, null, "Text"));
     }
 
     /**
@@ -63,18 +89,136 @@ class ReviewServiceTest {
         assertEquals(mockReview, result.get());
     }
 
+    /**
+     * Тест метода findAllById: отзывы возвращаются в порядке запроса, повторы игнорируются,
+     * ненайденные идентификаторы перечисляются отдельно.
+     */
+    @Test
+    void testFindAllById_preservesOrderAndReportsMissing() {
+        Review first = createMockReview();
+        Review third = createMockReview();
+        third.setId(3);
+        when(reviewRepository.findAllById(Set.of(3, 2, 1))).thenReturn(List.of(first, third));
+
+        MultiGetResult<Review> result = reviewService.findAllById(List.of(3, 2, 1, 3));
+
+        assertEquals(List.of(third, first), result.getItems());
+        assertEquals(List.of(2), result.getMissing());
+    }
+
     /**
      * Тест метода findAll.
      */
     @Test
     void testFindAll() {
-        Review mockReview = createMockReview();
+        ReviewSummary mockReview = createMockReviewSummary(1);
 
-        List<Review> list = Collections.singletonList(mockReview);
+        List<ReviewSummary> list = Collections.singletonList(mockReview);
 
-        when(reviewRepository.findAll()).thenReturn(list);
+        // Список строится из проекции без загрузки ресторанов
+        when(reviewRepository.findAllSummaries()).thenReturn(list);
 
         assertEquals(list, reviewService.findAll());
+        // Без мягкого удаления ресторанов запрос не проверяет существование ресторана
+        verify(reviewRepository, never()).findAllVisibleSummaries();
+    }
+
+    /**
+     * Тест списков отзывов при мягком удалении ресторанов: используются запросы,
+     * скрывающие отзывы ресторанов, помеченных удаленными.
+     */
+    @Test
+    void testListings_softDelete_useVisibleQueries() {
+        reviewService = new ReviewService(reviewRepository, restaurantRepository, eventPublisher, true);
+        ReviewSummary first = createMockReviewSummary(1);
+        ReviewSummary second = createMockReviewSummary(2);
+        when(reviewRepository.findAllVisibleSummaries()).thenReturn(List.of(first));
+        when(reviewRepository.findVisibleByRestaurantIdOrderByCreationDateDesc(0)).thenReturn(List.of(first));
+        when(reviewRepository.findVisibleFirstPage(Limit.of(2))).thenReturn(Arrays.asList(first, second));
+        when(reviewRepository.findVisiblePageAfter(first.getCreationDate(), first.getId(), Limit.of(2)))
+                .thenReturn(List.of(second));
+        when(reviewRepository.findVisibleFirstPageByRestaurantId(0, Limit.of(2))).thenReturn(List.of(first));
+
+        assertEquals(List.of(first), reviewService.findAll());
+        assertEquals(List.of(first), reviewService.findAllByRestaurantId(0));
+        ReviewPage page = reviewService.findPage(null, 1);
+        assertEquals(List.of(second), reviewService.findPage(page.getNext(), 1).getItems());
+        assertEquals(List.of(first), reviewService.findPageByRestaurantId(0, null, 1).getItems());
+
+        verify(reviewRepository, never()).findAllSummaries();
+        verify(reviewRepository, never()).findAllByRestaurantIdOrderByCreationDateDesc(anyInt());
+        verify(reviewRepository, never()).findFirstPage(any());
+        verify(reviewRepository, never()).findPageAfter(any(), anyInt(), any());
+        verify(reviewRepository, never()).findFirstPageByRestaurantId(anyInt(), any());
+    }
+
+    /**
+     * Тест метода findPage: при наличии лишнего отзыва возвращается курсор следующей страницы.
+     */
+    @Test
+    void testFindPage_hasMore_returnsNextCursor() {
+        ReviewSummary first = createMockReviewSummary(1);
+        ReviewSummary second = createMockReviewSummary(2);
+
+        when(reviewRepository.findFirstPage(Limit.of(2))).thenReturn(Arrays.asList(first, second));
+
+        ReviewPage page = reviewService.findPage(null, 1);
+
+        assertEquals(List.of(first), page.getItems());
+        assertNotNull(page.getNext());
+
+        // Следующая страница запрашивается по ключу последнего отзыва
+        when(reviewRepository.findPageAfter(first.getCreationDate(), first.getId(), Limit.of(2)))
+                .thenReturn(List.of(second));
+
+        ReviewPage nextPage = reviewService.findPage(page.getNext(), 1);
+
+        assertEquals(List.of(second), nextPage.getItems());
+        assertNull(nextPage.getNext());
+    }
+
+    /**
+     * Тест метода findPageByRestaurantId: размер страницы ограничивается максимальным значением.
+     */
+    @Test
+    void testFindPageByRestaurantId_limitTooLarge_isClamped() {
+        when(reviewRepository.findFirstPageByRestaurantId(1, Limit.of(ReviewService.MAX_PAGE_SIZE + 1)))
+                .thenReturn(Collections.emptyList());
+
+        ReviewPage page = reviewService.findPageByRestaurantId(1, null, 10_000);
+
+        assertTrue(page.getItems().isEmpty());
+        assertNull(page.getNext());
+    }
+
+    /**
+     * Тест метода findPage с поврежденным курсором.
+     */
+    @Test
+    void testFindPage_invalidCursor_throwsException() {
+        assertThrows(InvalidCursorException.class, () -> reviewService.findPage("not-a-cursor", 10));
+    }
+
+    /**
+     * Тест метода findPage для отзыва без даты создания: курсор кодируется и продолжает страницы
+     * с оставшихся отзывов без даты.
+     */
+    @Test
+    void testFindPage_undatedReview_continuesFromUndatedCursor() {
+        ReviewSummary first = new ReviewSummary(5, "Text", 3, null, 0, "John Doe", "john@example.com");
+        ReviewSummary second = createMockReviewSummary(2);
+
+        when(reviewRepository.findFirstPage(Limit.of(2))).thenReturn(Arrays.asList(first, second));
+
+        ReviewPage page = reviewService.findPage(null, 1);
+
+        assertEquals(List.of(first), page.getItems());
+        when(reviewRepository.findPageAfterUndated(5, Limit.of(2))).thenReturn(List.of(second));
+
+        ReviewPage nextPage = reviewService.findPage(page.getNext(), 1);
+
+        assertEquals(List.of(second), nextPage.getItems());
+        verify(reviewRepository, never()).findPageAfter(any(), anyInt(), any());
     }
 
     /**
@@ -110,6 +254,74 @@ class ReviewServiceTest {
         verify(reviewRepository, times(1)).save(mockReview);
     }
 
+    /**
+     * Тест метода update: изменение оценки переносит отзыв из счетчика старой оценки в счетчик новой.
+     */
+    @Test
+    void testUpdate_ratingChanged_appliesRatingDifference() {
+        Review existingReview = createMockReview();
+        Review newReview = createMockReview();
+        newReview.setRestaurant(existingReview.getRestaurant());
+        newReview.setRating(5);
+
+        when(reviewRepository.findById(1)).thenReturn(Optional.of(existingReview));
+        when(reviewRepository.save(existingReview)).thenReturn(existingReview);
+
+        reviewService.update(1, newReview);
+
+        verify(restaurantRepository, times(1)).applyRatingDelta(0, new RatingHistogram(0, 0, -1, 0, 1));
+        verifyNoMoreInteractions(restaurantRepository);
+    }
+
+    /**
+     * Тест метода update: если ресторан не передан, отзыв остается в прежнем ресторане.
+     */
+    @Test
+    void testUpdate_restaurantMissing_keepsExistingRestaurant() {
+        Review existingReview = createMockReview();
+        Restaurant restaurant = existingReview.getRestaurant();
+        Review newReview = createMockReview();
+        newReview.setRestaurant(null);
+        newReview.setRating(4);
+
+        when(reviewRepository.findById(1)).thenReturn(Optional.of(existingReview));
+        when(reviewRepository.save(existingReview)).thenReturn(existingReview);
+
+        reviewService.update(1, newReview);
+
+        assertSame(restaurant, existingReview.getRestaurant());
+        verify(restaurantRepository, times(1)).applyRatingDelta(0, new RatingHistogram(0, 0, -1, 1, 0));
+        verifyNoMoreInteractions(restaurantRepository);
+    }
+
+    /**
+     * Тест метода deleteById: вклад удаленного отзыва вычитается из агрегатов ресторана.
+     */
+    @Test
+    void testDeleteById_found_subtractsRating() {
+        Review mockReview = createMockReview();
+
+        when(reviewRepository.findById(1)).thenReturn(Optional.of(mockReview));
+
+        reviewService.deleteById(1);
+
+        verify(reviewRepository, times(1)).delete(mockReview);
+        verify(restaurantRepository, times(1)).applyRatingDelta(0, new RatingHistogram(0, 0, -1, 0, 0));
+    }
+
+    /**
+     * Тест метода deleteById в случае, когда отзыв не найден.
+     */
+    @Test
+    void testDeleteById_notFound_doesNothing() {
+        when(reviewRepository.findById(1)).thenReturn(Optional.empty());
+
+        reviewService.deleteById(1);
+
+        verify(reviewRepository, never()).delete(any(Review.class));
+        verifyNoInteractions(restaurantRepository);
+    }
+
     /**
      * Создание макетного объекта ресторана для использования в тестах.
      *
@@ -126,4 +338,14 @@ class ReviewServiceTest {
         mockReview.setCreationDate(LocalDateTime.now());
         return mockReview;
     }
-}
\ No newline at end of file
+
+    /**
+     * Создает облегченное представление отзыва для тестов списков.
+     *
+     * @param id идентификатор отзыва.
+     * @return представление отзыва.
+     */
+    private ReviewSummary createMockReviewSummary(int id) {
+        return new ReviewSummary(id, "Text", 3, LocalDateTime.now(), 0, "John Doe", "john@example.com");
+    }
+}
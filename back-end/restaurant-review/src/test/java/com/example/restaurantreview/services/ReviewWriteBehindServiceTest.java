@@ -0,0 +1,181 @@
+package com.example.restaurantreview.services;
+
+import com.example.restaurantreview.events.ReviewChangedEvent;
+import com.example.restaurantreview.models.RatingHistogram;
+import com.example.restaurantreview.models.Restaurant;
+import com.example.restaurantreview.models.Review;
+import com.example.restaurantreview.models.ReviewSubmission;
+import com.example.restaurantreview.repositories.RestaurantRepository;
+import com.example.restaurantreview.repositories.ReviewRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit-тесты для класса ReviewWriteBehindService.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ReviewWriteBehindServiceTest {
+    @Mock
+    private ReviewRepository reviewRepository;
+    @Mock
+    private RestaurantRepository restaurantRepository;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private ReviewWriteBehindService reviewWriteBehindService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        reviewWriteBehindService = new ReviewWriteBehindService(reviewRepository, restaurantRepository,
+                transactionTemplate, eventPublisher, 2, 10, Duration.ofSeconds(30));
+
+        // Транзакция выполняет переданный код сразу
+        doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        when(restaurantRepository.getReferenceById(anyInt())).thenAnswer(invocation -> {
+            Restaurant restaurant = new Restaurant();
+            restaurant.setId(invocation.getArgument(0));
+            return restaurant;
+        });
+    }
+
+    /**
+     * Тест приема отзывов: отзывы не принимаются до запуска и после остановки.
+     */
+    @Test
+    void testSubmit_rejectsWhenNotRunning() {
+        assertTrue(reviewWriteBehindService.submit(1, createReview(5)).isEmpty());
+
+        reviewWriteBehindService.start();
+        reviewWriteBehindService.stop();
+        assertTrue(reviewWriteBehindService.submit(1, createReview(5)).isEmpty());
+    }
+
+    /**
+     * Тест сохранения пакета: одна пакетная вставка, одно обновление агрегатов на ресторан,
+     * отзывы удаленных ресторанов отклоняются.
+     */
+    @Test
+    void testWriteBatch_savesBatchAndAggregatesPerRestaurant() {
+        when(restaurantRepository.findExistingIds(anyCollection())).thenReturn(List.of(1));
+        List<ReviewWriteBehindService.PendingReview> batch = List.of(
+                new ReviewWriteBehindService.PendingReview("a", 1, createReview(5)),
+                new ReviewWriteBehindService.PendingReview("b", 1, createReview(3)),
+                new ReviewWriteBehindService.PendingReview("c", 2, createReview(4)));
+
+        reviewWriteBehindService.writeBatch(batch);
+
+        verify(reviewRepository, times(1)).saveAll(argThat(reviews -> ((List<?>) reviews).size() == 2));
+        verify(restaurantRepository, times(1)).applyRatingDelta(1, new RatingHistogram(0, 0, 1, 0, 1));
+        verify(restaurantRepository, never()).applyRatingDelta(eq(2), any(RatingHistogram.class));
+        verify(eventPublisher).publishEvent(new ReviewChangedEvent(1, 2, 8));
+        assertEquals(ReviewSubmission.Status.SAVED,
+                reviewWriteBehindService.findSubmission("a").orElseThrow().getStatus());
+        assertEquals(ReviewSubmission.Status.REJECTED,
+                reviewWriteBehindService.findSubmission("c").orElseThrow().getStatus());
+    }
+
+    /**
+     * Тест полного цикла: принятые отзывы сохраняются потоком записи, остановка дожидается опустошения очереди.
+     */
+    @Test
+    void testStop_drainsQueue() {
+        when(restaurantRepository.findExistingIds(anyCollection())).thenReturn(List.of(1));
+        reviewWriteBehindService.start();
+        ReviewSubmission first = reviewWriteBehindService.submit(1, createReview(5)).orElseThrow();
+        reviewWriteBehindService.submit(1, createReview(4));
+
+        reviewWriteBehindService.stop();
+
+        assertEquals(0, reviewWriteBehindService.getQueueSize());
+        assertEquals(ReviewSubmission.Status.SAVED,
+                reviewWriteBehindService.findSubmission(first.getTrackingId()).orElseThrow().getStatus());
+        verify(restaurantRepository, atLeastOnce()).applyRatingDelta(eq(1), any(RatingHistogram.class));
+    }
+
+    /**
+     * Тест ошибки сохранения пакета: отзывы сохраняются по одному, неудачным отмечается только отзыв с ошибкой.
+     */
+    @Test
+    void testWriteBatch_failure_retriesRowByRow() {
+        when(restaurantRepository.findExistingIds(anyCollection())).thenReturn(List.of(1));
+        Review broken = createReview(4);
+        when(reviewRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Review> reviews = invocation.getArgument(0);
+            if (reviews.contains(broken)) {
+                throw new DataIntegrityViolationException("value too long");
+            }
+            return reviews;
+        });
+        broken.setText("Broken");
+        List<ReviewWriteBehindService.PendingReview> batch = List.of(
+                new ReviewWriteBehindService.PendingReview("a", 1, createReview(5)),
+                new ReviewWriteBehindService.PendingReview("b", 1, broken),
+                new ReviewWriteBehindService.PendingReview("c", 1, createReview(3)));
+
+        reviewWriteBehindService.writeBatch(batch);
+
+        verify(reviewRepository, times(4)).saveAll(anyList());
+        assertEquals(ReviewSubmission.Status.SAVED,
+                reviewWriteBehindService.findSubmission("a").orElseThrow().getStatus());
+        assertEquals(ReviewSubmission.Status.FAILED,
+                reviewWriteBehindService.findSubmission("b").orElseThrow().getStatus());
+        assertEquals(ReviewSubmission.Status.SAVED,
+                reviewWriteBehindService.findSubmission("c").orElseThrow().getStatus());
+    }
+
+    /**
+     * Тест остановки: ожидание сохранения очереди ограничено тайм-аутом фазы остановки.
+     */
+    @Test
+    void testStop_waitsAtMostShutdownTimeout() {
+        reviewWriteBehindService = new ReviewWriteBehindService(reviewRepository, restaurantRepository,
+                transactionTemplate, eventPublisher, 2, 10, Duration.ofMillis(100));
+        CountDownLatch release = new CountDownLatch(1);
+        when(restaurantRepository.findExistingIds(anyCollection())).thenAnswer(invocation -> {
+            release.await();
+            return List.of(1);
+        });
+        reviewWriteBehindService.start();
+        reviewWriteBehindService.submit(1, createReview(5));
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> reviewWriteBehindService.stop());
+
+        release.countDown();
+    }
+
+    private Review createReview(int rating) {
+        Review review = new Review();
+        review.setText("Text");
+        review.setRating(rating);
+        review.setAuthorName("John Doe");
+        review.setAuthorEmail("john@example.com");
+        review.setCreationDate(LocalDateTime.now());
+        return review;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.restaurantreview.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit-тесты для класса GeoGrid.
+ */
+class GeoGridTest {
+
+    /**
+     * Тест расстояния по большому кругу: Киев - Львов около 468 км.
+     */
+    @Test
+    void testDistanceKm() {
+        assertEquals(468, GeoGrid.distanceKm(50.4501, 30.5234, 49.8397, 24.0297), 5);
+        assertEquals(0, GeoGrid.distanceKm(10, 20, 10, 20), 1e-9);
+    }
+
+    /**
+     * Тест поиска: результат совпадает с полным перебором точек, включая переход через линию смены дат.
+     */
+    @Test
+    void testNearest_matchesBruteForce() {
+        GeoGrid grid = new GeoGrid(0.05);
+        Random random = new Random(7);
+        double[][] points = new double[2000][];
+        for (int i = 0; i < points.length; i++) {
+            // Половина точек - около Киева, половина - по обе стороны от долготы 180
+            points[i] = i % 2 == 0
+                    ? new double[]{50.45 + random.nextGaussian() * 0.2, 30.52 + random.nextGaussian() * 0.3}
+                    : new double[]{-17 + random.nextGaussian() * 0.2, wrap(180 + random.nextGaussian() * 0.3)};
+            grid.put(i, points[i][0], points[i][1]);
+        }
+
+        assertEquals(bruteForce(points, 50.45, 30.52, 5, 10), ids(grid.nearest(50.45, 30.52, 5, 10)));
+        assertEquals(bruteForce(points, 50.45, 30.52, 50, 1000), ids(grid.nearest(50.45, 30.52, 50, 1000)));
+        assertEquals(bruteForce(points, -17, 179.99, 20, 15), ids(grid.nearest(-17, 179.99, 20, 15)));
+    }
+
+    /**
+     * Тест изменения индекса: перемещенная точка ищется по новым координатам, удаленная не находится.
+     */
+    @Test
+    void testPutAndRemove() {
+        GeoGrid grid = new GeoGrid(0.05);
+        grid.put(1, 50.45, 30.52);
+        grid.put(2, 50.46, 30.53);
+
+        grid.put(1, 49.84, 24.03);
+        assertEquals(List.of(2), ids(grid.nearest(50.45, 30.52, 10, 10)));
+        assertEquals(List.of(1), ids(grid.nearest(49.84, 24.03, 10, 10)));
+
+        grid.remove(2);
+        assertTrue(grid.nearest(50.45, 30.52, 10, 10).isEmpty());
+        assertEquals(1, grid.size());
+    }
+
+    private static List<Integer> bruteForce(double[][] points, double latitude, double longitude, double radiusKm,
+                                            int limit) {
+        List<GeoGrid.Hit> hits = new ArrayList<>();
+        for (int i = 0; i < points.length; i++) {
+            double distance = GeoGrid.distanceKm(latitude, longitude, points[i][0], points[i][1]);
+            if (distance <= radiusKm) {
+                hits.add(new GeoGrid.Hit(i, distance));
+            }
+        }
+        hits.sort(Comparator.comparingDouble(GeoGrid.Hit::distanceKm).thenComparingInt(GeoGrid.Hit::id));
+        return ids(hits.subList(0, Math.min(limit, hits.size())));
+    }
+
+    private static List<Integer> ids(List<GeoGrid.Hit> hits) {
+        return hits.stream().map(GeoGrid.Hit::id).toList();
+    }
+
+    private static double wrap(double longitude) {
+        return longitude > 180 ? longitude - 360 : longitude;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.restaurantreview.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit-тесты для класса SqlStatistics.
+ */
+class SqlStatisticsTest {
+
+    /**
+     * Тест вложенных областей: запрос учитывается во всех открытых областях, закрытие восстанавливает внешнюю.
+     */
+    @Test
+    void testNestedScopes_countStatementsInAllOpenScopes() {
+        try (SqlStatistics.Scope request = SqlStatistics.open("request")) {
+            SqlStatistics.statementStarted();
+            SqlStatistics.statementFinished(10);
+            try (SqlStatistics.Scope repository = SqlStatistics.open("repository")) {
+                SqlStatistics.statementStarted();
+                SqlStatistics.statementFinished(5);
+                assertEquals(1, repository.getStatements());
+                assertEquals(5, repository.getNanos());
+            }
+            SqlStatistics.statementStarted();
+
+            assertEquals(3, request.getStatements());
+            assertEquals(15, request.getNanos());
+        }
+
+        // Вне областей запросы не учитываются
+        SqlStatistics.statementStarted();
+    }
+
+    /**
+     * Тест бюджета с отказом: запрос сверх бюджета прерывается исключением.
+     */
+    @Test
+    void testBudget_failOnExceed_throws() {
+        try (SqlStatistics.Scope scope = SqlStatistics.open("GET /api/reviews", 2, true)) {
+            SqlStatistics.statementStarted();
+            SqlStatistics.statementStarted();
+            assertFalse(scope.isOverBudget());
+
+            QueryBudgetExceededException e = assertThrows(QueryBudgetExceededException.class,
+                    SqlStatistics::statementStarted);
+            assertTrue(e.getMessage().contains("GET /api/reviews"));
+        }
+    }
+
+    /**
+     * Тест бюджета без отказа: превышение только отмечается в области.
+     */
+    @Test
+    void testBudget_withoutFail_marksOverBudget() {
+        try (SqlStatistics.Scope scope = SqlStatistics.open("GET /api/restaurants", 1, false)) {
+            SqlStatistics.statementStarted();
+            SqlStatistics.statementStarted();
+            assertTrue(scope.isOverBudget());
+            assertEquals(2, scope.getStatements());
+        }
+    }
+}
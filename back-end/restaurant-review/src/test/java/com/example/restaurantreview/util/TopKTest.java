@@ -0,0 +1,43 @@
+package com.example.restaurantreview.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit-тесты для класса TopK.
+ */
+class TopKTest {
+
+    /**
+     * Тест отбора: результат совпадает с началом полностью отсортированной коллекции.
+     */
+    @Test
+    void testSelect_matchesFullSort() {
+        Random random = new Random(11);
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            items.add(random.nextInt(10_000));
+        }
+        Comparator<Integer> descending = Comparator.reverseOrder();
+        List<Integer> sorted = items.stream().sorted(descending).toList();
+
+        for (int k : new int[]{1, 10, 999, 1000, 5000}) {
+            assertEquals(sorted.subList(0, Math.min(k, sorted.size())), TopK.select(items, descending, k));
+        }
+    }
+
+    /**
+     * Тест граничных случаев: пустая коллекция и неположительное количество.
+     */
+    @Test
+    void testSelect_emptyResult() {
+        assertEquals(List.of(), TopK.select(List.of(), Comparator.<Integer>naturalOrder(), 5));
+        assertEquals(List.of(), TopK.select(List.of(3, 1, 2), Comparator.<Integer>naturalOrder(), 0));
+    }
+}
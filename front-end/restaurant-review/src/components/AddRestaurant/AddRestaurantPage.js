@@ -86,44 +86,43 @@ function AddRestaurantPage() {
       const formData = new FormData();
       formData.append('file', selectedFile);
 
-      // Отправляем информацию о ресторане на сервер
-      const restaurantData = {
-        name,
-        description,
-        location,
-        cuisine,
-        priceRange,
-        photo: selectedFile.name,
-      };
-
-      fetch('http://localhost:8080/api/restaurants', {
+      // Сначала загружаем фото: сервер сохраняет его под именем, производным от содержимого
+      fetch('http://localhost:8080/resources/restaurant-photos', {
         method: 'POST',
-        headers: {
-          'Content-Type': 'application/json',
-        },
-        body: JSON.stringify(restaurantData),
+        body: formData,
       })
+        .then(photoResponse => {
+          if (!photoResponse.ok) {
+            throw new Error('Failed to upload photo');
+          }
+          console.log('Photo uploaded successfully');
+          return photoResponse.json();
+        })
+        .then(({ photo }) => {
+          // Отправляем информацию о ресторане на сервер
+          const restaurantData = {
+            name,
+            description,
+            location,
+            cuisine,
+            priceRange,
+            photo,
+          };
+
+          return fetch('http://localhost:8080/api/restaurants', {
+            method: 'POST',
+            headers: {
+              'Content-Type': 'application/json',
+            },
+            body: JSON.stringify(restaurantData),
+          });
+        })
         .then(restaurantResponse => {
           if (!restaurantResponse.ok) {
             throw new Error('Failed to add restaurant');
           }
           console.log('Restaurant added successfully');
-
-          // После успешного сохранения ресторана, загружаем фото
-          fetch('http://localhost:8080/resources/restaurant-photos', {
-            method: 'POST',
-            body: formData,
-          })
-            .then(photoResponse => {
-              if (!photoResponse.ok) {
-                throw new Error('Failed to upload photo');
-              }
-              console.log('Photo uploaded successfully');
-              navigate('/catalog');
-            })
-            .catch(error => {
-              console.error('Error uploading photo:', error);
-            });
+          navigate('/catalog');
         })
         .catch(error => {
           console.error('Error adding restaurant:', error);
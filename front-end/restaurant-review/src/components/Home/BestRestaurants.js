@@ -1,31 +1,8 @@
-import React, { useEffect, useState } from 'react';
+import React from 'react';
 import { Box, Flex, Heading, Text } from '@chakra-ui/react';
 import RestaurantCard from './RestaurantCard';
 
-function BestRestaurants() {
-  const [bestRestaurants, setBestRestaurants] = useState([]);
-
-  useEffect(() => {
-    async function fetchBestRestaurants() {
-      try {
-        const response = await fetch(
-          'http://localhost:8080/api/restaurants?sortBy=avgRating&sortOrder=desc'
-        );
-
-        if (!response.ok) {
-          throw new Error('Network response was not ok');
-        }
-        const data = await response.json();
-
-        const topThreeRestaurants = data.slice(0, 3);
-        setBestRestaurants(topThreeRestaurants);
-      } catch (error) {
-        console.error('Error fetching best restaurants:', error);
-      }
-    }
-    fetchBestRestaurants();
-  }, []);
-
+function BestRestaurants({ restaurants }) {
   return (
     <Box>
       <Heading as="h1" size="lg" mt="8">
@@ -36,7 +13,7 @@ function BestRestaurants() {
       </Text>
 
       <Flex flexWrap="wrap">
-        {bestRestaurants.map(restaurant => (
+        {restaurants.map(restaurant => (
           <RestaurantCard
             key={restaurant.id}
             id={restaurant.id}
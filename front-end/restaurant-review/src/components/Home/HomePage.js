@@ -1,4 +1,4 @@
-import React from 'react';
+import React, { useEffect, useState } from 'react';
 import { Box } from '@chakra-ui/react';
 import Header from '../Header';
 import Footer from '../Footer';
@@ -7,14 +7,35 @@ import ChooseCuisine from './ChooseCuisine';
 import PopularRestaurants from './PopularRestaurants';
 
 function HomePage() {
+  const [homePage, setHomePage] = useState({
+    bestRestaurants: [],
+    popularRestaurants: [],
+  });
+
+  useEffect(() => {
+    async function fetchHomePage() {
+      try {
+        const response = await fetch('http://localhost:8080/api/home?limit=3');
+
+        if (!response.ok) {
+          throw new Error('Network response was not ok');
+        }
+        setHomePage(await response.json());
+      } catch (error) {
+        console.error('Error fetching home page:', error);
+      }
+    }
+    fetchHomePage();
+  }, []);
+
   return (
     <Box>
       <Header />
       <Box maxWidth="1200px" mx="auto" minH="calc(100vh - 17em)">
         <Box ml="4" mr="4">
           <ChooseCuisine />
-          <BestRestaurants />
-          <PopularRestaurants />
+          <BestRestaurants restaurants={homePage.bestRestaurants} />
+          <PopularRestaurants restaurants={homePage.popularRestaurants} />
         </Box>
       </Box>
       <Footer />
@@ -1,31 +1,8 @@
-import React, { useEffect, useState } from 'react';
+import React from 'react';
 import { Box, Flex, Heading, Text } from '@chakra-ui/react';
 import RestaurantCard from './RestaurantCard';
 
-function PopularRestaurants() {
-  const [popularRestaurants, setPopularRestaurants] = useState([]);
-
-  useEffect(() => {
-    async function fetchPopularRestaurants() {
-      try {
-        const response = await fetch(
-          'http://localhost:8080/api/restaurants/popular'
-        );
-
-        if (!response.ok) {
-          throw new Error('Network response was not ok');
-        }
-        const data = await response.json();
-
-        const topThreeRestaurants = data.slice(0, 3);
-        setPopularRestaurants(topThreeRestaurants);
-      } catch (error) {
-        console.error('Error fetching popular restaurants:', error);
-      }
-    }
-    fetchPopularRestaurants();
-  }, []);
-
+function PopularRestaurants({ restaurants }) {
   return (
     <Box>
       <Heading as="h1" size="lg" mt="8">
@@ -36,7 +13,7 @@ function PopularRestaurants() {
       </Text>
 
       <Flex flexWrap="wrap">
-        {popularRestaurants.map(restaurant => (
+        {restaurants.map(restaurant => (
           <RestaurantCard
             key={restaurant.id}
             id={restaurant.id}
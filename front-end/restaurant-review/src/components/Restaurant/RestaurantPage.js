@@ -11,6 +11,7 @@ import {
   AlertTitle,
   AlertDescription,
   Button,
+  Progress,
 } from '@chakra-ui/react';
 import {
   FaUtensils,
@@ -205,6 +206,30 @@ function RestaurantPage() {
                           : '(Ужасно)'
                       }`}
                 </Text>
+                {restaurant.reviewCount > 0 &&
+                  restaurant.ratingHistogram &&
+                  [
+                    [5, restaurant.ratingHistogram.fiveStars],
+                    [4, restaurant.ratingHistogram.fourStars],
+                    [3, restaurant.ratingHistogram.threeStars],
+                    [2, restaurant.ratingHistogram.twoStars],
+                    [1, restaurant.ratingHistogram.oneStar],
+                  ].map(([stars, count]) => (
+                    <Flex key={stars} align="center" mt="1">
+                      <Text w="4">{stars}</Text>
+                      <Progress
+                        value={(count * 100) / restaurant.reviewCount}
+                        colorScheme="yellow"
+                        size="sm"
+                        borderRadius="md"
+                        flex="1"
+                        mx="2"
+                      />
+                      <Text w="8" textAlign="right">
+                        {count}
+                      </Text>
+                    </Flex>
+                  ))}
               </Box>
               <Box>
                 <Flex align="center">